@@ -22,6 +22,9 @@ plugins {
     id("org.jlleitschuh.gradle.ktlint") version "10.3.0"
 
     id("jacoco")
+
+    // JMH benchmarks (within `src/jmh`) - read more: https://github.com/melix/jmh-gradle-plugin
+    id("me.champeau.jmh") version "0.6.6"
 }
 
 idea {
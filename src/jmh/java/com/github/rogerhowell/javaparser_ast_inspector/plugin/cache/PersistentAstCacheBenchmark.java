@@ -0,0 +1,98 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.cache;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.ParserConfigurationUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares reading a parse result back from the persistent cache against parsing the same source afresh -- the cache
+ * is only worthwhile while a hit is (substantially) cheaper than the parse it replaces.
+ *
+ * Run using {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistentAstCacheBenchmark {
+
+    /**
+     * The number of methods in the generated class -- each has a handful of statements with nested expressions.
+     */
+    @Param({"100", "1000"})
+    public int methodCount;
+
+    private PersistentAstCache  cache;
+    private ParserConfiguration configuration;
+    private Path                directory;
+    private String              key;
+    private String              source;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        final StringBuilder source = new StringBuilder("class Generated {\n");
+        for (int i = 0; i < this.methodCount; i++) {
+            source.append("    int method").append(i).append("(int a, String b) {\n")
+                  .append("        if (a > ").append(i).append(" && b != null) {\n")
+                  .append("            return ((a * 2) + (a / 3) - (a % 4)) * method").append(i).append("(a - 1, b + \"\\\\\");\n")
+                  .append("        }\n")
+                  .append("        for (int j = 0; j < a; j++) { b = b.trim().concat(String.valueOf(j)); }\n")
+                  .append("        return new java.util.ArrayList<String>(a).size();\n")
+                  .append("    }\n");
+        }
+        source.append("}\n");
+        this.source = source.toString();
+
+        this.configuration = new ParserConfiguration();
+        this.directory = Files.createTempDirectory("ast-cache-benchmark");
+        this.cache = new PersistentAstCache(this.directory, Long.MAX_VALUE);
+        this.key = PersistentAstCache.key(ParserConfigurationUtil.fingerprint(this.configuration), this.source);
+        this.cache.put(this.key, new JavaParser(this.configuration).parse(this.source));
+    }
+
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+
+    @Benchmark
+    public Optional<ParseResult<CompilationUnit>> cacheHit() {
+        return this.cache.get(this.key);
+    }
+
+
+    @Benchmark
+    public ParseResult<CompilationUnit> freshParse() {
+        return new JavaParser(this.configuration).parse(this.source);
+    }
+
+}
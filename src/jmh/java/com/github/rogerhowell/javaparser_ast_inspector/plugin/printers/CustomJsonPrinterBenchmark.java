@@ -0,0 +1,144 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.metamodel.NodeMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the JSON printer against the previous approach of building a list of strings per node and joining them,
+ * which re-copies the text of every descendant at each level of the tree.
+ *
+ * Run using {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomJsonPrinterBenchmark {
+
+    /**
+     * The number of methods in the generated class -- each has a handful of statements with nested expressions.
+     */
+    @Param({"100", "1000"})
+    public int methodCount;
+
+    private CompilationUnit compilationUnit;
+
+
+    @Setup
+    public void setUp() {
+        final StringBuilder source = new StringBuilder("class Generated {\n");
+        for (int i = 0; i < this.methodCount; i++) {
+            source.append("    int method").append(i).append("(int a, String b) {\n")
+                  .append("        if (a > ").append(i).append(" && b != null) {\n")
+                  .append("            return ((a * 2) + (a / 3) - (a % 4)) * method").append(i).append("(a - 1, b + \"\\\\\");\n")
+                  .append("        }\n")
+                  .append("        for (int j = 0; j < a; j++) { b = b.trim().concat(String.valueOf(j)); }\n")
+                  .append("        return new java.util.ArrayList<String>(a).size();\n")
+                  .append("    }\n");
+        }
+        source.append("}\n");
+
+        this.compilationUnit = StaticJavaParser.parse(source.toString());
+    }
+
+
+    @Benchmark
+    public String joining() {
+        return new JoiningJsonPrinter().output(this.compilationUnit, null);
+    }
+
+
+    @Benchmark
+    public String singleBuffer() {
+        return new CustomJsonPrinter(true).output(this.compilationUnit);
+    }
+
+
+    @Benchmark
+    public Writer streamed() throws IOException {
+        final Writer writer = Writer.nullWriter();
+        new CustomJsonPrinter(true).output(this.compilationUnit, writer);
+        return writer;
+    }
+
+
+    /**
+     * The previous implementation of {@link CustomJsonPrinter} (less the object creation extra), kept as
+     * the baseline.
+     */
+    private static final class JoiningJsonPrinter {
+
+        private static String q(final String value) {
+            return "\"" + value.replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r") + "\"";
+        }
+
+
+        String output(final Node node, final String name) {
+            final NodeMetaModel           metaModel             = node.getMetaModel();
+            final List<PropertyMetaModel> allPropertyMetaModels = metaModel.getAllPropertyMetaModels();
+            final List<PropertyMetaModel> attributes            = allPropertyMetaModels.stream().filter(PropertyMetaModel::isAttribute).filter(PropertyMetaModel::isSingular).collect(Collectors.toList());
+            final List<PropertyMetaModel> subNodes              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNode).filter(PropertyMetaModel::isSingular).collect(Collectors.toList());
+            final List<PropertyMetaModel> subLists              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNodeList).collect(Collectors.toList());
+
+            final List<String> content = new ArrayList<>();
+            content.add(q("_type") + ":" + q(metaModel.getTypeName()));
+
+            for (final PropertyMetaModel attributeMetaModel : attributes) {
+                content.add(q(attributeMetaModel.getName()) + ":" + q(attributeMetaModel.getValue(node).toString()));
+            }
+
+            if (node.getRange().isPresent()) {
+                content.add(q("_start_line") + ":" + node.getRange().get().begin.line);
+                content.add(q("_start_column") + ":" + node.getRange().get().begin.column);
+                content.add(q("_end_line") + ":" + node.getRange().get().end.line);
+                content.add(q("_end_column") + ":" + node.getRange().get().end.column);
+            }
+
+            for (final PropertyMetaModel subNodeMetaModel : subNodes) {
+                final Node value = (Node) subNodeMetaModel.getValue(node);
+                if (value != null) {
+                    content.add(this.output(value, subNodeMetaModel.getName()));
+                }
+            }
+
+            for (final PropertyMetaModel subListMetaModel : subLists) {
+                final NodeList<? extends Node> subList = (NodeList<? extends Node>) subListMetaModel.getValue(node);
+                if (subList != null && !subList.isEmpty()) {
+                    final List<String> listContent = new ArrayList<>();
+                    for (final Node subListNode : subList) {
+                        listContent.add(this.output(subListNode, null));
+                    }
+                    content.add(listContent.stream().collect(Collectors.joining(",", q(subListMetaModel.getName()) + ":[", "]")));
+                }
+            }
+
+            return content.stream().collect(Collectors.joining(",", name == null ? "{" : q(name) + ":{", "}"));
+        }
+
+    }
+
+}
@@ -0,0 +1,510 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.cache;
+
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.Position;
+import com.github.javaparser.Problem;
+import com.github.javaparser.Range;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.AllFieldsConstructor;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.comments.CommentsCollection;
+import com.github.javaparser.metamodel.BaseNodeMetaModel;
+import com.github.javaparser.metamodel.JavaParserMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import com.github.javaparser.utils.LineSeparator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary encoding of a {@link ParseResult}: the AST (including comments, ranges and -- when stored -- the
+ * tokens), the problems, and the detected line separator.
+ *
+ * The encoding is driven by the JavaParser metamodel: each node is written as its type, its range and the values of
+ * its constructor parameters, and is rebuilt via that same constructor. The header includes a hash of the metamodel,
+ * thus data written by a different version of JavaParser is rejected rather than misread.
+ *
+ * Decoding any malformed input results in an {@link IOException}.
+ */
+public final class AstCodec {
+
+    private static final int MAGIC          = 0x4A504153; // "JPAS"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final List<BaseNodeMetaModel>                     META_MODELS  = new ArrayList<>(JavaParserMetaModel.getNodeMetaModels());
+    private static final Map<BaseNodeMetaModel, Integer>             TYPE_IDS     = new IdentityHashMap<>();
+    private static final Map<BaseNodeMetaModel, Constructor<?>>      CONSTRUCTORS = new IdentityHashMap<>();
+    private static final Map<PropertyMetaModel, Field>               FIELDS       = new IdentityHashMap<>();
+    private static final Map<BaseNodeMetaModel, PropertyMetaModel[]> PARAMETERS   = new IdentityHashMap<>();
+
+    /**
+     * Identifies the shape of the metamodel -- i.e. the node types and their constructor parameters.
+     */
+    private static final long SCHEMA_HASH;
+
+    static {
+        long schemaHash = FORMAT_VERSION;
+        for (int i = 0; i < META_MODELS.size(); i++) {
+            final BaseNodeMetaModel metaModel = META_MODELS.get(i);
+            TYPE_IDS.put(metaModel, i);
+            schemaHash = 31 * schemaHash + metaModel.getQualifiedClassName().hashCode();
+
+            final PropertyMetaModel[] parameters = metaModel.getConstructorParameters().toArray(new PropertyMetaModel[0]);
+            PARAMETERS.put(metaModel, parameters);
+            for (final PropertyMetaModel parameter : parameters) {
+                schemaHash = 31 * schemaHash + (parameter.getName() + ':' + parameter.getType().getName()).hashCode();
+                FIELDS.computeIfAbsent(parameter, AstCodec::findField);
+            }
+
+            if (!metaModel.isAbstract()) {
+                CONSTRUCTORS.put(metaModel, findConstructor(metaModel, parameters.length));
+            }
+        }
+        SCHEMA_HASH = schemaHash;
+    }
+
+
+    private AstCodec() {
+        // Empty private constructor, to prevent instantiation.
+    }
+
+
+    @NotNull
+    public static ParseResult<CompilationUnit> decode(@NotNull InputStream inputStream) throws IOException {
+        return new Reader(new DataInputStream(inputStream)).readParseResult();
+    }
+
+
+    @NotNull
+    public static byte[] encode(@NotNull ParseResult<CompilationUnit> parseResult) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(8192);
+        try {
+            encode(parseResult, outputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected error writing to memory.", e);
+        }
+        return outputStream.toByteArray();
+    }
+
+
+    public static void encode(@NotNull ParseResult<CompilationUnit> parseResult, @NotNull OutputStream outputStream) throws IOException {
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        new Writer(dataOutputStream).writeParseResult(parseResult);
+        dataOutputStream.flush();
+    }
+
+
+    @NotNull
+    private static Constructor<?> findConstructor(@NotNull BaseNodeMetaModel metaModel, int parameterCount) {
+        for (final Constructor<?> constructor : metaModel.getType().getConstructors()) {
+            if (constructor.isAnnotationPresent(AllFieldsConstructor.class) && constructor.getParameterCount() == parameterCount) {
+                return constructor;
+            }
+        }
+        throw new IllegalStateException("No all-fields constructor found for " + metaModel.getTypeName());
+    }
+
+
+    @NotNull
+    private static Field findField(@NotNull PropertyMetaModel propertyMetaModel) {
+        for (Class<?> c = propertyMetaModel.getContainingNodeMetaModel().getType(); c != null; c = c.getSuperclass()) {
+            for (final Field field : c.getDeclaredFields()) {
+                if (field.getName().equals(propertyMetaModel.getName())) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        }
+        throw new IllegalStateException("No field found for property " + propertyMetaModel);
+    }
+
+
+    private static final class Reader {
+
+        private final DataInputStream in;
+        private final List<String>    strings = new ArrayList<>();
+        private       JavaToken[]     tokens  = new JavaToken[0];
+
+
+        Reader(@NotNull DataInputStream in) {
+            this.in = in;
+        }
+
+
+        @Nullable
+        private Node readNode() throws IOException {
+            final int typeId = this.readVarInt() - 1;
+            if (typeId < 0) {
+                return null;
+            }
+            if (typeId >= META_MODELS.size()) {
+                throw new IOException("Unknown node type: " + typeId);
+            }
+
+            final BaseNodeMetaModel metaModel   = META_MODELS.get(typeId);
+            final Constructor<?>    constructor = CONSTRUCTORS.get(metaModel);
+            if (constructor == null) {
+                throw new IOException("Abstract node type: " + metaModel.getTypeName());
+            }
+
+            final Range      range      = this.readRange();
+            final TokenRange tokenRange = this.readTokenRange();
+
+            final PropertyMetaModel[] parameters = PARAMETERS.get(metaModel);
+            final Object[]            arguments  = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                arguments[i] = this.readValue(parameters[i]);
+            }
+
+            final Node node;
+            try {
+                node = (Node) constructor.newInstance(arguments);
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException | IllegalArgumentException | ClassCastException e) {
+                throw new IOException("Unable to construct " + metaModel.getTypeName(), e);
+            }
+
+            if (tokenRange != null) {
+                node.setTokenRange(tokenRange);
+            }
+            node.setRange(range);
+
+            final Node comment = this.readNode();
+            if (comment != null) {
+                node.setComment((Comment) comment);
+            }
+            final int orphanCommentCount = this.readVarInt();
+            for (int i = 0; i < orphanCommentCount; i++) {
+                node.addOrphanComment((Comment) this.readNode());
+            }
+
+            return node;
+        }
+
+
+        @NotNull
+        ParseResult<CompilationUnit> readParseResult() throws IOException {
+            try {
+                if (this.in.readInt() != MAGIC || this.in.readInt() != FORMAT_VERSION || this.in.readLong() != SCHEMA_HASH) {
+                    throw new IOException("Unrecognised format, or written by a different version of JavaParser.");
+                }
+
+                // Tokens
+                final int tokenCount = this.readVarInt();
+                this.tokens = new JavaToken[tokenCount];
+                for (int i = 0; i < tokenCount; i++) {
+                    this.tokens[i] = this.readToken();
+                    if (i > 0) {
+                        this.tokens[i - 1].insertAfter(this.tokens[i]);
+                    }
+                }
+
+                // AST
+                final CompilationUnit compilationUnit = (CompilationUnit) this.readNode();
+                final String          lineSeparator   = this.readString();
+                if (compilationUnit != null && lineSeparator != null) {
+                    compilationUnit.setData(Node.LINE_SEPARATOR_KEY, LineSeparator.valueOf(lineSeparator));
+                }
+
+                // Problems
+                final int           problemCount = this.readVarInt();
+                final List<Problem> problems     = new ArrayList<>(problemCount);
+                for (int i = 0; i < problemCount; i++) {
+                    final String     message  = this.readString();
+                    final TokenRange location = this.in.readBoolean() ? new TokenRange(this.readToken(), this.readToken()) : null;
+                    problems.add(new Problem(message, location, null));
+                }
+
+                final CommentsCollection comments = new CommentsCollection();
+                if (compilationUnit != null) {
+                    compilationUnit.getComment().ifPresent(comments::addComment);
+                    compilationUnit.getAllContainedComments().forEach(comments::addComment);
+                }
+
+                return new ParseResult<>(compilationUnit, problems, comments);
+            } catch (EOFException | ClassCastException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Malformed AST data.", e);
+            }
+        }
+
+
+        @Nullable
+        private Range readRange() throws IOException {
+            if (!this.in.readBoolean()) {
+                return null;
+            }
+            final int beginLine   = this.readVarInt();
+            final int beginColumn = this.readVarInt();
+            final int endLine     = this.readVarInt();
+            final int endColumn   = this.readVarInt();
+            return new Range(new Position(beginLine, beginColumn), new Position(endLine, endColumn));
+        }
+
+
+        @Nullable
+        private String readString() throws IOException {
+            final int index = this.readVarInt();
+            if (index == 0) {
+                return null;
+            }
+            if (index == 1) {
+                final byte[] bytes = new byte[this.readVarInt()];
+                this.in.readFully(bytes);
+                final String string = new String(bytes, StandardCharsets.UTF_8);
+                this.strings.add(string);
+                return string;
+            }
+            return this.strings.get(index - 2);
+        }
+
+
+        @NotNull
+        private JavaToken readToken() throws IOException {
+            final int    kind  = this.readVarInt();
+            final String text  = this.readString();
+            final Range  range = this.readRange();
+            return new JavaToken(range, kind, text == null ? "" : text, null, null);
+        }
+
+
+        @Nullable
+        private TokenRange readTokenRange() throws IOException {
+            final int begin = this.readVarInt() - 1;
+            if (begin < 0) {
+                return null;
+            }
+            final int end = this.readVarInt() - 1;
+            return new TokenRange(this.tokens[begin], this.tokens[end]);
+        }
+
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        @Nullable
+        private Object readValue(@NotNull PropertyMetaModel parameter) throws IOException {
+            if (parameter.isNodeList()) {
+                final int size = this.readVarInt() - 1;
+                if (size < 0) {
+                    return null;
+                }
+                final NodeList<Node> nodeList = new NodeList<>();
+                for (int i = 0; i < size; i++) {
+                    nodeList.add(this.readNode());
+                }
+                return nodeList;
+            } else if (parameter.isNode()) {
+                return this.readNode();
+            } else if (parameter.getType() == boolean.class) {
+                return this.in.readBoolean();
+            } else if (parameter.getType().isEnum()) {
+                final String name = this.readString();
+                return name == null ? null : Enum.valueOf((Class<? extends Enum>) parameter.getType(), name);
+            } else {
+                return this.readString();
+            }
+        }
+
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                final byte b = this.in.readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable-length integer.");
+        }
+
+    }
+
+    private static final class Writer {
+
+        private final DataOutputStream        out;
+        private final Map<String, Integer>    strings  = new HashMap<>();
+        private final Map<JavaToken, Integer> tokenIds = new IdentityHashMap<>();
+
+
+        Writer(@NotNull DataOutputStream out) {
+            this.out = out;
+        }
+
+
+        private void writeNode(@Nullable Node node) throws IOException {
+            if (node == null) {
+                this.writeVarInt(0);
+                return;
+            }
+
+            final BaseNodeMetaModel metaModel = node.getMetaModel();
+            this.writeVarInt(TYPE_IDS.get(metaModel) + 1);
+            this.writeRange(node.getRange().orElse(null));
+            this.writeTokenRange(node.getTokenRange().orElse(null));
+
+            for (final PropertyMetaModel parameter : PARAMETERS.get(metaModel)) {
+                final Object value;
+                try {
+                    value = FIELDS.get(parameter).get(node);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to read property " + parameter, e);
+                }
+                this.writeValue(parameter, value);
+            }
+
+            // Comments are not constructor parameters.
+            this.writeNode(node instanceof Comment ? null : node.getComment().orElse(null));
+            final List<Comment> orphanComments = node.getOrphanComments();
+            this.writeVarInt(orphanComments.size());
+            for (final Comment orphanComment : orphanComments) {
+                this.writeNode(orphanComment);
+            }
+        }
+
+
+        void writeParseResult(@NotNull ParseResult<CompilationUnit> parseResult) throws IOException {
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(FORMAT_VERSION);
+            this.out.writeLong(SCHEMA_HASH);
+
+            final CompilationUnit compilationUnit = parseResult.getResult().orElse(null);
+
+            // Tokens -- written first, such that the nodes are able to refer to them.
+            final List<JavaToken> tokens = new ArrayList<>();
+            if (compilationUnit != null && compilationUnit.getTokenRange().isPresent()) {
+                JavaToken token = compilationUnit.getTokenRange().get().getBegin();
+                while (token != null) {
+                    this.tokenIds.put(token, tokens.size());
+                    tokens.add(token);
+                    token = token.getNextToken().orElse(null);
+                }
+            }
+            this.writeVarInt(tokens.size());
+            for (final JavaToken token : tokens) {
+                this.writeToken(token);
+            }
+
+            // AST
+            this.writeNode(compilationUnit);
+            final boolean hasLineSeparator = compilationUnit != null && compilationUnit.containsData(Node.LINE_SEPARATOR_KEY);
+            this.writeString(hasLineSeparator ? compilationUnit.getData(Node.LINE_SEPARATOR_KEY).name() : null);
+
+            // Problems (note that the cause, if any, is not retained)
+            final List<Problem> problems = parseResult.getProblems();
+            this.writeVarInt(problems.size());
+            for (final Problem problem : problems) {
+                this.writeString(problem.getMessage());
+                final TokenRange location = problem.getLocation().orElse(null);
+                this.out.writeBoolean(location != null);
+                if (location != null) {
+                    this.writeToken(location.getBegin());
+                    this.writeToken(location.getEnd());
+                }
+            }
+        }
+
+
+        private void writeRange(@Nullable Range range) throws IOException {
+            this.out.writeBoolean(range != null);
+            if (range != null) {
+                this.writeVarInt(range.begin.line);
+                this.writeVarInt(range.begin.column);
+                this.writeVarInt(range.end.line);
+                this.writeVarInt(range.end.column);
+            }
+        }
+
+
+        /**
+         * Strings are written once, then referred to by index -- identifiers, keywords and whitespace repeat a lot.
+         */
+        private void writeString(@Nullable String string) throws IOException {
+            if (string == null) {
+                this.writeVarInt(0);
+                return;
+            }
+
+            final Integer index = this.strings.get(string);
+            if (index != null) {
+                this.writeVarInt(index + 2);
+            } else {
+                this.strings.put(string, this.strings.size());
+                final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                this.writeVarInt(1);
+                this.writeVarInt(bytes.length);
+                this.out.write(bytes);
+            }
+        }
+
+
+        private void writeToken(@NotNull JavaToken token) throws IOException {
+            this.writeVarInt(token.getKind());
+            this.writeString(token.getText());
+            this.writeRange(token.getRange().orElse(null));
+        }
+
+
+        private void writeTokenRange(@Nullable TokenRange tokenRange) throws IOException {
+            final Integer begin = tokenRange == null ? null : this.tokenIds.get(tokenRange.getBegin());
+            final Integer end   = tokenRange == null ? null : this.tokenIds.get(tokenRange.getEnd());
+            if (begin == null || end == null) {
+                this.writeVarInt(0);
+            } else {
+                this.writeVarInt(begin + 1);
+                this.writeVarInt(end + 1);
+            }
+        }
+
+
+        private void writeValue(@NotNull PropertyMetaModel parameter, @Nullable Object value) throws IOException {
+            if (parameter.isNodeList()) {
+                final NodeList<?> nodeList = (NodeList<?>) value;
+                if (nodeList == null) {
+                    this.writeVarInt(0);
+                    return;
+                }
+                this.writeVarInt(nodeList.size() + 1);
+                for (final Node node : nodeList) {
+                    this.writeNode(node);
+                }
+            } else if (parameter.isNode()) {
+                this.writeNode((Node) value);
+            } else if (parameter.getType() == boolean.class) {
+                this.out.writeBoolean((Boolean) value);
+            } else if (parameter.getType().isEnum()) {
+                this.writeString(value == null ? null : ((Enum<?>) value).name());
+            } else {
+                this.writeString((String) value);
+            }
+        }
+
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                this.out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.out.writeByte(value);
+        }
+
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * A least-recently-used cache, bounded by the (estimated) number of bytes of heap used by its values.
+ *
+ * Values are also held via soft references, thus may be reclaimed by the garbage collector when memory is short
+ * even if the cache is within its budget. This is safe to use from multiple threads.
+ *
+ * @param <K> The key type, which must implement {@code equals}/{@code hashCode}.
+ * @param <V> The value type.
+ */
+public class MemoryBoundedCache<K, V> {
+
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long              maxBytes;
+    private final ToLongFunction<V> sizeEstimator;
+
+    private long estimatedBytes = 0;
+    private long evictedBytes   = 0;
+    private long evictions      = 0;
+    private long hits           = 0;
+    private long misses         = 0;
+
+
+    /**
+     * @param maxBytes      The heap budget -- the least recently used values are evicted once the total exceeds this.
+     * @param sizeEstimator Estimates the number of bytes of heap retained by a value.
+     */
+    public MemoryBoundedCache(long maxBytes, @NotNull ToLongFunction<V> sizeEstimator) {
+        this.maxBytes = maxBytes;
+        this.sizeEstimator = sizeEstimator;
+    }
+
+
+    @NotNull
+    public synchronized Optional<V> get(@NotNull K key) {
+        final Entry<V> entry = this.entries.get(key);
+        final V        value = entry == null ? null : entry.reference.get();
+        if (value == null) {
+            if (entry != null) {
+                // Reclaimed by the garbage collector.
+                this.remove(key, entry);
+            }
+            this.misses++;
+            return Optional.empty();
+        }
+
+        this.hits++;
+        return Optional.of(value);
+    }
+
+
+    public synchronized int getEntryCount() {
+        return this.entries.size();
+    }
+
+
+    public synchronized long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+
+    /**
+     * @return The estimated number of bytes evicted, either due to the budget or reclaimed by the garbage collector.
+     */
+    public synchronized long getEvictedBytes() {
+        return this.evictedBytes;
+    }
+
+
+    /**
+     * @return The number of entries evicted, either due to the budget or reclaimed by the garbage collector.
+     */
+    public synchronized long getEvictionCount() {
+        return this.evictions;
+    }
+
+
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+
+
+    /**
+     * @return The fraction of lookups which were hits, or 0 if there have been no lookups.
+     */
+    public synchronized double getHitRate() {
+        final long lookups = this.hits + this.misses;
+        return lookups == 0 ? 0.0 : (double) this.hits / lookups;
+    }
+
+
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+
+
+    /**
+     * @return A one-line summary of the metrics, e.g. for display in a log.
+     */
+    @NotNull
+    public synchronized String getStatisticsSummary() {
+        return String.format("entries=%d, size=%dKiB of %dKiB, hits=%d, misses=%d (hit rate %.0f%%), evicted=%d (%dKiB)",
+                             this.entries.size(), this.estimatedBytes / 1024, this.maxBytes / 1024,
+                             this.hits, this.misses, 100.0 * this.getHitRate(), this.evictions, this.evictedBytes / 1024);
+    }
+
+
+    /**
+     * Remove all entries whose key matches the predicate (these are not counted as evictions).
+     */
+    public synchronized void invalidateIf(@NotNull Predicate<K> predicate) {
+        final Iterator<Map.Entry<K, Entry<V>>> iterator = this.entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<K, Entry<V>> mapEntry = iterator.next();
+            if (predicate.test(mapEntry.getKey())) {
+                this.estimatedBytes -= mapEntry.getValue().bytes;
+                iterator.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Add (or replace) the value for the key, then evict the least recently used values until within budget.
+     * A value which alone exceeds the budget is not cached.
+     */
+    public void put(@NotNull K key, @NotNull V value) {
+        // Estimating may be expensive, so is done outside of the lock.
+        final long bytes = Math.max(0, this.sizeEstimator.applyAsLong(value));
+
+        synchronized (this) {
+            final Entry<V> previous = this.entries.remove(key);
+            if (previous != null) {
+                this.estimatedBytes -= previous.bytes;
+            }
+            if (bytes > this.maxBytes) {
+                return;
+            }
+
+            this.entries.put(key, new Entry<>(value, bytes));
+            this.estimatedBytes += bytes;
+
+            final Iterator<Map.Entry<K, Entry<V>>> iterator = this.entries.entrySet().iterator();
+            while (this.estimatedBytes > this.maxBytes && iterator.hasNext()) {
+                final Entry<V> eldest = iterator.next().getValue();
+                iterator.remove();
+                this.estimatedBytes -= eldest.bytes;
+                this.evictedBytes += eldest.bytes;
+                this.evictions++;
+            }
+        }
+    }
+
+
+    private void remove(@NotNull K key, @NotNull Entry<V> entry) {
+        this.entries.remove(key);
+        this.estimatedBytes -= entry.bytes;
+        this.evictedBytes += entry.bytes;
+        this.evictions++;
+    }
+
+
+    private static final class Entry<V> {
+
+        private final long             bytes;
+        private final SoftReference<V> reference;
+
+
+        Entry(@NotNull V value, long bytes) {
+            this.reference = new SoftReference<>(value);
+            this.bytes = bytes;
+        }
+
+    }
+
+}
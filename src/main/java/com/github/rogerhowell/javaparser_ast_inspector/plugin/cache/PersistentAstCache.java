@@ -0,0 +1,281 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.cache;
+
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A directory of parse results, encoded via {@link AstCodec} and keyed by a hash of the source text plus the parser
+ * configuration (see {@link #key(String, CharSequence)}).
+ *
+ * Each entry ends with a checksum -- entries which are unreadable, truncated or corrupt are deleted and treated as a
+ * miss. When the total size of the entries exceeds the limit, the least recently used entries are evicted.
+ *
+ * This is safe to use from multiple threads.
+ */
+public class PersistentAstCache {
+
+    private static final String ENTRY_SUFFIX = ".ast";
+
+    /**
+     * When evicting, remove entries until the total size is this fraction of the limit (to avoid evicting on every write).
+     */
+    private static final double EVICTION_TARGET_RATIO = 0.8;
+
+    @NotNull
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private final AtomicLong corruptEntries = new AtomicLong();
+    private final AtomicLong evictions      = new AtomicLong();
+    private final AtomicLong hits           = new AtomicLong();
+    private final AtomicLong misses         = new AtomicLong();
+
+    /**
+     * The approximate total size of the entries, or -1 if not yet calculated.
+     */
+    private final AtomicLong totalBytes = new AtomicLong(-1);
+
+
+    public PersistentAstCache(@NotNull Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+
+    /**
+     * @param configurationFingerprint See {@code ParserConfigurationUtil#fingerprint(ParserConfiguration)}.
+     * @return The key for the given source text parsed with the given configuration (a SHA-256 hex string).
+     */
+    @NotNull
+    public static String key(@NotNull String configurationFingerprint, @NotNull CharSequence text) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(configurationFingerprint.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(text)));
+
+            final StringBuilder hex = new StringBuilder(64);
+            for (final byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+
+    private long calculateTotalBytes() {
+        return this.listEntries().stream().mapToLong(this::sizeOf).sum();
+    }
+
+
+    private Path entryPath(@NotNull String key) {
+        return this.directory.resolve(key + ENTRY_SUFFIX);
+    }
+
+
+    private synchronized void evictIfNecessary() {
+        if (this.totalBytes.get() <= this.maxBytes) {
+            return;
+        }
+
+        // Recalculate, as other instances (e.g. other IDE windows) may share the directory.
+        final List<Path> entries = this.listEntries();
+        long             total   = entries.stream().mapToLong(this::sizeOf).sum();
+
+        entries.sort(Comparator.comparing(this::lastModified));
+        final long target = (long) (this.maxBytes * EVICTION_TARGET_RATIO);
+        for (final Path entry : entries) {
+            if (total <= target) {
+                break;
+            }
+            final long size = this.sizeOf(entry);
+            try {
+                Files.deleteIfExists(entry);
+                total -= size;
+                this.evictions.incrementAndGet();
+            } catch (IOException e) {
+                // Ignore -- e.g. currently being read, so leave it be.
+            }
+        }
+        this.totalBytes.set(total);
+    }
+
+
+    /**
+     * @return The cached parse result, or empty if there is no (readable) entry for the key.
+     */
+    @NotNull
+    public Optional<ParseResult<CompilationUnit>> get(@NotNull String key) {
+        final Path entry = this.entryPath(key);
+
+        final byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(entry);
+        } catch (IOException e) {
+            this.misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        try {
+            if (bytes.length < Long.BYTES) {
+                throw new IOException("Entry is too short.");
+            }
+            final int   payloadLength = bytes.length - Long.BYTES;
+            final CRC32 crc32         = new CRC32();
+            crc32.update(bytes, 0, payloadLength);
+            if (crc32.getValue() != ByteBuffer.wrap(bytes, payloadLength, Long.BYTES).getLong()) {
+                throw new IOException("Checksum mismatch.");
+            }
+
+            final ParseResult<CompilationUnit> parseResult = AstCodec.decode(new ByteArrayInputStream(bytes, 0, payloadLength));
+
+            // Mark as recently used, for the purposes of eviction.
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+
+            this.hits.incrementAndGet();
+            return Optional.of(parseResult);
+        } catch (IOException | RuntimeException e) {
+            this.corruptEntries.incrementAndGet();
+            this.misses.incrementAndGet();
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException ignored) {
+                // Will be overwritten by the next put.
+            }
+            return Optional.empty();
+        }
+    }
+
+
+    public long getCorruptEntryCount() {
+        return this.corruptEntries.get();
+    }
+
+
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+
+    /**
+     * @return A one-line summary of the counters, e.g. for display in a log.
+     */
+    @NotNull
+    public String getStatisticsSummary() {
+        final long hitCount  = this.getHitCount();
+        final long missCount = this.getMissCount();
+        final long total     = hitCount + missCount;
+        return String.format("hits=%d, misses=%d (hit rate %.0f%%), corrupt=%d, evictions=%d, size=%dKiB",
+                             hitCount, missCount, total == 0 ? 0.0 : 100.0 * hitCount / total,
+                             this.getCorruptEntryCount(), this.getEvictionCount(), Math.max(0, this.totalBytes.get()) / 1024);
+    }
+
+
+    private FileTime lastModified(@NotNull Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+
+    @NotNull
+    private List<Path> listEntries() {
+        if (!Files.isDirectory(this.directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.list(this.directory)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                        .collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+    }
+
+
+    /**
+     * Store the parse result. Failures to write are ignored, as the cache is only an optimisation.
+     */
+    public void put(@NotNull String key, @NotNull ParseResult<CompilationUnit> parseResult) {
+        final byte[] payload = AstCodec.encode(parseResult);
+        final CRC32  crc32   = new CRC32();
+        crc32.update(payload, 0, payload.length);
+
+        final Path entry = this.entryPath(key);
+        final long addedBytes;
+        try {
+            Files.createDirectories(this.directory);
+
+            // The entry may be overwriting an existing one, which no longer counts towards the total.
+            addedBytes = payload.length + Long.BYTES - this.sizeOf(entry);
+
+            // Write to a temporary file first, such that readers never see a partially written entry.
+            final Path temporary = Files.createTempFile(this.directory, key, ".tmp");
+            try {
+                Files.write(temporary, ByteBuffer.allocate(payload.length + Long.BYTES).put(payload).putLong(crc32.getValue()).array());
+                try {
+                    Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            return;
+        }
+
+        if (this.totalBytes.get() < 0) {
+            // Only count the existing entries once -- listing the directory on every put would be quadratic.
+            this.totalBytes.compareAndSet(-1, this.calculateTotalBytes() - addedBytes);
+        }
+        this.totalBytes.addAndGet(addedBytes);
+        this.evictIfNecessary();
+    }
+
+
+    private long sizeOf(@NotNull Path entry) {
+        try {
+            return Files.size(entry);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,749 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.columnar;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.AllFieldsConstructor;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.metamodel.BaseNodeMetaModel;
+import com.github.javaparser.metamodel.JavaParserMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.PropertyPartitions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar representation of an AST, for compact storage and fast loading by analysis tools.
+ *
+ * The nodes are numbered in pre-order (thus a node's descendants always follow it), and each is described by the same
+ * index within a set of parallel arrays:
+ * <ul>
+ *     <li>its type (an index into the table of type names),</li>
+ *     <li>its parent (or -1 for the root), and which of the parent's properties it belongs to (an index into the table of
+ *     property names),</li>
+ *     <li>its children (via offsets into a flat array of child indices),</li>
+ *     <li>its range (packed as four ints, all zero when the node has no range), and</li>
+ *     <li>its attributes (via offsets into flat arrays of property indices and string table indices).</li>
+ * </ul>
+ * Optional lists of children (e.g. type arguments) which are present but empty (e.g. a diamond operator) are also
+ * recorded, as a list of node and property index pairs, to distinguish them from lists which are absent. Comments are
+ * stored as children, either of the node they are attached to ({@code comment}) or of the node containing them
+ * ({@code orphanComments}).
+ *
+ * Identifiers, literals and other attribute values are held once within a string table. The type and property names
+ * are stored by name, thus the columns can be read without JavaParser (or by a different version of it) -- though
+ * rebuilding a JavaParser AST via {@link #toNode()} requires the node types to be known.
+ *
+ * The binary encoding is a short header, the tables, then each column as a run of variable-length ints (seven bits per
+ * byte, as per LEB128). As most values are small, the columns are delta-encoded where that keeps them small: each
+ * node's parent as its distance back to the parent, and each range's lines relative to the previous node's range. The
+ * children are not stored, as they are recomputed from the parents when read.
+ */
+public final class ColumnarAst {
+
+    public static final String FILE_EXTENSION = "jpca";
+
+    private static final int MAGIC          = 0x4A504341; // "JPCA"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int NO_PARENT = -1;
+
+    private static final String ORPHAN_COMMENTS = "orphanComments";
+
+    private static final Map<String, BaseNodeMetaModel> META_MODELS_BY_NAME = new HashMap<>();
+
+    static {
+        for (final BaseNodeMetaModel metaModel : JavaParserMetaModel.getNodeMetaModels()) {
+            META_MODELS_BY_NAME.put(metaModel.getTypeName(), metaModel);
+        }
+    }
+
+    @NotNull
+    private final int[] attributeOffsets;
+
+    @NotNull
+    private final int[] attributeProperties;
+
+    @NotNull
+    private final int[] attributeValues;
+
+    @NotNull
+    private final int[] childOffsets;
+
+    @NotNull
+    private final int[] children;
+
+    @NotNull
+    private final int[] emptyListNodes;
+
+    @NotNull
+    private final int[] emptyListProperties;
+
+    @NotNull
+    private final int[] parentProperties;
+
+    @NotNull
+    private final int[] parents;
+
+    @NotNull
+    private final String[] propertyNames;
+
+    @NotNull
+    private final int[] ranges;
+
+    @NotNull
+    private final String[] strings;
+
+    @NotNull
+    private final String[] typeNames;
+
+    @NotNull
+    private final int[] types;
+
+
+    private ColumnarAst(@NotNull String[] typeNames, @NotNull String[] propertyNames, @NotNull String[] strings,
+                        @NotNull int[] types, @NotNull int[] parents, @NotNull int[] parentProperties, @NotNull int[] ranges,
+                        @NotNull int[] attributeOffsets, @NotNull int[] attributeProperties, @NotNull int[] attributeValues,
+                        @NotNull int[] emptyListNodes, @NotNull int[] emptyListProperties) {
+        this.typeNames = typeNames;
+        this.propertyNames = propertyNames;
+        this.strings = strings;
+        this.types = types;
+        this.parents = parents;
+        this.parentProperties = parentProperties;
+        this.ranges = ranges;
+        this.attributeOffsets = attributeOffsets;
+        this.attributeProperties = attributeProperties;
+        this.attributeValues = attributeValues;
+        this.emptyListNodes = emptyListNodes;
+        this.emptyListProperties = emptyListProperties;
+
+        // Children, as offsets into a flat array -- pre-order means each node's children are in ascending order.
+        final int nodeCount = types.length;
+        this.childOffsets = new int[nodeCount + 1];
+        for (int node = 1; node < nodeCount; node++) {
+            this.childOffsets[parents[node] + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            this.childOffsets[node + 1] += this.childOffsets[node];
+        }
+        this.children = new int[Math.max(0, nodeCount - 1)];
+        final int[] nextChild = Arrays.copyOf(this.childOffsets, nodeCount);
+        for (int node = 1; node < nodeCount; node++) {
+            this.children[nextChild[parents[node]]++] = node;
+        }
+    }
+
+
+    @NotNull
+    private static Constructor<?> findConstructor(@NotNull BaseNodeMetaModel metaModel) throws IOException {
+        final int parameterCount = metaModel.getConstructorParameters().size();
+        for (final Constructor<?> constructor : metaModel.getType().getConstructors()) {
+            if (constructor.isAnnotationPresent(AllFieldsConstructor.class) && constructor.getParameterCount() == parameterCount) {
+                return constructor;
+            }
+        }
+        throw new IOException("No all-fields constructor found for " + metaModel.getTypeName());
+    }
+
+
+    /**
+     * Convert the given AST (typically a compilation unit) into columns.
+     */
+    @NotNull
+    public static ColumnarAst of(@NotNull Node root) {
+        return new Builder().build(root);
+    }
+
+
+    /**
+     * Read the columns written by {@link #write(OutputStream)}.
+     *
+     * @throws IOException If the input is not in this format, or is malformed.
+     */
+    @NotNull
+    public static ColumnarAst read(@NotNull InputStream inputStream) throws IOException {
+        final InputStream in = new BufferedInputStream(inputStream);
+        try {
+            if (readFixedInt(in) != MAGIC || readFixedInt(in) != FORMAT_VERSION) {
+                throw new IOException("Unrecognised format, or written by a different version of the plugin.");
+            }
+
+            final String[] typeNames     = readStrings(in);
+            final String[] propertyNames = readStrings(in);
+            final String[] strings       = readStrings(in);
+
+            final int   nodeCount        = readCount(in);
+            final int[] types            = readVarInts(in, nodeCount);
+            final int[] parents          = readVarInts(in, nodeCount);
+            final int[] parentProperties = readVarInts(in, nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                // Stored as the distance back to the parent, and offset by one such that the root's (-1) is zero.
+                parents[node] = node == 0 ? NO_PARENT : node - parents[node];
+                parentProperties[node]--;
+                if (node > 0 && (parents[node] < 0 || parents[node] >= node)) {
+                    throw new IOException("Malformed columnar AST data (parent out of range).");
+                }
+            }
+
+            final int[] ranges    = readVarInts(in, Math.multiplyExact(nodeCount, 4));
+            int         beginLine = 0;
+            for (int offset = 0; offset < ranges.length; offset += 4) {
+                beginLine += zigZagDecode(ranges[offset]);
+                ranges[offset] = beginLine;
+                ranges[offset + 2] = ranges[offset] == 0 ? 0 : beginLine + zigZagDecode(ranges[offset + 2]);
+            }
+
+            final int[] attributeOffsets = readVarInts(in, nodeCount + 1);
+            for (int node = 0; node < nodeCount; node++) {
+                // Stored as the number of attributes of each node.
+                attributeOffsets[node + 1] = Math.addExact(attributeOffsets[node + 1], attributeOffsets[node]);
+            }
+            final int   attributeCount  = attributeOffsets[nodeCount];
+            final int[] attributeProps  = readVarInts(in, attributeCount);
+            final int[] attributeValues = readVarInts(in, attributeCount);
+
+            final int   emptyListCount = readCount(in);
+            final int[] emptyListNodes = readVarInts(in, emptyListCount);
+            for (int i = 1; i < emptyListCount; i++) {
+                emptyListNodes[i] += emptyListNodes[i - 1];
+            }
+
+            final ColumnarAst columnarAst = new ColumnarAst(typeNames, propertyNames, strings, types, parents, parentProperties, ranges,
+                                                            attributeOffsets, attributeProps, attributeValues, emptyListNodes, readVarInts(in, emptyListCount));
+            columnarAst.validate();
+            return columnarAst;
+        } catch (EOFException | IndexOutOfBoundsException | NegativeArraySizeException | ArithmeticException e) {
+            throw new IOException("Malformed columnar AST data.", e);
+        }
+    }
+
+
+    private static int readCount(@NotNull InputStream in) throws IOException {
+        final int count = readVarInt(in);
+        if (count < 0) {
+            throw new IOException("Malformed columnar AST data (negative length).");
+        }
+        return count;
+    }
+
+
+    private static int readFixedInt(@NotNull InputStream in) throws IOException {
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+
+    @NotNull
+    private static String[] readStrings(@NotNull InputStream in) throws IOException {
+        final String[] strings = new String[readCount(in)];
+        for (int i = 0; i < strings.length; i++) {
+            final byte[] bytes = new byte[readCount(in)];
+            int          read  = 0;
+            while (read < bytes.length) {
+                final int count = in.read(bytes, read, bytes.length - read);
+                if (count < 0) {
+                    throw new EOFException();
+                }
+                read += count;
+            }
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+
+    private static int readVarInt(@NotNull InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed columnar AST data (variable-length int too long).");
+    }
+
+
+    @NotNull
+    private static int[] readVarInts(@NotNull InputStream in, int count) throws IOException {
+        final int[] ints = new int[count];
+        for (int i = 0; i < count; i++) {
+            ints[i] = readVarInt(in);
+        }
+        return ints;
+    }
+
+
+    private static void writeFixedInt(@NotNull OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+
+    private static void writeStrings(@NotNull OutputStream out, @NotNull String[] strings) throws IOException {
+        writeVarInt(out, strings.length);
+        for (final String string : strings) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+
+    private static void writeVarInt(@NotNull OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+
+    private static int zigZagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+
+    private static int zigZagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+
+    /**
+     * @return The value of the given attribute of the node (e.g. "identifier"), or null if it has no such attribute.
+     */
+    @Nullable
+    public String getAttribute(int node, @NotNull String propertyName) {
+        for (int i = this.attributeOffsets[node]; i < this.attributeOffsets[node + 1]; i++) {
+            if (this.propertyNames[this.attributeProperties[i]].equals(propertyName)) {
+                return this.strings[this.attributeValues[i]];
+            }
+        }
+        return null;
+    }
+
+
+    public int getChild(int node, int index) {
+        if (index < 0 || index >= this.getChildCount(node)) {
+            throw new IndexOutOfBoundsException("Child " + index + " of node " + node + " (child count: " + this.getChildCount(node) + ").");
+        }
+        return this.children[this.childOffsets[node] + index];
+    }
+
+
+    public int getChildCount(int node) {
+        return this.childOffsets[node + 1] - this.childOffsets[node];
+    }
+
+
+    public int getNodeCount() {
+        return this.types.length;
+    }
+
+
+    /**
+     * @return The index of the parent of the given node, or -1 for the root.
+     */
+    public int getParent(int node) {
+        return this.parents[node];
+    }
+
+
+    /**
+     * @return The name of the parent's property which holds the given node (e.g. "members"), or null for the root.
+     */
+    @Nullable
+    public String getParentPropertyName(int node) {
+        final int property = this.parentProperties[node];
+        return property == NO_PARENT ? null : this.propertyNames[property];
+    }
+
+
+    @Nullable
+    public Range getRange(int node) {
+        final int offset = node * 4;
+        if (this.ranges[offset] == 0) {
+            return null;
+        }
+        return new Range(new Position(this.ranges[offset], this.ranges[offset + 1]), new Position(this.ranges[offset + 2], this.ranges[offset + 3]));
+    }
+
+
+    public int getStringCount() {
+        return this.strings.length;
+    }
+
+
+    /**
+     * @return The name of the node's type, as per {@link BaseNodeMetaModel#getTypeName()}.
+     */
+    @NotNull
+    public String getTypeName(int node) {
+        return this.typeNames[this.types[node]];
+    }
+
+
+    /**
+     * @return Whether the given optional list of children is present, despite having no children.
+     */
+    public boolean isEmptyList(int node, @NotNull String propertyName) {
+        int index = Arrays.binarySearch(this.emptyListNodes, node);
+        if (index < 0) {
+            return false;
+        }
+        // Find the first entry for the node, as it may have several empty lists.
+        while (index > 0 && this.emptyListNodes[index - 1] == node) {
+            index--;
+        }
+        for (; index < this.emptyListNodes.length && this.emptyListNodes[index] == node; index++) {
+            if (this.propertyNames[this.emptyListProperties[index]].equals(propertyName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Rebuild a full JavaParser AST from the columns: each node is constructed from its children and attributes via the
+     * node type's all-fields constructor, from the last node to the first (i.e. children before their parents).
+     *
+     * Comments are restored, though tokens are not stored thus not restored.
+     *
+     * @throws IOException If a node type or property is not known to this version of JavaParser.
+     */
+    @NotNull
+    public Node toNode() throws IOException {
+        final int                                    nodeCount    = this.getNodeCount();
+        final Node[]                                 nodes        = new Node[nodeCount];
+        final Map<BaseNodeMetaModel, Constructor<?>> constructors = new HashMap<>();
+
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            final BaseNodeMetaModel metaModel = META_MODELS_BY_NAME.get(this.getTypeName(node));
+            if (metaModel == null || metaModel.isAbstract()) {
+                throw new IOException("Unknown node type: " + this.getTypeName(node));
+            }
+
+            final List<PropertyMetaModel> parameters = metaModel.getConstructorParameters();
+            final Object[]                arguments  = new Object[parameters.size()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = this.toArgument(node, parameters.get(i), nodes);
+            }
+
+            try {
+                Constructor<?> constructor = constructors.get(metaModel);
+                if (constructor == null) {
+                    constructor = findConstructor(metaModel);
+                    constructors.put(metaModel, constructor);
+                }
+                nodes[node] = (Node) constructor.newInstance(arguments);
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException | IllegalArgumentException | ClassCastException e) {
+                throw new IOException("Unable to construct " + metaModel.getTypeName(), e);
+            }
+
+            nodes[node].setRange(this.getRange(node));
+            for (int i = 0; i < this.getChildCount(node); i++) {
+                final int child = this.getChild(node, i);
+                if ("comment".equals(this.getParentPropertyName(child)) && nodes[child] instanceof Comment) {
+                    nodes[node].setComment((Comment) nodes[child]);
+                } else if (ORPHAN_COMMENTS.equals(this.getParentPropertyName(child)) && nodes[child] instanceof Comment) {
+                    nodes[node].addOrphanComment((Comment) nodes[child]);
+                }
+            }
+        }
+
+        return nodes[0];
+    }
+
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Nullable
+    private Object toArgument(int node, @NotNull PropertyMetaModel parameter, @NotNull Node[] nodes) throws IOException {
+        if (parameter.isNodeList()) {
+            final NodeList<Node> nodeList = new NodeList<>();
+            for (int i = 0; i < this.getChildCount(node); i++) {
+                final int child = this.getChild(node, i);
+                if (parameter.getName().equals(this.getParentPropertyName(child))) {
+                    nodeList.add(nodes[child]);
+                }
+            }
+            if (nodeList.isEmpty() && parameter.isOptional() && !this.isEmptyList(node, parameter.getName())) {
+                return null;
+            }
+            return nodeList;
+        } else if (parameter.isNode()) {
+            for (int i = 0; i < this.getChildCount(node); i++) {
+                final int child = this.getChild(node, i);
+                if (parameter.getName().equals(this.getParentPropertyName(child))) {
+                    return nodes[child];
+                }
+            }
+            return null;
+        }
+
+        final String value = this.getAttribute(node, parameter.getName());
+        if (value == null) {
+            return parameter.getType() == boolean.class ? Boolean.FALSE : null;
+        } else if (parameter.getType() == boolean.class) {
+            return Boolean.parseBoolean(value);
+        } else if (parameter.getType().isEnum()) {
+            try {
+                return Enum.valueOf((Class<? extends Enum>) parameter.getType(), value);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown value of " + parameter.getName() + ": " + value, e);
+            }
+        }
+        return value;
+    }
+
+
+    @Override
+    public String toString() {
+        return "ColumnarAst{" +
+               "nodeCount=" + this.getNodeCount() +
+               ", typeCount=" + this.typeNames.length +
+               ", stringCount=" + this.strings.length +
+               '}';
+    }
+
+
+    /**
+     * Check that the indices within the columns are within the bounds of the tables, such that the accessors do not
+     * fail on malformed data.
+     */
+    private void validate() throws IOException {
+        for (int node = 0; node < this.types.length; node++) {
+            if (this.types[node] < 0 || this.types[node] >= this.typeNames.length
+                || (node > 0 && (this.parentProperties[node] < 0 || this.parentProperties[node] >= this.propertyNames.length))) {
+                throw new IOException("Malformed columnar AST data (node " + node + " refers to an unknown type or property).");
+            }
+        }
+        for (int i = 0; i < this.attributeProperties.length; i++) {
+            if (this.attributeProperties[i] < 0 || this.attributeProperties[i] >= this.propertyNames.length
+                || this.attributeValues[i] < 0 || this.attributeValues[i] >= this.strings.length) {
+                throw new IOException("Malformed columnar AST data (attribute " + i + " refers to an unknown property or string).");
+            }
+        }
+        for (final int property : this.emptyListProperties) {
+            if (property < 0 || property >= this.propertyNames.length) {
+                throw new IOException("Malformed columnar AST data (an empty list refers to an unknown property).");
+            }
+        }
+    }
+
+
+    /**
+     * Write the columns, in the binary encoding described above. The given stream is flushed but not closed.
+     */
+    public void write(@NotNull OutputStream outputStream) throws IOException {
+        final OutputStream out       = new BufferedOutputStream(outputStream);
+        final int          nodeCount = this.getNodeCount();
+        writeFixedInt(out, MAGIC);
+        writeFixedInt(out, FORMAT_VERSION);
+
+        writeStrings(out, this.typeNames);
+        writeStrings(out, this.propertyNames);
+        writeStrings(out, this.strings);
+
+        writeVarInt(out, nodeCount);
+        for (final int type : this.types) {
+            writeVarInt(out, type);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            writeVarInt(out, node == 0 ? 0 : node - this.parents[node]);
+        }
+        for (final int parentProperty : this.parentProperties) {
+            writeVarInt(out, parentProperty + 1);
+        }
+
+        int previousBeginLine = 0;
+        for (int offset = 0; offset < this.ranges.length; offset += 4) {
+            final int beginLine = this.ranges[offset];
+            writeVarInt(out, zigZagEncode(beginLine - previousBeginLine));
+            writeVarInt(out, this.ranges[offset + 1]);
+            writeVarInt(out, beginLine == 0 ? 0 : zigZagEncode(this.ranges[offset + 2] - beginLine));
+            writeVarInt(out, this.ranges[offset + 3]);
+            previousBeginLine = beginLine;
+        }
+
+        writeVarInt(out, 0);
+        for (int node = 0; node < nodeCount; node++) {
+            writeVarInt(out, this.attributeOffsets[node + 1] - this.attributeOffsets[node]);
+        }
+        for (final int attributeProperty : this.attributeProperties) {
+            writeVarInt(out, attributeProperty);
+        }
+        for (final int attributeValue : this.attributeValues) {
+            writeVarInt(out, attributeValue);
+        }
+
+        writeVarInt(out, this.emptyListNodes.length);
+        for (int i = 0; i < this.emptyListNodes.length; i++) {
+            writeVarInt(out, i == 0 ? this.emptyListNodes[i] : this.emptyListNodes[i] - this.emptyListNodes[i - 1]);
+        }
+        for (final int emptyListProperty : this.emptyListProperties) {
+            writeVarInt(out, emptyListProperty);
+        }
+        out.flush();
+    }
+
+
+    /**
+     * Walks the AST in pre-order, appending each node to the columns.
+     */
+    private static final class Builder {
+
+        private final IntColumn            attributeOffsets    = new IntColumn();
+        private final IntColumn            attributeProperties = new IntColumn();
+        private final IntColumn            attributeValues     = new IntColumn();
+        private final IntColumn            emptyListNodes      = new IntColumn();
+        private final IntColumn            emptyListProperties = new IntColumn();
+        private final IntColumn            parentProperties    = new IntColumn();
+        private final IntColumn            parents             = new IntColumn();
+        private final Map<String, Integer> propertyIds         = new HashMap<>();
+        private final List<String>         propertyNames       = new ArrayList<>();
+        private final IntColumn            ranges              = new IntColumn();
+        private final Map<String, Integer> stringIds           = new HashMap<>();
+        private final List<String>         strings             = new ArrayList<>();
+        private final Map<String, Integer> typeIds             = new HashMap<>();
+        private final List<String>         typeNames           = new ArrayList<>();
+        private final IntColumn            types               = new IntColumn();
+
+
+        private static int idOf(@NotNull String value, @NotNull Map<String, Integer> ids, @NotNull List<String> table) {
+            return ids.computeIfAbsent(value, v -> {
+                table.add(v);
+                return table.size() - 1;
+            });
+        }
+
+
+        private void add(@NotNull Node node, int parent, int parentProperty) {
+            final BaseNodeMetaModel  metaModel  = node.getMetaModel();
+            final PropertyPartitions partitions = PropertyPartitions.of(metaModel);
+            final int                index      = this.types.size();
+
+            this.types.add(idOf(metaModel.getTypeName(), this.typeIds, this.typeNames));
+            this.parents.add(parent);
+            this.parentProperties.add(parentProperty);
+
+            final Range range = node.getRange().orElse(null);
+            if (range == null) {
+                this.ranges.add(0).add(0).add(0).add(0);
+            } else {
+                this.ranges.add(range.begin.line).add(range.begin.column).add(range.end.line).add(range.end.column);
+            }
+
+            this.attributeOffsets.add(this.attributeProperties.size());
+            for (final PropertyMetaModel attribute : partitions.getAttributes()) {
+                final Object value = attribute.getValue(node);
+                if (value != null) {
+                    this.attributeProperties.add(idOf(attribute.getName(), this.propertyIds, this.propertyNames));
+                    this.attributeValues.add(idOf(value.toString(), this.stringIds, this.strings));
+                }
+            }
+
+            // Recorded before adding any children, such that the empty lists are in ascending order of node.
+            for (final PropertyMetaModel subList : partitions.getSubLists()) {
+                final NodeList<?> nodeList = (NodeList<?>) subList.getValue(node);
+                if (nodeList != null && nodeList.isEmpty() && subList.isOptional()) {
+                    this.emptyListNodes.add(index);
+                    this.emptyListProperties.add(idOf(subList.getName(), this.propertyIds, this.propertyNames));
+                }
+            }
+
+            for (final PropertyMetaModel subNode : partitions.getSubNodes()) {
+                final Node child = (Node) subNode.getValue(node);
+                if (child != null) {
+                    this.add(child, index, idOf(subNode.getName(), this.propertyIds, this.propertyNames));
+                }
+            }
+            for (final PropertyMetaModel subList : partitions.getSubLists()) {
+                final NodeList<?> nodeList = (NodeList<?>) subList.getValue(node);
+                if (nodeList != null && nodeList.isNonEmpty()) {
+                    final int property = idOf(subList.getName(), this.propertyIds, this.propertyNames);
+                    for (final Node child : nodeList) {
+                        this.add(child, index, property);
+                    }
+                }
+            }
+            for (final Comment orphanComment : node.getOrphanComments()) {
+                this.add(orphanComment, index, idOf(ORPHAN_COMMENTS, this.propertyIds, this.propertyNames));
+            }
+        }
+
+
+        @NotNull
+        ColumnarAst build(@NotNull Node root) {
+            this.add(root, NO_PARENT, NO_PARENT);
+
+            this.attributeOffsets.add(this.attributeProperties.size());
+
+            return new ColumnarAst(this.typeNames.toArray(new String[0]), this.propertyNames.toArray(new String[0]), this.strings.toArray(new String[0]),
+                                   this.types.toArray(), this.parents.toArray(), this.parentProperties.toArray(), this.ranges.toArray(),
+                                   this.attributeOffsets.toArray(), this.attributeProperties.toArray(), this.attributeValues.toArray(),
+                                   this.emptyListNodes.toArray(), this.emptyListProperties.toArray());
+        }
+
+    }
+
+    /**
+     * A growable array of ints, avoiding the boxing of a {@code List<Integer>}.
+     */
+    private static final class IntColumn {
+
+        private int[] values = new int[256];
+        private int   size   = 0;
+
+
+        IntColumn add(int value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.values.length * 2);
+            }
+            this.values[this.size++] = value;
+            return this;
+        }
+
+
+        int size() {
+            return this.size;
+        }
+
+
+        int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+
+    }
+
+}
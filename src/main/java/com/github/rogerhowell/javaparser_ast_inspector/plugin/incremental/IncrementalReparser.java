@@ -0,0 +1,363 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.incremental;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.AnnotationDeclaration;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.ASCIITreePrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.providers.CharSequenceProvider;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.LineIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Re-parses only the smallest member (field, method, constructor, initializer, nested type, ...) which encloses an
+ * edit, and splices the new subtree into the existing {@link CompilationUnit}.
+ *
+ * The positions of all nodes (and tokens, if stored) following the member are shifted to account for the edit, such
+ * that the compilation unit matches what a full re-parse of the new text would have produced.
+ *
+ * When the edit cannot be handled this way (e.g. it is outside of any member, or the member no longer parses as a
+ * single member), no changes are made and an empty result is returned -- the caller should then do a full re-parse.
+ */
+public final class IncrementalReparser {
+
+    private IncrementalReparser() {
+        // Empty private constructor, to prevent instantiation.
+    }
+
+
+    private static boolean contains(@NotNull LineIndex lineIndex, @NotNull Range extent, int start, int end) {
+        final int extentStart = lineIndex.positionToOffset(extent.begin);
+        final int extentEnd   = lineIndex.positionToOffset(extent.end) + 1;
+        return extentStart <= start && end <= extentEnd && start < extentEnd;
+    }
+
+
+    /**
+     * @return The range of the node, widened to include its comment (if it has one).
+     */
+    private static Optional<Range> extentOf(@NotNull Node node) {
+        final Optional<Range> range = node.getRange();
+        if (!range.isPresent()) {
+            return Optional.empty();
+        }
+
+        final Optional<Range> commentRange = node.getComment().flatMap(Comment::getRange);
+        if (commentRange.isPresent() && commentRange.get().begin.isBefore(range.get().begin)) {
+            return Optional.of(new Range(commentRange.get().begin, range.get().end));
+        }
+        return range;
+    }
+
+
+    @Nullable
+    private static BodyDeclaration<?> findSmallestEnclosingMember(@NotNull Node node, @NotNull LineIndex lineIndex, int start, int end) {
+        for (final Node child : node.getChildNodes()) {
+            final Optional<Range> extent = extentOf(child);
+            if (extent.isPresent() && contains(lineIndex, extent.get(), start, end)) {
+                final BodyDeclaration<?> nested = findSmallestEnclosingMember(child, lineIndex, start, end);
+                if (nested != null) {
+                    return nested;
+                }
+                return isMember(child) ? (BodyDeclaration<?>) child : null;
+            }
+        }
+        return null;
+    }
+
+
+    private static boolean hasTabBeforeLineEnd(@NotNull CharSequence text, int offset) {
+        for (int i = offset; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                return false;
+            }
+            if (c == '\t') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private static boolean isMember(@NotNull Node node) {
+        if (!(node instanceof BodyDeclaration) || node instanceof EnumConstantDeclaration) {
+            return false;
+        }
+        final Node parent = node.getParentNode().orElse(null);
+        // Not the members of an annotation, which would be parsed as methods (rather than annotation members).
+        return parent instanceof TypeDeclaration && !(parent instanceof AnnotationDeclaration) || parent instanceof ObjectCreationExpr;
+    }
+
+
+    /**
+     * @param javaParser      The parser, configured in the same way as was used to parse the compilation unit.
+     * @param compilationUnit The compilation unit, as parsed from the old text. This is modified in place.
+     * @param oldLines        The text which the compilation unit was parsed from.
+     * @param newLines        The text after the edit(s).
+     * @param changeStart     The offset of the first changed character (the same in both the old and the new text).
+     * @param oldChangeEnd    The offset just after the last changed character within the old text.
+     * @param newChangeEnd    The offset just after the last changed character within the new text.
+     * @return The replaced and the replacement node, or empty if a full re-parse is required.
+     */
+    public static Optional<Splice> reparse(@NotNull JavaParser javaParser, @NotNull CompilationUnit compilationUnit,
+                                           @NotNull LineIndex oldLines, @NotNull LineIndex newLines,
+                                           int changeStart, int oldChangeEnd, int newChangeEnd) {
+        if (javaParser.getParserConfiguration().isPreprocessUnicodeEscapes()) {
+            // Positions would no longer map directly onto characters of the text.
+            return Optional.empty();
+        }
+
+        final BodyDeclaration<?> oldMember = findSmallestEnclosingMember(compilationUnit, oldLines, changeStart, oldChangeEnd);
+        if (oldMember == null) {
+            return Optional.empty();
+        }
+
+        final Range oldExtent      = extentOf(oldMember).orElseThrow(IllegalStateException::new);
+        final int   extentStart    = oldLines.positionToOffset(oldExtent.begin);
+        final int   oldExtentEnd   = oldLines.positionToOffset(oldExtent.end) + 1;
+        final int   newExtentEnd   = oldExtentEnd + (newChangeEnd - oldChangeEnd);
+        final int   lineStart      = oldLines.lineStartOffset(oldExtent.begin.line);
+        final CharSequence oldText = oldLines.getText();
+        final CharSequence newText = newLines.getText();
+        if (newExtentEnd <= extentStart || newExtentEnd > newText.length()) {
+            return Optional.empty();
+        }
+        if (hasTabBeforeLineEnd(newText, newExtentEnd)) {
+            // Tab stops following the member on the same line would not move by a fixed number of columns.
+            return Optional.empty();
+        }
+
+        // Pad the member's text with blank lines and columns, such that the re-parsed nodes are given the same
+        // positions as they would have had when parsing the whole file (tabs are kept, to keep the tab stops).
+        final StringBuilder padded = new StringBuilder((oldExtent.begin.line - 1) + (newExtentEnd - lineStart));
+        for (int i = 1; i < oldExtent.begin.line; i++) {
+            padded.append('\n');
+        }
+        for (int i = lineStart; i < extentStart; i++) {
+            padded.append(oldText.charAt(i) == '\t' ? '\t' : ' ');
+        }
+        padded.append(newText, extentStart, newExtentEnd);
+
+        final ParseResult<BodyDeclaration<?>> parseResult = javaParser.parse(ParseStart.CLASS_BODY, new CharSequenceProvider(padded));
+        if (!parseResult.isSuccessful() || !parseResult.getResult().isPresent()) {
+            return Optional.empty();
+        }
+        final BodyDeclaration<?> newMember = parseResult.getResult().get();
+        if (newMember.getClass() != oldMember.getClass()) {
+            // Only the same kind of member is known to take the old member's place (e.g. not a field edited into a method).
+            return Optional.empty();
+        }
+
+        // Everything after the member moves by however many lines/columns the member's text has grown or shrunk.
+        final Position     oldLast  = oldLines.offsetToPosition(oldExtentEnd - 1);
+        final Position     newLast  = newLines.offsetToPosition(newExtentEnd - 1);
+        final PositionShift shift   = new PositionShift(oldLast, newLast);
+
+        spliceTokens(oldMember, newMember, shift);
+        shiftRanges(compilationUnit, oldMember, shift);
+        replaceKeepingChildOrder(oldMember, newMember);
+        // The summaries of the enclosing nodes may include the member's text.
+        ASCIITreePrinter.invalidateSummaries(newMember);
+
+        return Optional.of(new Splice(oldMember, newMember));
+    }
+
+
+    /**
+     * Replace the node, keeping it at the same position within its parent's child nodes (rather than at the end, which
+     * is where {@link Node#replace(Node)} would leave it) -- the tree views are built in child node order.
+     */
+    private static void replaceKeepingChildOrder(@NotNull Node oldNode, @NotNull Node newNode) {
+        final Node       parent   = oldNode.getParentNode().orElseThrow(IllegalStateException::new);
+        final List<Node> children = parent.getChildNodes();
+
+        final List<Node> following = new ArrayList<>();
+        boolean          found     = false;
+        for (final Node child : children) {
+            if (found) {
+                following.add(child);
+            }
+            found |= child == oldNode;
+        }
+
+        oldNode.replace(newNode);
+
+        // Detaching and re-attaching moves the following siblings back behind the new node.
+        for (final Node sibling : following) {
+            sibling.setParentNode(null);
+            sibling.setParentNode(parent);
+        }
+    }
+
+
+    private static void shiftRange(@NotNull Node node, @NotNull PositionShift shift) {
+        node.getRange().ifPresent(range -> {
+            final Range shifted = shift.apply(range);
+            if (shifted != range) {
+                node.setRange(shifted);
+            }
+        });
+    }
+
+
+    private static void shiftRanges(@NotNull Node node, @NotNull Node excluded, @NotNull PositionShift shift) {
+        if (node == excluded) {
+            return;
+        }
+
+        shiftRange(node, shift);
+        // Attached comments are not amongst the child nodes.
+        node.getComment().ifPresent(comment -> shiftRange(comment, shift));
+
+        for (final Node child : node.getChildNodes()) {
+            shiftRanges(child, excluded, shift);
+        }
+    }
+
+
+    /**
+     * Replace the old member's tokens (including those of its comment) with those of the new member, and shift the
+     * ranges of all of the tokens which follow.
+     */
+    private static void spliceTokens(@NotNull BodyDeclaration<?> oldMember, @NotNull BodyDeclaration<?> newMember, @NotNull PositionShift shift) {
+        final Optional<TokenRange> oldTokens = oldMember.getTokenRange();
+        final Optional<TokenRange> newTokens = newMember.getTokenRange();
+        if (!oldTokens.isPresent() || !newTokens.isPresent()) {
+            return;
+        }
+
+        final JavaToken oldFirst = oldMember.getComment().flatMap(Comment::getTokenRange).map(TokenRange::getBegin).orElse(oldTokens.get().getBegin());
+        final JavaToken oldLast  = oldTokens.get().getEnd();
+        final JavaToken newFirst = newMember.getComment().flatMap(Comment::getTokenRange).map(TokenRange::getBegin).orElse(newTokens.get().getBegin());
+        final JavaToken newLast  = newTokens.get().getEnd();
+
+        final JavaToken before = oldFirst.getPreviousToken().orElse(null);
+        if (before == null) {
+            return;
+        }
+
+        // Shift the tokens following the member.
+        Optional<JavaToken> following = oldLast.getNextToken();
+        while (following.isPresent()) {
+            final JavaToken token = following.get();
+            token.getRange().ifPresent(range -> token.setRange(shift.apply(range)));
+            following = token.getNextToken();
+        }
+
+        // Collect the new tokens before linking them into the old token list, as linking modifies their neighbours.
+        final List<JavaToken> replacementTokens = new ArrayList<>();
+        JavaToken             current           = newFirst;
+        while (current != null) {
+            replacementTokens.add(current);
+            current = current == newLast ? null : current.getNextToken().orElse(null);
+        }
+
+        // Remove the old tokens.
+        current = oldFirst;
+        while (current != null) {
+            final JavaToken next = current == oldLast ? null : current.getNextToken().orElse(null);
+            current.deleteToken();
+            current = next;
+        }
+
+        // Link in the new tokens.
+        JavaToken anchor = before;
+        for (final JavaToken token : replacementTokens) {
+            anchor.insertAfter(token);
+            anchor = token;
+        }
+    }
+
+
+    /**
+     * Maps positions which follow an edited region onto their position after the edit.
+     */
+    private static final class PositionShift {
+
+        private final Position newLast;
+        private final Position oldLast;
+
+
+        PositionShift(@NotNull Position oldLast, @NotNull Position newLast) {
+            this.oldLast = oldLast;
+            this.newLast = newLast;
+        }
+
+
+        Position apply(@NotNull Position position) {
+            if (!position.isAfter(this.oldLast)) {
+                return position;
+            }
+            if (position.line == this.oldLast.line) {
+                return new Position(this.newLast.line, position.column - this.oldLast.column + this.newLast.column);
+            }
+            return new Position(position.line + this.newLast.line - this.oldLast.line, position.column);
+        }
+
+
+        Range apply(@NotNull Range range) {
+            final Position begin = this.apply(range.begin);
+            final Position end   = this.apply(range.end);
+            if (begin == range.begin && end == range.end) {
+                return range;
+            }
+            return new Range(begin, end);
+        }
+
+    }
+
+    /**
+     * The result of a successful incremental re-parse.
+     */
+    public static final class Splice {
+
+        @NotNull
+        private final Node newNode;
+
+        @NotNull
+        private final Node oldNode;
+
+
+        Splice(@NotNull Node oldNode, @NotNull Node newNode) {
+            this.oldNode = oldNode;
+            this.newNode = newNode;
+        }
+
+
+        /**
+         * @return The node which has been spliced into the compilation unit.
+         */
+        @NotNull
+        public Node getNewNode() {
+            return this.newNode;
+        }
+
+
+        /**
+         * @return The node which has been removed from the compilation unit.
+         */
+        @NotNull
+        public Node getOldNode() {
+            return this.oldNode;
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.incremental;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.logging.NotificationLogger;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.services.JavaParserService;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.LineIndex;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.Alarm;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Optional;
+
+/**
+ * Listens for edits to a document, and (once the typing has paused) splices the edited member into the compilation
+ * unit which was parsed from that document -- see {@link IncrementalReparser}.
+ *
+ * All edits made since the last re-parse are coalesced into a single changed region, described by the length of the
+ * unchanged prefix and the length of the unchanged suffix.
+ *
+ * Everything happens on the event dispatch thread, which is also where the compilation unit is read by the UI.
+ */
+public class LiveReparseController implements DocumentListener, Disposable {
+
+    private static final NotificationLogger notificationLogger = new NotificationLogger(LiveReparseController.class);
+
+    /**
+     * How long to wait after the most recent keystroke before re-parsing.
+     */
+    private static final int DEBOUNCE_DELAY_MILLIS = 150;
+
+    @NotNull
+    private final Alarm alarm;
+
+    @NotNull
+    private final CompilationUnit compilationUnit;
+
+    @NotNull
+    private final Document document;
+
+    @NotNull
+    private final ParserConfiguration parserConfiguration;
+
+    @NotNull
+    private final Listener listener;
+
+    @NotNull
+    private final Project project;
+
+    /**
+     * The offset of the first character changed since the last re-parse, or -1 if nothing has changed.
+     */
+    private int dirtyStart = -1;
+
+    /**
+     * The number of characters at the end of the document which are unchanged since the last re-parse.
+     */
+    private int dirtySuffixLength;
+
+    /**
+     * Set once a full re-parse has been requested -- after which this controller no longer tracks the document.
+     */
+    private boolean fullReparseRequested = false;
+
+    @NotNull
+    private LineIndex parsedLines;
+
+
+    /**
+     * @param parsedText              The text which the compilation unit was parsed from.
+     * @param parsedModificationStamp The document's modification stamp at the time that the text was taken.
+     */
+    public LiveReparseController(@NotNull Project project, @NotNull Document document, @NotNull ParserConfiguration parserConfiguration,
+                                 @NotNull CompilationUnit compilationUnit, @NotNull CharSequence parsedText, long parsedModificationStamp,
+                                 @NotNull Listener listener) {
+        this.project = project;
+        this.document = document;
+        this.parserConfiguration = parserConfiguration;
+        this.compilationUnit = compilationUnit;
+        this.listener = listener;
+        this.parsedLines = LineIndex.of(parsedText, parserConfiguration.getTabSize());
+
+        this.alarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+        this.document.addDocumentListener(this, this);
+
+        // Edits made while the parse was running have not been seen by this listener.
+        if (document.getModificationStamp() != parsedModificationStamp) {
+            this.alarm.addRequest(this::requestFullReparse, 0);
+        }
+    }
+
+
+    @Override
+    public void dispose() {
+        notificationLogger.traceEnter(this.project);
+        // The alarm and the document listener are disposed of alongside this controller.
+    }
+
+
+    @Override
+    public void documentChanged(@NotNull DocumentEvent event) {
+        if (this.fullReparseRequested) {
+            return;
+        }
+
+        final int suffixLength = event.getDocument().getTextLength() - (event.getOffset() + event.getNewLength());
+        if (this.dirtyStart < 0) {
+            this.dirtyStart = event.getOffset();
+            this.dirtySuffixLength = suffixLength;
+        } else {
+            this.dirtyStart = Math.min(this.dirtyStart, event.getOffset());
+            // The previously unchanged suffix has moved, but keeps its length unless this edit was within it.
+            this.dirtySuffixLength = Math.min(this.dirtySuffixLength, suffixLength);
+        }
+
+        this.alarm.cancelAllRequests();
+        this.alarm.addRequest(this::reparse, DEBOUNCE_DELAY_MILLIS);
+    }
+
+
+    private void reparse() {
+        if (this.fullReparseRequested || this.dirtyStart < 0) {
+            return;
+        }
+
+        final CharSequence newText  = this.document.getImmutableCharSequence();
+        final LineIndex    newLines = LineIndex.of(newText, this.parsedLines.getTabSize());
+
+        // Neither the prefix nor the suffix may overlap the changed region within either text.
+        final int oldLength    = this.parsedLines.getText().length();
+        final int suffixLength = Math.min(this.dirtySuffixLength, Math.min(oldLength, newText.length()) - this.dirtyStart);
+        final int changeStart  = this.dirtyStart;
+        this.dirtyStart = -1;
+
+        final long                                 startNanos = System.nanoTime();
+        final Optional<IncrementalReparser.Splice> splice;
+        try (JavaParserService.ParserLease lease = JavaParserService.getInstance(this.project).borrowJavaParser(this.parserConfiguration)) {
+            splice = IncrementalReparser.reparse(
+                    lease.getJavaParser(), this.compilationUnit, this.parsedLines, newLines,
+                    changeStart, oldLength - suffixLength, newText.length() - suffixLength
+            );
+        }
+
+        if (splice.isPresent()) {
+            this.parsedLines = newLines;
+            notificationLogger.debug(this.project, String.format("Re-parsed %s in %.2fms.", splice.get().getNewNode().getClass().getSimpleName(), (System.nanoTime() - startNanos) / 1_000_000.0));
+            this.listener.onSplice(splice.get());
+        } else {
+            this.requestFullReparse();
+        }
+    }
+
+
+    private void requestFullReparse() {
+        notificationLogger.debug(this.project, "Unable to re-parse the edit incrementally -- requesting a full re-parse.");
+        this.fullReparseRequested = true;
+        this.listener.onFullReparseRequired();
+    }
+
+
+    /**
+     * Notified (on the event dispatch thread) of the outcome of each re-parse.
+     */
+    public interface Listener {
+
+        /**
+         * The full document must be re-parsed, as the edit could not be handled incrementally.
+         * The controller is no longer tracking the document, so should be disposed of.
+         */
+        void onFullReparseRequired();
+
+        /**
+         * The compilation unit has been updated in place.
+         */
+        void onSplice(@NotNull IncrementalReparser.Splice splice);
+
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static com.github.rogerhowell.javaparser_ast_inspector.plugin.util.StringUtil.padEnd;
+import static com.github.rogerhowell.javaparser_ast_inspector.plugin.util.StringUtil.padStart;
+
+/**
+ * The time taken (and memory allocated) by each phase of producing the output for one file, e.g. parsing, building the
+ * tree nodes, and exporting.
+ *
+ * Phases may be recorded from different threads, but not concurrently -- e.g. in the background then on the event
+ * dispatch thread. Allocations are those made by the thread which ran the phase, when supported by the JVM.
+ */
+public class PipelineTimings {
+
+    private static final String NEWLINE = String.format("%n");
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final String      label;
+    private final List<Phase> phases = new ArrayList<>();
+    private final String      pluginVersion;
+    private final long        timestampMillis;
+
+
+    /**
+     * @param label         Identifies what was processed, e.g. the file name.
+     * @param pluginVersion The version of the plugin, such that timings can be compared across versions.
+     */
+    public PipelineTimings(@NotNull String label, @NotNull String pluginVersion) {
+        this(label, pluginVersion, System.currentTimeMillis());
+    }
+
+
+    PipelineTimings(@NotNull String label, @NotNull String pluginVersion, long timestampMillis) {
+        this.label = Objects.requireNonNull(label);
+        this.pluginVersion = Objects.requireNonNull(pluginVersion);
+        this.timestampMillis = timestampMillis;
+    }
+
+
+    /**
+     * @return The number of bytes allocated by the current thread so far, or -1 if the JVM does not support this.
+     */
+    private static long currentThreadAllocatedBytes() {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * @return A table of the phases, for display in a log.
+     */
+    @NotNull
+    public synchronized String formatBreakdown() {
+        final StringBuilder output = new StringBuilder();
+        output.append(NEWLINE).append("Timings (").append(this.label).append(")");
+        output.append(NEWLINE).append(padEnd("Phase", 25)).append(padStart("Time (ms)", 12)).append(padStart("Allocated (KiB)", 18));
+        output.append(NEWLINE).append(padEnd("-----", 25)).append(padStart("---------", 12)).append(padStart("---------------", 18));
+        for (Phase phase : this.phases) {
+            output.append(NEWLINE)
+                  .append(padEnd(phase.getName(), 25))
+                  .append(padStart(String.format("%.2f", phase.getNanos() / 1_000_000.0), 12))
+                  .append(padStart(phase.getAllocatedBytes() < 0 ? "?" : String.valueOf(phase.getAllocatedBytes() / 1024), 18));
+        }
+        output.append(NEWLINE)
+              .append(padEnd("Total", 25))
+              .append(padStart(String.format("%.2f", this.getTotalNanos() / 1_000_000.0), 12));
+        return output.toString();
+    }
+
+
+    @NotNull
+    public String getLabel() {
+        return this.label;
+    }
+
+
+    @NotNull
+    public synchronized List<Phase> getPhases() {
+        return Collections.unmodifiableList(new ArrayList<>(this.phases));
+    }
+
+
+    @NotNull
+    public String getPluginVersion() {
+        return this.pluginVersion;
+    }
+
+
+    public long getTimestampMillis() {
+        return this.timestampMillis;
+    }
+
+
+    public synchronized long getTotalNanos() {
+        return this.phases.stream().mapToLong(Phase::getNanos).sum();
+    }
+
+
+    public synchronized void record(@NotNull String phaseName, long nanos, long allocatedBytes) {
+        this.phases.add(new Phase(phaseName, nanos, allocatedBytes));
+    }
+
+
+    /**
+     * Run the given phase on the current thread, recording its duration and allocations (even if it fails).
+     */
+    public void time(@NotNull String phaseName, @NotNull Runnable phase) {
+        this.time(phaseName, () -> {
+            phase.run();
+            return null;
+        });
+    }
+
+
+    /**
+     * Run the given phase on the current thread, recording its duration and allocations (even if it fails).
+     */
+    public <T> T time(@NotNull String phaseName, @NotNull Supplier<T> phase) {
+        final long startBytes = currentThreadAllocatedBytes();
+        final long startNanos = System.nanoTime();
+        try {
+            return phase.get();
+        } finally {
+            final long nanos    = System.nanoTime() - startNanos;
+            final long endBytes = currentThreadAllocatedBytes();
+            this.record(phaseName, nanos, startBytes < 0 || endBytes < 0 ? -1 : endBytes - startBytes);
+        }
+    }
+
+
+    public static final class Phase {
+
+        private final long   allocatedBytes;
+        private final String name;
+        private final long   nanos;
+
+
+        Phase(@NotNull String name, long nanos, long allocatedBytes) {
+            this.name = name;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+
+        /**
+         * @return The number of bytes allocated during the phase, or -1 if unknown.
+         */
+        public long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+
+        @NotNull
+        public String getName() {
+            return this.name;
+        }
+
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The most recent {@link PipelineTimings}, which can be exported (as JSON or CSV) to track performance regressions,
+ * e.g. across versions of the plugin. This is safe to use from multiple threads.
+ */
+public class PipelineTimingsHistory {
+
+    public static final int DEFAULT_MAX_RECORDS = 1000;
+
+    private static final String CSV_HEADER = "timestamp_millis,plugin_version,label,phase,nanos,allocated_bytes";
+
+    private final int                    maxRecords;
+    private final Deque<PipelineTimings> records = new ArrayDeque<>();
+
+
+    public PipelineTimingsHistory() {
+        this(DEFAULT_MAX_RECORDS);
+    }
+
+
+    /**
+     * @param maxRecords The number of records to keep -- the oldest are discarded first.
+     */
+    public PipelineTimingsHistory(int maxRecords) {
+        this.maxRecords = Math.max(1, maxRecords);
+    }
+
+
+    private static String csvField(@NotNull String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+
+    private static String jsonString(@NotNull String value) {
+        final StringBuilder output = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                output.append('\\').append(c);
+            } else if (c < 0x20) {
+                output.append(String.format("\\u%04x", (int) c));
+            } else {
+                output.append(c);
+            }
+        }
+        return output.append('"').toString();
+    }
+
+
+    public synchronized void add(@NotNull PipelineTimings timings) {
+        this.records.addLast(timings);
+        while (this.records.size() > this.maxRecords) {
+            this.records.removeFirst();
+        }
+    }
+
+
+    /**
+     * @return The records, oldest first.
+     */
+    @NotNull
+    public synchronized List<PipelineTimings> getRecords() {
+        return new ArrayList<>(this.records);
+    }
+
+
+    /**
+     * Write one row per phase of every record, with a header row.
+     */
+    public void writeCsv(@NotNull Appendable output) throws IOException {
+        output.append(CSV_HEADER).append('\n');
+        for (PipelineTimings timings : this.getRecords()) {
+            for (PipelineTimings.Phase phase : timings.getPhases()) {
+                output.append(String.valueOf(timings.getTimestampMillis())).append(',')
+                      .append(csvField(timings.getPluginVersion())).append(',')
+                      .append(csvField(timings.getLabel())).append(',')
+                      .append(csvField(phase.getName())).append(',')
+                      .append(String.valueOf(phase.getNanos())).append(',')
+                      .append(String.valueOf(phase.getAllocatedBytes())).append('\n');
+            }
+        }
+    }
+
+
+    /**
+     * Write an array of records, each with its phases in the order that they were recorded.
+     */
+    public void writeJson(@NotNull Appendable output) throws IOException {
+        output.append('[');
+        final List<PipelineTimings> records = this.getRecords();
+        for (int i = 0; i < records.size(); i++) {
+            final PipelineTimings timings = records.get(i);
+            output.append(i == 0 ? "\n" : ",\n")
+                  .append("  {\"timestampMillis\": ").append(String.valueOf(timings.getTimestampMillis()))
+                  .append(", \"pluginVersion\": ").append(jsonString(timings.getPluginVersion()))
+                  .append(", \"label\": ").append(jsonString(timings.getLabel()))
+                  .append(", \"totalNanos\": ").append(String.valueOf(timings.getTotalNanos()))
+                  .append(", \"phases\": [");
+
+            final List<PipelineTimings.Phase> phases = timings.getPhases();
+            for (int j = 0; j < phases.size(); j++) {
+                final PipelineTimings.Phase phase = phases.get(j);
+                output.append(j == 0 ? "" : ", ")
+                      .append("{\"name\": ").append(jsonString(phase.getName()))
+                      .append(", \"nanos\": ").append(String.valueOf(phase.getNanos()))
+                      .append(", \"allocatedBytes\": ").append(String.valueOf(phase.getAllocatedBytes()))
+                      .append('}');
+            }
+            output.append("]}");
+        }
+        output.append(records.isEmpty() ? "]\n" : "\n]\n");
+    }
+
+}
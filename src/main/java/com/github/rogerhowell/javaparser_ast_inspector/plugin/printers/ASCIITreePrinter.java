@@ -1,6 +1,9 @@
 package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
 
+import com.github.javaparser.JavaToken;
 import com.github.javaparser.Position;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.DataKey;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.printer.configuration.DefaultConfigurationOption;
 import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
@@ -9,10 +12,12 @@ import com.github.javaparser.printer.configuration.PrinterConfiguration;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 
 /**
@@ -22,7 +27,7 @@ import java.util.function.Function;
  * </pre>
  * prints:
  * <pre>
- * "new Object() {...}" ObjectCreationExpr : (1,1)-(3,1)
+ * "new Object(){...}" ObjectCreationExpr : (1,1)-(3,1)
  * ├─"Object" ClassOrInterfaceType : (1,5)-(1,10)
  * │ └─"Object" SimpleName : (1,5)-(1,10)
  * └─"int i;" FieldDeclaration : (2,5)-(2,10)
@@ -55,6 +60,12 @@ public class ASCIITreePrinter implements NodePrinter {
 
     private static final String NEWLINE = String.format("%n");
 
+    /**
+     * The summary of each node, once printed -- see {@link #invalidateSummaries(Node)}.
+     */
+    private static final DataKey<String> SUMMARY_KEY = new DataKey<String>() {
+    };
+
     /**
      * The ASCIITreePrinter doesn't do comments by design
      */
@@ -174,6 +185,29 @@ public class ASCIITreePrinter implements NodePrinter {
     }
 
 
+    /**
+     * Discard the memoized summaries of the node and its ancestors -- to be called when the node's subtree has been
+     * modified (e.g. a child has been replaced), as each of their summaries may have changed.
+     */
+    public static void invalidateSummaries(Node node) {
+        Node current = node;
+        while (current != null) {
+            synchronized (current) {
+                current.removeData(SUMMARY_KEY);
+            }
+            current = current.getParentNode().orElse(null);
+        }
+    }
+
+
+    /**
+     * @return True if the token is neither whitespace nor a comment (the ASCIITreePrinter doesn't do comments).
+     */
+    private static boolean isContent(JavaToken token) {
+        return !token.getCategory().isWhitespaceOrComment();
+    }
+
+
     /**
      * Prints an abbreviated view of a AST node (as to keep the content all on one line)
      * in the event the text is truncated, appends "..." and the last non-empty character
@@ -184,26 +218,27 @@ public class ASCIITreePrinter implements NodePrinter {
      *     }
      * </pre>
      * prints:
-     * <pre>"new Object() {...}"</pre>
+     * <pre>"new Object(){...}"</pre>
+     *
+     * The summary is taken from the node's tokens (as per the original source), reading only those on its first line
+     * plus its last token -- thus the cost does not grow with the size of the node's subtree. Nodes without tokens
+     * (e.g. when not stored by the parser) are instead pretty printed.
+     *
+     * Summaries are memoized on the node, thus printing every node of the tree takes linear time.
      *
      * @param n
      * @return
      */
     public static String printNodeSummary(Node n) {
-        String s = n.toString(PRINT_NO_COMMENTS).trim();
-        if (s.isEmpty()) {
-            return ""; //this happens, sometimes we have UnknownType (for Lambda) with NO text
-        }
-        List<String> lines = lines(s);
-        if (lines.get(lines.size() - 1).isEmpty()) {
-            lines.remove(lines.size() - 1);
-        }
-        if (lines.size() == 1) {
-            return lines.get(0); //its all on one line
+        synchronized (n) {
+            if (n.containsData(SUMMARY_KEY)) {
+                return n.getData(SUMMARY_KEY);
+            }
+
+            final String summary = n.getTokenRange().map(ASCIITreePrinter::summariseTokens).orElseGet(() -> summarisePrettyPrint(n));
+            n.setData(SUMMARY_KEY, summary);
+            return summary;
         }
-        String lastLine = lines.get(Math.max(lines.size() - 1, 0));
-        //returns the first line, then "..." then the last character on the last line; usually ( '}', ';' or ')' )
-        return lines.get(0) + "..." + lastLine.charAt(lastLine.length() - 1);
     }
 
 
@@ -253,6 +288,18 @@ public class ASCIITreePrinter implements NodePrinter {
     }
 
 
+    /**
+     * Write the ASCII tree directly to the given destination, line by line
+     *
+     * @param rootNode   the top AST {@link Node} to print the contents of
+     * @param appendable where to write the ASCII tree
+     */
+    @Override
+    public void output(Node rootNode, Appendable appendable) throws IOException {
+        TNode.of(new TNode(rootNode)).build(this.nodeFormat, appendable, "", "");
+    }
+
+
     /**
      * @param rootNode
      * @param nodeFormat how to print out each node
@@ -275,6 +322,111 @@ public class ASCIITreePrinter implements NodePrinter {
     }
 
 
+    /**
+     * Pretty prints the whole of the node, then abbreviates it -- the cost of which grows with the size of the subtree.
+     */
+    private static String summarisePrettyPrint(Node n) {
+        String s = n.toString(PRINT_NO_COMMENTS).trim();
+        if (s.isEmpty()) {
+            return ""; //this happens, sometimes we have UnknownType (for Lambda) with NO text
+        }
+        List<String> lines = lines(s);
+        if (lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        if (lines.size() == 1) {
+            return lines.get(0); //its all on one line
+        }
+        String lastLine = lines.get(Math.max(lines.size() - 1, 0));
+        //returns the first line, then "..." then the last character on the last line; usually ( '}', ';' or ')' )
+        return lines.get(0) + "..." + lastLine.charAt(lastLine.length() - 1);
+    }
+
+
+    /**
+     * Abbreviates the node from its tokens, skipping whitespace and comments at either end -- only the tokens on the
+     * first line are visited, plus the last.
+     *
+     * @return The summary, or null if the tokens have no positions (thus the end of the first line cannot be found).
+     */
+    private static String summariseTokens(TokenRange tokenRange) {
+        final JavaToken begin = tokenRange.getBegin();
+        final JavaToken end   = tokenRange.getEnd();
+
+        // The last token which is neither whitespace nor a comment.
+        JavaToken last = end;
+        while (!isContent(last)) {
+            if (last == begin) {
+                return ""; //this happens, e.g. a node consisting of only whitespace
+            }
+            last = last.getPreviousToken().orElse(null);
+            if (last == null) {
+                return "";
+            }
+        }
+
+        // The first token which is neither whitespace nor a comment.
+        JavaToken first = begin;
+        while (!isContent(first)) {
+            first = first.getNextToken().orElse(null);
+            if (first == null) {
+                return "";
+            }
+        }
+
+        final Optional<Position> firstPosition = first.getRange().map(range -> range.begin);
+        final Optional<Position> lastPosition  = last.getRange().map(range -> range.end);
+        if (!firstPosition.isPresent() || !lastPosition.isPresent()) {
+            // Positions are required to find the end of the first line.
+            return null;
+        }
+        final int firstLine = firstPosition.get().line;
+
+        // The content of the first line (excluding comments).
+        final StringBuilder line    = new StringBuilder();
+        JavaToken           current = first;
+        while (current != null) {
+            final Optional<Position> position = current.getRange().map(range -> range.begin);
+            if (!position.isPresent() || position.get().line != firstLine || current.getCategory().isEndOfLine()) {
+                break;
+            }
+            // Comments are skipped, collapsing the whitespace either side of them.
+            final boolean afterWhitespace = line.length() > 0 && Character.isWhitespace(line.charAt(line.length() - 1));
+            final boolean skipped         = current.getCategory().isComment() || (current.getCategory().isWhitespace() && afterWhitespace);
+            if (!skipped) {
+                final String text      = current.getText();
+                final int    lineBreak = indexOfLineBreak(text);
+                if (lineBreak >= 0) {
+                    // A token spanning several lines (e.g. a text block).
+                    line.append(text, 0, lineBreak);
+                    break;
+                }
+                line.append(text);
+            }
+            current = current == end ? null : current.getNextToken().orElse(null);
+        }
+        final String firstLineText = line.toString().trim();
+
+        if (lastPosition.get().line == firstLine) {
+            return firstLineText; //its all on one line
+        }
+        //returns the first line, then "..." then the last character on the last line; usually ( '}', ';' or ')' )
+        final String lastText = last.getText();
+        return firstLineText + "..." + lastText.charAt(lastText.length() - 1);
+    }
+
+
+    private static int indexOfLineBreak(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
     @Override
     public String toString() {
         return "ASCIITreePrinter{" +
@@ -325,7 +477,7 @@ public class ASCIITreePrinter implements NodePrinter {
          * @param prefix
          * @param childrenPrefix
          */
-        private void build(Function<Node, String> nodeStringFunction, StringBuilder buffer, String prefix, String childrenPrefix) {
+        private void build(Function<Node, String> nodeStringFunction, Appendable buffer, String prefix, String childrenPrefix) throws IOException {
             buffer.append(prefix);
             buffer.append(nodeStringFunction.apply(this.node));
             buffer.append(NEWLINE);
@@ -350,7 +502,12 @@ public class ASCIITreePrinter implements NodePrinter {
 
         public String output(Function<Node, String> nodeToStringFunction) {
             StringBuilder buffer = new StringBuilder(DEFAULT_STRINGBUILDER_CAPACITY);
-            this.build(nodeToStringFunction, buffer, "", "");
+            try {
+                this.build(nodeToStringFunction, buffer, "", "");
+            } catch (IOException e) {
+                //this shouldnt happen (a StringBuilder does not throw IOExceptions)
+                throw new UncheckedIOException(e);
+            }
             return buffer.toString();
         }
     }
@@ -0,0 +1,194 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.metamodel.NodeMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import com.github.javaparser.utils.LineSeparator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.javaparser.utils.Utils.assertNotNull;
+
+/**
+ * Outputs a Cypher script which creates the AST in batches, for use with {@code cypher-shell} or the Neo4j Browser.
+ *
+ * Unlike {@link CypherPrinter} (one {@code MERGE} per node, each carrying every id seen so far), each batch is a
+ * {@code :param rows => [...]} followed by a single {@code UNWIND $rows} statement. Nodes are batched per node type
+ * (as labels cannot be parameterised), with each node recording the id of its parent. The {@code PARENT}
+ * relationships are then created from those ids, a range of ids at a time, using an index on the id.
+ *
+ * At most one batch of rows per node type is held in memory at once.
+ */
+public class BatchedCypherPrinter implements NodePrinter {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String EOL = LineSeparator.SYSTEM.asRawString();
+
+    private final int                       batchSize;
+    private final boolean                   outputNodeType;
+    private final Map<String, List<String>> pendingRows;
+
+    private int nodeCount;
+
+
+    public BatchedCypherPrinter(boolean outputNodeType) {
+        this(outputNodeType, DEFAULT_BATCH_SIZE);
+    }
+
+
+    /**
+     * @param batchSize The maximum number of rows (nodes, or relationships) per statement.
+     */
+    public BatchedCypherPrinter(boolean outputNodeType, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1 (given: " + batchSize + ").");
+        }
+        this.outputNodeType = outputNodeType;
+        this.batchSize = batchSize;
+        this.pendingRows = new LinkedHashMap<>();
+    }
+
+
+    /**
+     * Write the given value as a Cypher string literal.
+     */
+    static void writeString(Appendable appendable, String value) throws IOException {
+        appendable.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\'':
+                    appendable.append("\\'");
+                    break;
+                case '\\':
+                    appendable.append("\\\\");
+                    break;
+                case '\n':
+                    appendable.append("\\n");
+                    break;
+                case '\r':
+                    appendable.append("\\r");
+                    break;
+                case '\t':
+                    appendable.append("\\t");
+                    break;
+                default:
+                    appendable.append(c);
+                    break;
+            }
+        }
+        appendable.append('\'');
+    }
+
+
+    private void flush(String typeName, List<String> rows, Appendable appendable) throws IOException {
+        appendable.append(":param rows => [");
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                appendable.append(',');
+            }
+            appendable.append(EOL).append("  ").append(rows.get(i));
+        }
+        appendable.append(EOL).append("];").append(EOL)
+                  .append("UNWIND $rows AS row CREATE (n:Node:").append(typeName).append(") SET n = row;").append(EOL)
+                  .append(EOL);
+        rows.clear();
+    }
+
+
+    private void output(Node node, Integer parentId, String name, Appendable appendable) throws IOException {
+        assertNotNull(node);
+
+        NodeMetaModel           metaModel  = node.getMetaModel();
+        PropertyPartitions      partitions = PropertyPartitions.of(metaModel);
+        List<PropertyMetaModel> attributes = partitions.getAttributes();
+        List<PropertyMetaModel> subNodes   = partitions.getSubNodes();
+        List<PropertyMetaModel> subLists   = partitions.getSubLists();
+
+        int    id       = this.nodeCount++;
+        String typeName = metaModel.getTypeName();
+
+        StringBuilder row = new StringBuilder();
+        row.append("{id: ").append(id);
+        if (parentId != null) {
+            row.append(", parent: ").append(parentId);
+        }
+        row.append(", name: ");
+        writeString(row, name);
+        if (this.outputNodeType) {
+            row.append(", _type: ");
+            writeString(row, typeName);
+        }
+        for (PropertyMetaModel a : attributes) {
+            row.append(", ").append(a.getName()).append(": ");
+            writeString(row, a.getValue(node).toString());
+        }
+        row.append('}');
+
+        List<String> rows = this.pendingRows.computeIfAbsent(typeName, k -> new ArrayList<>());
+        rows.add(row.toString());
+        if (rows.size() >= this.batchSize) {
+            this.flush(typeName, rows, appendable);
+        }
+
+        for (PropertyMetaModel sn : subNodes) {
+            Node nd = (Node) sn.getValue(node);
+            if (nd != null) {
+                this.output(nd, id, sn.getName(), appendable);
+            }
+        }
+
+        for (PropertyMetaModel sl : subLists) {
+            NodeList<? extends Node> nl = (NodeList<? extends Node>) sl.getValue(node);
+            if (nl != null && nl.isNonEmpty()) {
+                String slName = sl.getName().substring(0, sl.getName().length() - 1);
+                for (Node nd : nl) {
+                    this.output(nd, id, slName, appendable);
+                }
+            }
+        }
+    }
+
+
+    @Override
+    public void output(Node node, Appendable appendable) throws IOException {
+        this.nodeCount = 0;
+        this.pendingRows.clear();
+
+        appendable.append("CREATE INDEX node_id IF NOT EXISTS FOR (n:Node) ON (n.id);").append(EOL)
+                  .append(EOL);
+
+        this.output(node, null, "root", appendable);
+        for (Map.Entry<String, List<String>> entry : this.pendingRows.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                this.flush(entry.getKey(), entry.getValue(), appendable);
+            }
+        }
+        this.pendingRows.clear();
+
+        // The ids are assigned sequentially, thus the relationships can be created in batches of id ranges.
+        for (int start = 0; start < this.nodeCount; start += this.batchSize) {
+            appendable.append("MATCH (c:Node) WHERE c.id >= ").append(String.valueOf(start))
+                      .append(" AND c.id < ").append(String.valueOf(Math.min(start + this.batchSize, this.nodeCount)))
+                      .append(" AND c.parent IS NOT NULL").append(EOL)
+                      .append("MATCH (p:Node {id: c.parent})").append(EOL)
+                      .append("CREATE (p)<-[:PARENT]-(c);").append(EOL);
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return "BatchedCypherPrinter{" +
+               "batchSize=" + this.batchSize +
+               ", outputNodeType=" + this.outputNodeType +
+               ", nodeCount=" + this.nodeCount +
+               '}';
+    }
+}
@@ -27,33 +27,42 @@ import com.github.javaparser.Range;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.expr.Expression;
-import com.github.javaparser.metamodel.NodeMetaModel;
 import com.github.javaparser.metamodel.PropertyMetaModel;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.types.ResolvedType;
 import org.apache.commons.text.StringEscapeUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
 import static com.github.javaparser.utils.Utils.assertNotNull;
-import static java.util.stream.Collectors.toList;
 
 /**
  * Outputs a Graphviz diagram of the AST.
+ *
+ * This is also a {@link TreeEmitter}, such that it can be one of several formats output by a {@link MultiFormatPrinter}
+ * (in which case types are not resolved).
  */
-public class CustomDotPrinter implements NodePrinter {
-
-    private static final int DEFAULT_STRINGBUILDER_CAPACITY = 5000;
+public class CustomDotPrinter implements NodePrinter, TreeEmitter {
 
     private static final boolean DEFAULT_RESOLVE_TYPES = false;
 
-    private final boolean outputNodeType;
-    private       int     nodeCount;
+    /**
+     * The names of the enclosing DOT nodes (i.e. the parent of the next node), when used as a {@link TreeEmitter}.
+     */
+    private final Deque<String> emitterParentNames;
+    private final boolean       outputNodeType;
+    private       int           nodeCount;
 
 
     public CustomDotPrinter(final boolean outputNodeType) {
         this.outputNodeType = outputNodeType;
         this.nodeCount = 0;
+        this.emitterParentNames = new ArrayDeque<>();
     }
 
 
@@ -62,6 +71,37 @@ public class CustomDotPrinter implements NodePrinter {
     }
 
 
+    @Override
+    public void endTree(@NotNull final Node root, @NotNull final Appendable appendable) throws IOException {
+        appendable.append(System.lineSeparator()).append("}");
+    }
+
+
+    @Override
+    public void enterList(@NotNull final Node node, @NotNull final PropertyMetaModel property, @NotNull final Appendable appendable) throws IOException {
+        this.emitterParentNames.push(this.appendList(this.emitterParentNames.peek(), property, appendable));
+    }
+
+
+    @Override
+    public void enterNode(@NotNull final Node node, @NotNull final PropertyPartitions partitions, @Nullable final PropertyMetaModel property, final boolean inList, @NotNull final Appendable appendable) throws IOException {
+        final String ndName = this.appendNode(node, partitions, this.emitterParentNames.peek(), TreeEmitter.nameOf(property, inList), appendable, DEFAULT_RESOLVE_TYPES);
+        this.emitterParentNames.push(ndName);
+    }
+
+
+    @Override
+    public void exitList(@NotNull final Node node, @NotNull final PropertyMetaModel property, @NotNull final Appendable appendable) {
+        this.emitterParentNames.pop();
+    }
+
+
+    @Override
+    public void exitNode(@NotNull final Node node, @NotNull final Appendable appendable) {
+        this.emitterParentNames.pop();
+    }
+
+
     private String nextNodeName() {
         return "n" + (this.nodeCount++);
     }
@@ -73,29 +113,87 @@ public class CustomDotPrinter implements NodePrinter {
      * @return The DOT-formatted equivalent of node.
      */
     public String output(final Node node, final boolean resolveTypes) {
+        final NodePrinter printer = (n, appendable) -> this.output(n, resolveTypes, appendable);
+        return printer.output(node);
+    }
+
+
+    /**
+     * @param node         The node to be printed - typically a CompilationUnit.
+     * @param resolveTypes Should node types be resolved?
+     * @param appendable   Where to write the DOT-formatted equivalent of node.
+     */
+    public void output(final Node node, final boolean resolveTypes, final Appendable appendable) throws IOException {
         this.nodeCount = 0;
-        final StringBuilder output = new StringBuilder(DEFAULT_STRINGBUILDER_CAPACITY);
-        output.append("digraph {");
-        this.output(node, null, "root", output, resolveTypes);
-        output.append(System.lineSeparator()).append("}");
-        return output.toString();
+        appendable.append("digraph {");
+        this.output(node, null, "root", appendable, resolveTypes);
+        appendable.append(System.lineSeparator()).append("}");
     }
 
 
-    public void output(final Node node, final String parentNodeName, final String name, final StringBuilder builder) {
+    public void output(final Node node, final String parentNodeName, final String name, final Appendable builder) throws IOException {
         this.output(node, parentNodeName, name, builder, DEFAULT_RESOLVE_TYPES);
     }
 
 
-    public void output(final Node node, final String parentNodeName, final String name, final StringBuilder builder, final boolean resolveTypes) {
+    public void output(final Node node, final String parentNodeName, final String name, final Appendable builder, final boolean resolveTypes) throws IOException {
         assertNotNull(node);
-        final NodeMetaModel           metaModel             = node.getMetaModel();
-        final List<PropertyMetaModel> allPropertyMetaModels = metaModel.getAllPropertyMetaModels();
-        final List<PropertyMetaModel> attributes            = allPropertyMetaModels.stream().filter(PropertyMetaModel::isAttribute).filter(PropertyMetaModel::isSingular).collect(toList());
-        final List<PropertyMetaModel> subNodes              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNode).filter(PropertyMetaModel::isSingular).collect(toList());
-        final List<PropertyMetaModel> subLists              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNodeList).collect(toList());
+        final PropertyPartitions      partitions = PropertyPartitions.of(node.getMetaModel());
+        final List<PropertyMetaModel> subNodes   = partitions.getSubNodes();
+        final List<PropertyMetaModel> subLists   = partitions.getSubLists();
+
+        final String ndName = this.appendNode(node, partitions, parentNodeName, name, builder, resolveTypes);
+
+        for (final PropertyMetaModel sn : subNodes) {
+            final Node nd = (Node) sn.getValue(node);
+            if (nd != null) {
+                this.output(nd, ndName, sn.getName(), builder, resolveTypes);
+            }
+        }
+
+        for (final PropertyMetaModel sl : subLists) {
+            final NodeList<? extends Node> nl = (NodeList<? extends Node>) sl.getValue(node);
+            if (nl != null && nl.isNonEmpty()) {
+                final String ndLstName = this.appendList(ndName, sl, builder);
+                final String slName    = sl.getName().substring(0, sl.getName().length() - 1);
+                for (final Node nd : nl) {
+                    this.output(nd, ndLstName, slName, builder, resolveTypes);
+                }
+            }
+        }
+    }
+
 
-        final String typeName = metaModel.getTypeName();
+    /**
+     * Write the DOT node for a list of children, and the edge to it from the node which has the list.
+     *
+     * @return The name of the DOT node.
+     */
+    private String appendList(final String ndName, final PropertyMetaModel sl, final Appendable builder) throws IOException {
+//        final String color = "FireBrick";
+//        final String color = "red";
+        final String color = "OrangeRed";
+        final String label = "property list";
+
+        final String ndLstName = this.nextNodeName();
+        builder.append(System.lineSeparator()).append(ndLstName).append(" [shape=ellipse,color=").append(color).append(",label=\"").append(escape(sl.getName())).append("\"];");
+        builder.append(System.lineSeparator()).append(ndName).append(" -> ")
+               .append(ndLstName)
+               .append(" [").append("color=").append(color).append(", fontcolor=").append(color).append(", label=\"").append(label).append("\"").append("]");
+//               .append(" [color = ").append(color).append("];");
+        return ndLstName;
+    }
+
+
+    /**
+     * Write the DOT node (a table of the node's attributes), and the edge to it from its parent.
+     *
+     * @return The name of the DOT node.
+     */
+    private String appendNode(final Node node, final PropertyPartitions partitions, final String parentNodeName, final String name, final Appendable builder, final boolean resolveTypes) throws IOException {
+        final List<PropertyMetaModel> attributes = partitions.getAttributes();
+
+        final String typeName = node.getMetaModel().getTypeName();
         String       range    = "";
 
         // Custom: If range is present, add it.
@@ -131,30 +229,29 @@ public class CustomDotPrinter implements NodePrinter {
             lineLabel = "";
         }
 
-        final String  ndName  = this.nextNodeName();
-        StringBuilder nodeDot = new StringBuilder(DEFAULT_STRINGBUILDER_CAPACITY);
-        nodeDot.append(System.lineSeparator());
-        nodeDot.append(ndName);
-        nodeDot.append(" [");
-        nodeDot.append("shape=none");
-        nodeDot.append(",");
-        nodeDot.append("label=<");
-
-        nodeDot.append("<font color='").append(lineColor).append("'>");
-
-        nodeDot.append("<table" + " border='0'" + " color='").append(lineColor).append("'").append(" cellspacing='0'").append(" cellborder='1'").append(">");
-        nodeDot.append("<tr>");
-        nodeDot.append("<td colspan='2'>");
-        nodeDot.append("<font color='").append(lineColor).append("'>");
-        nodeDot.append(escape(name));
+        final String ndName = this.nextNodeName();
+        builder.append(System.lineSeparator());
+        builder.append(ndName);
+        builder.append(" [");
+        builder.append("shape=none");
+        builder.append(",");
+        builder.append("label=<");
+
+        builder.append("<font color='").append(lineColor).append("'>");
+
+        builder.append("<table" + " border='0'" + " color='").append(lineColor).append("'").append(" cellspacing='0'").append(" cellborder='1'").append(">");
+        builder.append("<tr>");
+        builder.append("<td colspan='2'>");
+        builder.append("<font color='").append(lineColor).append("'>");
+        builder.append(escape(name));
         if (this.outputNodeType) {
-            nodeDot.append(" (").append(typeName).append(")");
+            builder.append(" (").append(typeName).append(")");
         }
-        nodeDot.append("</font>");
-        nodeDot.append("<br/>");
-        nodeDot.append("<font color='#aaaaaa' size='8'>");
-        nodeDot.append(range);
-        nodeDot.append("</font>");
+        builder.append("</font>");
+        builder.append("<br/>");
+        builder.append("<font color='#aaaaaa' size='8'>");
+        builder.append(range);
+        builder.append("</font>");
 
 
         if (resolveTypes && node instanceof Expression) {
@@ -178,42 +275,40 @@ public class CustomDotPrinter implements NodePrinter {
             }
 
             if (returnTypeString != null) {
-                nodeDot.append("<br/>");
-                nodeDot.append("<font color='red' size='8'>");
-                nodeDot.append("Resolved Type: ");
-                nodeDot.append(returnTypeString);
-                nodeDot.append("</font>");
+                builder.append("<br/>");
+                builder.append("<font color='red' size='8'>");
+                builder.append("Resolved Type: ");
+                builder.append(returnTypeString);
+                builder.append("</font>");
             }
         }
 
-        nodeDot.append("</td>");
-        nodeDot.append("</tr>");
+        builder.append("</td>");
+        builder.append("</tr>");
 
         for (final PropertyMetaModel a : attributes) {
-            nodeDot.append("<tr>");
-            nodeDot.append("<td>").append(a.getName()).append("</td>");
-            nodeDot.append("<td align='left'>");
+            builder.append("<tr>");
+            builder.append("<td>").append(a.getName()).append("</td>");
+            builder.append("<td align='left'>");
 
             String   value = a.getValue(node).toString();
             String[] lines = value.trim().split("\\r?\\n");
 
             String cellAlignment = lines.length > 1 ? "left" : "center";
-            nodeDot.append("<table border='0' cellspacing='0' cellpadding='0'>");
+            builder.append("<table border='0' cellspacing='0' cellpadding='0'>");
             for (final String line : lines) {
-                nodeDot.append("<tr><td align='").append(cellAlignment).append("'>").append(StringEscapeUtils.escapeHtml4(line)).append("</td></tr>");
+                builder.append("<tr><td align='").append(cellAlignment).append("'>").append(StringEscapeUtils.escapeHtml4(line)).append("</td></tr>");
             }
-            nodeDot.append("</table>");
+            builder.append("</table>");
 
-            nodeDot.append("</td>");
-            nodeDot.append("</tr>");
+            builder.append("</td>");
+            builder.append("</tr>");
         }
 
-        nodeDot.append("</table>");
+        builder.append("</table>");
 
-        nodeDot.append("</font>");
-        nodeDot.append(">];");
-
-        builder.append(nodeDot.toString());
+        builder.append("</font>");
+        builder.append(">];");
 
 
         if (parentNodeName != null) {
@@ -223,36 +318,7 @@ public class CustomDotPrinter implements NodePrinter {
                    .append(";");
         }
 
-        for (final PropertyMetaModel sn : subNodes) {
-            final Node nd = (Node) sn.getValue(node);
-            if (nd != null) {
-                this.output(nd, ndName, sn.getName(), builder, resolveTypes);
-            }
-        }
-
-        String color;
-        String label;
-
-        for (final PropertyMetaModel sl : subLists) {
-            final NodeList<? extends Node> nl = (NodeList<? extends Node>) sl.getValue(node);
-            if (nl != null && nl.isNonEmpty()) {
-//                color = "FireBrick";
-//                color = "red";
-                color = "OrangeRed";
-                label = "property list";
-
-                final String ndLstName = this.nextNodeName();
-                builder.append(System.lineSeparator()).append(ndLstName).append(" [shape=ellipse,color=").append(color).append(",label=\"").append(escape(sl.getName())).append("\"];");
-                builder.append(System.lineSeparator()).append(ndName).append(" -> ")
-                       .append(ndLstName)
-                       .append(" [").append("color=").append(color).append(", fontcolor=").append(color).append(", label=\"").append(label).append("\"").append("]");
-//                       .append(" [color = ").append(color).append("];");
-                final String slName = sl.getName().substring(0, sl.getName().length() - 1);
-                for (final Node nd : nl) {
-                    this.output(nd, ndLstName, slName, builder, resolveTypes);
-                }
-            }
-        }
+        return ndName;
     }
 
 
@@ -262,6 +328,12 @@ public class CustomDotPrinter implements NodePrinter {
     }
 
 
+    @Override
+    public void output(final Node node, final Appendable appendable) throws IOException {
+        this.output(node, DEFAULT_RESOLVE_TYPES, appendable);
+    }
+
+
     private String rangeAsString(final Range range) {
         final int startLine   = range.begin.line;
         final int startColumn = range.begin.column;
@@ -272,6 +344,14 @@ public class CustomDotPrinter implements NodePrinter {
     }
 
 
+    @Override
+    public void startTree(@NotNull final Node root, @NotNull final Appendable appendable) throws IOException {
+        this.nodeCount = 0;
+        this.emitterParentNames.clear();
+        appendable.append("digraph {");
+    }
+
+
     @Override
     public String toString() {
         return "CustomDotPrinter{" +
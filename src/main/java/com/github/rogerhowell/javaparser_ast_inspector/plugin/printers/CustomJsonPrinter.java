@@ -3,96 +3,253 @@ package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
-import com.github.javaparser.metamodel.NodeMetaModel;
 import com.github.javaparser.metamodel.PropertyMetaModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.github.javaparser.utils.Utils.assertNotNull;
-import static java.util.stream.Collectors.toList;
 
 /**
  * Outputs a JSON file containing the AST meant for inspecting it.
  */
-public class CustomJsonPrinter implements NodePrinter {
-    private final boolean outputNodeType;
+public class CustomJsonPrinter implements NodePrinter, TreeEmitter {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Whether the next entry of each enclosing object or array is its first, when used as a {@link TreeEmitter}.
+     */
+    private final Deque<Boolean> emitterFirsts;
+    private final boolean        outputNodeType;
 
 
     public CustomJsonPrinter(final boolean outputNodeType) {
         this.outputNodeType = outputNodeType;
+        this.emitterFirsts = new ArrayDeque<>();
     }
 
 
-    private static String q(final String value) {
-        return "\"" + value.replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r") + "\"";
+    /**
+     * Write the given value as a JSON string, escaping it as per RFC 8259 -- quotes, backslashes and control
+     * characters. Runs of characters which need no escaping are written as-is, without creating intermediate strings.
+     */
+    static void writeString(final Appendable appendable, final String value) throws IOException {
+        appendable.append('"');
+
+        int runStart = 0;
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+
+            appendable.append(value, runStart, i);
+            runStart = i + 1;
+            switch (c) {
+                case '"':
+                    appendable.append("\\\"");
+                    break;
+                case '\\':
+                    appendable.append("\\\\");
+                    break;
+                case '\b':
+                    appendable.append("\\b");
+                    break;
+                case '\f':
+                    appendable.append("\\f");
+                    break;
+                case '\n':
+                    appendable.append("\\n");
+                    break;
+                case '\r':
+                    appendable.append("\\r");
+                    break;
+                case '\t':
+                    appendable.append("\\t");
+                    break;
+                default:
+                    appendable.append("\\u00")
+                              .append(HEX_DIGITS[c >> 4])
+                              .append(HEX_DIGITS[c & 0xF]);
+                    break;
+            }
+        }
+        appendable.append(value, runStart, length);
+
+        appendable.append('"');
+    }
+
+
+    /**
+     * Write a separator before each entry other than the first.
+     *
+     * @return False, i.e. the value of {@code first} for the next entry.
+     */
+    private static boolean separator(final Appendable appendable, final boolean first) throws IOException {
+        if (!first) {
+            appendable.append(',');
+        }
+        return false;
+    }
+
+
+    /**
+     * Write the separator before the next entry of the enclosing object or array (if any), when used as a
+     * {@link TreeEmitter}.
+     */
+    private void emitterSeparator(final Appendable appendable) throws IOException {
+        if (!this.emitterFirsts.isEmpty()) {
+            separator(appendable, this.emitterFirsts.pop());
+            this.emitterFirsts.push(false);
+        }
     }
 
 
     @Override
-    public String output(final Node node) {
-        return this.output(node, null, 0);
+    public void endTree(@NotNull final Node root, @NotNull final Appendable appendable) {
+    }
+
+
+    @Override
+    public void enterList(@NotNull final Node node, @NotNull final PropertyMetaModel property, @NotNull final Appendable appendable) throws IOException {
+        this.emitterSeparator(appendable);
+        writeString(appendable, property.getName());
+        appendable.append(":[");
+        this.emitterFirsts.push(true);
+    }
+
+
+    @Override
+    public void enterNode(@NotNull final Node node, @NotNull final PropertyPartitions partitions, @Nullable final PropertyMetaModel property, final boolean inList, @NotNull final Appendable appendable) throws IOException {
+        this.emitterSeparator(appendable);
+        final String name = property == null || inList ? null : property.getName();
+        this.emitterFirsts.push(this.appendObjectStart(node, partitions, name, appendable));
+    }
+
+
+    @Override
+    public void exitList(@NotNull final Node node, @NotNull final PropertyMetaModel property, @NotNull final Appendable appendable) throws IOException {
+        this.emitterFirsts.pop();
+        appendable.append("]");
+    }
+
+
+    @Override
+    public void exitNode(@NotNull final Node node, @NotNull final Appendable appendable) throws IOException {
+        this.emitterFirsts.pop();
+        appendable.append("}");
+    }
+
+
+    @Override
+    public void output(final Node node, final Appendable appendable) throws IOException {
+        this.output(node, null, 0, appendable);
     }
 
 
     public String output(final Node node, final String name, final int level) {
+        final NodePrinter printer = (n, appendable) -> this.output(n, name, level, appendable);
+        return printer.output(node);
+    }
+
+
+    public void output(final Node node, final String name, final int level, final Appendable appendable) throws IOException {
         assertNotNull(node);
-        final NodeMetaModel           metaModel             = node.getMetaModel();
-        final List<PropertyMetaModel> allPropertyMetaModels = metaModel.getAllPropertyMetaModels();
-        final List<PropertyMetaModel> attributes            = allPropertyMetaModels.stream().filter(PropertyMetaModel::isAttribute).filter(PropertyMetaModel::isSingular).collect(toList());
-        final List<PropertyMetaModel> subNodes              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNode).filter(PropertyMetaModel::isSingular).collect(toList());
-        final List<PropertyMetaModel> subLists              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNodeList).collect(toList());
+        final PropertyPartitions      partitions = PropertyPartitions.of(node.getMetaModel());
+        final List<PropertyMetaModel> subNodes   = partitions.getSubNodes();
+        final List<PropertyMetaModel> subLists   = partitions.getSubLists();
+
+        boolean first = this.appendObjectStart(node, partitions, name, appendable);
+
+        for (final PropertyMetaModel subNodeMetaModel : subNodes) {
+            final Node value = (Node) subNodeMetaModel.getValue(node);
+            if (value != null) {
+                first = separator(appendable, first);
+                this.output(value, subNodeMetaModel.getName(), level + 1, appendable);
+            }
+        }
+
+        for (final PropertyMetaModel subListMetaModel : subLists) {
+            final NodeList<? extends Node> subList = (NodeList<? extends Node>) subListMetaModel.getValue(node);
+            if (subList != null && !subList.isEmpty()) {
+                first = separator(appendable, first);
+                writeString(appendable, subListMetaModel.getName());
+                appendable.append(":[");
+                boolean firstInList = true;
+                for (final Node subListNode : subList) {
+                    firstInList = separator(appendable, firstInList);
+                    this.output(subListNode, null, level + 1, appendable);
+                }
+                appendable.append("]");
+            }
+        }
+
+        appendable.append("}");
+    }
 
-        final List<String> content = new ArrayList<>();
+
+    /**
+     * Write the start of the node's object, up to (but excluding) its child nodes -- i.e. its type, attributes and
+     * range.
+     *
+     * @return Whether the next entry of the object is its first.
+     */
+    private boolean appendObjectStart(final Node node, final PropertyPartitions partitions, final String name, final Appendable appendable) throws IOException {
+        final List<PropertyMetaModel> attributes = partitions.getAttributes();
+
+        if (name != null) {
+            writeString(appendable, name);
+            appendable.append(':');
+        }
+        appendable.append("{");
+        boolean first = true;
 
         if (this.outputNodeType) {
-            content.add(CustomJsonPrinter.q("_type") + ":" + CustomJsonPrinter.q(metaModel.getTypeName()));
+            first = separator(appendable, first);
+            appendable.append("\"_type\":");
+            writeString(appendable, node.getMetaModel().getTypeName());
         }
 
         for (final PropertyMetaModel attributeMetaModel : attributes) {
-            content.add(CustomJsonPrinter.q(attributeMetaModel.getName()) + ":" + CustomJsonPrinter.q(attributeMetaModel.getValue(node).toString()));
+            first = separator(appendable, first);
+            writeString(appendable, attributeMetaModel.getName());
+            appendable.append(':');
+            writeString(appendable, attributeMetaModel.getValue(node).toString());
         }
 
 
         // Custom: If range is present, add it.
         if (node.getRange().isPresent()) {
-            content.add(CustomJsonPrinter.q("_start_line") + ":" + node.getRange().get().begin.line);
-            content.add(CustomJsonPrinter.q("_start_column") + ":" + node.getRange().get().begin.column);
-            content.add(CustomJsonPrinter.q("_end_line") + ":" + node.getRange().get().end.line);
-            content.add(CustomJsonPrinter.q("_end_column") + ":" + node.getRange().get().end.column);
+            first = separator(appendable, first);
+            appendable.append("\"_start_line\":").append(String.valueOf(node.getRange().get().begin.line)).append(",");
+            appendable.append("\"_start_column\":").append(String.valueOf(node.getRange().get().begin.column)).append(",");
+            appendable.append("\"_end_line\":").append(String.valueOf(node.getRange().get().end.line)).append(",");
+            appendable.append("\"_end_column\":").append(String.valueOf(node.getRange().get().end.column));
         }
 
         // Object creation
         if (node.getClass().getSimpleName().equals("ObjectCreationExpr")) {
             final ObjectCreationExpr objectCreationExpr = (ObjectCreationExpr) node;
             final String             foo                = objectCreationExpr.getType().getName().asString();
-            content.add(CustomJsonPrinter.q("_typeNameString") + ":" + CustomJsonPrinter.q(foo));
+            first = separator(appendable, first);
+            appendable.append("\"_typeNameString\":");
+            writeString(appendable, foo);
         }
 
 
-        for (final PropertyMetaModel subNodeMetaModel : subNodes) {
-            final Node value = (Node) subNodeMetaModel.getValue(node);
-            if (value != null) {
-                content.add(this.output(value, subNodeMetaModel.getName(), level + 1));
-            }
-        }
+        return first;
+    }
 
-        for (final PropertyMetaModel subListMetaModel : subLists) {
-            final NodeList<? extends Node> subList = (NodeList<? extends Node>) subListMetaModel.getValue(node);
-            if (subList != null && !subList.isEmpty()) {
-                final List<String> listContent = new ArrayList<>();
-                for (final Node subListNode : subList) {
-                    listContent.add(this.output(subListNode, null, level + 1));
-                }
-                content.add(listContent.stream().collect(Collectors.joining(",", CustomJsonPrinter.q(subListMetaModel.getName()) + ":[", "]")));
-            }
-        }
 
-        if (name == null) {
-            return content.stream().collect(Collectors.joining(",", "{", "}"));
-        }
-        return content.stream().collect(Collectors.joining(",", CustomJsonPrinter.q(name) + ":{", "}"));
+    @Override
+    public void startTree(@NotNull final Node root, @NotNull final Appendable appendable) {
+        this.emitterFirsts.clear();
     }
 
 
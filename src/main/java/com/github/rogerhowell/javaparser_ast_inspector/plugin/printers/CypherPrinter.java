@@ -5,29 +5,36 @@ import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.metamodel.NodeMetaModel;
 import com.github.javaparser.metamodel.PropertyMetaModel;
 import com.github.javaparser.utils.LineSeparator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import static com.github.javaparser.utils.Utils.assertNotNull;
-import static java.util.stream.Collectors.toList;
 
-public class CypherPrinter implements NodePrinter {
+public class CypherPrinter implements NodePrinter, TreeEmitter {
 
 
-    private static final int DEFAULT_STRINGBUILDER_CAPACITY = 5000;
-
     private static final String EOL = LineSeparator.SYSTEM.asRawString();
 
-    private final Set<String> currentIds;
-    private final boolean     outputNodeType;
-    private       int         nodeCount;
+    /**
+     * The ids of the enclosing nodes (i.e. the parent of the next node), when used as a {@link TreeEmitter}.
+     */
+    private final Deque<String> emitterParentIds;
+    private final boolean       outputNodeType;
+    private       Set<String>   currentIds;
+    private       int           nodeCount;
 
 
     public CypherPrinter(boolean outputNodeType) {
         this.outputNodeType = outputNodeType;
         this.currentIds = new HashSet<>();
+        this.emitterParentIds = new ArrayDeque<>();
     }
 
 
@@ -36,32 +43,68 @@ public class CypherPrinter implements NodePrinter {
     }
 
 
+    @Override
+    public void endTree(@NotNull Node root, @NotNull Appendable appendable) {
+    }
+
+
+    @Override
+    public void enterNode(@NotNull Node node, @NotNull PropertyPartitions partitions, @Nullable PropertyMetaModel property, boolean inList, @NotNull Appendable appendable) throws IOException {
+        this.emitterParentIds.push(this.appendNode(node, partitions, this.emitterParentIds.peek(), TreeEmitter.nameOf(property, inList), appendable));
+    }
+
+
+    @Override
+    public void exitNode(@NotNull Node node, @NotNull Appendable appendable) {
+        this.emitterParentIds.pop();
+    }
+
+
     private String nextNodeName() {
         return "n" + (this.nodeCount++);
     }
 
 
-    public void output(Node node, String parentNodeName, String name, StringBuilder builder) {
+    public void output(Node node, String parentNodeName, String name, Appendable builder) throws IOException {
         assertNotNull(node);
 
 
-        NodeMetaModel           metaModel             = node.getMetaModel();
-        List<PropertyMetaModel> allPropertyMetaModels = metaModel.getAllPropertyMetaModels();
-
-        List<PropertyMetaModel> attributes = allPropertyMetaModels
-                .stream()
-                .filter(PropertyMetaModel::isAttribute)
-                .filter(PropertyMetaModel::isSingular)
-                .collect(toList());
-        List<PropertyMetaModel> subNodes = allPropertyMetaModels
-                .stream()
-                .filter(PropertyMetaModel::isNode)
-                .filter(PropertyMetaModel::isSingular)
-                .collect(toList());
-        List<PropertyMetaModel> subLists = allPropertyMetaModels
-                .stream()
-                .filter(PropertyMetaModel::isNodeList)
-                .collect(toList());
+        PropertyPartitions      partitions = PropertyPartitions.of(node.getMetaModel());
+        List<PropertyMetaModel> subNodes   = partitions.getSubNodes();
+        List<PropertyMetaModel> subLists   = partitions.getSubLists();
+
+        String ndName = this.appendNode(node, partitions, parentNodeName, name, builder);
+
+
+        for (PropertyMetaModel sn : subNodes) {
+            Node nd = (Node) sn.getValue(node);
+            if (nd != null) {
+                this.output(nd, ndName, sn.getName(), builder);
+            }
+        }
+
+        for (PropertyMetaModel sl : subLists) {
+            NodeList<? extends Node> nl = (NodeList<? extends Node>) sl.getValue(node);
+            if (nl != null && nl.isNonEmpty()) {
+                String slName = sl.getName().substring(0, sl.getName().length() - 1);
+                for (Node nd : nl) {
+                    this.output(nd, ndName, slName, builder);
+                }
+            }
+        }
+
+        this.currentIds.remove(name);
+    }
+
+
+    /**
+     * Write the statements which create the node, and its relationship to its parent.
+     *
+     * @return The node's id.
+     */
+    private String appendNode(Node node, PropertyPartitions partitions, String parentNodeName, String name, Appendable builder) throws IOException {
+        NodeMetaModel           metaModel  = node.getMetaModel();
+        List<PropertyMetaModel> attributes = partitions.getAttributes();
 
         String ndName = this.nextNodeName();
         this.currentIds.add(ndName);
@@ -101,57 +144,26 @@ public class CypherPrinter implements NodePrinter {
         builder.append(EOL);
         builder.append(EOL);
 
-
-        for (PropertyMetaModel sn : subNodes) {
-            Node nd = (Node) sn.getValue(node);
-            if (nd != null) {
-                this.output(nd, ndName, sn.getName(), builder);
-            }
-        }
-
-        for (PropertyMetaModel sl : subLists) {
-            NodeList<? extends Node> nl = (NodeList<? extends Node>) sl.getValue(node);
-            if (nl != null && nl.isNonEmpty()) {
-                String slName = sl.getName().substring(0, sl.getName().length() - 1);
-                for (Node nd : nl) {
-                    this.output(nd, ndName, slName, builder);
-                }
-            }
-        }
-
-        this.currentIds.remove(name);
+        return ndName;
     }
 
 
     @Override
-    public String output(Node node) {
+    public void output(Node node, Appendable appendable) throws IOException {
         this.nodeCount = 0;
-        StringBuilder output = new StringBuilder(DEFAULT_STRINGBUILDER_CAPACITY);
-        this.output(node, null, "root", output);
-        return output.toString();
+        this.currentIds = new HashSet<>();
+        this.output(node, null, "root", appendable);
     }
 
 
-    public void output2(Node node, String parentNodeName, String name, StringBuilder builder) {
+    public void output2(Node node, String parentNodeName, String name, Appendable builder) throws IOException {
         assertNotNull(node);
 
-        NodeMetaModel           metaModel             = node.getMetaModel();
-        List<PropertyMetaModel> allPropertyMetaModels = metaModel.getAllPropertyMetaModels();
-
-        List<PropertyMetaModel> attributes = allPropertyMetaModels
-                .stream()
-                .filter(PropertyMetaModel::isAttribute)
-                .filter(PropertyMetaModel::isSingular)
-                .collect(toList());
-        List<PropertyMetaModel> subNodes = allPropertyMetaModels
-                .stream()
-                .filter(PropertyMetaModel::isNode)
-                .filter(PropertyMetaModel::isSingular)
-                .collect(toList());
-        List<PropertyMetaModel> subLists = allPropertyMetaModels
-                .stream()
-                .filter(PropertyMetaModel::isNodeList)
-                .collect(toList());
+        NodeMetaModel           metaModel  = node.getMetaModel();
+        PropertyPartitions      partitions = PropertyPartitions.of(metaModel);
+        List<PropertyMetaModel> attributes = partitions.getAttributes();
+        List<PropertyMetaModel> subNodes   = partitions.getSubNodes();
+        List<PropertyMetaModel> subLists   = partitions.getSubLists();
 
         String ndName = this.nextNodeName();
         if (this.outputNodeType) {
@@ -200,6 +212,14 @@ public class CypherPrinter implements NodePrinter {
     }
 
 
+    @Override
+    public void startTree(@NotNull Node root, @NotNull Appendable appendable) {
+        this.nodeCount = 0;
+        this.currentIds = new HashSet<>();
+        this.emitterParentIds.clear();
+    }
+
+
     @Override
     public String toString() {
         return "CypherPrinter{" +
@@ -2,24 +2,36 @@ package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
 
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.metamodel.BaseNodeMetaModel;
+import com.github.javaparser.metamodel.JavaParserMetaModel;
 import com.github.javaparser.metamodel.NodeMetaModel;
 import com.github.javaparser.metamodel.PropertyMetaModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
 import static com.github.javaparser.utils.Utils.assertNotNull;
-import static java.util.stream.Collectors.toList;
 
 /**
  * Outputs an GraphML file containing the AST for import into a graph database.
+ *
+ * By default the nodes and edges are buffered until every node has been visited, such that only the keys which are
+ * actually used are declared. In streaming mode the keys are instead derived up-front from the JavaParser metamodel
+ * (i.e. every attribute of every node type), allowing nodes and edges to be written directly to the destination as
+ * they are visited -- using constant memory regardless of the size of the AST.
+ *
+ * Node and edge ids may be given a prefix (e.g. one per file), such that the graphs of several files can be merged
+ * into a single document without their ids colliding -- see {@link #fragmentEmitter()}.
  */
 public class GraphMLPrinter implements NodePrinter {
 
-    private static final int DEFAULT_STRINGBUILDER_CAPACITY = 5000;
-
     private static final String NEWLINE = String.format("%n");
 
     private static final String DATA_INDENT  = "            ";
@@ -28,24 +40,62 @@ public class GraphMLPrinter implements NodePrinter {
     private static final String KEY_INDENT   = "    ";
     private static final String NODE_INDENT  = "        ";
 
-    private final Set<String>  edgeKeys;
-    private final List<String> edges;
-    private final Set<String>  nodeKeys;
-    private final List<String> nodes;
-    private final boolean      outputNodeType;
+    private final Set<String> edgeKeys;
+    private final String      idPrefix;
+    private final Set<String> nodeKeys;
+    private final boolean     outputNodeType;
+    private final boolean     streaming;
 
     private int edgeCount;
     private int nodeCount;
 
 
     public GraphMLPrinter(boolean outputNodeType) {
+        this(outputNodeType, false);
+    }
+
+
+    /**
+     * @param streaming Whether to write nodes and edges as they are visited, declaring every key which could be used
+     *                  rather than only those which are.
+     */
+    public GraphMLPrinter(boolean outputNodeType, boolean streaming) {
+        this(outputNodeType, streaming, "");
+    }
+
+
+    /**
+     * @param idPrefix Prepended to every node and edge id (e.g. {@code "n0"}) -- which must then still be a valid
+     *                 XML attribute value.
+     */
+    public GraphMLPrinter(boolean outputNodeType, boolean streaming, @NotNull String idPrefix) {
+        this.idPrefix = idPrefix;
         this.edgeCount = 0;
         this.nodeCount = 0;
         this.outputNodeType = outputNodeType;
+        this.streaming = streaming;
         this.nodeKeys = new TreeSet<>();
         this.edgeKeys = new TreeSet<>();
-        this.nodes = new ArrayList<>();
-        this.edges = new ArrayList<>();
+    }
+
+
+    /**
+     * @return Every node key which could be used by the given nodes' types -- the nodes' attributes, and the
+     * synthetic keys (e.g. the id and type).
+     */
+    static Set<String> allNodeKeys(Collection<? extends BaseNodeMetaModel> nodeMetaModels, boolean outputNodeType) {
+        Set<String> keys = new TreeSet<>();
+        keys.add("id");
+        keys.add("labels");
+        if (outputNodeType) {
+            keys.add("type");
+        }
+        for (BaseNodeMetaModel nodeMetaModel : nodeMetaModels) {
+            for (PropertyMetaModel attributeMetaModel : PropertyPartitions.of(nodeMetaModel).getAttributes()) {
+                keys.add(attributeMetaModel.getName());
+            }
+        }
+        return keys;
     }
 
 
@@ -67,6 +117,14 @@ public class GraphMLPrinter implements NodePrinter {
     }
 
 
+    private void declareEdgeKeys() {
+        this.edgeKeys.add("id");
+        this.edgeKeys.add("source");
+        this.edgeKeys.add("target");
+        this.edgeKeys.add("label");
+    }
+
+
     private String keyEntry(String name, String elemType, String type) {
         return "<key" +
                this.attribute("id", name) +
@@ -77,31 +135,83 @@ public class GraphMLPrinter implements NodePrinter {
     }
 
 
+    /**
+     * @return An emitter which writes only the nodes and edges (i.e. no document start/end), for use within a
+     *         document started by {@link #outputDocumentStart(Appendable)} -- the node and edge ids restart for each
+     *         tree, thus each tree should be given a printer with a different id prefix.
+     */
+    public TreeEmitter fragmentEmitter() {
+        return new FragmentEmitter();
+    }
+
+
     private String nextEdgeName() {
-        return "e" + (this.edgeCount++);
+        return this.idPrefix + "e" + (this.edgeCount++);
     }
 
 
     private String nextNodeName() {
-        return "n" + (this.nodeCount++);
+        return this.nodeId(this.nodeCount++);
     }
 
 
-    private void output(Node node, String name, int level, String parentNdName) {
+    /**
+     * @param preorderIndex The index of the node within a pre-order walk of the tree (i.e. the order in which nodes
+     *                      are output, also that of {@link MultiFormatPrinter}).
+     * @return The id given to the node.
+     */
+    public String nodeId(int preorderIndex) {
+        return this.idPrefix + "n" + preorderIndex;
+    }
+
+
+    /**
+     * @param nodeSink The destination of the {@code <node>} elements.
+     * @param edgeSink The destination of the {@code <edge>} elements -- the same as the node sink when streaming.
+     */
+    private void output(Node node, String name, int level, String parentNdName, Appendable nodeSink, Appendable edgeSink) throws IOException {
         assertNotNull(node);
-        NodeMetaModel           metaModel             = node.getMetaModel();
-        List<PropertyMetaModel> allPropertyMetaModels = metaModel.getAllPropertyMetaModels();
-        List<PropertyMetaModel> attributes            = allPropertyMetaModels.stream().filter(PropertyMetaModel::isAttribute).filter(PropertyMetaModel::isSingular).collect(toList());
-        List<PropertyMetaModel> subNodes              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNode).filter(PropertyMetaModel::isSingular).collect(toList());
-        List<PropertyMetaModel> subLists              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNodeList).collect(toList());
+        PropertyPartitions      partitions = PropertyPartitions.of(node.getMetaModel());
+        List<PropertyMetaModel> subNodes   = partitions.getSubNodes();
+        List<PropertyMetaModel> subLists   = partitions.getSubLists();
 
-        String        ndName      = this.nextNodeName();
-        StringBuilder nodeBuilder = new StringBuilder(DEFAULT_STRINGBUILDER_CAPACITY);
-        String        typeName    = metaModel.getTypeName();
+        String ndName = this.appendNode(node, partitions, parentNdName, nodeSink, edgeSink);
+
+        for (PropertyMetaModel subNodeMetaModel : subNodes) {
+            Node value = (Node) subNodeMetaModel.getValue(node);
+            if (value != null) {
+                this.output(value, subNodeMetaModel.getName(), level + 1, ndName, nodeSink, edgeSink);
+            }
+        }
+
+        for (PropertyMetaModel subListMetaModel : subLists) {
+            NodeList<? extends Node> subList = (NodeList<? extends Node>) subListMetaModel.getValue(node);
+            if (subList != null && !subList.isEmpty()) {
+                String listName = subListMetaModel.getName();
+                String singular = listName.substring(0, listName.length() - 1);
+                for (Node subListNode : subList) {
+                    this.output(subListNode, singular, level + 1, ndName, nodeSink, edgeSink);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Write the {@code <node>} element, and the edge to its parent (if any).
+     *
+     * @return The node's id.
+     */
+    private String appendNode(Node node, PropertyPartitions partitions, String parentNdName, Appendable nodeSink, Appendable edgeSink) throws IOException {
+        NodeMetaModel           metaModel  = node.getMetaModel();
+        List<PropertyMetaModel> attributes = partitions.getAttributes();
+
+        String ndName   = this.nextNodeName();
+        String typeName = metaModel.getTypeName();
 
         this.nodeKeys.add("id");
         this.nodeKeys.add("labels");
-        nodeBuilder
+        nodeSink.append(NEWLINE)
                 .append(NODE_INDENT).append("<node")
                 .append(this.attribute("id", ndName))
                 .append(this.attribute("labels", ":Node" + ":" + typeName))
@@ -109,103 +219,162 @@ public class GraphMLPrinter implements NodePrinter {
 
         if (this.outputNodeType) {
             this.nodeKeys.add("type");
-            nodeBuilder.append(NEWLINE).append(DATA_INDENT).append(this.dataEntry("type", typeName));
+            nodeSink.append(NEWLINE).append(DATA_INDENT).append(this.dataEntry("type", typeName));
         }
 
         for (PropertyMetaModel attributeMetaModel : attributes) {
             String attributeName = attributeMetaModel.getName();
             String value         = attributeMetaModel.getValue(node).toString();
             this.nodeKeys.add(attributeName);
-            nodeBuilder.append(NEWLINE).append(DATA_INDENT).append(this.dataEntry(attributeName, value));
+            nodeSink.append(NEWLINE).append(DATA_INDENT).append(this.dataEntry(attributeName, value));
         }
 
-        nodeBuilder.append(NEWLINE).append(NODE_INDENT).append("</node>");
-        this.nodes.add(nodeBuilder.toString());
+        nodeSink.append(NEWLINE).append(NODE_INDENT).append("</node>");
 
         if (parentNdName != null) {
-            String edgeName  = this.nextEdgeName();
-            String edgeLabel = "PARENT";
-
-            this.edgeKeys.add("id");
-            this.edgeKeys.add("source");
-            this.edgeKeys.add("target");
-            this.edgeKeys.add("label");
-
-            String edge = "";
-            edge += EDGE_INDENT;
-            edge += "<edge" +
-                    this.attribute("id", edgeName) +
-                    this.attribute("source", ndName) +
-                    this.attribute("target", parentNdName) +
-                    this.attribute("label", edgeLabel) +
-                    ">";
-            edge += NEWLINE + DATA_INDENT + this.dataEntry(edgeLabel, edgeLabel);
-            edge += NEWLINE + EDGE_INDENT + "</edge>";
-
-            this.edges.add(edge);
+            this.outputEdge(ndName, parentNdName, "PARENT", edgeSink);
         }
 
-        for (PropertyMetaModel subNodeMetaModel : subNodes) {
-            Node value = (Node) subNodeMetaModel.getValue(node);
-            if (value != null) {
-                this.output(value, subNodeMetaModel.getName(), level + 1, ndName);
-            }
-        }
-//
-        for (PropertyMetaModel subListMetaModel : subLists) {
-            NodeList<? extends Node> subList = (NodeList<? extends Node>) subListMetaModel.getValue(node);
-            if (subList != null && !subList.isEmpty()) {
-                String listName = subListMetaModel.getName();
-                String singular = listName.substring(0, listName.length() - 1);
-                for (Node subListNode : subList) {
-                    this.output(subListNode, singular, level + 1, ndName);
-                }
-            }
-        }
+        return ndName;
     }
 
 
     @Override
-    public String output(Node node) {
-        StringBuilder output = new StringBuilder(DEFAULT_STRINGBUILDER_CAPACITY);
-        output.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>").append(NEWLINE)
-              .append("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns").append(NEWLINE)
-              .append("         xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance").append(NEWLINE)
-              .append("         xsi:schemaLocation=\"http://graphml.graphdrawing.org/xmlns http://graphml.graphdrawing.org/xmlns/1.0/graphml.xsd\">").append(NEWLINE);
+    public void output(Node node, Appendable appendable) throws IOException {
+        // Discard the output of any previous use of this printer.
+        this.edgeCount = 0;
+        this.nodeCount = 0;
+        this.nodeKeys.clear();
+        this.edgeKeys.clear();
+
+        if (this.streaming) {
+            this.outputDocumentStart(appendable);
+            this.output(node, "root", 0, null, appendable, appendable);
+        } else {
+            this.outputXmlDeclaration(appendable);
+
+            // The keys are only known once every node has been visited, thus the nodes and edges are buffered until then.
+            StringBuilder nodes = new StringBuilder();
+            StringBuilder edges = new StringBuilder();
+            this.output(node, "root", 0, null, nodes, edges);
+            this.outputKeys(appendable);
+
+            appendable.append(nodes);
+            appendable.append(edges);
+        }
+
+        this.outputDocumentEnd(appendable);
+    }
 
-        this.output(node, "root", 0, null);
 
-        this.nodeKeys.forEach(s -> {
-            output.append(NEWLINE).append(KEY_INDENT).append(this.keyEntry(s, "node", "string"));
-        });
-        this.edgeKeys.forEach(s -> {
-            output.append(NEWLINE).append(KEY_INDENT).append(this.keyEntry(s, "edge", "string"));
-        });
+    /**
+     * Close the graph and document elements.
+     */
+    public void outputDocumentEnd(Appendable appendable) throws IOException {
+        appendable.append(NEWLINE).append(GRAPH_INDENT).append("</graph>");
+        appendable.append(NEWLINE).append("</graphml>");
+    }
 
-        output.append(NEWLINE).append(GRAPH_INDENT).append("<graph id=\"G\" edgedefault=\"directed\">");
-        this.nodes.forEach(s -> {
-            output.append(NEWLINE).append(s);
-        });
 
-        this.edges.forEach(s -> {
-            output.append(NEWLINE).append(s);
-        });
+    /**
+     * Write the start of a document as per streaming mode -- declaring every key which could be used by any node --
+     * up to and including the opening of the graph element.
+     */
+    public void outputDocumentStart(Appendable appendable) throws IOException {
+        this.outputXmlDeclaration(appendable);
+        this.nodeKeys.addAll(allNodeKeys(JavaParserMetaModel.getNodeMetaModels(), this.outputNodeType));
+        this.declareEdgeKeys();
+        this.outputKeys(appendable);
+    }
 
-        output.append(NEWLINE).append(GRAPH_INDENT).append("</graph>");
-        output.append(NEWLINE).append("</graphml>");
 
-        return output.toString();
+    /**
+     * Write an edge between two nodes (which may be from different trees, e.g. a reference to a type declared
+     * elsewhere).
+     */
+    public void outputEdge(String sourceId, String targetId, String label, Appendable edgeSink) throws IOException {
+        String edgeName = this.nextEdgeName();
+
+        this.declareEdgeKeys();
+        edgeSink.append(NEWLINE)
+                .append(EDGE_INDENT)
+                .append("<edge")
+                .append(this.attribute("id", edgeName))
+                .append(this.attribute("source", sourceId))
+                .append(this.attribute("target", targetId))
+                .append(this.attribute("label", label))
+                .append(">")
+                .append(NEWLINE).append(DATA_INDENT).append(this.dataEntry(label, label))
+                .append(NEWLINE).append(EDGE_INDENT).append("</edge>");
+    }
+
+
+    /**
+     * Write the key declarations, then open the graph element.
+     */
+    private void outputKeys(Appendable appendable) throws IOException {
+        for (String s : this.nodeKeys) {
+            appendable.append(NEWLINE).append(KEY_INDENT).append(this.keyEntry(s, "node", "string"));
+        }
+        for (String s : this.edgeKeys) {
+            appendable.append(NEWLINE).append(KEY_INDENT).append(this.keyEntry(s, "edge", "string"));
+        }
+
+        appendable.append(NEWLINE).append(GRAPH_INDENT).append("<graph id=\"G\" edgedefault=\"directed\">");
+    }
+
+
+    private void outputXmlDeclaration(Appendable appendable) throws IOException {
+        appendable.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>").append(NEWLINE)
+                  .append("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\"").append(NEWLINE)
+                  .append("         xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"").append(NEWLINE)
+                  .append("         xsi:schemaLocation=\"http://graphml.graphdrawing.org/xmlns http://graphml.graphdrawing.org/xmlns/1.0/graphml.xsd\">").append(NEWLINE);
     }
 
 
     @Override
     public String toString() {
         return "GraphMLPrinter{" +
-               "nodes=" + this.nodes +
+               "idPrefix='" + this.idPrefix + '\'' +
                ", outputNodeType=" + this.outputNodeType +
+               ", streaming=" + this.streaming +
                ", edgeCount=" + this.edgeCount +
                ", nodeCount=" + this.nodeCount +
                '}';
     }
-}
 
+
+    /**
+     * Writes each node (and the edge to its parent) as it is entered, as per streaming mode.
+     */
+    private final class FragmentEmitter implements TreeEmitter {
+
+        private final Deque<String> parentIds = new ArrayDeque<>();
+
+
+        @Override
+        public void endTree(@NotNull Node root, @NotNull Appendable appendable) {
+        }
+
+
+        @Override
+        public void enterNode(@NotNull Node node, @NotNull PropertyPartitions partitions, @Nullable PropertyMetaModel property, boolean inList, @NotNull Appendable appendable) throws IOException {
+            this.parentIds.push(GraphMLPrinter.this.appendNode(node, partitions, this.parentIds.peek(), appendable, appendable));
+        }
+
+
+        @Override
+        public void exitNode(@NotNull Node node, @NotNull Appendable appendable) {
+            this.parentIds.pop();
+        }
+
+
+        @Override
+        public void startTree(@NotNull Node root, @NotNull Appendable appendable) {
+            GraphMLPrinter.this.edgeCount = 0;
+            GraphMLPrinter.this.nodeCount = 0;
+            this.parentIds.clear();
+        }
+
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.javaparser.utils.Utils.assertNotNull;
+
+/**
+ * Produces several output formats from a single walk of the AST, each format's {@link TreeEmitter} writing to its own
+ * destination.
+ *
+ * Each node's properties are partitioned, and its child nodes fetched, once rather than once per format -- the values of
+ * its attributes are fetched by each emitter.
+ */
+public class MultiFormatPrinter {
+
+    private final List<Appendable>  appendables;
+    private final List<TreeEmitter> emitters;
+
+
+    public MultiFormatPrinter() {
+        this.emitters = new ArrayList<>();
+        this.appendables = new ArrayList<>();
+    }
+
+
+    /**
+     * @param appendable Where the emitter's output is to be written.
+     * @return This printer, for chaining.
+     */
+    public MultiFormatPrinter add(@NotNull TreeEmitter emitter, @NotNull Appendable appendable) {
+        this.emitters.add(emitter);
+        this.appendables.add(appendable);
+        return this;
+    }
+
+
+    public int getEmitterCount() {
+        return this.emitters.size();
+    }
+
+
+    /**
+     * @param node The node to be printed - typically a CompilationUnit.
+     * @throws IOException If thrown by any of the appendables (in which case the remaining output is not written).
+     */
+    public void output(@NotNull Node node) throws IOException {
+        for (int i = 0; i < this.emitters.size(); i++) {
+            this.emitters.get(i).startTree(node, this.appendables.get(i));
+        }
+        this.output(node, null, false);
+        for (int i = 0; i < this.emitters.size(); i++) {
+            this.emitters.get(i).endTree(node, this.appendables.get(i));
+        }
+    }
+
+
+    private void output(Node node, @Nullable PropertyMetaModel property, boolean inList) throws IOException {
+        assertNotNull(node);
+        final PropertyPartitions partitions = PropertyPartitions.of(node.getMetaModel());
+
+        for (int i = 0; i < this.emitters.size(); i++) {
+            this.emitters.get(i).enterNode(node, partitions, property, inList, this.appendables.get(i));
+        }
+
+        for (final PropertyMetaModel sn : partitions.getSubNodes()) {
+            final Node nd = (Node) sn.getValue(node);
+            if (nd != null) {
+                this.output(nd, sn, false);
+            }
+        }
+
+        for (final PropertyMetaModel sl : partitions.getSubLists()) {
+            final NodeList<? extends Node> nl = (NodeList<? extends Node>) sl.getValue(node);
+            if (nl != null && nl.isNonEmpty()) {
+                for (int i = 0; i < this.emitters.size(); i++) {
+                    this.emitters.get(i).enterList(node, sl, this.appendables.get(i));
+                }
+                for (final Node nd : nl) {
+                    this.output(nd, sl, true);
+                }
+                for (int i = 0; i < this.emitters.size(); i++) {
+                    this.emitters.get(i).exitList(node, sl, this.appendables.get(i));
+                }
+            }
+        }
+
+        for (int i = 0; i < this.emitters.size(); i++) {
+            this.emitters.get(i).exitNode(node, this.appendables.get(i));
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return "MultiFormatPrinter{" +
+               "emitters=" + this.emitters +
+               '}';
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.metamodel.NodeMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.javaparser.utils.Utils.assertNotNull;
+
+/**
+ * Writes the AST as a bundle of CSV files for bulk import into a new Neo4j database using {@code neo4j-admin import},
+ * which is far quicker than running a Cypher script for large ASTs.
+ *
+ * As the properties differ per node type, there is one nodes file per node type (each with its own header), plus a
+ * single file of the {@code PARENT} relationships. An {@code import.sh} script is also written, which runs the import
+ * with the files in the bundle.
+ */
+public class Neo4jImportBundleWriter {
+
+    public static final String IMPORT_SCRIPT_FILE_NAME = "import.sh";
+    public static final String RELATIONSHIPS_FILE_NAME = "relationships.csv";
+
+    private static final String EOL = "\n";
+
+    private final boolean outputNodeType;
+
+    private Map<String, Writer> nodeWriters;
+    private int                 nodeCount;
+    private Writer              relationshipsWriter;
+
+
+    public Neo4jImportBundleWriter(boolean outputNodeType) {
+        this.outputNodeType = outputNodeType;
+    }
+
+
+    static String csvValue(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+
+    @NotNull
+    static String nodesFileName(String typeName) {
+        return "nodes_" + typeName + ".csv";
+    }
+
+
+    private Writer nodeWriter(Path directory, NodeMetaModel metaModel, List<PropertyMetaModel> attributes) throws IOException {
+        final String typeName = metaModel.getTypeName();
+
+        Writer writer = this.nodeWriters.get(typeName);
+        if (writer == null) {
+            writer = Files.newBufferedWriter(directory.resolve(nodesFileName(typeName)), StandardCharsets.UTF_8);
+            this.nodeWriters.put(typeName, writer);
+
+            writer.append("id:ID,:LABEL,name");
+            if (this.outputNodeType) {
+                writer.append(",_type");
+            }
+            for (PropertyMetaModel a : attributes) {
+                writer.append(',').append(a.getName());
+            }
+            writer.append(EOL);
+        }
+        return writer;
+    }
+
+
+    private void output(Path directory, Node node, Integer parentId, String name) throws IOException {
+        assertNotNull(node);
+
+        NodeMetaModel           metaModel  = node.getMetaModel();
+        PropertyPartitions      partitions = PropertyPartitions.of(metaModel);
+        List<PropertyMetaModel> attributes = partitions.getAttributes();
+        List<PropertyMetaModel> subNodes   = partitions.getSubNodes();
+        List<PropertyMetaModel> subLists   = partitions.getSubLists();
+
+        int    id       = this.nodeCount++;
+        String typeName = metaModel.getTypeName();
+
+        Writer writer = this.nodeWriter(directory, metaModel, attributes);
+        writer.append(String.valueOf(id)).append(",Node;").append(typeName).append(',').append(csvValue(name));
+        if (this.outputNodeType) {
+            writer.append(',').append(csvValue(typeName));
+        }
+        for (PropertyMetaModel a : attributes) {
+            writer.append(',').append(csvValue(a.getValue(node).toString()));
+        }
+        writer.append(EOL);
+
+        if (parentId != null) {
+            this.relationshipsWriter.append(String.valueOf(id)).append(',').append(String.valueOf(parentId)).append(",PARENT").append(EOL);
+        }
+
+        for (PropertyMetaModel sn : subNodes) {
+            Node nd = (Node) sn.getValue(node);
+            if (nd != null) {
+                this.output(directory, nd, id, sn.getName());
+            }
+        }
+
+        for (PropertyMetaModel sl : subLists) {
+            NodeList<? extends Node> nl = (NodeList<? extends Node>) sl.getValue(node);
+            if (nl != null && nl.isNonEmpty()) {
+                String slName = sl.getName().substring(0, sl.getName().length() - 1);
+                for (Node nd : nl) {
+                    this.output(directory, nd, id, slName);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Write the bundle into the given directory (created if necessary), replacing any existing bundle files.
+     *
+     * @return The files written.
+     */
+    @NotNull
+    public List<Path> write(@NotNull Node node, @NotNull Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        this.nodeCount = 0;
+        this.nodeWriters = new LinkedHashMap<>();
+        this.relationshipsWriter = null;
+        final List<Path> files = new ArrayList<>();
+        try {
+            this.relationshipsWriter = Files.newBufferedWriter(directory.resolve(RELATIONSHIPS_FILE_NAME), StandardCharsets.UTF_8);
+            this.relationshipsWriter.append(":START_ID,:END_ID,:TYPE").append(EOL);
+
+            this.output(directory, node, null, "root");
+        } finally {
+            IOException closeException = null;
+            for (Writer writer : this.nodeWriters.values()) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    closeException = e;
+                }
+            }
+            if (this.relationshipsWriter != null) {
+                this.relationshipsWriter.close();
+            }
+            if (closeException != null) {
+                throw closeException;
+            }
+        }
+
+        for (String typeName : this.nodeWriters.keySet()) {
+            files.add(directory.resolve(nodesFileName(typeName)));
+        }
+        files.add(directory.resolve(RELATIONSHIPS_FILE_NAME));
+
+        final Path script = directory.resolve(IMPORT_SCRIPT_FILE_NAME);
+        try (Writer writer = Files.newBufferedWriter(script, StandardCharsets.UTF_8)) {
+            writer.append("#!/bin/sh").append(EOL)
+                  .append("# Imports the AST into a new (empty) Neo4j database, by default named \"neo4j\" -- e.g. `./import.sh ast`.").append(EOL)
+                  .append("# For Neo4j 5, replace `import --database=\"$DATABASE\"` with `database import full \"$DATABASE\"`.").append(EOL)
+                  .append("DATABASE=\"${1:-neo4j}\"").append(EOL)
+                  .append("cd \"$(dirname \"$0\")\" || exit 1").append(EOL)
+                  .append("neo4j-admin import --database=\"$DATABASE\" --multiline-fields=true \\").append(EOL);
+            for (String typeName : this.nodeWriters.keySet()) {
+                writer.append("  --nodes=").append(nodesFileName(typeName)).append(" \\").append(EOL);
+            }
+            writer.append("  --relationships=").append(RELATIONSHIPS_FILE_NAME).append(EOL);
+        }
+        files.add(script);
+
+        this.nodeWriters = null;
+        this.relationshipsWriter = null;
+        return files;
+    }
+
+
+    @Override
+    public String toString() {
+        return "Neo4jImportBundleWriter{" +
+               "outputNodeType=" + this.outputNodeType +
+               ", nodeCount=" + this.nodeCount +
+               '}';
+    }
+}
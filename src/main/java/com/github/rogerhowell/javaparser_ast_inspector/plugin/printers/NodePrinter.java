@@ -2,6 +2,9 @@ package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
 
 import com.github.javaparser.ast.Node;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 public interface NodePrinter {
 
 
@@ -9,6 +12,25 @@ public interface NodePrinter {
      * @param node The node to be printed - typically a CompilationUnit.
      * @return The formatted equivalent of node.
      */
-    String output(Node node);
+    default String output(Node node) {
+        final StringBuilder output = new StringBuilder();
+        try {
+            this.output(node, output);
+        } catch (IOException e) {
+            // Not expected -- a StringBuilder does not throw IOExceptions.
+            throw new UncheckedIOException(e);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Write the formatted equivalent of the node directly to the given destination (e.g. a {@link java.io.Writer}),
+     * rather than first building the whole of the output in memory.
+     *
+     * @param node       The node to be printed - typically a CompilationUnit.
+     * @param appendable Where to write the output.
+     * @throws IOException If thrown by the appendable.
+     */
+    void output(Node node, Appendable appendable) throws IOException;
 
 }
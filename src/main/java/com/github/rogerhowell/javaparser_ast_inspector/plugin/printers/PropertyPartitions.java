@@ -0,0 +1,88 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.metamodel.BaseNodeMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The properties of a node type, partitioned as the printers need them: singular attributes (e.g. a name's
+ * identifier), singular child nodes, and lists of child nodes. Each partition is in the order of
+ * {@link BaseNodeMetaModel#getAllPropertyMetaModels()}.
+ *
+ * The partitions are computed once per node type then shared, rather than filtered again for every node visited.
+ * This is safe to use from multiple threads.
+ */
+public final class PropertyPartitions {
+
+    private static final ConcurrentMap<BaseNodeMetaModel, PropertyPartitions> cache = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final List<PropertyMetaModel> attributes;
+
+    @NotNull
+    private final List<PropertyMetaModel> subLists;
+
+    @NotNull
+    private final List<PropertyMetaModel> subNodes;
+
+
+    private PropertyPartitions(@NotNull BaseNodeMetaModel metaModel) {
+        final List<PropertyMetaModel> attributes = new ArrayList<>();
+        final List<PropertyMetaModel> subNodes   = new ArrayList<>();
+        final List<PropertyMetaModel> subLists   = new ArrayList<>();
+
+        for (final PropertyMetaModel propertyMetaModel : metaModel.getAllPropertyMetaModels()) {
+            if (propertyMetaModel.isAttribute() && propertyMetaModel.isSingular()) {
+                attributes.add(propertyMetaModel);
+            } else if (propertyMetaModel.isNode() && propertyMetaModel.isSingular()) {
+                subNodes.add(propertyMetaModel);
+            } else if (propertyMetaModel.isNodeList()) {
+                subLists.add(propertyMetaModel);
+            }
+        }
+
+        this.attributes = Collections.unmodifiableList(attributes);
+        this.subNodes = Collections.unmodifiableList(subNodes);
+        this.subLists = Collections.unmodifiableList(subLists);
+    }
+
+
+    @NotNull
+    public static PropertyPartitions of(@NotNull BaseNodeMetaModel metaModel) {
+        return cache.computeIfAbsent(metaModel, PropertyPartitions::new);
+    }
+
+
+    /**
+     * @return The singular attributes (i.e. not child nodes), e.g. a name's identifier or a modifier's keyword.
+     */
+    @NotNull
+    public List<PropertyMetaModel> getAttributes() {
+        return this.attributes;
+    }
+
+
+    /**
+     * @return The properties which are lists of child nodes.
+     */
+    @NotNull
+    public List<PropertyMetaModel> getSubLists() {
+        return this.subLists;
+    }
+
+
+    /**
+     * @return The properties which are singular child nodes.
+     */
+    @NotNull
+    public List<PropertyMetaModel> getSubNodes() {
+        return this.subNodes;
+    }
+
+}
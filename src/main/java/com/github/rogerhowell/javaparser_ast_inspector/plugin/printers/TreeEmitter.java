@@ -0,0 +1,52 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Writes one output format, driven by the events of a single walk of the AST by {@link MultiFormatPrinter} -- such
+ * that several formats can be produced without walking the AST (and partitioning each node's properties) once per
+ * format.
+ *
+ * The events are in pre-order: for each node, {@link #enterNode}, then each of its child nodes, then each of its
+ * non-empty lists of children (between {@link #enterList} and {@link #exitList}), then {@link #exitNode}.
+ */
+public interface TreeEmitter {
+
+    /**
+     * @param property The parent's property which holds the node, or null for the root.
+     * @param inList   Whether the property is a list of children (i.e. the node is an element of the list).
+     * @return The name the printers give the node: "root", the property name, or the singular of a list's name.
+     */
+    @NotNull
+    static String nameOf(@Nullable PropertyMetaModel property, boolean inList) {
+        if (property == null) {
+            return "root";
+        }
+        return inList ? property.getName().substring(0, property.getName().length() - 1) : property.getName();
+    }
+
+
+    void startTree(@NotNull Node root, @NotNull Appendable appendable) throws IOException;
+
+    /**
+     * @param property The parent's property which holds the node, or null for the root.
+     * @param inList   Whether the property is a list of children (i.e. the node is an element of the list).
+     */
+    void enterNode(@NotNull Node node, @NotNull PropertyPartitions partitions, @Nullable PropertyMetaModel property, boolean inList, @NotNull Appendable appendable) throws IOException;
+
+    default void enterList(@NotNull Node node, @NotNull PropertyMetaModel property, @NotNull Appendable appendable) throws IOException {
+    }
+
+    default void exitList(@NotNull Node node, @NotNull PropertyMetaModel property, @NotNull Appendable appendable) throws IOException {
+    }
+
+    void exitNode(@NotNull Node node, @NotNull Appendable appendable) throws IOException;
+
+    void endTree(@NotNull Node root, @NotNull Appendable appendable) throws IOException;
+
+}
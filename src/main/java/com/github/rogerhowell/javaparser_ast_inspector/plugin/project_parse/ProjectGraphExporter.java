@@ -0,0 +1,154 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse;
+
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.logging.NotificationLogger;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.services.JavaParserService;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.AsyncChannelWriter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.BatchExecutor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Exports every file of a project as a single GraphML document (see {@link ProjectGraphMLWriter}).
+ *
+ * Files are parsed and printed in parallel on a {@link BatchExecutor}, and their fragments appended to the document
+ * in order -- with only a bounded window of files in flight at once, such that the ASTs (and fragments) of the whole
+ * project are never held in memory together.
+ */
+public final class ProjectGraphExporter {
+
+    private static final NotificationLogger notificationLogger = new NotificationLogger(ProjectGraphExporter.class);
+
+    private ProjectGraphExporter() {
+        // Empty private constructor, to prevent instantiation.
+    }
+
+
+    /**
+     * @param javaFiles      The files to export, in the order in which they are to appear within the document.
+     * @param crossFileEdges Whether to link type references to the declarations of the types within other files.
+     * @return The writer, once the document has been completed (for its counts).
+     * @throws IOException If unable to write the document (in which case the partial document is deleted).
+     */
+    @NotNull
+    public static ProjectGraphMLWriter export(@NotNull Project project, @NotNull List<Path> javaFiles, @NotNull ParserConfiguration parserConfiguration, @NotNull Path output, boolean outputNodeType, boolean crossFileEdges, @NotNull ProgressIndicator indicator) throws IOException {
+        notificationLogger.traceEnter(project);
+
+        final JavaParserService javaParserService = JavaParserService.getInstance(project);
+        final Path              basePath          = project.getBasePath() == null ? null : Paths.get(project.getBasePath());
+
+        indicator.setIndeterminate(false);
+        indicator.setText("Exporting " + javaFiles.size() + " files");
+
+        boolean completed = false;
+        try (BatchExecutor executor = BatchExecutor.create();
+             AsyncChannelWriter writer = AsyncChannelWriter.open(output, StandardCharsets.UTF_8, null)) {
+
+            final ProjectGraphMLWriter graphWriter = new ProjectGraphMLWriter(writer, outputNodeType, crossFileEdges);
+            graphWriter.start();
+
+            // Enough files in flight to keep the executor busy, while the fragments are appended in order.
+            forEachInOrder(executor, javaFiles, 2 * executor.getMaxConcurrency(),
+                           path -> toFragment(javaParserService, parserConfiguration, basePath, path, outputNodeType, crossFileEdges),
+                           fragment -> {
+                               if (fragment == null) {
+                                   graphWriter.skip();
+                               } else {
+                                   graphWriter.append(fragment);
+                               }
+
+                               indicator.checkCanceled();
+                               indicator.setFraction((graphWriter.getFileCount() + graphWriter.getSkippedFileCount()) / (double) javaFiles.size());
+                           });
+
+            indicator.setText("Linking cross-file references");
+            graphWriter.finish();
+            completed = true;
+            return graphWriter;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(output);
+            }
+        }
+    }
+
+
+    @Nullable
+    private static <R> R await(@NotNull Future<R> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while exporting the project.");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unexpected error while exporting the project.", e.getCause());
+        }
+    }
+
+
+    /**
+     * Run the task for each of the inputs on the executor, passing each result to the consumer in the order of the
+     * inputs -- with at most {@code window} tasks submitted but not yet consumed, such that the results of every input
+     * are never held at once.
+     */
+    static <T, R> void forEachInOrder(@NotNull BatchExecutor executor, @NotNull List<T> inputs, int window, @NotNull Function<T, R> task, @NotNull ResultConsumer<R> consumer) throws IOException {
+        final Deque<Future<R>> pending = new ArrayDeque<>(window);
+
+        int next = 0;
+        while (next < inputs.size() || !pending.isEmpty()) {
+            while (next < inputs.size() && pending.size() < window) {
+                final T input = inputs.get(next++);
+                pending.add(executor.submit(() -> task.apply(input)));
+            }
+            consumer.accept(await(pending.removeFirst()));
+        }
+    }
+
+
+    /**
+     * @return The file's fragment, or null if the file could not be read or parsed (i.e. it is skipped).
+     */
+    @Nullable
+    private static ProjectGraphFragment toFragment(@NotNull JavaParserService javaParserService, @NotNull ParserConfiguration parserConfiguration, @Nullable Path basePath, @NotNull Path path, boolean outputNodeType, boolean crossFileEdges) {
+        final ParseResult<CompilationUnit> parseResult;
+        try {
+            parseResult = javaParserService.parse(parserConfiguration, path);
+        } catch (IOException e) {
+            return null;
+        }
+
+        // Relative to the project, where possible, such that the node ids do not depend on where it is checked out.
+        final String relativePath = basePath != null && path.startsWith(basePath) ? basePath.relativize(path).toString() : path.toString();
+        return parseResult.getResult()
+                          .map(cu -> ProjectGraphFragment.of(relativePath, cu, outputNodeType, crossFileEdges))
+                          .orElse(null);
+    }
+
+
+    /**
+     * Accepts the result of each task of {@link #forEachInOrder}, in order.
+     */
+    interface ResultConsumer<R> {
+
+        void accept(@Nullable R result) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,263 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.GraphMLPrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.MultiFormatPrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.NodePrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.PropertyPartitions;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.TreeEmitter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The GraphML nodes and edges of one file within a project-wide graph (see {@link ProjectGraphMLWriter}), plus the
+ * types it declares and references -- such that references to types declared in other files can be linked.
+ *
+ * Each node's id is derived from a hash of the file's path (relative to the project) and the node's index within a
+ * pre-order walk of the file's AST. The ids are thus unique across the project, and stable across exports for as
+ * long as the file is neither moved nor changed.
+ */
+public final class ProjectGraphFragment {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME        = 0x100000001b3L;
+
+    @NotNull
+    private final Map<String, String> declaredTypes;
+
+    @NotNull
+    private final String graphML;
+
+    @NotNull
+    private final List<TypeReference> references;
+
+    @NotNull
+    private final String relativePath;
+
+
+    private ProjectGraphFragment(@NotNull String relativePath, @NotNull String graphML, @NotNull Map<String, String> declaredTypes, @NotNull List<TypeReference> references) {
+        this.relativePath = relativePath;
+        this.graphML = graphML;
+        this.declaredTypes = Collections.unmodifiableMap(declaredTypes);
+        this.references = Collections.unmodifiableList(references);
+    }
+
+
+    /**
+     * @return The prefix of the ids of the file's nodes and edges -- a 64-bit FNV-1a hash of the path, in hex.
+     */
+    @NotNull
+    static String idPrefix(@NotNull String relativePath) {
+        long hash = FNV_OFFSET_BASIS;
+        for (final byte b : relativePath.replace('\\', '/').getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return String.format("f%016x_", hash);
+    }
+
+
+    /**
+     * Print the file's AST as GraphML, recording its type declarations (and, optionally, its type references) along
+     * the way. This is safe to call from several threads at once, each with their own AST.
+     *
+     * @param relativePath      The path of the file, relative to the project -- from which the node ids are derived.
+     * @param collectReferences Whether to record the types referenced by the file.
+     */
+    @NotNull
+    public static ProjectGraphFragment of(@NotNull String relativePath, @NotNull CompilationUnit compilationUnit, boolean outputNodeType, boolean collectReferences) {
+        final GraphMLPrinter printer   = new GraphMLPrinter(outputNodeType, true, idPrefix(relativePath));
+        final TypeCollector  collector = new TypeCollector(printer, collectReferences);
+        final NodePrinter    graphML   = (node, appendable) -> new MultiFormatPrinter()
+                .add(printer.fragmentEmitter(), appendable)
+                .add(collector, appendable)
+                .output(node);
+        return new ProjectGraphFragment(relativePath, graphML.output(compilationUnit), collector.declaredTypes, collector.references);
+    }
+
+
+    /**
+     * @return The id of the declaration of each type declared within the file, by fully qualified name.
+     */
+    @NotNull
+    public Map<String, String> getDeclaredTypes() {
+        return this.declaredTypes;
+    }
+
+
+    /**
+     * @return The GraphML {@code <node>} and {@code <edge>} elements.
+     */
+    @NotNull
+    public String getGraphML() {
+        return this.graphML;
+    }
+
+
+    @NotNull
+    public List<TypeReference> getReferences() {
+        return this.references;
+    }
+
+
+    @NotNull
+    public String getRelativePath() {
+        return this.relativePath;
+    }
+
+
+    @Override
+    public String toString() {
+        return "ProjectGraphFragment{" +
+               "relativePath='" + this.relativePath + '\'' +
+               ", declaredTypes=" + this.declaredTypes.size() +
+               ", references=" + this.references.size() +
+               '}';
+    }
+
+
+    /**
+     * A reference to a type by name, from a node of the file (e.g. the type of a field).
+     */
+    public static final class TypeReference {
+
+        @NotNull
+        private final List<String> candidateNames;
+
+        @NotNull
+        private final String sourceId;
+
+
+        TypeReference(@NotNull String sourceId, @NotNull List<String> candidateNames) {
+            this.sourceId = sourceId;
+            this.candidateNames = Collections.unmodifiableList(candidateNames);
+        }
+
+
+        /**
+         * @return The fully qualified names which the reference could be to, in order of precedence (single-type
+         *         imports, then the file's package, then on-demand imports).
+         */
+        @NotNull
+        public List<String> getCandidateNames() {
+            return this.candidateNames;
+        }
+
+
+        @NotNull
+        public String getSourceId() {
+            return this.sourceId;
+        }
+
+
+        @Override
+        public String toString() {
+            return "TypeReference{" +
+                   "sourceId='" + this.sourceId + '\'' +
+                   ", candidateNames=" + this.candidateNames +
+                   '}';
+        }
+
+    }
+
+    /**
+     * Records the type declarations and type references, with the ids given to them by the GraphML printer (i.e. by
+     * their pre-order index).
+     */
+    private static final class TypeCollector implements TreeEmitter {
+
+        private final boolean             collectReferences;
+        private final Map<String, String> declaredTypes = new LinkedHashMap<>();
+        private final GraphMLPrinter      printer;
+        private final List<TypeReference> references    = new ArrayList<>();
+
+        private List<ImportDeclaration> imports;
+        private int                     nodeIndex;
+        private String                  packageName;
+
+
+        TypeCollector(@NotNull GraphMLPrinter printer, boolean collectReferences) {
+            this.printer = printer;
+            this.collectReferences = collectReferences;
+        }
+
+
+        @NotNull
+        private List<String> candidateNames(@NotNull ClassOrInterfaceType type) {
+            final String       name       = type.getNameWithScope();
+            final List<String> candidates = new ArrayList<>();
+            if (type.getScope().isPresent()) {
+                // Either fully qualified, or a nested type (e.g. Map.Entry) -- only the former is linked.
+                candidates.add(name);
+                return candidates;
+            }
+
+            for (final ImportDeclaration importDeclaration : this.imports) {
+                if (!importDeclaration.isStatic() && !importDeclaration.isAsterisk() && importDeclaration.getName().getIdentifier().equals(name)) {
+                    candidates.add(importDeclaration.getNameAsString());
+                }
+            }
+            candidates.add(this.packageName.isEmpty() ? name : this.packageName + "." + name);
+            for (final ImportDeclaration importDeclaration : this.imports) {
+                if (!importDeclaration.isStatic() && importDeclaration.isAsterisk()) {
+                    candidates.add(importDeclaration.getNameAsString() + "." + name);
+                }
+            }
+            return candidates;
+        }
+
+
+        @Override
+        public void endTree(@NotNull Node root, @NotNull Appendable appendable) {
+        }
+
+
+        @Override
+        public void enterNode(@NotNull Node node, @NotNull PropertyPartitions partitions, @Nullable PropertyMetaModel property, boolean inList, @NotNull Appendable appendable) {
+            final String id = this.printer.nodeId(this.nodeIndex++);
+
+            if (node instanceof TypeDeclaration) {
+                ((TypeDeclaration<?>) node).getFullyQualifiedName().ifPresent(name -> this.declaredTypes.putIfAbsent(name, id));
+            } else if (this.collectReferences && node instanceof ClassOrInterfaceType) {
+                // The scope of a qualified name (e.g. java.util in java.util.List) is part of the outer reference.
+                final boolean isScope = node.getParentNode().filter(parent -> parent instanceof ClassOrInterfaceType).isPresent()
+                                        && "scope".equals(property == null ? null : property.getName());
+                if (!isScope) {
+                    this.references.add(new TypeReference(id, this.candidateNames((ClassOrInterfaceType) node)));
+                }
+            }
+        }
+
+
+        @Override
+        public void exitNode(@NotNull Node node, @NotNull Appendable appendable) {
+        }
+
+
+        @Override
+        public void startTree(@NotNull Node root, @NotNull Appendable appendable) {
+            this.nodeIndex = 0;
+            this.declaredTypes.clear();
+            this.references.clear();
+
+            final CompilationUnit compilationUnit = root.findCompilationUnit().orElse(null);
+            this.imports = compilationUnit == null ? Collections.emptyList() : compilationUnit.getImports();
+            this.packageName = compilationUnit == null ? "" : compilationUnit.getPackageDeclaration().map(PackageDeclaration::getNameAsString).orElse("");
+        }
+
+    }
+
+}
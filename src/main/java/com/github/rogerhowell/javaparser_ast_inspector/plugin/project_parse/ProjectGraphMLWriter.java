@@ -0,0 +1,160 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse;
+
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.GraphMLPrinter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the fragments of several files into a single GraphML document, as each is appended (i.e. only the type
+ * declarations and references of the fragments are retained).
+ *
+ * Optionally, once every fragment has been appended, a {@code REFERENCES} edge is added from each type reference to
+ * the declaration of the type it refers to -- where the type is declared within a different file of the project. Type
+ * references are matched by name only (via the file's package and imports), not resolved via a symbol solver.
+ */
+public final class ProjectGraphMLWriter {
+
+    public static final String REFERENCE_EDGE_LABEL = "REFERENCES";
+
+    @NotNull
+    private final Appendable appendable;
+
+    private final boolean crossFileEdges;
+
+    /**
+     * The id of the declaration of each type, by fully qualified name (the first, where a type is declared more than
+     * once).
+     */
+    @NotNull
+    private final Map<String, String> declaredTypes;
+
+    /**
+     * The file declaring each type, by fully qualified name.
+     */
+    @NotNull
+    private final Map<String, String> declaringFiles;
+
+    @NotNull
+    private final GraphMLPrinter printer;
+
+    @NotNull
+    private final List<ProjectGraphFragment.TypeReference> references;
+
+    /**
+     * The file of each of the references.
+     */
+    @NotNull
+    private final List<String> referencingFiles;
+
+    private int crossFileEdgeCount;
+    private int fileCount;
+    private int skippedFileCount;
+
+
+    /**
+     * @param crossFileEdges Whether to link type references to the declarations of the types within other files.
+     */
+    public ProjectGraphMLWriter(@NotNull Appendable appendable, boolean outputNodeType, boolean crossFileEdges) {
+        this.appendable = appendable;
+        this.crossFileEdges = crossFileEdges;
+        // Edges between files have their own id prefix -- distinct from that of every file.
+        this.printer = new GraphMLPrinter(outputNodeType, true, "x_");
+        this.declaredTypes = new HashMap<>();
+        this.declaringFiles = new HashMap<>();
+        this.references = new ArrayList<>();
+        this.referencingFiles = new ArrayList<>();
+    }
+
+
+    public void append(@NotNull ProjectGraphFragment fragment) throws IOException {
+        this.appendable.append(fragment.getGraphML());
+        this.fileCount++;
+
+        for (Map.Entry<String, String> entry : fragment.getDeclaredTypes().entrySet()) {
+            if (!this.declaredTypes.containsKey(entry.getKey())) {
+                this.declaredTypes.put(entry.getKey(), entry.getValue());
+                this.declaringFiles.put(entry.getKey(), fragment.getRelativePath());
+            }
+        }
+        if (this.crossFileEdges) {
+            for (ProjectGraphFragment.TypeReference reference : fragment.getReferences()) {
+                this.references.add(reference);
+                this.referencingFiles.add(fragment.getRelativePath());
+            }
+        }
+    }
+
+
+    /**
+     * Write the cross-file edges (if enabled), then end the document.
+     */
+    public void finish() throws IOException {
+        for (int i = 0; i < this.references.size(); i++) {
+            for (String candidateName : this.references.get(i).getCandidateNames()) {
+                final String targetId = this.declaredTypes.get(candidateName);
+                if (targetId != null) {
+                    if (!this.declaringFiles.get(candidateName).equals(this.referencingFiles.get(i))) {
+                        this.printer.outputEdge(this.references.get(i).getSourceId(), targetId, REFERENCE_EDGE_LABEL, this.appendable);
+                        this.crossFileEdgeCount++;
+                    }
+                    break;
+                }
+            }
+        }
+        this.references.clear();
+        this.referencingFiles.clear();
+
+        this.printer.outputDocumentEnd(this.appendable);
+    }
+
+
+    public int getCrossFileEdgeCount() {
+        return this.crossFileEdgeCount;
+    }
+
+
+    public int getFileCount() {
+        return this.fileCount;
+    }
+
+
+    /**
+     * @return The number of files which were not exported, as they could not be read or parsed.
+     */
+    public int getSkippedFileCount() {
+        return this.skippedFileCount;
+    }
+
+
+    /**
+     * Record that a file was not exported (e.g. as it could not be parsed).
+     */
+    public void skip() {
+        this.skippedFileCount++;
+    }
+
+
+    /**
+     * Write the start of the document, declaring every key which could be used by any file.
+     */
+    public void start() throws IOException {
+        this.printer.outputDocumentStart(this.appendable);
+    }
+
+
+    @Override
+    public String toString() {
+        return "ProjectGraphMLWriter{" +
+               "crossFileEdges=" + this.crossFileEdges +
+               ", fileCount=" + this.fileCount +
+               ", skippedFileCount=" + this.skippedFileCount +
+               ", crossFileEdgeCount=" + this.crossFileEdgeCount +
+               '}';
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Problem;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The aggregate outcome of parsing every file within a project's source roots.
+ *
+ * Only a summary of each file is kept (rather than its AST), such that the results for a whole project fit in memory.
+ */
+public final class ProjectParseResult {
+
+    @NotNull
+    private final List<FileParseResult> files;
+
+    @NotNull
+    private final ParserConfiguration parserConfiguration;
+
+    @NotNull
+    private final List<Path> sourceRoots;
+
+    private final boolean cancelled;
+    private final int     parallelism;
+    private final boolean virtualThreads;
+    private final long    wallTimeNanos;
+
+
+    ProjectParseResult(@NotNull List<Path> sourceRoots, @NotNull ParserConfiguration parserConfiguration, @NotNull List<FileParseResult> files, long wallTimeNanos, int parallelism, boolean virtualThreads, boolean cancelled) {
+        this.sourceRoots = Collections.unmodifiableList(sourceRoots);
+        this.parserConfiguration = parserConfiguration;
+        this.files = Collections.unmodifiableList(files);
+        this.wallTimeNanos = wallTimeNanos;
+        this.parallelism = parallelism;
+        this.virtualThreads = virtualThreads;
+        this.cancelled = cancelled;
+    }
+
+
+    public int getFailedFileCount() {
+        return (int) this.files.stream().filter(file -> !file.isSuccessful()).count();
+    }
+
+
+    @NotNull
+    public List<FileParseResult> getFiles() {
+        return this.files;
+    }
+
+
+    /**
+     * @return The most files parsed at once.
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+
+    /**
+     * @return The configuration with which the files were parsed.
+     */
+    @NotNull
+    public ParserConfiguration getParserConfiguration() {
+        return this.parserConfiguration;
+    }
+
+
+    public int getProblemCount() {
+        return this.files.stream().mapToInt(file -> file.getProblems().size()).sum();
+    }
+
+
+    @NotNull
+    public List<Path> getSourceRoots() {
+        return this.sourceRoots;
+    }
+
+
+    /**
+     * @return The sum of the time taken to parse each file -- i.e. excluding any benefit of parsing in parallel.
+     */
+    public long getTotalFileParseNanos() {
+        return this.files.stream().mapToLong(FileParseResult::getParseNanos).sum();
+    }
+
+
+    public long getTotalNodeCount() {
+        return this.files.stream().mapToLong(FileParseResult::getNodeCount).sum();
+    }
+
+
+    public long getWallTimeNanos() {
+        return this.wallTimeNanos;
+    }
+
+
+    /**
+     * @return True if the parse was cancelled before all of the files had been parsed.
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+
+    /**
+     * @return True if the files were parsed on virtual threads, or false if on a pool of platform threads.
+     */
+    public boolean isVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+
+    /**
+     * A summary of the result of parsing a single file.
+     */
+    public static final class FileParseResult {
+
+        @NotNull
+        private final Path path;
+
+        @NotNull
+        private final List<Problem> problems;
+
+        private final long    nodeCount;
+        private final long    parseNanos;
+        private final boolean successful;
+
+
+        FileParseResult(@NotNull Path path, boolean successful, @NotNull List<Problem> problems, long nodeCount, long parseNanos) {
+            this.path = path;
+            this.successful = successful;
+            this.problems = Collections.unmodifiableList(problems);
+            this.nodeCount = nodeCount;
+            this.parseNanos = parseNanos;
+        }
+
+
+        public long getNodeCount() {
+            return this.nodeCount;
+        }
+
+
+        public long getParseNanos() {
+            return this.parseNanos;
+        }
+
+
+        @NotNull
+        public Path getPath() {
+            return this.path;
+        }
+
+
+        @NotNull
+        public List<Problem> getProblems() {
+            return this.problems;
+        }
+
+
+        public boolean isSuccessful() {
+            return this.successful;
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse;
+
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Problem;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.logging.NotificationLogger;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.services.JavaParserService;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.BatchExecutor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Parses every {@code .java} file within the given source roots, in parallel on a dedicated {@link BatchExecutor}
+ * (i.e. on virtual threads where supported, with a cap on the number of files parsed at once).
+ *
+ * Each file is parsed via the {@link JavaParserService}, so parsers are reused across files and unchanged files are
+ * loaded from the AST cache.
+ * Similar to {@code SourceRoot#tryToParseParallelized()}, except that the ASTs are not retained.
+ */
+public final class ProjectParser {
+
+    private static final NotificationLogger notificationLogger = new NotificationLogger(ProjectParser.class);
+
+    private ProjectParser() {
+        // Empty private constructor, to prevent instantiation.
+    }
+
+
+    @NotNull
+    private static List<Path> findJavaFiles(@NotNull Project project, @NotNull List<Path> sourceRoots) {
+        final List<Path> javaFiles = new ArrayList<>();
+        for (final Path sourceRoot : sourceRoots) {
+            try (Stream<Path> paths = Files.walk(sourceRoot)) {
+                paths.filter(path -> path.getFileName().toString().endsWith(".java"))
+                     .filter(Files::isRegularFile)
+                     .forEach(javaFiles::add);
+            } catch (IOException e) {
+                notificationLogger.warn(project, "Unable to list the files within source root: " + sourceRoot, e);
+            }
+        }
+        return javaFiles;
+    }
+
+
+    @NotNull
+    public static ProjectParseResult parse(@NotNull Project project, @NotNull List<Path> sourceRoots, @NotNull ParserConfiguration parserConfiguration, @NotNull ProgressIndicator indicator) {
+        notificationLogger.traceEnter(project);
+
+        final long startNanos = System.nanoTime();
+
+        indicator.setText("Finding Java files");
+        final List<Path> javaFiles = findJavaFiles(project, sourceRoots);
+        indicator.checkCanceled();
+
+        final JavaParserService javaParserService = JavaParserService.getInstance(project);
+        final AtomicInteger     completed         = new AtomicInteger();
+
+        indicator.setIndeterminate(false);
+        indicator.setText("Parsing " + javaFiles.size() + " files");
+
+        try (BatchExecutor executor = BatchExecutor.create()) {
+            final List<Future<ProjectParseResult.FileParseResult>> futures = new ArrayList<>(javaFiles.size());
+            for (final Path path : javaFiles) {
+                futures.add(executor.submit(() -> {
+                    // Once cancelled, skip the remaining files (rather than throwing from within the executor).
+                    if (indicator.isCanceled()) {
+                        return null;
+                    }
+                    final ProjectParseResult.FileParseResult result = parseFile(javaParserService, parserConfiguration, path);
+                    indicator.setFraction(completed.incrementAndGet() / (double) javaFiles.size());
+                    return result;
+                }));
+            }
+
+            final List<ProjectParseResult.FileParseResult> results = new ArrayList<>(javaFiles.size());
+            try {
+                for (final Future<ProjectParseResult.FileParseResult> future : futures) {
+                    final ProjectParseResult.FileParseResult result = future.get();
+                    if (result != null) {
+                        results.add(result);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ProjectParseResult(sourceRoots, parserConfiguration, Collections.emptyList(), System.nanoTime() - startNanos, executor.getMaxConcurrency(), executor.isVirtualThreads(), true);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Unexpected error while parsing the project.", e.getCause());
+            }
+
+            results.sort(Comparator.comparing(ProjectParseResult.FileParseResult::getPath));
+
+            return new ProjectParseResult(sourceRoots, parserConfiguration, results, System.nanoTime() - startNanos, executor.getMaxConcurrency(), executor.isVirtualThreads(), indicator.isCanceled());
+        }
+    }
+
+
+    @NotNull
+    private static ProjectParseResult.FileParseResult parseFile(@NotNull JavaParserService javaParserService, @NotNull ParserConfiguration parserConfiguration, @NotNull Path path) {
+        final long startNanos = System.nanoTime();
+        try {
+            final ParseResult<CompilationUnit> parseResult = javaParserService.parse(parserConfiguration, path);
+            final long                         nodeCount   = parseResult.getResult().map(cu -> cu.stream().count()).orElse(0L);
+
+            return new ProjectParseResult.FileParseResult(path, parseResult.isSuccessful(), parseResult.getProblems(), nodeCount, System.nanoTime() - startNanos);
+        } catch (IOException e) {
+            final Problem problem = new Problem("Unable to read file: " + e.getMessage(), null, e);
+            return new ProjectParseResult.FileParseResult(path, false, Collections.singletonList(problem), 0, System.nanoTime() - startNanos);
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.providers;
+
+import com.github.javaparser.Provider;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * A {@link Provider} which reads directly from a {@link CharSequence} (e.g. the contents of an editor document),
+ * rather than first copying the whole of the text into a {@link String}.
+ *
+ * Note that the given character sequence must not be modified while it is being read -- e.g. use
+ * {@code Document#getImmutableCharSequence()} rather than {@code Document#getCharsSequence()}.
+ */
+public class CharSequenceProvider implements Provider {
+
+    @NotNull
+    private final CharSequence charSequence;
+
+    private int position;
+
+
+    public CharSequenceProvider(@NotNull CharSequence charSequence) {
+        this.charSequence = Objects.requireNonNull(charSequence);
+        this.position = 0;
+    }
+
+
+    @Override
+    public void close() {
+        // Nothing to release.
+    }
+
+
+    @Override
+    public int read(char[] buffer, int offset, int len) {
+        final int remaining = this.charSequence.length() - this.position;
+        if (remaining <= 0) {
+            return -1;
+        }
+
+        final int count = Math.min(len, remaining);
+        if (this.charSequence instanceof String) {
+            ((String) this.charSequence).getChars(this.position, this.position + count, buffer, offset);
+        } else {
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = this.charSequence.charAt(this.position + i);
+            }
+        }
+
+        this.position += count;
+        return count;
+    }
+
+
+    @Override
+    public String toString() {
+        return "CharSequenceProvider{" +
+               "length=" + this.charSequence.length() +
+               ", position=" + this.position +
+               '}';
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.providers;
+
+import com.github.javaparser.Provider;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A {@link Provider} which decodes a file incrementally from a memory-mapped {@link FileChannel}, one window of the
+ * file at a time, rather than first reading the whole of the file into a {@link String}.
+ *
+ * The heap used is independent of the size of the file -- useful for very large (e.g. generated) source files.
+ * Malformed input is replaced, as is done when JavaParser reads a file itself.
+ *
+ * Note that the mapped windows are released by the garbage collector rather than by {@link #close()}.
+ */
+public class MappedFileProvider implements Provider {
+
+    /**
+     * The default number of bytes of the file mapped at any one time.
+     */
+    public static final int DEFAULT_WINDOW_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Large enough to always hold at least one whole character, for any charset.
+     */
+    private static final int MIN_WINDOW_BYTES = 16;
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+
+    @NotNull
+    private final FileChannel channel;
+
+    @NotNull
+    private final CharBuffer chars;
+
+    @NotNull
+    private final CharsetDecoder decoder;
+
+    private final long fileSize;
+    private final int  windowBytes;
+
+    @NotNull
+    private ByteBuffer bytes;
+
+    private boolean finished;
+    private long    windowStart;
+
+
+    public MappedFileProvider(@NotNull Path path, @NotNull Charset charset) throws IOException {
+        this(path, charset, DEFAULT_WINDOW_BYTES);
+    }
+
+
+    /**
+     * @param windowBytes The number of bytes of the file to map at any one time (at least 16).
+     */
+    public MappedFileProvider(@NotNull Path path, @NotNull Charset charset, int windowBytes) throws IOException {
+        Objects.requireNonNull(path);
+        if (windowBytes < MIN_WINDOW_BYTES) {
+            throw new IllegalArgumentException("The window size must be at least " + MIN_WINDOW_BYTES + " bytes (given: " + windowBytes + ").");
+        }
+
+        this.decoder = charset.newDecoder()
+                              .onMalformedInput(CodingErrorAction.REPLACE)
+                              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.windowBytes = windowBytes;
+        this.chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        this.chars.flip();
+
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.fileSize = this.channel.size();
+            this.bytes = this.map(0);
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+
+    /**
+     * Decode the next characters into the (empty) character buffer.
+     *
+     * @return False if the end of the file has been reached.
+     */
+    private boolean fill() throws IOException {
+        this.chars.clear();
+        while (!this.finished && this.chars.position() == 0) {
+            final boolean     endOfInput = this.windowStart + this.bytes.limit() >= this.fileSize;
+            final CoderResult result     = this.decoder.decode(this.bytes, this.chars, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+
+            if (result.isUnderflow()) {
+                if (endOfInput) {
+                    this.decoder.flush(this.chars);
+                    this.finished = true;
+                } else {
+                    // Any bytes of a character split across the window boundary are re-mapped at the start of the next window.
+                    this.bytes = this.map(this.windowStart + this.bytes.position());
+                }
+            }
+        }
+        this.chars.flip();
+        return this.chars.hasRemaining();
+    }
+
+
+    @NotNull
+    private ByteBuffer map(long start) throws IOException {
+        this.windowStart = start;
+        final long length = Math.min(this.windowBytes, this.fileSize - start);
+        return this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+
+
+    @Override
+    public int read(char[] buffer, int offset, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!this.chars.hasRemaining() && !this.fill()) {
+            return -1;
+        }
+
+        final int count = Math.min(len, this.chars.remaining());
+        this.chars.get(buffer, offset, count);
+        return count;
+    }
+
+
+    @Override
+    public String toString() {
+        return "MappedFileProvider{" +
+               "fileSize=" + this.fileSize +
+               ", windowStart=" + this.windowStart +
+               ", windowBytes=" + this.windowBytes +
+               '}';
+    }
+
+}
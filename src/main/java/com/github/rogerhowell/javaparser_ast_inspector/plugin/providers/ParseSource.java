@@ -0,0 +1,18 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.providers;
+
+/**
+ * Where the source code to be parsed should be read from.
+ */
+public enum ParseSource {
+
+    /**
+     * The in-memory contents of the editor, including any unsaved changes -- no disk access is required.
+     */
+    EDITOR_BUFFER,
+
+    /**
+     * The contents of the file as it was last saved to disk.
+     */
+    DISK
+
+}
@@ -0,0 +1,370 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.search;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.metamodel.BaseNodeMetaModel;
+import com.github.javaparser.metamodel.JavaParserMetaModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A structural query over an AST, written as an XPath-like path of node types -- e.g.
+ * {@code //LambdaExpr//MethodCallExpr[name='get']} finds the calls of methods named {@code get} within lambdas.
+ *
+ * Each step of the path is:
+ * <ul>
+ *   <li>{@code /} (a child of the previous step's nodes) or {@code //} (any descendant) -- the first step is relative
+ *   to the root, and defaults to {@code //} if omitted;</li>
+ *   <li>a node type, as named by the JavaParser metamodel (also matching its subtypes, e.g. {@code Expression}), or
+ *   {@code *} for any type;</li>
+ *   <li>any number of predicates on the node's attributes (see {@link NodeQueryIndex#attributeValue(Node, String)}),
+ *   each of the form {@code [attribute='value']} or {@code [attribute!='value']} -- the quotes may be omitted for
+ *   values without spaces.</li>
+ * </ul>
+ *
+ * Each step is evaluated from the indexes of a {@link NodeQueryIndex} -- the candidates of the step's type which have
+ * the required attribute values -- then kept only if within the previous step's nodes, by looking up their ancestors.
+ */
+public final class NodeQuery {
+
+    @NotNull
+    private final List<Step> steps;
+
+    @NotNull
+    private final String text;
+
+
+    private NodeQuery(@NotNull String text, @NotNull List<Step> steps) {
+        this.text = text;
+        this.steps = steps;
+    }
+
+
+    /**
+     * @throws SyntaxException If the query is not valid, e.g. names an unknown node type.
+     */
+    @NotNull
+    public static NodeQuery parse(@NotNull String text) {
+        return new NodeQuery(text, new Parser(text).parseSteps());
+    }
+
+
+    /**
+     * @return The ascending values of the first array which are also within the second.
+     */
+    @NotNull
+    private static int[] intersect(@NotNull int[] a, @NotNull int[] b) {
+        final int[] result = new int[Math.min(a.length, b.length)];
+        int         size   = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+
+    /**
+     * @param context The ordinals of the previous step's nodes, or null if this is the first step.
+     */
+    private static boolean isWithinContext(@NotNull NodeQueryIndex index, @NotNull Node node, @NotNull Step step, @Nullable BitSet context) {
+        if (context == null) {
+            return step.descendants || index.ordinalOf(node) == 0;
+        }
+
+        Optional<Node> ancestor = node.getParentNode();
+        while (ancestor.isPresent()) {
+            final int ordinal = index.ordinalOf(ancestor.get());
+            if (ordinal >= 0 && context.get(ordinal)) {
+                return true;
+            }
+            if (!step.descendants) {
+                return false;
+            }
+            ancestor = ancestor.get().getParentNode();
+        }
+        return false;
+    }
+
+
+    /**
+     * @return The matching nodes, in the order in which the tree shows them.
+     */
+    @NotNull
+    public List<Node> evaluate(@NotNull NodeQueryIndex index) {
+        BitSet context = null;
+        for (final Step step : this.steps) {
+            int[] candidates = step.type == null ? null : index.ordinalsOfType(step.type);
+            for (final Predicate predicate : step.predicates) {
+                if (!predicate.negated) {
+                    final int[] withValue = index.ordinalsWithAttribute(predicate.attribute, predicate.value);
+                    candidates = candidates == null ? withValue : intersect(candidates, withValue);
+                }
+            }
+
+            final BitSet matches = new BitSet(index.getNodeCount());
+            if (candidates == null) {
+                for (int ordinal = 0; ordinal < index.getNodeCount(); ordinal++) {
+                    this.matchStep(index, step, context, ordinal, matches);
+                }
+            } else {
+                for (final int ordinal : candidates) {
+                    this.matchStep(index, step, context, ordinal, matches);
+                }
+            }
+
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+            context = matches;
+        }
+
+        final List<Node> results = new ArrayList<>(context.cardinality());
+        for (int ordinal = context.nextSetBit(0); ordinal >= 0; ordinal = context.nextSetBit(ordinal + 1)) {
+            results.add(index.getNode(ordinal));
+        }
+        return results;
+    }
+
+
+    @NotNull
+    public String getText() {
+        return this.text;
+    }
+
+
+    private void matchStep(@NotNull NodeQueryIndex index, @NotNull Step step, @Nullable BitSet context, int ordinal, @NotNull BitSet matches) {
+        final Node node = index.getNode(ordinal);
+        if (!isWithinContext(index, node, step, context)) {
+            return;
+        }
+        for (final Predicate predicate : step.predicates) {
+            // The other predicates have already been matched via the index.
+            if (predicate.negated && predicate.value.equals(NodeQueryIndex.attributeValue(node, predicate.attribute))) {
+                return;
+            }
+        }
+        matches.set(ordinal);
+    }
+
+
+    @Override
+    public String toString() {
+        return "NodeQuery{" +
+               "text='" + this.text + '\'' +
+               '}';
+    }
+
+
+    /**
+     * Thrown when a query is not valid.
+     */
+    public static final class SyntaxException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int position;
+
+
+        SyntaxException(@NotNull String message, int position) {
+            super(message + " (at position " + position + ")");
+            this.position = position;
+        }
+
+
+        /**
+         * @return The index of the character of the query at which the problem was found.
+         */
+        public int getPosition() {
+            return this.position;
+        }
+
+    }
+
+    private static final class Parser {
+
+        private final String text;
+        private       int    position = 0;
+
+
+        private Parser(@NotNull String text) {
+            this.text = text;
+        }
+
+
+        private boolean consume(@NotNull String expected) {
+            this.skipWhitespace();
+            if (this.text.startsWith(expected, this.position)) {
+                this.position += expected.length();
+                return true;
+            }
+            return false;
+        }
+
+
+        @NotNull
+        private String parseIdentifier(@NotNull String description) {
+            this.skipWhitespace();
+            final int start = this.position;
+            while (this.position < this.text.length() && Character.isJavaIdentifierPart(this.text.charAt(this.position))) {
+                this.position++;
+            }
+            if (start == this.position) {
+                throw new SyntaxException("Expected " + description, start);
+            }
+            return this.text.substring(start, this.position);
+        }
+
+
+        @NotNull
+        private Predicate parsePredicate() {
+            final String  attribute = this.parseIdentifier("an attribute name");
+            final boolean negated;
+            if (this.consume("!=")) {
+                negated = true;
+            } else if (this.consume("=")) {
+                negated = false;
+            } else {
+                throw new SyntaxException("Expected = or !=", this.position);
+            }
+            final String value = this.parseValue();
+            if (!this.consume("]")) {
+                throw new SyntaxException("Expected ]", this.position);
+            }
+            return new Predicate(attribute, value, negated);
+        }
+
+
+        @NotNull
+        private Step parseStep(boolean first) {
+            final boolean descendants;
+            if (this.consume("//")) {
+                descendants = true;
+            } else if (this.consume("/")) {
+                descendants = false;
+            } else if (first) {
+                descendants = true;
+            } else {
+                throw new SyntaxException("Expected / or //", this.position);
+            }
+
+            final BaseNodeMetaModel type;
+            if (this.consume("*")) {
+                type = null;
+            } else {
+                final int    start    = this.position;
+                final String typeName = this.parseIdentifier("a node type (or *)");
+                type = JavaParserMetaModel.getNodeMetaModels().stream()
+                                          .filter(metaModel -> metaModel.getTypeName().equals(typeName))
+                                          .findFirst()
+                                          .orElseThrow(() -> new SyntaxException("Unknown node type: " + typeName, start));
+            }
+
+            final List<Predicate> predicates = new ArrayList<>();
+            while (this.consume("[")) {
+                predicates.add(this.parsePredicate());
+            }
+            return new Step(descendants, type, predicates);
+        }
+
+
+        @NotNull
+        private List<Step> parseSteps() {
+            final List<Step> steps = new ArrayList<>();
+            steps.add(this.parseStep(true));
+            this.skipWhitespace();
+            while (this.position < this.text.length()) {
+                steps.add(this.parseStep(false));
+                this.skipWhitespace();
+            }
+            return steps;
+        }
+
+
+        @NotNull
+        private String parseValue() {
+            this.skipWhitespace();
+            final int start = this.position;
+            if (this.position < this.text.length() && (this.text.charAt(this.position) == '\'' || this.text.charAt(this.position) == '"')) {
+                final char quote = this.text.charAt(this.position);
+                final int  end   = this.text.indexOf(quote, this.position + 1);
+                if (end < 0) {
+                    throw new SyntaxException("Unterminated value", start);
+                }
+                this.position = end + 1;
+                return this.text.substring(start + 1, end);
+            }
+
+            while (this.position < this.text.length() && this.text.charAt(this.position) != ']' && !Character.isWhitespace(this.text.charAt(this.position))) {
+                this.position++;
+            }
+            if (start == this.position) {
+                throw new SyntaxException("Expected a value", start);
+            }
+            return this.text.substring(start, this.position);
+        }
+
+
+        private void skipWhitespace() {
+            while (this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position))) {
+                this.position++;
+            }
+        }
+
+    }
+
+    private static final class Predicate {
+
+        @NotNull
+        private final String attribute;
+
+        private final boolean negated;
+
+        @NotNull
+        private final String value;
+
+
+        private Predicate(@NotNull String attribute, @NotNull String value, boolean negated) {
+            this.attribute = attribute;
+            this.value = value;
+            this.negated = negated;
+        }
+
+    }
+
+    private static final class Step {
+
+        private final boolean descendants;
+
+        @NotNull
+        private final List<Predicate> predicates;
+
+        /**
+         * Null for any type.
+         */
+        @Nullable
+        private final BaseNodeMetaModel type;
+
+
+        private Step(boolean descendants, @Nullable BaseNodeMetaModel type, @NotNull List<Predicate> predicates) {
+            this.descendants = descendants;
+            this.type = type;
+            this.predicates = predicates;
+        }
+
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.search;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.Name;
+import com.github.javaparser.ast.nodeTypes.NodeWithIdentifier;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.metamodel.BaseNodeMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.PropertyPartitions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The indexes of an AST used to evaluate {@link NodeQuery}s without walking the AST: the nodes of each node type (by
+ * {@link BaseNodeMetaModel}), and the nodes of each value of an attribute.
+ *
+ * The attribute values are those of the node's singular attributes (e.g. a literal's {@code value}, a modifier's
+ * {@code keyword}), along with its names and types -- e.g. the {@code name} of a method call is the identifier of its
+ * {@code SimpleName}, and the {@code type} of a parameter is the type as written. The nodes of each attribute are only
+ * indexed once that attribute is first queried.
+ *
+ * Nodes are identified by their ordinal -- their position in the order in which the tree shows them (i.e. depth-first,
+ * in the order of the child nodes). The index is a snapshot of the AST at the time it was built, and is to be used
+ * from a single thread.
+ */
+public final class NodeQueryIndex {
+
+    private static final int[] NO_NODES = new int[0];
+
+    /**
+     * The ordinals of the nodes of each value of each attribute, indexed when the attribute is first queried.
+     */
+    @NotNull
+    private final Map<String, Map<String, int[]>> nodesByAttribute;
+
+    /**
+     * The ordinals of the nodes of exactly each type (i.e. not including subtypes).
+     */
+    @NotNull
+    private final Map<BaseNodeMetaModel, int[]> nodesByExactType;
+
+    /**
+     * The ordinals of the nodes of each type or any of its subtypes, found when the type is first queried.
+     */
+    @NotNull
+    private final Map<BaseNodeMetaModel, int[]> nodesByType;
+
+    @NotNull
+    private final Node[] nodes;
+
+    @NotNull
+    private final Map<Node, Integer> ordinals;
+
+
+    private NodeQueryIndex(@NotNull Node[] nodes, @NotNull Map<Node, Integer> ordinals, @NotNull Map<BaseNodeMetaModel, int[]> nodesByExactType) {
+        this.nodes = nodes;
+        this.ordinals = ordinals;
+        this.nodesByExactType = nodesByExactType;
+        this.nodesByType = new HashMap<>();
+        this.nodesByAttribute = new HashMap<>();
+    }
+
+
+    @NotNull
+    public static NodeQueryIndex of(@NotNull Node root) {
+        Objects.requireNonNull(root);
+
+        final List<Node> nodes = new ArrayList<>();
+        collect(root, nodes);
+
+        final Map<Node, Integer>                    ordinals = new IdentityHashMap<>(nodes.size());
+        final Map<BaseNodeMetaModel, List<Integer>> byType   = new HashMap<>();
+        for (int ordinal = 0; ordinal < nodes.size(); ordinal++) {
+            ordinals.put(nodes.get(ordinal), ordinal);
+            byType.computeIfAbsent(nodes.get(ordinal).getMetaModel(), type -> new ArrayList<>()).add(ordinal);
+        }
+
+        final Map<BaseNodeMetaModel, int[]> nodesByExactType = new HashMap<>(byType.size() * 2);
+        byType.forEach((type, typeOrdinals) -> nodesByExactType.put(type, typeOrdinals.stream().mapToInt(Integer::intValue).toArray()));
+
+        return new NodeQueryIndex(nodes.toArray(new Node[0]), ordinals, nodesByExactType);
+    }
+
+
+    /**
+     * @return The value of the node's attribute as matched by queries, or null if the node has no such attribute (or
+     *         it is not set).
+     */
+    @Nullable
+    public static String attributeValue(@NotNull Node node, @NotNull String attribute) {
+        final PropertyPartitions partitions = PropertyPartitions.of(node.getMetaModel());
+        for (final PropertyMetaModel property : partitions.getAttributes()) {
+            if (property.getName().equals(attribute)) {
+                final Object value = property.getValue(node);
+                return value == null ? null : value.toString();
+            }
+        }
+        for (final PropertyMetaModel property : partitions.getSubNodes()) {
+            if (property.getName().equals(attribute)) {
+                return nodeValue((Node) property.getValue(node));
+            }
+        }
+        return null;
+    }
+
+
+    private static void collect(@NotNull Node node, @NotNull List<Node> nodes) {
+        nodes.add(node);
+        for (final Node child : node.getChildNodes()) {
+            collect(child, nodes);
+        }
+    }
+
+
+    /**
+     * @return The value of a child node as an attribute of its parent -- only names and types have a value.
+     */
+    @Nullable
+    private static String nodeValue(@Nullable Node node) {
+        if (node instanceof Name) {
+            return ((Name) node).asString();
+        } else if (node instanceof NodeWithIdentifier) {
+            return ((NodeWithIdentifier<?>) node).getIdentifier();
+        } else if (node instanceof Type) {
+            return ((Type) node).asString();
+        }
+        return null;
+    }
+
+
+    @NotNull
+    public Node getNode(int ordinal) {
+        return this.nodes[ordinal];
+    }
+
+
+    public int getNodeCount() {
+        return this.nodes.length;
+    }
+
+
+    /**
+     * @return The node's ordinal, or -1 if it is not within the indexed AST.
+     */
+    public int ordinalOf(@NotNull Node node) {
+        final Integer ordinal = this.ordinals.get(node);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+
+    /**
+     * @return The ordinals (ascending) of the nodes whose attribute has the given value.
+     */
+    @NotNull
+    public int[] ordinalsWithAttribute(@NotNull String attribute, @NotNull String value) {
+        final Map<String, int[]> byValue = this.nodesByAttribute.computeIfAbsent(attribute, this::indexAttribute);
+        return byValue.getOrDefault(value, NO_NODES);
+    }
+
+
+    /**
+     * @return The ordinals (ascending) of the nodes of the given type, or of any of its subtypes.
+     */
+    @NotNull
+    public int[] ordinalsOfType(@NotNull BaseNodeMetaModel type) {
+        return this.nodesByType.computeIfAbsent(type, t -> {
+            final BitSet ordinals = new BitSet(this.nodes.length);
+            this.nodesByExactType.forEach((exactType, exactOrdinals) -> {
+                if (exactType.isInstanceOfMetaModel(t)) {
+                    for (final int ordinal : exactOrdinals) {
+                        ordinals.set(ordinal);
+                    }
+                }
+            });
+            return ordinals.stream().toArray();
+        });
+    }
+
+
+    @NotNull
+    private Map<String, int[]> indexAttribute(@NotNull String attribute) {
+        final Map<String, List<Integer>> byValue = new HashMap<>();
+        for (int ordinal = 0; ordinal < this.nodes.length; ordinal++) {
+            final String value = attributeValue(this.nodes[ordinal], attribute);
+            if (value != null) {
+                byValue.computeIfAbsent(value, v -> new ArrayList<>()).add(ordinal);
+            }
+        }
+
+        final Map<String, int[]> index = new HashMap<>(byValue.size() * 2);
+        byValue.forEach((value, valueOrdinals) -> index.put(value, valueOrdinals.stream().mapToInt(Integer::intValue).toArray()));
+        return index;
+    }
+
+
+    @Override
+    public String toString() {
+        return "NodeQueryIndex{" +
+               "nodeCount=" + this.nodes.length +
+               ", typeCount=" + this.nodesByExactType.size() +
+               ", indexedAttributes=" + Arrays.toString(this.nodesByAttribute.keySet().toArray()) +
+               '}';
+    }
+
+}
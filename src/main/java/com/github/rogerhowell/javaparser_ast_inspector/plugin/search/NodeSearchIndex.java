@@ -0,0 +1,260 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.search;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.BooleanLiteralExpr;
+import com.github.javaparser.ast.expr.LiteralStringValueExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithIdentifier;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An index of the nodes of an AST by their type name (e.g. {@code MethodDeclaration}), identifier (e.g. the name of a
+ * method) and literal value (e.g. the contents of a string literal), searchable by prefix or by substring -- ignoring
+ * case.
+ *
+ * The distinct keys are held sorted, with the nodes of each key, such that a prefix search is a binary search. For a
+ * substring search, each trigram (three consecutive characters) is mapped to the keys containing it, such that only the
+ * keys containing the rarest of the query's trigrams need to be checked.
+ *
+ * The index covers the whole AST (not just the parts of the tree which have been expanded), and is a snapshot of the
+ * AST at the time that it was built -- it must be rebuilt once the AST is modified.
+ */
+public final class NodeSearchIndex {
+
+    private static final int[] NO_KEYS = new int[0];
+
+    /**
+     * Rough estimates of the heap retained per indexed node and per key, used to account for the index within caches.
+     */
+    private static final long ESTIMATED_BYTES_PER_KEY  = 96;
+    private static final long ESTIMATED_BYTES_PER_NODE = 16;
+
+    /**
+     * The distinct keys (lower case), in ascending order.
+     */
+    @NotNull
+    private final String[] keys;
+
+    /**
+     * The ordinals of the nodes of each key, in ascending order.
+     */
+    @NotNull
+    private final int[][] keyNodes;
+
+    /**
+     * Every node, in the order in which the tree shows them (i.e. depth-first, in the order of the child nodes).
+     */
+    @NotNull
+    private final Node[] nodes;
+
+    /**
+     * The (ascending) indices of the keys containing each trigram.
+     */
+    @NotNull
+    private final Map<String, int[]> trigramKeys;
+
+
+    private NodeSearchIndex(@NotNull Node[] nodes, @NotNull String[] keys, @NotNull int[][] keyNodes, @NotNull Map<String, int[]> trigramKeys) {
+        this.nodes = nodes;
+        this.keys = keys;
+        this.keyNodes = keyNodes;
+        this.trigramKeys = trigramKeys;
+    }
+
+
+    @NotNull
+    public static NodeSearchIndex of(@NotNull Node root) {
+        Objects.requireNonNull(root);
+
+        final List<Node>           nodes      = new ArrayList<>();
+        final Map<String, IntList> nodesByKey = new HashMap<>();
+        collect(root, nodes, nodesByKey);
+
+        final String[] keys = nodesByKey.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+
+        final int[][]              keyNodes  = new int[keys.length][];
+        final Map<String, IntList> byTrigram = new HashMap<>();
+        for (int keyIndex = 0; keyIndex < keys.length; keyIndex++) {
+            keyNodes[keyIndex] = nodesByKey.get(keys[keyIndex]).toArray();
+
+            final String key = keys[keyIndex];
+            for (int i = 0; i + 3 <= key.length(); i++) {
+                final IntList keyIndices = byTrigram.computeIfAbsent(key.substring(i, i + 3), trigram -> new IntList());
+                // A key may contain the same trigram several times.
+                if (keyIndices.size == 0 || keyIndices.values[keyIndices.size - 1] != keyIndex) {
+                    keyIndices.add(keyIndex);
+                }
+            }
+        }
+
+        final Map<String, int[]> trigramKeys = new HashMap<>(byTrigram.size() * 2);
+        byTrigram.forEach((trigram, keyIndices) -> trigramKeys.put(trigram, keyIndices.toArray()));
+
+        return new NodeSearchIndex(nodes.toArray(new Node[0]), keys, keyNodes, trigramKeys);
+    }
+
+
+    private static void addKey(@NotNull Map<String, IntList> nodesByKey, @NotNull String key, int ordinal) {
+        final IntList ordinals = nodesByKey.computeIfAbsent(key.toLowerCase(Locale.ROOT), k -> new IntList());
+        // A node may have the same key twice (e.g. an identifier which is also a type name).
+        if (ordinals.size == 0 || ordinals.values[ordinals.size - 1] != ordinal) {
+            ordinals.add(ordinal);
+        }
+    }
+
+
+    private static void collect(@NotNull Node node, @NotNull List<Node> nodes, @NotNull Map<String, IntList> nodesByKey) {
+        final int ordinal = nodes.size();
+        nodes.add(node);
+
+        addKey(nodesByKey, node.getClass().getSimpleName(), ordinal);
+        if (node instanceof NodeWithIdentifier) {
+            addKey(nodesByKey, ((NodeWithIdentifier<?>) node).getIdentifier(), ordinal);
+        }
+        if (node instanceof LiteralStringValueExpr) {
+            addKey(nodesByKey, ((LiteralStringValueExpr) node).getValue(), ordinal);
+        } else if (node instanceof BooleanLiteralExpr) {
+            addKey(nodesByKey, String.valueOf(((BooleanLiteralExpr) node).getValue()), ordinal);
+        }
+
+        for (final Node child : node.getChildNodes()) {
+            collect(child, nodes, nodesByKey);
+        }
+    }
+
+
+    /**
+     * @return A rough estimate of the heap retained by this index (excluding the nodes themselves).
+     */
+    public long estimateRetainedBytes() {
+        return this.nodes.length * ESTIMATED_BYTES_PER_NODE + this.keys.length * ESTIMATED_BYTES_PER_KEY;
+    }
+
+
+    public int getKeyCount() {
+        return this.keys.length;
+    }
+
+
+    public int getNodeCount() {
+        return this.nodes.length;
+    }
+
+
+    /**
+     * @param query     The text to search for, in any case.
+     * @param substring True to find keys containing the query anywhere, or false to find only keys starting with it.
+     * @return The nodes with a matching key, in the order in which the tree shows them -- or none if the query is empty.
+     */
+    @NotNull
+    public List<Node> search(@NotNull String query, boolean substring) {
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final String lowerCaseQuery = query.toLowerCase(Locale.ROOT);
+        final BitSet matches        = new BitSet(this.nodes.length);
+        if (substring) {
+            this.searchSubstring(lowerCaseQuery, matches);
+        } else {
+            this.searchPrefix(lowerCaseQuery, matches);
+        }
+
+        final List<Node> results = new ArrayList<>(matches.cardinality());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            results.add(this.nodes[ordinal]);
+        }
+        return results;
+    }
+
+
+    private void searchPrefix(@NotNull String prefix, @NotNull BitSet matches) {
+        int keyIndex = Arrays.binarySearch(this.keys, prefix);
+        if (keyIndex < 0) {
+            // The first key after the prefix.
+            keyIndex = -keyIndex - 1;
+        }
+        for (; keyIndex < this.keys.length && this.keys[keyIndex].startsWith(prefix); keyIndex++) {
+            for (final int ordinal : this.keyNodes[keyIndex]) {
+                matches.set(ordinal);
+            }
+        }
+    }
+
+
+    private void searchSubstring(@NotNull String query, @NotNull BitSet matches) {
+        // Candidate keys -- those containing the query's rarest trigram, or every key if the query is too short.
+        int[] candidates = null;
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            final int[] keyIndices = this.trigramKeys.getOrDefault(query.substring(i, i + 3), NO_KEYS);
+            if (candidates == null || keyIndices.length < candidates.length) {
+                candidates = keyIndices;
+            }
+        }
+
+        if (candidates == null) {
+            for (int keyIndex = 0; keyIndex < this.keys.length; keyIndex++) {
+                this.setIfContains(keyIndex, query, matches);
+            }
+        } else {
+            for (final int keyIndex : candidates) {
+                this.setIfContains(keyIndex, query, matches);
+            }
+        }
+    }
+
+
+    private void setIfContains(int keyIndex, @NotNull String query, @NotNull BitSet matches) {
+        if (this.keys[keyIndex].contains(query)) {
+            for (final int ordinal : this.keyNodes[keyIndex]) {
+                matches.set(ordinal);
+            }
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return "NodeSearchIndex{" +
+               "nodeCount=" + this.nodes.length +
+               ", keyCount=" + this.keys.length +
+               ", trigramCount=" + this.trigramKeys.size() +
+               '}';
+    }
+
+
+    /**
+     * A growable list of ints, without boxing each value.
+     */
+    private static final class IntList {
+
+        private int   size   = 0;
+        private int[] values = new int[4];
+
+
+        private void add(int value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = value;
+        }
+
+
+        @NotNull
+        private int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+
+    }
+
+}
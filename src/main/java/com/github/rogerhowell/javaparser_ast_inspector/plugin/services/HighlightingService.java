@@ -12,10 +12,17 @@ public interface HighlightingService {
         return ServiceManager.getService(HighlightingService.class);
     }
 
+    void clearHighlight(Editor editor);
+
     Optional<Node> getSelectedNode();
 
     void setSelectedNode(Node node);
 
     void updateHighlight(PsiFile psiFile, Editor editor);
 
+    /**
+     * @param scrollToHighlight False to leave the caret where it is, e.g. when the node was selected from the caret.
+     */
+    void updateHighlight(PsiFile psiFile, Editor editor, boolean scrollToHighlight);
+
 }
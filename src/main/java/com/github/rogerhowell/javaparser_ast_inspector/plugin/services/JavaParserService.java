@@ -6,11 +6,14 @@ import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.Provider;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.utils.SourceRoot;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.cache.PersistentAstCache;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 public interface JavaParserService {
@@ -20,16 +23,68 @@ public interface JavaParserService {
     }
 
 
+    /**
+     * Borrow a parser for the given configuration from a pool of parsers, creating one if none are idle.
+     * Parsers are pooled by {@link com.github.rogerhowell.javaparser_ast_inspector.plugin.util.ParserConfigurationUtil#fingerprint(ParserConfiguration)},
+     * thus a borrowed parser may hold a different (but equivalent) configuration instance -- other than for configurations
+     * with a symbol resolver, whose parsers are not pooled.
+     *
+     * The parser must only be used by one thread at a time, and must not be used after the lease is closed.
+     * This is safe to call from any thread.
+     */
+    @NotNull
+    ParserLease borrowJavaParser(@NotNull ParserConfiguration configuration);
+
+    /**
+     * @return The persistent cache used by {@link #parse(ParserConfiguration, CharSequence)}.
+     */
+    @NotNull
+    PersistentAstCache getAstCache();
+
     ParserConfiguration getConfiguration();
 
     ParserConfiguration getDefaultConfiguration();
 
     JavaParser getJavaParserInstance();
 
+    /**
+     * Parse the given source text as a compilation unit, returning a cached result if this exact text has previously
+     * been parsed with an equivalent configuration (including in a previous IDE session).
+     *
+     * Note that the storage of the compilation unit is not set. This is safe to call from any thread.
+     */
+    @NotNull
+    ParseResult<CompilationUnit> parse(@NotNull ParserConfiguration configuration, @NotNull CharSequence text);
+
+    /**
+     * Parse the given file as a compilation unit, decoded using the configuration's character encoding.
+     *
+     * Most files are read into memory and parsed via {@link #parse(ParserConfiguration, CharSequence)}, thus may be
+     * cached. Very large files are instead decoded incrementally from a memory-mapped file, and are not cached.
+     *
+     * Note that the storage of the compilation unit is not set. This is safe to call from any thread.
+     */
+    @NotNull
+    ParseResult<CompilationUnit> parse(@NotNull ParserConfiguration configuration, @NotNull Path path) throws IOException;
+
     ParseResult<CompilationUnit> parseCu(Provider provider);
 
     List<SourceRoot> vFilesToSourceRoots(VirtualFile[] vFiles);
 
     String vFilesToSourceRoots(VirtualFile[] vFiles, String delimiter);
 
+
+    /**
+     * Exclusive use of a pooled parser, which is returned to the pool when closed.
+     */
+    interface ParserLease extends AutoCloseable {
+
+        @Override
+        void close();
+
+        @NotNull
+        JavaParser getJavaParser();
+
+    }
+
 }
@@ -5,6 +5,13 @@ import com.github.javaparser.ast.Node;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
 
 public interface PrinterService {
 
@@ -61,4 +68,36 @@ public interface PrinterService {
 
     String outputAs(String outputFormat, CompilationUnit compilationUnit, boolean includeNodeType);
 
+    /**
+     * Write the compilation unit in the given format directly to the given destination (e.g. a file), rather than
+     * first building the whole of the output in memory (where supported by the format's printer).
+     *
+     * @return False if the output format is not recognised (in which case nothing is written).
+     * @throws IOException If thrown by the appendable.
+     */
+    boolean outputAs(String outputFormat, CompilationUnit compilationUnit, boolean includeNodeType, Appendable appendable) throws IOException;
+
+    /**
+     * Write the compilation unit in the given format to a file (as UTF-8), replacing any existing content. The file is
+     * written via an asynchronous channel, such that the printer is not held up waiting on the disk.
+     *
+     * If the output format is not recognised, or the output is not completed (e.g. an exception is thrown by the
+     * progress listener on cancellation), the file is deleted.
+     *
+     * @param progressListener Given the number of bytes written so far, periodically.
+     * @return False if the output format is not recognised.
+     */
+    boolean outputToFile(String outputFormat, CompilationUnit compilationUnit, boolean includeNodeType, Path path, @Nullable LongConsumer progressListener) throws IOException;
+
+    /**
+     * Write the compilation unit in each of the given formats to its own file, as per {@link #outputToFile}. The
+     * formats which support it (custom DOT, custom JSON and Cypher) are all written from a single walk of the AST,
+     * rather than one walk per format.
+     *
+     * @param pathsByFormat    The file to be written for each output format.
+     * @param progressListener Given the total number of bytes written so far (across all of the files), periodically.
+     * @return The output formats which were not recognised (for which nothing is written).
+     */
+    List<String> outputToFiles(Map<String, Path> pathsByFormat, CompilationUnit compilationUnit, boolean includeNodeType, @Nullable LongConsumer progressListener) throws IOException;
+
 }
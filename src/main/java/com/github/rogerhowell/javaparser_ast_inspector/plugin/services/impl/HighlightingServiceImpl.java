@@ -90,6 +90,17 @@ public class HighlightingServiceImpl implements HighlightingService {
     }
 
 
+    @Override
+    public void clearHighlight(Editor editor) {
+        notificationLogger.traceEnter();
+
+        final RangeHighlighter highlighter = this.highlighters.remove(editor);
+        if (highlighter != null && highlighter.isValid()) {
+            editor.getMarkupModel().removeHighlighter(highlighter);
+        }
+    }
+
+
     @Override
     public Optional<Node> getSelectedNode() {
         return Optional.ofNullable(this.selectedNode);
@@ -104,6 +115,12 @@ public class HighlightingServiceImpl implements HighlightingService {
 
     @Override
     public void updateHighlight(PsiFile psiFile, Editor editor) {
+        this.updateHighlight(psiFile, editor, true);
+    }
+
+
+    @Override
+    public void updateHighlight(PsiFile psiFile, Editor editor, boolean scrollToHighlight) {
         notificationLogger.traceEnter();
 
         if (this.selectedNode != null) {
@@ -136,7 +153,9 @@ public class HighlightingServiceImpl implements HighlightingService {
                 this.highlighters.put(editor, newHighlighter);
 
                 // Scroll to the start of the highlighted range.
-                EditorUtil.scrollToPosition(editor, newHighlighter.getStartOffset());
+                if (scrollToHighlight) {
+                    EditorUtil.scrollToPosition(editor, newHighlighter.getStartOffset());
+                }
 
             } else {
                 notificationLogger.warn("Selected node does not have a range, thus unable to update highlighting.");
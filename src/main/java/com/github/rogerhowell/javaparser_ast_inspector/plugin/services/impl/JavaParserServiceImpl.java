@@ -7,26 +7,93 @@ import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.Provider;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.utils.SourceRoot;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.cache.PersistentAstCache;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.providers.CharSequenceProvider;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.providers.MappedFileProvider;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.services.JavaParserService;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.ParserConfigurationUtil;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 public class JavaParserServiceImpl implements JavaParserService {
 
+    /**
+     * The most idle parsers to keep for any one configuration -- enough for one per core when parsing in parallel.
+     */
+    private static final int MAX_IDLE_PARSERS_PER_CONFIGURATION = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The size limit of the persistent AST cache, which may be overridden via a system property.
+     */
+    private static final long AST_CACHE_MAX_BYTES = Long.getLong("javaparser.astInspector.astCache.maxMegabytes", 256) * 1024 * 1024;
+
+    /**
+     * Files larger than this are streamed from a memory-mapped file, rather than read into memory (and cached).
+     * This may be overridden via a system property.
+     */
+    private static final long STREAMED_PARSE_MIN_BYTES = Long.getLong("javaparser.astInspector.streamedParse.minMegabytes", 4) * 1024 * 1024;
+
+    private final PersistentAstCache  astCache;
     private final ParserConfiguration configuration;
     private final JavaParser          javaParser;
     private final Project             project;
 
+    /**
+     * Idle parsers, keyed by configuration fingerprint. The most recently returned (i.e. warmest) parser is borrowed first.
+     */
+    private final ConcurrentMap<String, Deque<JavaParser>> idleParsers = new ConcurrentHashMap<>();
+
 
     public JavaParserServiceImpl(Project project) {
         this.project = project;
         this.configuration = this.getDefaultConfiguration();
         this.javaParser = new JavaParser(this.configuration);
+
+        // Within the IDE's system directory (i.e. caches), separately per project.
+        this.astCache = new PersistentAstCache(
+                Paths.get(PathManager.getSystemPath(), "javaparser-ast-inspector", "ast-cache", project.getLocationHash()),
+                AST_CACHE_MAX_BYTES
+        );
+    }
+
+
+    @NotNull
+    @Override
+    public ParserLease borrowJavaParser(@NotNull ParserConfiguration configuration) {
+        if (configuration.getSymbolResolver().isPresent()) {
+            // The fingerprint does not tell symbol resolvers apart, thus a pooled parser may have a different one.
+            return new PooledParserLease(null, new JavaParser(configuration));
+        }
+
+        final String            fingerprint = ParserConfigurationUtil.fingerprint(configuration);
+        final Deque<JavaParser> idle        = this.idleParsers.computeIfAbsent(fingerprint, key -> new ConcurrentLinkedDeque<>());
+
+        final JavaParser pooled = idle.pollFirst();
+        return new PooledParserLease(idle, pooled != null ? pooled : new JavaParser(configuration));
+    }
+
+
+    @NotNull
+    @Override
+    public PersistentAstCache getAstCache() {
+        return this.astCache;
     }
 
 
@@ -48,9 +115,51 @@ public class JavaParserServiceImpl implements JavaParserService {
     }
 
 
+    @NotNull
+    @Override
+    public ParseResult<CompilationUnit> parse(@NotNull ParserConfiguration configuration, @NotNull CharSequence text) {
+        // Symbol resolution state cannot be cached, so parse afresh.
+        final boolean cacheable = !configuration.getSymbolResolver().isPresent();
+
+        final String key = cacheable ? PersistentAstCache.key(ParserConfigurationUtil.fingerprint(configuration), text) : null;
+        if (key != null) {
+            final Optional<ParseResult<CompilationUnit>> cached = this.astCache.get(key);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        final ParseResult<CompilationUnit> parseResult;
+        try (ParserLease lease = this.borrowJavaParser(configuration)) {
+            parseResult = lease.getJavaParser().parse(ParseStart.COMPILATION_UNIT, new CharSequenceProvider(text));
+        }
+
+        if (key != null) {
+            this.astCache.put(key, parseResult);
+        }
+        return parseResult;
+    }
+
+
+    @NotNull
+    @Override
+    public ParseResult<CompilationUnit> parse(@NotNull ParserConfiguration configuration, @NotNull Path path) throws IOException {
+        if (Files.size(path) < STREAMED_PARSE_MIN_BYTES) {
+            return this.parse(configuration, new String(Files.readAllBytes(path), configuration.getCharacterEncoding()));
+        }
+
+        try (ParserLease lease = this.borrowJavaParser(configuration);
+             MappedFileProvider provider = new MappedFileProvider(path, configuration.getCharacterEncoding())) {
+            return lease.getJavaParser().parse(ParseStart.COMPILATION_UNIT, provider);
+        }
+    }
+
+
     @Override
     public ParseResult<CompilationUnit> parseCu(Provider provider) {
-        return this.javaParser.parse(ParseStart.COMPILATION_UNIT, provider);
+        try (ParserLease lease = this.borrowJavaParser(this.configuration)) {
+            return lease.getJavaParser().parse(ParseStart.COMPILATION_UNIT, provider);
+        }
     }
 
 
@@ -71,4 +180,43 @@ public class JavaParserServiceImpl implements JavaParserService {
                    .collect(Collectors.joining(delimiter));
     }
 
+
+    private static final class PooledParserLease implements ParserLease {
+
+        private final AtomicBoolean     closed = new AtomicBoolean(false);
+        private final JavaParser        javaParser;
+
+        /**
+         * The pool to return the parser to, or null if the parser is not to be pooled.
+         */
+        @Nullable
+        private final Deque<JavaParser> idle;
+
+
+        PooledParserLease(@Nullable Deque<JavaParser> idle, @NotNull JavaParser javaParser) {
+            this.idle = idle;
+            this.javaParser = javaParser;
+        }
+
+
+        @Override
+        public void close() {
+            // Closing twice must not put the same parser into the pool twice.
+            if (this.closed.compareAndSet(false, true) && this.idle != null && this.idle.size() < MAX_IDLE_PARSERS_PER_CONFIGURATION) {
+                this.idle.offerFirst(this.javaParser);
+            }
+        }
+
+
+        @NotNull
+        @Override
+        public JavaParser getJavaParser() {
+            if (this.closed.get()) {
+                throw new IllegalStateException("The parser has been returned to the pool.");
+            }
+            return this.javaParser;
+        }
+
+    }
+
 }
@@ -5,19 +5,46 @@ import com.github.javaparser.ast.Node;
 import com.github.javaparser.printer.DotPrinter;
 import com.github.javaparser.printer.XmlPrinter;
 import com.github.javaparser.printer.YamlPrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.columnar.ColumnarAst;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.logging.NotificationLogger;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.ASCIITreePrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.BatchedCypherPrinter;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.CustomDotPrinter;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.CustomJsonPrinter;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.CypherPrinter;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.GraphMLPrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.MultiFormatPrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.NodePrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.TreeEmitter;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.services.PrinterService;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.AsyncChannelWriter;
 import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
 
 public class PrinterServiceImpl implements PrinterService {
 
     private static final boolean defaultOutputNodeType = true;
 
+    private static final String COLUMNAR_AST_FORMAT = "Columnar AST (binary)";
+
+    /**
+     * The number of rows per statement of the batched Cypher output.
+     */
+    private static final int CYPHER_BATCH_SIZE = Integer.getInteger("javaparser.astInspector.cypher.batchSize", BatchedCypherPrinter.DEFAULT_BATCH_SIZE);
+
     private static final NotificationLogger notificationLogger = new NotificationLogger(PrinterServiceImpl.class);
     private final        Project            project;
 
@@ -27,6 +54,42 @@ public class PrinterServiceImpl implements PrinterService {
     }
 
 
+    /**
+     * @return The emitter which produces the given format as part of a single walk of the AST, or null if the format's
+     *         printer does not support it.
+     */
+    @Nullable
+    private static TreeEmitter emitterFor(final String outputFormat, boolean includeNodeType) {
+        switch (outputFormat) {
+            case "Custom DOT":
+            case "Custom DOT Image":
+                return new CustomDotPrinter(includeNodeType);
+            case "Custom JSON":
+                return new CustomJsonPrinter(includeNodeType);
+            case "Cypher":
+                return new CypherPrinter(includeNodeType);
+            default:
+                return null;
+        }
+    }
+
+
+    /**
+     * @return A listener which records the bytes written to one of several files, reporting the total to the given
+     *         listener (if any).
+     */
+    @Nullable
+    private static LongConsumer totalProgressListener(final long[] bytesWritten, final int index, @Nullable final LongConsumer progressListener) {
+        if (progressListener == null) {
+            return null;
+        }
+        return bytes -> {
+            bytesWritten[index] = bytes;
+            progressListener.accept(Arrays.stream(bytesWritten).sum());
+        };
+    }
+
+
     @Override
     public String asAsciiTreeText(Node node) {
         return this.asAsciiTreeText(node, defaultOutputNodeType);
@@ -139,38 +202,159 @@ public class PrinterServiceImpl implements PrinterService {
 
     @Override
     public String outputAs(final String outputFormat, final CompilationUnit compilationUnit, boolean includeNodeType) {
+        final AtomicBoolean recognised = new AtomicBoolean();
+        final NodePrinter   printer    = (node, appendable) -> recognised.set(this.outputAs(outputFormat, compilationUnit, includeNodeType, appendable, false));
+        final String        output     = printer.output(compilationUnit);
+        return recognised.get() ? output : null;
+    }
+
+
+    @Override
+    public boolean outputAs(final String outputFormat, final CompilationUnit compilationUnit, boolean includeNodeType, final Appendable appendable) throws IOException {
+        return this.outputAs(outputFormat, compilationUnit, includeNodeType, appendable, true);
+    }
+
 
-        String output = null;
+    /**
+     * @param streaming Whether printers which would otherwise buffer their output (i.e. GraphML) should instead write
+     *                  it as it is produced -- used when writing to a destination other than a string, where the
+     *                  output may be too large to hold in memory.
+     */
+    private boolean outputAs(final String outputFormat, final CompilationUnit compilationUnit, boolean includeNodeType, final Appendable appendable, boolean streaming) throws IOException {
 
+        // Note that JavaParser's own printers (YAML, XML, DOT, pretty print) only produce a String.
         if ("YAML".equals(outputFormat)) {
-            output = this.asYaml(compilationUnit, includeNodeType);
+            appendable.append(this.asYaml(compilationUnit, includeNodeType));
         } else if ("XML".equals(outputFormat)) {
-            output = this.asXml(compilationUnit, includeNodeType);
+            appendable.append(this.asXml(compilationUnit, includeNodeType));
         } else if ("DOT".equals(outputFormat)) {
-            output = this.asDot(compilationUnit, includeNodeType);
+            appendable.append(this.asDot(compilationUnit, includeNodeType));
 //        } else if ("Java (lexically preserving)".equals(outputFormat)) {
 //            notificationLogger.info("Note that the lexically preserving printer does not use the setting 'include node type'. ");
-//            output = this.asJavaPrettyPrint(compilationUnit);
+//            appendable.append(this.asJavaPrettyPrint(compilationUnit));
         } else if ("Java (pretty print)".equals(outputFormat)) {
             notificationLogger.info("Note that the pretty printer does not use the setting 'include node type'. ");
-            output = this.asJavaPrettyPrint(compilationUnit);
+            appendable.append(this.asJavaPrettyPrint(compilationUnit));
         } else if ("ASCII Tree".equals(outputFormat)) {
-            output = this.asAsciiTreeText(compilationUnit, includeNodeType);
+            new ASCIITreePrinter().output(compilationUnit, appendable);
         } else if ("Custom DOT".equals(outputFormat)) {
-            output = this.asDotCustom(compilationUnit, includeNodeType);
+            new CustomDotPrinter(includeNodeType).output(compilationUnit, appendable);
         } else if ("Custom DOT Image".equals(outputFormat)) {
-            output = this.asDotCustom(compilationUnit, includeNodeType);
+            new CustomDotPrinter(includeNodeType).output(compilationUnit, appendable);
         } else if ("Custom JSON".equals(outputFormat)) {
-            output = this.asJsonCustom(compilationUnit, includeNodeType);
+            new CustomJsonPrinter(includeNodeType).output(compilationUnit, appendable);
         } else if ("Cypher".equals(outputFormat)) {
-            output = this.asCypher(compilationUnit, includeNodeType);
+            new CypherPrinter(includeNodeType).output(compilationUnit, appendable);
+        } else if ("Cypher (batched)".equals(outputFormat)) {
+            new BatchedCypherPrinter(includeNodeType, Math.max(1, CYPHER_BATCH_SIZE)).output(compilationUnit, appendable);
         } else if ("GraphML".equals(outputFormat)) {
-            output = this.asGraphMl(compilationUnit, includeNodeType);
+            new GraphMLPrinter(includeNodeType, streaming).output(compilationUnit, appendable);
+        } else if (COLUMNAR_AST_FORMAT.equals(outputFormat)) {
+            // Binary, thus only a summary can be shown -- the columns themselves are written by outputToFile.
+            final ColumnarAst columnarAst = ColumnarAst.of(compilationUnit);
+            appendable.append(columnarAst.toString()).append(System.lineSeparator())
+                      .append("Note that this is a binary format -- use \"Export to File...\" to write it to a .")
+                      .append(ColumnarAst.FILE_EXTENSION).append(" file.");
         } else {
             notificationLogger.error("Unrecognised output format: " + outputFormat);
+            return false;
+        }
+
+        return true;
+    }
+
+
+    @Override
+    public boolean outputToFile(final String outputFormat, final CompilationUnit compilationUnit, boolean includeNodeType, final Path path, @Nullable final LongConsumer progressListener) throws IOException {
+        boolean completed = false;
+        try {
+            if (COLUMNAR_AST_FORMAT.equals(outputFormat)) {
+                try (OutputStream outputStream = Files.newOutputStream(path)) {
+                    ColumnarAst.of(compilationUnit).write(outputStream);
+                }
+                completed = true;
+                return true;
+            }
+
+            try (AsyncChannelWriter writer = AsyncChannelWriter.open(path, StandardCharsets.UTF_8, progressListener)) {
+                if (!this.outputAs(outputFormat, compilationUnit, includeNodeType, writer, true)) {
+                    return false;
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(path);
+            }
         }
+        return true;
+    }
 
-        return output;
+
+    @Override
+    public List<String> outputToFiles(final Map<String, Path> pathsByFormat, final CompilationUnit compilationUnit, boolean includeNodeType, @Nullable final LongConsumer progressListener) throws IOException {
+        final long[]                   bytesWritten = new long[pathsByFormat.size()];
+        final Map<String, Path>        remaining    = new LinkedHashMap<>(pathsByFormat);
+        final MultiFormatPrinter       printer      = new MultiFormatPrinter();
+        final List<AsyncChannelWriter> writers      = new ArrayList<>();
+        final List<Path>               fanOutPaths  = new ArrayList<>();
+
+        // Firstly, the formats which can all be written from a single walk of the AST.
+        boolean completed = false;
+        try {
+            for (Map.Entry<String, Path> entry : pathsByFormat.entrySet()) {
+                final TreeEmitter emitter = emitterFor(entry.getKey(), includeNodeType);
+                if (emitter != null) {
+                    fanOutPaths.add(entry.getValue());
+                    final AsyncChannelWriter writer = AsyncChannelWriter.open(entry.getValue(), StandardCharsets.UTF_8, totalProgressListener(bytesWritten, writers.size(), progressListener));
+                    writers.add(writer);
+                    printer.add(emitter, writer);
+                    remaining.remove(entry.getKey());
+                }
+            }
+            if (printer.getEmitterCount() > 0) {
+                printer.output(compilationUnit);
+            }
+            completed = true;
+        } finally {
+            // Close every writer, even once one has failed -- closing may also be cancelled via the progress listener.
+            Exception closeException = null;
+            for (AsyncChannelWriter writer : writers) {
+                try {
+                    writer.close();
+                } catch (IOException | RuntimeException e) {
+                    if (closeException == null) {
+                        closeException = e;
+                    } else {
+                        closeException.addSuppressed(e);
+                    }
+                }
+            }
+            if (!completed || closeException != null) {
+                for (Path path : fanOutPaths) {
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException e) {
+                        notificationLogger.warn("Unable to delete the incomplete export: " + path, e);
+                    }
+                }
+            }
+            if (completed && closeException instanceof IOException) {
+                throw (IOException) closeException;
+            } else if (completed && closeException != null) {
+                throw (RuntimeException) closeException;
+            }
+        }
+
+        // Then any others, one at a time.
+        final List<String> unrecognised = new ArrayList<>();
+        int                index        = writers.size();
+        for (Map.Entry<String, Path> entry : remaining.entrySet()) {
+            if (!this.outputToFile(entry.getKey(), compilationUnit, includeNodeType, entry.getValue(), totalProgressListener(bytesWritten, index++, progressListener))) {
+                unrecognised.add(entry.getKey());
+            }
+        }
+        return unrecognised;
     }
 
 }
@@ -0,0 +1,424 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.ASCIITreePrinter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A tree model which adapts the nodes of an AST directly -- the tree node of each AST node's children is only
+ * created once they are first asked for (i.e. once the node is expanded), rather than for the whole AST up-front.
+ *
+ * Tree nodes compare by identity (unlike AST nodes, which compare by structure), thus are safe to use within the tree's
+ * paths even where several parts of the AST are alike.
+ *
+ * The AST is expected to be modified only via the event dispatch thread, with the model notified of each change
+ * (see {@link #replaceChild(AstTreeNode, Node)}). A whole new AST (e.g. from re-parsing the file) may instead be diffed
+ * against the current one (see {@link #update(Node)}), such that the tree keeps its expansion state and selection.
+ */
+public class AstTreeModel implements TreeModel {
+
+    @NotNull
+    private final EventListenerList listeners;
+
+    @NotNull
+    private final AstTreeNode root;
+
+
+    public AstTreeModel(@NotNull AstTreeNode root) {
+        this.root = root;
+        this.listeners = new EventListenerList();
+    }
+
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+        this.listeners.add(TreeModelListener.class, listener);
+    }
+
+
+    /**
+     * @return The tree node for the given AST node, or null if it has not been created (i.e. an ancestor has not been
+     *         expanded) or the AST node is not within this tree.
+     */
+    @Nullable
+    public AstTreeNode findTreeNode(@NotNull Node node) {
+        if (this.root.getNode() == node) {
+            return this.root;
+        }
+        final Optional<Node> parent = node.getParentNode();
+        if (!parent.isPresent()) {
+            return null;
+        }
+
+        final AstTreeNode parentTreeNode = this.findTreeNode(parent.get());
+        return parentTreeNode == null || parentTreeNode.children == null ? null : parentTreeNode.findChild(node);
+    }
+
+
+    /**
+     * @return True if the nodes are of the same type, and the new node's range is the old one's moved by whole lines.
+     */
+    private static boolean isShifted(@NotNull Node oldNode, @NotNull Node newNode) {
+        if (oldNode.getClass() != newNode.getClass()) {
+            return false;
+        }
+        final Range oldRange = oldNode.getRange().orElse(null);
+        final Range newRange = newNode.getRange().orElse(null);
+        if (oldRange == null || newRange == null) {
+            return oldRange == newRange;
+        }
+        return oldRange.end.line - oldRange.begin.line == newRange.end.line - newRange.begin.line
+               && oldRange.begin.column == newRange.begin.column
+               && oldRange.end.column == newRange.end.column;
+    }
+
+
+    /**
+     * @return True if the nodes are of the same type and have the same range.
+     */
+    private static boolean isUnchanged(@NotNull Node oldNode, @NotNull Node newNode) {
+        return oldNode.getClass() == newNode.getClass() && oldNode.getRange().equals(newNode.getRange());
+    }
+
+
+    private void fireTreeNodesChanged(@NotNull TreeModelEvent event) {
+        for (final TreeModelListener listener : this.listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesChanged(event);
+        }
+    }
+
+
+    private void fireTreeNodesInserted(@NotNull TreeModelEvent event) {
+        for (final TreeModelListener listener : this.listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesInserted(event);
+        }
+    }
+
+
+    private void fireTreeNodesRemoved(@NotNull TreeModelEvent event) {
+        for (final TreeModelListener listener : this.listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesRemoved(event);
+        }
+    }
+
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        return ((AstTreeNode) parent).getChildren().get(index);
+    }
+
+
+    @Override
+    public int getChildCount(Object parent) {
+        return ((AstTreeNode) parent).getChildCount();
+    }
+
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (!(parent instanceof AstTreeNode) || !(child instanceof AstTreeNode)) {
+            return -1;
+        }
+        return ((AstTreeNode) parent).getChildren().indexOf(child);
+    }
+
+
+    @NotNull
+    public TreePath getPathToRoot(@NotNull AstTreeNode treeNode) {
+        final List<AstTreeNode> path    = new ArrayList<>();
+        AstTreeNode             current = treeNode;
+        while (current != null) {
+            path.add(current);
+            current = current.parent;
+        }
+        Collections.reverse(path);
+        return new TreePath(path.toArray());
+    }
+
+
+    @Override
+    public AstTreeNode getRoot() {
+        return this.root;
+    }
+
+
+    /**
+     * Unlike {@link #findTreeNode(Node)}, the tree nodes of the ancestors' children are created where needed (e.g. to
+     * select a node which has not yet been expanded to).
+     *
+     * @return The tree node for the given AST node, or null if the AST node is not within this tree.
+     */
+    @Nullable
+    public AstTreeNode getTreeNode(@NotNull Node node) {
+        if (this.root.getNode() == node) {
+            return this.root;
+        }
+        final Optional<Node> parent = node.getParentNode();
+        if (!parent.isPresent()) {
+            return null;
+        }
+
+        final AstTreeNode parentTreeNode = this.getTreeNode(parent.get());
+        return parentTreeNode == null ? null : parentTreeNode.findChild(node);
+    }
+
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return ((AstTreeNode) node).getChildCount() == 0;
+    }
+
+
+    /**
+     * Notify the listeners that the label of the tree node (e.g. its range) may have changed.
+     */
+    public void nodeChanged(@NotNull AstTreeNode treeNode) {
+        if (treeNode.parent == null) {
+            this.fireTreeNodesChanged(new TreeModelEvent(this, this.getPathToRoot(treeNode), null, null));
+        } else {
+            final int index = treeNode.parent.getChildren().indexOf(treeNode);
+            this.fireTreeNodesChanged(new TreeModelEvent(this, this.getPathToRoot(treeNode.parent), new int[]{index}, new Object[]{treeNode}));
+        }
+    }
+
+
+    /**
+     * Point the tree node (and those of its children which have been created) at the new AST node, notifying the
+     * listeners of only the tree nodes which have been removed, inserted, or whose labels have changed.
+     *
+     * The children are matched by: the unchanged children at the start (same type and range), then those at the end
+     * which have been moved by whole lines (same type and shape of range), then those in between of the same type and
+     * position. Any remaining old children are removed, and remaining new children inserted.
+     */
+    private void reconcile(@NotNull AstTreeNode treeNode, @NotNull Node newNode) {
+        final String oldLabel = treeNode.toString();
+        treeNode.node = newNode;
+        if (!oldLabel.equals(treeNode.toString())) {
+            this.nodeChanged(treeNode);
+        }
+
+        final List<AstTreeNode> children = treeNode.children;
+        if (children == null) {
+            // Yet to be created -- they will be created from the new AST node.
+            return;
+        }
+
+        final List<Node> newChildNodes = newNode.getChildNodes();
+        final int        oldCount      = children.size();
+        final int        newCount      = newChildNodes.size();
+        final int        minCount      = Math.min(oldCount, newCount);
+
+        int prefix = 0;
+        while (prefix < minCount && isUnchanged(children.get(prefix).node, newChildNodes.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (prefix + suffix < minCount && isShifted(children.get(oldCount - 1 - suffix).node, newChildNodes.get(newCount - 1 - suffix))) {
+            suffix++;
+        }
+        int paired = 0;
+        while (prefix + suffix + paired < minCount && children.get(prefix + paired).node.getClass() == newChildNodes.get(prefix + paired).getClass()) {
+            paired++;
+        }
+
+        final TreePath parentPath  = this.getPathToRoot(treeNode);
+        final int      from        = prefix + paired;
+        final int      removeCount = oldCount - suffix - from;
+        final int      insertCount = newCount - suffix - from;
+        if (removeCount > 0) {
+            final int[]    indices = new int[removeCount];
+            final Object[] removed = new Object[removeCount];
+            for (int i = 0; i < removeCount; i++) {
+                indices[i] = from + i;
+                removed[i] = children.get(from + i);
+            }
+            children.subList(from, from + removeCount).clear();
+            this.fireTreeNodesRemoved(new TreeModelEvent(this, parentPath, indices, removed));
+        }
+        if (insertCount > 0) {
+            final int[]             indices  = new int[insertCount];
+            final List<AstTreeNode> inserted = new ArrayList<>(insertCount);
+            for (int i = 0; i < insertCount; i++) {
+                indices[i] = from + i;
+                inserted.add(new AstTreeNode(treeNode, newChildNodes.get(from + i)));
+            }
+            children.addAll(from, inserted);
+            this.fireTreeNodesInserted(new TreeModelEvent(this, parentPath, indices, inserted.toArray()));
+        }
+
+        // The matched children.
+        for (int i = 0; i < newCount; i++) {
+            if (i < from || i >= from + insertCount) {
+                this.reconcile(children.get(i), newChildNodes.get(i));
+            }
+        }
+    }
+
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+        this.listeners.remove(TreeModelListener.class, listener);
+    }
+
+
+    /**
+     * Replace the tree node of the given (now detached) child of the parent with one for the AST node now at the same
+     * position within the parent's child nodes. Nothing changes if the parent's children have not yet been created, as
+     * they will be created from the AST as it is now.
+     *
+     * @return The removed tree node, or null if there was none.
+     */
+    @Nullable
+    public AstTreeNode replaceChild(@NotNull AstTreeNode parent, @NotNull Node oldChild) {
+        if (parent.children == null) {
+            return null;
+        }
+
+        final AstTreeNode oldTreeNode = parent.findChild(oldChild);
+        if (oldTreeNode == null) {
+            return null;
+        }
+        final int index = parent.children.indexOf(oldTreeNode);
+
+        parent.children.remove(index);
+        this.fireTreeNodesRemoved(new TreeModelEvent(this, this.getPathToRoot(parent), new int[]{index}, new Object[]{oldTreeNode}));
+
+        final AstTreeNode newTreeNode = new AstTreeNode(parent, parent.node.getChildNodes().get(index));
+        parent.children.add(index, newTreeNode);
+        this.fireTreeNodesInserted(new TreeModelEvent(this, this.getPathToRoot(parent), new int[]{index}, new Object[]{newTreeNode}));
+
+        return oldTreeNode;
+    }
+
+
+    @Override
+    public String toString() {
+        return "AstTreeModel{" +
+               "root=" + this.root.getNode().getClass().getSimpleName() +
+               '}';
+    }
+
+
+    /**
+     * Diff the new AST against the current one, updating the tree nodes in place (see
+     * {@link #reconcile(AstTreeNode, Node)}) -- the tree nodes of matched AST nodes are kept, thus so are the tree's
+     * expansion state and selection.
+     *
+     * @param newRoot The root of the new AST, e.g. from re-parsing the same file.
+     */
+    public void update(@NotNull Node newRoot) {
+        this.reconcile(this.root, newRoot);
+    }
+
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // The tree is not editable.
+    }
+
+
+    /**
+     * The tree node of a single AST node.
+     */
+    public static final class AstTreeNode {
+
+        @Nullable
+        private final AstTreeNode parent;
+
+        /**
+         * Changes when the tree node is matched to a node of a new AST.
+         */
+        @NotNull
+        private Node node;
+
+        /**
+         * Null until first asked for.
+         */
+        @Nullable
+        private List<AstTreeNode> children;
+
+
+        /**
+         * @param node The root of the AST -- typically a CompilationUnit.
+         */
+        public AstTreeNode(@NotNull Node node) {
+            this(null, node);
+        }
+
+
+        private AstTreeNode(@Nullable AstTreeNode parent, @NotNull Node node) {
+            this.parent = parent;
+            this.node = node;
+        }
+
+
+        @Nullable
+        private AstTreeNode findChild(@NotNull Node child) {
+            for (final AstTreeNode treeNode : this.getChildren()) {
+                if (treeNode.node == child) {
+                    return treeNode;
+                }
+            }
+            return null;
+        }
+
+
+        private int getChildCount() {
+            // Counted without creating the children, as the tree asks whether every visible node is a leaf.
+            return this.children == null ? this.node.getChildNodes().size() : this.children.size();
+        }
+
+
+        @NotNull
+        private List<AstTreeNode> getChildren() {
+            if (this.children == null) {
+                final List<Node> childNodes = this.node.getChildNodes();
+                this.children = new ArrayList<>(childNodes.size());
+                for (final Node childNode : childNodes) {
+                    this.children.add(new AstTreeNode(this, childNode));
+                }
+            }
+            return this.children;
+        }
+
+
+        /**
+         * @return The AST node that this UI tree node contains.
+         */
+        @NotNull
+        public Node getNode() {
+            return this.node;
+        }
+
+
+        /**
+         * @return True if the tree nodes of the AST node's children have been created.
+         */
+        public boolean hasChildTreeNodes() {
+            return this.children != null;
+        }
+
+
+        /**
+         * @return A string representation/summary of the AST node that this UI tree node contains.
+         */
+        @Override
+        public String toString() {
+            return ASCIITreePrinter.CLASS_RANGE_SUMMARY_FORMAT.apply(this.node);
+        }
+
+    }
+
+}
@@ -6,6 +6,7 @@ import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.metamodel.NodeMetaModel;
 import com.github.javaparser.metamodel.PropertyMetaModel;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.ASCIITreePrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.PropertyPartitions;
 import com.intellij.ui.JBColor;
 
 import javax.swing.*;
@@ -15,8 +16,6 @@ import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledDocument;
 import java.util.List;
 
-import static java.util.stream.Collectors.toList;
-
 public class NodeDetailsTextPane extends JTextPane {
 
     private static final String EOL    = System.lineSeparator();
@@ -88,11 +87,11 @@ public class NodeDetailsTextPane extends JTextPane {
     public void logNodeToTextPane(Node selectedNode) {
 
         // Update the side panel
-        final NodeMetaModel           metaModel             = selectedNode.getMetaModel();
-        final List<PropertyMetaModel> allPropertyMetaModels = metaModel.getAllPropertyMetaModels();
-        final List<PropertyMetaModel> attributes            = allPropertyMetaModels.stream().filter(PropertyMetaModel::isAttribute).filter(PropertyMetaModel::isSingular).collect(toList());
-        final List<PropertyMetaModel> subNodes              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNode).filter(PropertyMetaModel::isSingular).collect(toList());
-        final List<PropertyMetaModel> subLists              = allPropertyMetaModels.stream().filter(PropertyMetaModel::isNodeList).collect(toList());
+        final NodeMetaModel           metaModel  = selectedNode.getMetaModel();
+        final PropertyPartitions      partitions = PropertyPartitions.of(metaModel);
+        final List<PropertyMetaModel> attributes = partitions.getAttributes();
+        final List<PropertyMetaModel> subNodes   = partitions.getSubNodes();
+        final List<PropertyMetaModel> subLists   = partitions.getSubLists();
 
 
         this.appendHeading("DETAILS ");
@@ -4,12 +4,13 @@ import com.github.javaparser.Providers;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 public class CharacterEncodingComboBox extends CustomComboBox<Charset> {
 
     public CharacterEncodingComboBox() {
         super();
-        this.setToolTipText("Which language features should be considered valid or invalid when validating the AST?");
+        this.setToolTipText("Which character encoding should be used to decode the source files on disk?");
         this.setupOptions();
     }
 
@@ -18,6 +19,16 @@ public class CharacterEncodingComboBox extends CustomComboBox<Charset> {
     protected void setupOptions() {
         // Populate
         this.addItem(new CharacterEncodingComboItem("UTF-8", Providers.UTF8));
+        this.addItem(new CharacterEncodingComboItem("UTF-16 (BOM)", StandardCharsets.UTF_16));
+        this.addItem(new CharacterEncodingComboItem("UTF-16BE", StandardCharsets.UTF_16BE));
+        this.addItem(new CharacterEncodingComboItem("UTF-16LE", StandardCharsets.UTF_16LE));
+        this.addItem(new CharacterEncodingComboItem("ISO-8859-1", StandardCharsets.ISO_8859_1));
+        this.addItem(new CharacterEncodingComboItem("US-ASCII", StandardCharsets.US_ASCII));
+
+        // Not guaranteed to be available on every platform, but commonly used for sources created on Windows.
+        if (Charset.isSupported("windows-1252")) {
+            this.addItem(new CharacterEncodingComboItem("windows-1252", Charset.forName("windows-1252")));
+        }
     }
 
 
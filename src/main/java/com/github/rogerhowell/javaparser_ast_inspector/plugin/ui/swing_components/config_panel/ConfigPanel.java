@@ -2,6 +2,7 @@ package com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_componen
 
 import com.github.javaparser.ParserConfiguration;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.logging.NotificationLogger;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.providers.ParseSource;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.FontUtil;
 import com.intellij.ui.JBIntSpinner;
 import com.intellij.ui.components.JBCheckBox;
@@ -114,6 +115,19 @@ public class ConfigPanel extends JPanel {
     }
 
 
+    /**
+     * @return Whether edits to the editor contents should be re-parsed as they are made.
+     */
+    public boolean getLiveReparse() {
+        return this.parserConfigPanel.getLiveReparse();
+    }
+
+
+    public ParseSource getParseSource() {
+        return this.parserConfigPanel.getParseSource();
+    }
+
+
     public String getSelectedExportType() {
         return this.exportConfigPanel.getSelectedExportType();
     }
@@ -133,6 +147,14 @@ public class ConfigPanel extends JPanel {
                 "------",
                 "-----"
         ));
+        output.append(newline).append(this.formatKeyValueColumns(
+                "Parse Source",
+                String.valueOf(this.getParseSource())
+        ));
+        output.append(newline).append(this.formatKeyValueColumns(
+                "Live Re-parse on Edit",
+                String.valueOf(this.getLiveReparse())
+        ));
         output.append(newline).append(this.formatKeyValueColumns(
                 "Language Level",
                 String.valueOf(config.getLanguageLevel())
@@ -260,7 +282,10 @@ public class ConfigPanel extends JPanel {
         private final JLabel                    label_CharacterEncoding;
         private final JLabel                    label_LanguageLevel;
         private final JLabel                    label_TabSize;
+        private final JLabel                    label_ParseSource;
         private final LanguageLevelComboBox     languageLevelCombobox;
+        private final JCheckBox                 liveReparseCheckbox;
+        private final ParseSourceComboBox       parseSourceCombobox;
         private final JCheckBox                 storeTokensCheckbox;
         private final JSpinner                  tabSizeSpinner;
 
@@ -278,14 +303,20 @@ public class ConfigPanel extends JPanel {
 
             this.attributeCommentsCheckbox = new JBCheckBox("Attribute Comments");
             this.storeTokensCheckbox = new JBCheckBox("Store Tokens");
+            this.liveReparseCheckbox = new JBCheckBox("Live Re-parse on Edit");
             this.tabSizeSpinner = new JBIntSpinner(0, 0, 50, 1);
 
             this.languageLevelCombobox = new LanguageLevelComboBox();
             this.characterEncodingCombobox = new CharacterEncodingComboBox();
+            this.parseSourceCombobox = new ParseSourceComboBox();
+            this.parseSourceCombobox.setSelectedByValue(ParseSource.EDITOR_BUFFER);
+            this.parseSourceCombobox.addActionListener(e -> this.updateLiveReparseEnabled());
+            this.liveReparseCheckbox.setSelected(true);
 
 
             this.attributeCommentsCheckbox.setToolTipText("When false, all comments will be orphaned.");
             this.storeTokensCheckbox.setToolTipText("");
+            this.liveReparseCheckbox.setToolTipText("After parsing the editor contents, re-parse only the edited member as changes are made.");
             this.tabSizeSpinner.setToolTipText(String.format(
                     "How many characters should a tab character be considered equal to? " +
                     "%nNote that a tab character is only a single character within a string." +
@@ -298,17 +329,21 @@ public class ConfigPanel extends JPanel {
             this.label_LanguageLevel = new JLabel("Language Level:");
             this.label_CharacterEncoding = new JLabel("Character Encoding:");
             this.label_TabSize = new JLabel("Tab Size:");
+            this.label_ParseSource = new JLabel("Parse Source:");
 
             this.label_LanguageLevel.setLabelFor(this.languageLevelCombobox);
             this.label_CharacterEncoding.setLabelFor(this.characterEncodingCombobox);
             this.label_TabSize.setLabelFor(this.tabSizeSpinner);
+            this.label_ParseSource.setLabelFor(this.parseSourceCombobox);
 
             this.setLayout(new GridBagLayout());
-            addToGrid(this, 0, this.label_LanguageLevel, this.languageLevelCombobox);
-            addToGrid(this, 1, this.label_CharacterEncoding, this.characterEncodingCombobox);
-            addToGrid(this, 2, this.label_TabSize, this.tabSizeSpinner);
-            addToGrid(this, 3, this.attributeCommentsCheckbox);
-            addToGrid(this, 4, this.storeTokensCheckbox);
+            addToGrid(this, 0, this.label_ParseSource, this.parseSourceCombobox);
+            addToGrid(this, 1, this.label_LanguageLevel, this.languageLevelCombobox);
+            addToGrid(this, 2, this.label_CharacterEncoding, this.characterEncodingCombobox);
+            addToGrid(this, 3, this.label_TabSize, this.tabSizeSpinner);
+            addToGrid(this, 4, this.attributeCommentsCheckbox);
+            addToGrid(this, 5, this.storeTokensCheckbox);
+            addToGrid(this, 6, this.liveReparseCheckbox);
 
         }
 
@@ -333,6 +368,27 @@ public class ConfigPanel extends JPanel {
         }
 
 
+        public boolean getLiveReparse() {
+            // Live re-parsing tracks the editor document, thus is not applicable when parsing the file on disk.
+            return this.liveReparseCheckbox.isSelected() && this.getParseSource() == ParseSource.EDITOR_BUFFER;
+        }
+
+
+        public void setLiveReparse(boolean liveReparse) {
+            this.liveReparseCheckbox.setSelected(liveReparse);
+        }
+
+
+        public ParseSource getParseSource() {
+            return this.parseSourceCombobox.getSelected();
+        }
+
+
+        public void setParseSource(ParseSource parseSource) {
+            this.parseSourceCombobox.setSelectedByValue(parseSource);
+        }
+
+
         public boolean getStoreTokens() {
             return this.storeTokensCheckbox.isSelected();
         }
@@ -353,6 +409,11 @@ public class ConfigPanel extends JPanel {
         }
 
 
+        private void updateLiveReparseEnabled() {
+            this.liveReparseCheckbox.setEnabled(this.getParseSource() == ParseSource.EDITOR_BUFFER);
+        }
+
+
         public void updateConfigUi(ParserConfiguration parserConfiguration) {
             notificationLogger.traceEnter();
 
@@ -5,6 +5,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public abstract class CustomComboBox<T> extends ComboBox<CustomComboBox.CustomComboItem<T>> {
@@ -33,6 +35,19 @@ public abstract class CustomComboBox<T> extends ComboBox<CustomComboBox.CustomCo
     }
 
 
+    /**
+     * @return The values of all of the options, in order.
+     */
+    @NotNull
+    public List<T> getValues() {
+        final List<T> values = new ArrayList<>(this.getItemCount());
+        for (int i = 0; i < this.getItemCount(); i++) {
+            values.add(this.getItemAt(i).getValue());
+        }
+        return values;
+    }
+
+
     public void setSelectedByValue(@NotNull T value) {
         setSelectedValue(this, value);
     }
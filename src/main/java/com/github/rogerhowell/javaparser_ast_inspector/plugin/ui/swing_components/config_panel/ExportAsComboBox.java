@@ -24,7 +24,9 @@ public class ExportAsComboBox extends CustomComboBox<String> {
         this.addItem(new ExportAsComboItem("Custom DOT Image", "Custom DOT Image"));
         this.addItem(new ExportAsComboItem("Custom JSON", "Custom JSON"));
         this.addItem(new ExportAsComboItem("Cypher", "Cypher"));
+        this.addItem(new ExportAsComboItem("Cypher (batched)", "Cypher (batched)"));
         this.addItem(new ExportAsComboItem("GraphML", "GraphML"));
+        this.addItem(new ExportAsComboItem("Columnar AST (binary)", "Columnar AST (binary)"));
     }
 
 
@@ -0,0 +1,30 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.config_panel;
+
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.providers.ParseSource;
+import org.jetbrains.annotations.NotNull;
+
+public class ParseSourceComboBox extends CustomComboBox<ParseSource> {
+
+    public ParseSourceComboBox() {
+        super();
+        this.setToolTipText("Should the editor contents (including unsaved changes) or the file on disk be parsed?");
+        this.setupOptions();
+    }
+
+
+    @Override
+    protected void setupOptions() {
+        // Populate
+        this.addItem(new ParseSourceComboItem("Editor contents", ParseSource.EDITOR_BUFFER));
+        this.addItem(new ParseSourceComboItem("File on disk", ParseSource.DISK));
+    }
+
+
+    private static class ParseSourceComboItem extends CustomComboItem<ParseSource> {
+
+        public ParseSourceComboItem(@NotNull String key, @NotNull ParseSource value) {
+            super(key, value);
+        }
+
+    }
+}
@@ -1,27 +1,53 @@
 package com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.forms;
 
-import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.utils.SourceRoot;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.incremental.IncrementalReparser;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.incremental.LiveReparseController;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.logging.NotificationLogger;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.metrics.PipelineTimings;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse.ProjectParseResult;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse.ProjectParser;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.providers.ParseSource;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.services.JavaParserService;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.config_panel.ConfigPanel;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.output_results_tabs.ParseResultsTabPane;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.output_results_tabs.ParseResultsTabPanesContainer;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.Constants;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.ParserConfigurationUtil;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.PsiUtil;
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.extensions.PluginId;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.impl.BackgroundableProcessIndicator;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.IconLoader;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 public class AstInspectorToolWindow implements Form {
 
@@ -35,14 +61,29 @@ public class AstInspectorToolWindow implements Form {
 
     private final ParserConfiguration parserConfiguration;
 
+    /**
+     * Incremented for every parse request, such that only the most recent request publishes its results to the UI.
+     */
+    private final AtomicLong parseRequestCounter = new AtomicLong();
+
     private ConfigPanel                   configPanel;
     private JButton                       gitHubButton;
     private JButton                       javaParserButton;
     private JPanel                        mainPanel;
     private JButton                       parseButton;
+    private JButton                       parseProjectButton;
     private ParseResultsTabPanesContainer parseResultsTabPanesContainer1;
     private JButton                       resetButton;
 
+    @Nullable
+    private ProgressIndicator currentParseIndicator;
+
+    @Nullable
+    private ProgressIndicator currentProjectParseIndicator;
+
+    @Nullable
+    private ProjectParseTask currentProjectParseTask;
+
 
     public AstInspectorToolWindow(@NotNull final Project project, @NotNull final ToolWindow toolWindow, @NotNull ParserConfiguration parserConfiguration) {
         this.project = project;
@@ -62,6 +103,16 @@ public class AstInspectorToolWindow implements Form {
     }
 
 
+    /**
+     * @return The version of this plugin, such that recorded timings can be compared across versions.
+     */
+    @NotNull
+    private static String pluginVersion() {
+        final IdeaPluginDescriptor plugin = PluginManagerCore.getPlugin(PluginId.getId(Constants.PLUGIN_ID));
+        return plugin == null ? "unknown" : plugin.getVersion();
+    }
+
+
     private JButton buttonWithIcon(@NotNull final String resourcePath) {
         final JButton jButton = new JButton();
 
@@ -96,12 +147,14 @@ public class AstInspectorToolWindow implements Form {
 
         // Create buttons
         this.parseButton = new JButton();
+        this.parseProjectButton = new JButton();
         this.resetButton = new JButton();
         this.gitHubButton = new JButton();
         this.javaParserButton = this.buttonWithIcon("/logos/jp-logo_13x13.png");
 
         // Add button click handlers
         this.parseButton.addActionListener(e -> this.parseButtonClickHandler());
+        this.parseProjectButton.addActionListener(e -> this.parseProjectButtonClickHandler());
         this.resetButton.addActionListener(e -> this.resetButtonClickHandler());
         this.gitHubButton.addActionListener(e -> browseToUrl(Constants.URL_GITHUB_PLUGIN));
         this.javaParserButton.addActionListener(e -> browseToUrl(Constants.URL_WEBSITE_JP));
@@ -109,33 +162,87 @@ public class AstInspectorToolWindow implements Form {
     }
 
 
-    private void parseButtonClickHandler() {
+    private void openProjectFile(@NotNull Path path) {
         notificationLogger.traceEnter(this.project);
 
-//        this.parseResultsTabPanesContainer1.
+        final VirtualFile virtualFile = LocalFileSystem.getInstance().findFileByIoFile(path.toFile());
+        final PsiFile     psiFile     = virtualFile == null ? null : PsiManager.getInstance(this.project).findFile(virtualFile);
+        if (psiFile == null) {
+            notificationLogger.warn(this.project, "Unable to find file: " + path);
+            return;
+        }
 
-        final Optional<PsiFile> currentFileInEditor = PsiUtil.getCurrentFileInEditor(this.project);
-        if (currentFileInEditor.isPresent()) {
-            final PsiFile    psiFile    = currentFileInEditor.get();
-            final JavaParser javaParser = new JavaParser(this.configPanel.getConfigFromForm());
+        // Open the file too, such that selected nodes can be highlighted within the editor.
+        FileEditorManager.getInstance(this.project).openFile(virtualFile, true);
+        this.parse(psiFile);
+    }
 
 
-            // parse result
-//            final Optional<ParseResult<CompilationUnit>> optionalParseResult = parsePsiFile_editorContents(psiFile);
-            final Optional<ParseResult<CompilationUnit>> optionalParseResult = this.parsePsiFile_diskContents(javaParser, psiFile);
+    private void parse(@NotNull PsiFile psiFile) {
+        notificationLogger.traceEnter(this.project);
 
-            if (optionalParseResult.isPresent()) {
-                final ParseResult<CompilationUnit> parseResult = optionalParseResult.get();
+        // Read everything needed from the form while still on the event dispatch thread.
+        final ParserConfiguration parserConfiguration = this.configPanel.getConfigFromForm();
+        final String              outputFormat        = this.configPanel.getSelectedExportType();
+        final boolean             includeNodeType     = this.configPanel.getOutputNodeType();
+        final Path                path                = PsiUtil.pathForPsi(psiFile);
+
+        // Take an immutable snapshot of the editor contents (this does not copy the text).
+        Document document = null;
+        if (this.configPanel.getParseSource() == ParseSource.EDITOR_BUFFER) {
+            document = PsiUtil.documentForPsi(psiFile).orElse(null);
+            if (document == null) {
+                notificationLogger.info(this.project, "No editor document found for " + psiFile.getName() + " -- parsing the file on disk instead.");
+            }
+        }
+        final DocumentSnapshot documentSnapshot = document == null ? null : new DocumentSnapshot(document, this.configPanel.getLiveReparse());
 
-                // FIXME
-                final ParseResultsTabPane pane = this.parseResultsTabPanesContainer1.addParseResultPane(this.project, psiFile, parseResult);
-                pane.handleParseResult(this.configPanel, psiFile, parseResult);
+        // A newer request supersedes any parse which is still in progress.
+        if (this.currentParseIndicator != null) {
+            this.currentParseIndicator.cancel();
+            this.currentParseIndicator = null;
+        }
+        final long requestId = this.parseRequestCounter.incrementAndGet();
+
+        // If the file is unchanged since it was last shown, restore the previous results instantly.
+        final PipelineTimings                        timings     = new PipelineTimings(psiFile.getName(), pluginVersion());
+        final VirtualFile                            virtualFile = psiFile.getVirtualFile();
+        final ParseResultsTabPanesContainer.CacheKey cacheKey;
+        if (virtualFile == null || parserConfiguration.getSymbolResolver().isPresent()) {
+            // The configuration's fingerprint does not tell symbol resolvers apart.
+            cacheKey = null;
+        } else {
+            cacheKey = new ParseResultsTabPanesContainer.CacheKey(
+                    virtualFile,
+                    documentSnapshot != null ? documentSnapshot.modificationStamp : virtualFile.getModificationStamp(),
+                    documentSnapshot != null ? ParseSource.EDITOR_BUFFER : ParseSource.DISK,
+                    ParserConfigurationUtil.fingerprint(parserConfiguration),
+                    outputFormat,
+                    includeNodeType
+            );
+
+            final Optional<ParseResultsTabPanesContainer.CachedParse> cachedParse = timings.time("Memory cache lookup", () -> this.parseResultsTabPanesContainer1.getCachedParse(cacheKey));
+            if (cachedParse.isPresent()) {
+                notificationLogger.debug(this.project, "Restoring cached parse result for file: " + psiFile);
+                this.showParseResult(psiFile, documentSnapshot, parserConfiguration, cachedParse.get().getParseResult(), cachedParse.get().getPreparedOutput(), timings);
+                return;
+            }
+        }
 
-                this.parseResultsTabPanesContainer1.setSelectedComponent(pane);
+        final ParseTask         parseTask = new ParseTask(requestId, psiFile, path, documentSnapshot, cacheKey, parserConfiguration, outputFormat, includeNodeType, timings);
+        final ProgressIndicator indicator = new BackgroundableProcessIndicator(parseTask);
+        this.currentParseIndicator = indicator;
 
-            } else {
-                notificationLogger.warn(this.project, "No parse result available for file: " + psiFile);
-            }
+        ProgressManager.getInstance().runProcessWithProgressAsynchronously(parseTask, indicator);
+    }
+
+
+    private void parseButtonClickHandler() {
+        notificationLogger.traceEnter(this.project);
+
+        final Optional<PsiFile> currentFileInEditor = PsiUtil.getCurrentFileInEditor(this.project);
+        if (currentFileInEditor.isPresent()) {
+            this.parse(currentFileInEditor.get());
         } else {
             notificationLogger.warn(this.project, "No file selected in editor.");
         }
@@ -143,12 +250,40 @@ public class AstInspectorToolWindow implements Form {
     }
 
 
-    private Optional<ParseResult<CompilationUnit>> parsePsiFile_diskContents(JavaParser javaParser, PsiFile psiFile) {
+    private void parseProjectButtonClickHandler() {
+        notificationLogger.traceEnter(this.project);
+
+        final VirtualFile[] contentSourceRoots = ProjectRootManager.getInstance(this.project).getContentSourceRoots();
+        if (contentSourceRoots.length == 0) {
+            notificationLogger.warn(this.project, "No source roots found within the project.");
+            return;
+        }
+
+        final List<Path> sourceRoots = JavaParserService.getInstance(this.project)
+                                                        .vFilesToSourceRoots(contentSourceRoots).stream()
+                                                        .map(SourceRoot::getRoot)
+                                                        .collect(Collectors.toList());
+
+        // A newer request supersedes any project parse which is still in progress.
+        if (this.currentProjectParseIndicator != null) {
+            this.currentProjectParseIndicator.cancel();
+        }
+
+        final ProjectParseTask  parseTask = new ProjectParseTask(sourceRoots, this.configPanel.getConfigFromForm());
+        final ProgressIndicator indicator = new BackgroundableProcessIndicator(parseTask);
+        this.currentProjectParseIndicator = indicator;
+        this.currentProjectParseTask = parseTask;
+
+        ProgressManager.getInstance().runProcessWithProgressAsynchronously(parseTask, indicator);
+    }
+
+
+    private Optional<ParseResult<CompilationUnit>> parsePsiFile_diskContents(ParserConfiguration parserConfiguration, Path path) {
         notificationLogger.traceEnter(this.project);
         try {
-            final Path                         path   = PsiUtil.pathForPsi(psiFile);
-            final ParseResult<CompilationUnit> result = javaParser.parse(path);
-            return Optional.of(result);
+            final ParseResult<CompilationUnit> parseResult = JavaParserService.getInstance(this.project).parse(parserConfiguration, path);
+            parseResult.getResult().ifPresent(cu -> cu.setStorage(path, parserConfiguration.getCharacterEncoding()));
+            return Optional.of(parseResult);
         } catch (IOException e) {
             notificationLogger.warn(this.project, "Error trying to parse file.", e);
             e.printStackTrace();
@@ -157,10 +292,263 @@ public class AstInspectorToolWindow implements Form {
     }
 
 
+    private Optional<ParseResult<CompilationUnit>> parsePsiFile_editorContents(ParserConfiguration parserConfiguration, CharSequence documentText, Path path) {
+        notificationLogger.traceEnter(this.project);
+        final ParseResult<CompilationUnit> result = JavaParserService.getInstance(this.project).parse(parserConfiguration, documentText);
+
+        // Record where the code came from, as would have been done when parsing the file on disk.
+        result.getResult().ifPresent(cu -> cu.setStorage(path, parserConfiguration.getCharacterEncoding()));
+
+        return Optional.of(result);
+    }
+
+
     private void resetButtonClickHandler() {
         notificationLogger.traceEnter(this.project);
+
+        // Any parse which is still in progress would otherwise repopulate the panes after the reset.
+        this.parseRequestCounter.incrementAndGet();
+        if (this.currentParseIndicator != null) {
+            this.currentParseIndicator.cancel();
+        }
+        if (this.currentProjectParseIndicator != null) {
+            this.currentProjectParseIndicator.cancel();
+            this.currentProjectParseIndicator = null;
+        }
+        this.currentProjectParseTask = null;
+
         this.parseResultsTabPanesContainer1.doReset(this.project);
     }
 
 
+    private void showParseResult(@NotNull PsiFile psiFile, @Nullable DocumentSnapshot documentSnapshot, @NotNull ParserConfiguration parserConfiguration,
+                                 @NotNull ParseResult<CompilationUnit> parseResult, @NotNull ParseResultsTabPane.PreparedOutput preparedOutput, @NotNull PipelineTimings timings) {
+        final ParseResultsTabPanesContainer container = this.parseResultsTabPanesContainer1;
+        final ParseResultsTabPane           pane      = container.addParseResultPane(this.project, psiFile, parseResult);
+        pane.handleParseResult(this.configPanel, psiFile, parseResult, preparedOutput, timings);
+        container.getTimingsHistory().add(timings);
+        pane.appendToLog(String.format("%n%nAST cache: %s", JavaParserService.getInstance(this.project).getAstCache().getStatisticsSummary()));
+        pane.appendToLog(String.format("%nParse result cache: %s", container.getParseCache().getStatisticsSummary()));
+
+        container.setSelectedComponent(pane);
+
+        if (documentSnapshot != null && documentSnapshot.liveReparse && parseResult.getResult().isPresent()) {
+            this.startLiveReparse(pane, psiFile, documentSnapshot, parserConfiguration, parseResult.getResult().get());
+        }
+    }
+
+
+    private void startLiveReparse(@NotNull ParseResultsTabPane pane, @NotNull PsiFile psiFile, @NotNull DocumentSnapshot documentSnapshot,
+                                  @NotNull ParserConfiguration parserConfiguration, @NotNull CompilationUnit compilationUnit) {
+        final LiveReparseController.Listener listener = new LiveReparseController.Listener() {
+            @Override
+            public void onFullReparseRequired() {
+                if (psiFile.isValid()) {
+                    AstInspectorToolWindow.this.parse(psiFile);
+                }
+            }
+
+
+            @Override
+            public void onSplice(@NotNull IncrementalReparser.Splice splice) {
+                // The cached results for this file share the syntax tree which is about to be modified.
+                final VirtualFile virtualFile = psiFile.getVirtualFile();
+                if (virtualFile != null) {
+                    AstInspectorToolWindow.this.parseResultsTabPanesContainer1.invalidateCachedParses(virtualFile);
+                }
+                pane.applySplice(splice);
+            }
+        };
+
+        final LiveReparseController controller = new LiveReparseController(
+                this.project, documentSnapshot.document, parserConfiguration, compilationUnit,
+                documentSnapshot.text, documentSnapshot.modificationStamp, listener
+        );
+        Disposer.register(pane, controller);
+    }
+
+
+    /**
+     * The editor contents at the time that a parse was requested.
+     */
+    private static final class DocumentSnapshot {
+
+        @NotNull
+        private final Document document;
+
+        private final boolean liveReparse;
+        private final long    modificationStamp;
+
+        @NotNull
+        private final CharSequence text;
+
+
+        /**
+         * Must be called on the event dispatch thread (or within a read action).
+         */
+        DocumentSnapshot(@NotNull Document document, boolean liveReparse) {
+            this.document = document;
+            this.liveReparse = liveReparse;
+            this.modificationStamp = document.getModificationStamp();
+            this.text = document.getImmutableCharSequence();
+        }
+
+    }
+
+    /**
+     * Parses every file within the project's source roots, then shows the aggregate results.
+     * The results are only published if the parse has not been cancelled or superseded.
+     */
+    private class ProjectParseTask extends Task.Backgroundable {
+
+        private final ParserConfiguration parserConfiguration;
+        private final List<Path>          sourceRoots;
+
+        @Nullable
+        private ProjectParseResult projectParseResult;
+
+
+        ProjectParseTask(@NotNull List<Path> sourceRoots, @NotNull ParserConfiguration parserConfiguration) {
+            super(AstInspectorToolWindow.this.project, "Parsing project", true);
+            this.sourceRoots = sourceRoots;
+            this.parserConfiguration = parserConfiguration;
+        }
+
+
+        private boolean isSuperseded() {
+            return AstInspectorToolWindow.this.currentProjectParseTask != this;
+        }
+
+
+        @Override
+        public void onSuccess() {
+            if (this.isSuperseded() || this.projectParseResult == null) {
+                return;
+            }
+
+            AstInspectorToolWindow.this.currentProjectParseIndicator = null;
+            AstInspectorToolWindow.this.currentProjectParseTask = null;
+
+            final ProjectParseResult result = this.projectParseResult;
+            notificationLogger.info(AstInspectorToolWindow.this.project, String.format(
+                    "Parsed %d files (%d with failures, %d problems) in %.1fs.%nAST cache: %s",
+                    result.getFiles().size(), result.getFailedFileCount(), result.getProblemCount(), result.getWallTimeNanos() / 1_000_000_000.0,
+                    JavaParserService.getInstance(AstInspectorToolWindow.this.project).getAstCache().getStatisticsSummary()
+            ));
+            AstInspectorToolWindow.this.parseResultsTabPanesContainer1.addProjectParseResultsPane(AstInspectorToolWindow.this.project, result, AstInspectorToolWindow.this::openProjectFile);
+        }
+
+
+        @Override
+        public void run(@NotNull ProgressIndicator indicator) {
+            notificationLogger.traceEnter(AstInspectorToolWindow.this.project);
+            this.projectParseResult = ProjectParser.parse(AstInspectorToolWindow.this.project, this.sourceRoots, this.parserConfiguration, indicator);
+            indicator.checkCanceled();
+        }
+
+    }
+
+    /**
+     * Parses the file, then prepares the export text and tree nodes, all in the background.
+     * The results are only published to the UI (on the event dispatch thread) if this is still the most recent request.
+     */
+    private class ParseTask extends Task.Backgroundable {
+
+        @Nullable
+        private final ParseResultsTabPanesContainer.CacheKey cacheKey;
+
+        @Nullable
+        private final DocumentSnapshot    documentSnapshot;
+        private final boolean             includeNodeType;
+        private final String              outputFormat;
+        private final ParserConfiguration parserConfiguration;
+        private final Path                path;
+        private final PsiFile             psiFile;
+        private final long                requestId;
+
+        @NotNull
+        private final PipelineTimings timings;
+
+        @Nullable
+        private ParseResult<CompilationUnit> parseResult;
+
+        @Nullable
+        private ParseResultsTabPane.PreparedOutput preparedOutput;
+
+
+        /**
+         * @param documentSnapshot The editor contents to be parsed, or null if the file on disk should be parsed instead.
+         * @param cacheKey         The key under which to cache the results, or null if they should not be cached.
+         * @param timings          Records the time taken by each phase, from the parse through to displaying the results.
+         */
+        ParseTask(long requestId, @NotNull PsiFile psiFile, @NotNull Path path, @Nullable DocumentSnapshot documentSnapshot, @Nullable ParseResultsTabPanesContainer.CacheKey cacheKey,
+                  @NotNull ParserConfiguration parserConfiguration, String outputFormat, boolean includeNodeType, @NotNull PipelineTimings timings) {
+            super(AstInspectorToolWindow.this.project, "Parsing " + psiFile.getName(), true);
+            this.requestId = requestId;
+            this.psiFile = psiFile;
+            this.path = path;
+            this.documentSnapshot = documentSnapshot;
+            this.cacheKey = cacheKey;
+            this.parserConfiguration = parserConfiguration;
+            this.outputFormat = outputFormat;
+            this.includeNodeType = includeNodeType;
+            this.timings = timings;
+        }
+
+
+        private boolean isSuperseded() {
+            return this.requestId != AstInspectorToolWindow.this.parseRequestCounter.get();
+        }
+
+
+        @Override
+        public void onFinished() {
+            if (!this.isSuperseded()) {
+                AstInspectorToolWindow.this.currentParseIndicator = null;
+            }
+        }
+
+
+        @Override
+        public void onSuccess() {
+            if (this.isSuperseded()) {
+                notificationLogger.debug(AstInspectorToolWindow.this.project, "Discarding superseded parse result for file: " + this.psiFile);
+                return;
+            }
+
+            if (this.parseResult != null && this.preparedOutput != null) {
+                AstInspectorToolWindow.this.showParseResult(this.psiFile, this.documentSnapshot, this.parserConfiguration, this.parseResult, this.preparedOutput, this.timings);
+            } else {
+                notificationLogger.warn(AstInspectorToolWindow.this.project, "No parse result available for file: " + this.psiFile);
+            }
+        }
+
+
+        @Override
+        public void run(@NotNull ProgressIndicator indicator) {
+            notificationLogger.traceEnter(AstInspectorToolWindow.this.project);
+
+            indicator.setText("Parsing " + this.psiFile.getName());
+            final Optional<ParseResult<CompilationUnit>> optionalParseResult;
+            if (this.documentSnapshot != null) {
+                optionalParseResult = this.timings.time("Parse (editor buffer)", () -> AstInspectorToolWindow.this.parsePsiFile_editorContents(this.parserConfiguration, this.documentSnapshot.text, this.path));
+            } else {
+                optionalParseResult = this.timings.time("Parse (disk)", () -> AstInspectorToolWindow.this.parsePsiFile_diskContents(this.parserConfiguration, this.path));
+            }
+            indicator.checkCanceled();
+
+            if (optionalParseResult.isPresent()) {
+                this.parseResult = optionalParseResult.get();
+
+                indicator.setText("Preparing output for " + this.psiFile.getName());
+                this.preparedOutput = ParseResultsTabPane.prepareOutput(AstInspectorToolWindow.this.project, this.parseResult, this.outputFormat, this.includeNodeType, this.timings);
+
+                if (this.cacheKey != null) {
+                    AstInspectorToolWindow.this.parseResultsTabPanesContainer1.cacheParse(this.cacheKey, this.parseResult, this.preparedOutput);
+                }
+            }
+        }
+
+    }
+
 }
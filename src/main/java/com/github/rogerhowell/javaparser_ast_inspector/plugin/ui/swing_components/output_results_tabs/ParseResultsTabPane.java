@@ -3,6 +3,7 @@ package com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_componen
 import com.github.javaparser.GeneratedJavaParserConstants;
 import com.github.javaparser.JavaToken;
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.Position;
 import com.github.javaparser.Problem;
 import com.github.javaparser.Range;
 import com.github.javaparser.TokenRange;
@@ -12,51 +13,108 @@ import com.github.javaparser.ast.comments.Comment;
 import com.github.javaparser.ast.expr.LiteralExpr;
 import com.github.javaparser.ast.expr.Name;
 import com.github.javaparser.ast.expr.SimpleName;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.columnar.ColumnarAst;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.incremental.IncrementalReparser;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.logging.NotificationLogger;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.metrics.PipelineTimings;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.metrics.PipelineTimingsHistory;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.ASCIITreePrinter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.printers.Neo4jImportBundleWriter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.search.NodeQuery;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.search.NodeQueryIndex;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.search.NodeSearchIndex;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.services.HighlightingService;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.services.PrinterService;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.AstTreeModel;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.NodeDetailsTextPane;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.config_panel.ConfigPanel;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.config_panel.ExportAsComboBox;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.CappedAppendable;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.EditorUtil;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.NodeRangeIndex;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.StringUtil;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.event.CaretEvent;
+import com.intellij.openapi.editor.event.CaretListener;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogBuilder;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
 import com.intellij.psi.PsiFile;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.JBColor;
-import com.intellij.ui.TreeSpeedSearch;
+import com.intellij.ui.components.JBList;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.components.JBTabbedPane;
 import com.intellij.ui.components.JBTextArea;
+import com.intellij.ui.components.JBTextField;
 import com.intellij.ui.treeStructure.Tree;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.github.rogerhowell.javaparser_ast_inspector.plugin.util.StringUtil.padEnd;
 
-public class ParseResultsTabPane extends JPanel {
+public class ParseResultsTabPane extends JPanel implements Disposable {
 
     private static final NotificationLogger notificationLogger = new NotificationLogger(ParseResultsTabPane.class);
 
     private static final String NEWLINE = String.format("%n");
 
+    /**
+     * The maximum length of the export text shown within the export panel.
+     */
+    public static final int EXPORT_PREVIEW_MAX_CHARS = Integer.getInteger("javaparser.astInspector.exportPreview.maxCharacters", 512 * 1024);
+
+    private static final String TOKENS_MESSAGE_NO_RESULT      = "Parse result not present -- unable to present tokens.";
+    private static final String TOKENS_MESSAGE_NO_TOKEN_RANGE = "Parse result found, but no token range present -- unable to present tokens.";
+
     private static int selectedInnerTab = 0; // TODO: Can this be done without a static field? A plugin service maybe?
 
     private final PanelExport      panel_export;
     private final PanelInpsect     panel_inspect;
     private final PanelLog         panel_log;
     private final PanelParseResult panel_parseResults;
+    private final PanelQuery       panel_query;
     private final PanelTokens      panel_tokens;
 
     @NotNull
@@ -71,8 +129,19 @@ public class ParseResultsTabPane extends JPanel {
     @NotNull
     private final JBTabbedPane tabbedPane;
 
+    /**
+     * Set when the tokens have changed (e.g. due to a live re-parse) but the tokens text has not yet been rebuilt.
+     */
+    private boolean tokensTextStale = false;
+
 
-    public ParseResultsTabPane(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull ParseResult<CompilationUnit> parseResult) {
+    /**
+     * @param timingsHistory The timings of recent parses, which may be exported from the log panel.
+     * @param previousPane   The pane of the previous parse of the same file (if any), whose Inspect panel is taken over
+     *                       -- such that the tree is updated with only what has changed, rather than rebuilt.
+     */
+    public ParseResultsTabPane(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull ParseResult<CompilationUnit> parseResult, @NotNull PipelineTimingsHistory timingsHistory,
+                               @Nullable ParseResultsTabPane previousPane) {
         super();
         notificationLogger.traceEnter(project);
 
@@ -82,16 +151,27 @@ public class ParseResultsTabPane extends JPanel {
         this.parseResult = parseResult;
 
         // Panes
-        this.panel_inspect = new PanelInpsect(this.project, this.psiFile, this.parseResult);
+        if (previousPane != null) {
+            this.panel_inspect = previousPane.panel_inspect;
+            this.panel_inspect.setParseResult(this.psiFile, this.parseResult);
+        } else {
+            this.panel_inspect = new PanelInpsect(this.project, this.psiFile, this.parseResult);
+        }
         this.panel_export = new PanelExport(this.project, this.psiFile, this.parseResult);
-        this.panel_log = new PanelLog(this.project, this.psiFile, this.parseResult);
+        this.panel_log = new PanelLog(this.project, this.psiFile, this.parseResult, timingsHistory);
         this.panel_parseResults = new PanelParseResult(this.project, this.psiFile, this.parseResult);
+        this.panel_query = new PanelQuery(this.project, this.psiFile, this.parseResult);
         this.panel_tokens = new PanelTokens(this.project, this.psiFile, this.parseResult);
+        if (previousPane != null) {
+            // Ready to be run again against the new AST.
+            this.panel_query.setQueryText(previousPane.panel_query.getQueryText());
+        }
 
         // Create pane container
         this.tabbedPane = new JBTabbedPane();
         this.tabbedPane.setTabPlacement(SwingConstants.LEFT);
         this.tabbedPane.add("Inspect", this.panel_inspect);
+        this.tabbedPane.add("Query", this.panel_query);
         this.tabbedPane.add("Export", this.panel_export);
         this.tabbedPane.add("Log", this.panel_log);
         this.tabbedPane.add("Parse Result", this.panel_parseResults);
@@ -103,26 +183,274 @@ public class ParseResultsTabPane extends JPanel {
             if (selectedInnerTab != selectedIndex) {
                 selectedInnerTab = selectedIndex;
             }
+            this.refreshStaleTokensText();
         });
 
+        // Select the node at the caret as it moves within the editor of this file -- until this pane is disposed of.
+        EditorFactory.getInstance().getEventMulticaster().addCaretListener(new CaretListener() {
+            @Override
+            public void caretPositionChanged(@NotNull CaretEvent event) {
+                ParseResultsTabPane.this.caretPositionChanged(event);
+            }
+        }, this);
+
         //
         this.setLayout(new GridLayout(0, 1));
         this.add(this.tabbedPane);
     }
 
 
+    /**
+     * Produce the start of the export text, up to {@link #EXPORT_PREVIEW_MAX_CHARS} characters -- showing the whole of a
+     * large export (e.g. the GraphML of a large file) in a text area would stall the UI. The whole export can instead
+     * be written to a file.
+     *
+     * @return The preview, or null if the output format is not recognised.
+     */
+    @Nullable
+    private static String buildExportPreview(@NotNull Project project, @NotNull CompilationUnit compilationUnit, String outputFormat, boolean includeNodeType) {
+        final CappedAppendable preview = new CappedAppendable(EXPORT_PREVIEW_MAX_CHARS);
+        try {
+            if (!PrinterService.getInstance(project).outputAs(outputFormat, compilationUnit, includeNodeType, preview)) {
+                return null;
+            }
+        } catch (CappedAppendable.LimitReachedException e) {
+            // Expected for large exports -- the preview is complete.
+        } catch (IOException e) {
+            // Not expected -- only a LimitReachedException is thrown by CappedAppendable.
+            throw new UncheckedIOException(e);
+        }
+
+        if (preview.isTruncated()) {
+            return preview.getText() + NEWLINE + NEWLINE
+                   + "[Preview truncated to the first " + preview.getMaxChars() + " characters -- use \"Export to File...\" for the full output.]";
+        }
+        return preview.getText();
+    }
+
+
+    private static String buildParseResultText(final ParseResult<? extends Node> parseResult) {
+        String output = "";
+
+        //
+        output += NEWLINE + "== PARSE RESULT SUMMARY ==";
+        output += NEWLINE + " - Is successful: " + parseResult.isSuccessful();
+        output += NEWLINE + " - Problem count: " + parseResult.getProblems().size();
+        if (!parseResult.getProblems().isEmpty()) {
+            StringBuilder message = new StringBuilder();
+            message.append(NEWLINE)
+                   .append(" - Found ").append(parseResult.getProblems().size()).append(" problems found when parsing: ");
+            final List<Problem> problems = parseResult.getProblems();
+            for (int i = 0; i < problems.size(); i++) {
+                final Problem problem = problems.get(i);
+                message.append(NEWLINE)
+                       .append("\t").append("Problem #").append(i).append(": ").append(problem.getMessage());
+            }
+
+            output += message.toString();
+        }
+
+        //
+        output += NEWLINE + NEWLINE;
+        output += NEWLINE + "== PARSE RESULT DETAILS ==";
+        output += NEWLINE + " - Parse result present: " + parseResult.getResult().isPresent();
+        if (parseResult.getResult().isPresent()) {
+            final Node node = parseResult.getResult().get();
+            output += NEWLINE + " - Parse result type: " + node.getClass().getSimpleName();
+            output += NEWLINE + " - Node summary: " + ASCIITreePrinter.CLASS_RANGE_SUMMARY_FORMAT.apply(node);
+        } else {
+            output += NEWLINE + " - Parse result not found -- parse catastrophically failed, perhaps?";
+        }
+
+        //
+        output += NEWLINE + NEWLINE;
+        output += NEWLINE + "== STORAGE ==";
+        if (parseResult.getResult().isPresent()) {
+            final Node                      node  = parseResult.getResult().get();
+            final Optional<CompilationUnit> optCu = node.findCompilationUnit();
+            if (optCu.isPresent()) {
+                final CompilationUnit                   cu              = optCu.get();
+                final Optional<CompilationUnit.Storage> optionalStorage = cu.getStorage();
+                if (optionalStorage.isPresent()) {
+                    final CompilationUnit.Storage storage = optionalStorage.get();
+                    output += NEWLINE + " - Filename: " + storage.getFileName();
+                    output += NEWLINE + " - Path: " + storage.getPath();
+                    output += NEWLINE + " - Encoding: " + storage.getEncoding();
+                    output += NEWLINE + " - Source Root: " + storage.getSourceRoot();
+                } else {
+                    output += NEWLINE + " - No storage found -- parsed from a string fragment, perhaps?";
+                }
+            } else {
+                output += NEWLINE + " - No compilation unit found -- parsed from a string fragment, perhaps?";
+            }
+        } else {
+            output += NEWLINE + " - No result found -- parse failed, perhaps?";
+        }
+
+        return output;
+    }
+
+
+    private static String buildTokensText(final ParseResult<? extends Node> parseResult) {
+        StringBuilder output = new StringBuilder();
+
+        if (parseResult.getResult().isPresent()) {
+            final Node node = parseResult.getResult().get();
+            if (node.getTokenRange().isPresent()) {
+                final TokenRange tokenRange = node.getTokenRange().get();
+
+                output.append(NEWLINE)
+                      .append(padEnd("Token #", 15))
+                      .append(padEnd("Token Category", 20))
+                      .append(padEnd("Type (number)", 15))
+                      .append(padEnd("Type (description)", 20))
+                      .append(padEnd("Range", 35))
+                      .append(padEnd("Text", 30));
+                output.append(NEWLINE)
+                      .append(padEnd("-------", 15))
+                      .append(padEnd("--------------", 20))
+                      .append(padEnd("-------------", 15))
+                      .append(padEnd("------------------", 20))
+                      .append(padEnd("-----", 35))
+                      .append(padEnd("----", 30));
+
+                int tokenIndex = 0;
+
+                JavaToken currentToken = tokenRange.getBegin();
+                while (currentToken.getNextToken().isPresent()) {
+                    if (tokenIndex % 1000 == 0) {
+                        ProgressManager.checkCanceled();
+                    }
+
+                    String text = StringUtil.escapeWhitespace(currentToken.getText());
+
+                    output.append(NEWLINE)
+                          .append(padEnd("Token #" + tokenIndex + ": ", 15))
+                          .append(padEnd(currentToken.getCategory().toString(), 20))
+                          .append(padEnd("<" + currentToken.getKind() + ">", 15))
+                          .append(padEnd(GeneratedJavaParserConstants.tokenImage[currentToken.getKind()], 20))
+                          .append(padEnd(currentToken.getRange().map(Range::toString).orElse("(?)-(?)"), 35))
+                          .append(padEnd(text, 30));
+
+                    tokenIndex++;
+                    currentToken = currentToken.getNextToken().get();
+                }
+            } else {
+                output.append(NEWLINE)
+                      .append(TOKENS_MESSAGE_NO_TOKEN_RANGE);
+            }
+        } else {
+            output.append(NEWLINE)
+                  .append(TOKENS_MESSAGE_NO_RESULT);
+        }
+
+        return NEWLINE + output.toString();
+    }
+
+
+    /**
+     * Produce the output which is expensive to calculate (the export text, the token table, the search index).
+     *
+     * This does not touch any Swing components, thus is intended to be called from a background thread.
+     * It periodically checks whether the current progress indicator has been cancelled.
+     *
+     * @param timings Records the time taken by each part of the output.
+     */
+    @NotNull
+    public static PreparedOutput prepareOutput(@NotNull Project project, @NotNull ParseResult<CompilationUnit> parseResult, String outputFormat, boolean includeNodeType,
+                                               @NotNull PipelineTimings timings) {
+        notificationLogger.traceEnter(project);
+
+        final Optional<CompilationUnit> optionalCu = parseResult.getResult();
+
+        // Tokens
+        final String tokensText = timings.time("Build tokens text", () -> buildTokensText(parseResult));
+        ProgressManager.checkCanceled();
+
+        // Parse result summary
+        final String parseResultText = timings.time("Build parse result text", () -> buildParseResultText(parseResult));
+        ProgressManager.checkCanceled();
+
+        // Export
+        final String exportText = timings.time("Export (" + outputFormat + ")", () -> optionalCu.map(cu -> buildExportPreview(project, cu, outputFormat, includeNodeType)).orElse(null));
+        ProgressManager.checkCanceled();
+
+        // Search index
+        final NodeSearchIndex searchIndex = timings.time("Build search index", () -> optionalCu.map(NodeSearchIndex::of).orElse(null));
+        ProgressManager.checkCanceled();
+
+        return new PreparedOutput(tokensText, parseResultText, exportText, searchIndex);
+    }
+
+
     public void appendToLog(String text) {
         this.panel_log.appendToLog(text);
     }
 
 
+    /**
+     * Update the panels to reflect a subtree which has been spliced into the compilation unit by a live re-parse.
+     * Only the affected part of the tree is replaced.
+     *
+     * Must be called on the event dispatch thread.
+     */
+    public void applySplice(@NotNull IncrementalReparser.Splice splice) {
+        notificationLogger.traceEnter(this.project);
+
+        this.panel_inspect.replaceSubtree(splice.getOldNode(), splice.getNewNode());
+        this.panel_parseResults.setOutputText(buildParseResultText(this.parseResult));
+        this.panel_query.clearIndex();
+
+        // The token table covers the whole file, so is only rebuilt once it is looked at.
+        this.tokensTextStale = true;
+        this.refreshStaleTokensText();
+
+        this.appendToLog(NEWLINE + "Live re-parse: " + ASCIITreePrinter.CLASS_RANGE_SUMMARY_FORMAT.apply(splice.getNewNode()));
+    }
+
+
+    private void caretPositionChanged(@NotNull CaretEvent event) {
+        final Editor editor = event.getEditor();
+        if (!this.isShowing() || editor.getProject() != this.project) {
+            return;
+        }
+        final VirtualFile virtualFile = FileDocumentManager.getInstance().getFile(editor.getDocument());
+        if (virtualFile == null || !virtualFile.equals(this.psiFile.getVirtualFile())) {
+            return;
+        }
+
+        this.panel_inspect.selectNodeAt(EditorUtil.intellijLogicalPositionToJavaParserPosition(event.getNewPosition()));
+    }
+
+
+    @Override
+    public void dispose() {
+        notificationLogger.traceEnter(this.project);
+        // Any live re-parse controller is registered as a child of this pane, thus is disposed of alongside it.
+    }
+
+
     public String getPaneTitle() {
         notificationLogger.traceEnter(this.project);
         return this.psiFile.getName();
     }
 
 
-    public void handleParseResult(ConfigPanel configPanel, final PsiFile psiFile, ParseResult<CompilationUnit> parseResult) {
+    @NotNull
+    public PsiFile getPsiFile() {
+        return this.psiFile;
+    }
+
+
+    /**
+     * Display the given parse result, using output that has already been prepared via
+     * {@link #prepareOutput(Project, ParseResult, String, boolean, PipelineTimings)}.
+     * The time taken to update each panel is added to the given timings, then the timings are shown in the log.
+     *
+     * Must be called on the event dispatch thread.
+     */
+    public void handleParseResult(ConfigPanel configPanel, final PsiFile psiFile, ParseResult<CompilationUnit> parseResult, @NotNull PreparedOutput preparedOutput,
+                                  @NotNull PipelineTimings timings) {
         notificationLogger.traceEnter(this.project);
 
         this.appendToLog(NEWLINE + "Handling parse result.");
@@ -177,32 +505,47 @@ public class ParseResultsTabPane extends JPanel {
 
 
         // Update panels
-        this.updateInspectPanel(configPanel);
-        this.updateExportPanel(configPanel);
+        timings.time("Update inspect panel", () -> this.updateInspectPanel(configPanel, preparedOutput));
+        timings.time("Update export panel", () -> this.updateExportPanel(configPanel, preparedOutput));
         this.updateLogPanel(configPanel);
-        this.updateParseResultPanel(configPanel);
-        this.updateTokensPanel(configPanel);
+        timings.time("Update parse result panel", () -> this.updateParseResultPanel(configPanel, preparedOutput));
+        timings.time("Update tokens panel", () -> this.updateTokensPanel(configPanel, preparedOutput));
+
+        this.appendToLog(NEWLINE);
+        this.appendToLog(NEWLINE + timings.formatBreakdown());
     }
 
 
-    private void updateExportPanel(ConfigPanel configPanel) {
+    private void refreshStaleTokensText() {
+        if (this.tokensTextStale && this.tabbedPane.getSelectedComponent() == this.panel_tokens) {
+            this.tokensTextStale = false;
+            this.panel_tokens.setTokensText(buildTokensText(this.parseResult));
+        }
+    }
+
+
+    private void updateExportPanel(ConfigPanel configPanel, PreparedOutput preparedOutput) {
         notificationLogger.traceEnter(this.project);
 
-        String  outputFormat    = configPanel.getSelectedExportType(); // FIXME: Take this into account
-        boolean includeNodeType = configPanel.getOutputNodeType();
+        String outputFormat = configPanel.getSelectedExportType();
+        this.panel_export.setExportSettings(outputFormat, configPanel.getOutputNodeType());
+
+        if (preparedOutput.getExportText() != null) {
+            // If custom dot image, do the image in addition to the textual dot string
+            if ("Custom DOT Image".equals(outputFormat)) {
+//            this.outputCustomDotImage(this.project.getBasePath());
+                notificationLogger.warn(this.project, "Custom DOT Image is temporarily unavailable -- see the export text for the raw DOT text output.");
+            }
 
-        final Optional<CompilationUnit> optionalCu = this.parseResult.getResult();
-        if (optionalCu.isPresent()) {
-            CompilationUnit compilationUnit = optionalCu.get();
-            this.panel_export.updateExport(outputFormat, compilationUnit, includeNodeType);
+            this.panel_export.setExportText(preparedOutput.getExportText());
         } else {
             notificationLogger.warn(this.project, "Compilation Unit not found.");
         }
     }
 
 
-    private void updateInspectPanel(ConfigPanel configPanel) {
-        this.updateTree();
+    private void updateInspectPanel(ConfigPanel configPanel, PreparedOutput preparedOutput) {
+        this.updateTree(preparedOutput);
     }
 
 
@@ -211,23 +554,26 @@ public class ParseResultsTabPane extends JPanel {
     }
 
 
-    private void updateParseResultPanel(final ConfigPanel configPanel) {
-        this.panel_parseResults.updateOutput(this.parseResult);
+    private void updateParseResultPanel(final ConfigPanel configPanel, PreparedOutput preparedOutput) {
+        this.panel_parseResults.setOutputText(preparedOutput.getParseResultText());
     }
 
 
-    private void updateTokensPanel(final ConfigPanel configPanel) {
-        // TODO
+    private void updateTokensPanel(final ConfigPanel configPanel, PreparedOutput preparedOutput) {
+        final String tokensText = preparedOutput.getTokensText();
+        if (tokensText.endsWith(TOKENS_MESSAGE_NO_TOKEN_RANGE) || tokensText.endsWith(TOKENS_MESSAGE_NO_RESULT)) {
+            this.appendToLog(NEWLINE + tokensText.trim());
+        }
+
+        this.panel_tokens.setTokensText(tokensText);
     }
 
 
-    private void updateTree() {
+    private void updateTree(PreparedOutput preparedOutput) {
         notificationLogger.traceEnter(this.project);
 
-        final Optional<CompilationUnit> optionalCu = this.parseResult.getResult();
-        if (optionalCu.isPresent()) {
-            CompilationUnit compilationUnit = optionalCu.get();
-            this.panel_inspect.updateTree(compilationUnit);
+        if (this.parseResult.getResult().isPresent()) {
+            this.panel_inspect.updateTree(this.parseResult.getResult().get(), preparedOutput.getSearchIndex());
         } else {
             notificationLogger.warn(this.project, "Compilation Unit not found.");
         }
@@ -245,17 +591,11 @@ public class ParseResultsTabPane extends JPanel {
         public Component getTreeCellRendererComponent(JTree tree, Object value, boolean sel, boolean exp, boolean leaf, int row, boolean hasFocus) {
             super.getTreeCellRendererComponent(tree, value, sel, exp, leaf, row, hasFocus);
 
-            Object userObject = ((DefaultMutableTreeNode) value).getUserObject();
-            if (userObject instanceof String) {
-                return this;
-            } else if (userObject instanceof TNode) {
-                final TNode tNode        = (TNode) userObject;
-                final Node  selectedNode = tNode.getNode();
+            if (value instanceof AstTreeModel.AstTreeNode) {
+                final Node selectedNode = ((AstTreeModel.AstTreeNode) value).getNode();
                 this.setColourForNode(selectedNode);
-                return this;
-            } else {
-                return this;
             }
+            return this;
         }
 
 
@@ -281,7 +621,9 @@ public class ParseResultsTabPane extends JPanel {
         private final ParseResult<CompilationUnit> parseResult;
         private final Project                      project;
         private final PsiFile                      psiFile;
+        private       boolean                      includeNodeType;
         private       NodeDetailsTextPane          nodeDetailsTextPane;
+        private       String                       outputFormat;
         private       Tree                         tree;
 
 
@@ -291,53 +633,275 @@ public class ParseResultsTabPane extends JPanel {
             this.project = project;
             this.psiFile = psiFile;
             this.parseResult = parseResult;
+            this.includeNodeType = true;
 
 
+            // Note that the export text is prepared in the background, then set via setExportText.
             this.exportTextDisplay = new JBTextArea();
-            if (parseResult.isSuccessful() && parseResult.getResult().isPresent()) {
-                this.exportTextDisplay.setText(parseResult.getResult().get().toString());
-            } else {
-                this.exportTextDisplay.setText(parseResult.getResult().toString());
-            }
 
 
             JBScrollPane jbScrollPane = new JBScrollPane(this.exportTextDisplay);
 
-            this.setLayout(new GridLayout(0, 1));
-            this.add(jbScrollPane);
+            final JButton exportToFileButton = new JButton("Export to File...");
+            exportToFileButton.setToolTipText("Write the whole of the export (in the selected format) to a file -- the text below is only a preview of the start of it.");
+            exportToFileButton.addActionListener(e -> this.exportToFile());
+
+            final JButton exportSeveralButton = new JButton("Export Several Formats...");
+            exportSeveralButton.setToolTipText("Write the whole of the export in each of the chosen formats to a folder -- walking the AST once for all of the custom DOT, custom JSON and Cypher formats.");
+            exportSeveralButton.addActionListener(e -> this.exportSeveralFormats());
+
+            final JButton neo4jBundleButton = new JButton("Export neo4j-admin Import Bundle...");
+            neo4jBundleButton.setToolTipText("Write the AST as CSV files (plus an import script) for bulk import into a new Neo4j database via neo4j-admin.");
+            neo4jBundleButton.addActionListener(e -> this.exportNeo4jImportBundle());
+
+            final JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            buttonsPanel.add(exportToFileButton);
+            buttonsPanel.add(exportSeveralButton);
+            buttonsPanel.add(neo4jBundleButton);
+
+            this.setLayout(new BorderLayout());
+            this.add(buttonsPanel, BorderLayout.NORTH);
+            this.add(jbScrollPane, BorderLayout.CENTER);
 
         }
 
 
-        public void setExportText(String text) {
+        /**
+         * Write the neo4j-admin import bundle into a directory chosen by the user, in the background.
+         */
+        private void exportNeo4jImportBundle() {
             notificationLogger.traceEnter(this.project);
-            this.exportTextDisplay.setText(text);
+
+            final Optional<CompilationUnit> optionalCu = this.parseResult.getResult();
+            if (!optionalCu.isPresent()) {
+                notificationLogger.warn(this.project, "Compilation Unit not found.");
+                return;
+            }
+
+            final VirtualFile directory = FileChooser.chooseFile(FileChooserDescriptorFactory.createSingleFolderDescriptor(), this.project, null);
+            if (directory == null) {
+                return;
+            }
+
+            final CompilationUnit compilationUnit = optionalCu.get();
+            final boolean         includeNodeType = this.includeNodeType;
+            ProgressManager.getInstance().run(new Task.Backgroundable(this.project, "Exporting neo4j-admin import bundle", false) {
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    try {
+                        final List<Path> files = new Neo4jImportBundleWriter(includeNodeType).write(compilationUnit, Paths.get(directory.getPath()));
+                        notificationLogger.info(PanelExport.this.project, "Exported the neo4j-admin import bundle (" + files.size() + " files) to: " + directory.getPresentableUrl());
+                    } catch (IOException e) {
+                        notificationLogger.warn(PanelExport.this.project, "Unable to export the neo4j-admin import bundle.", e);
+                    }
+                }
+            });
         }
 
 
-        public void updateExport(final String outputFormat, final CompilationUnit compilationUnit, boolean includeNodeType) {
+        /**
+         * Write the whole of the export in each of the formats chosen by the user to a directory chosen by the user, in
+         * the background -- one file per format, named after the file being inspected and the format.
+         */
+        private void exportSeveralFormats() {
             notificationLogger.traceEnter(this.project);
 
-            String output = PrinterService.getInstance(this.project).outputAs(outputFormat, compilationUnit, includeNodeType);
+            final Optional<CompilationUnit> optionalCu = this.parseResult.getResult();
+            if (!optionalCu.isPresent()) {
+                notificationLogger.warn(this.project, "Compilation Unit not found.");
+                return;
+            }
 
-            // If custom dot image, do the image in addition to the textual dot string
-            if ("Custom DOT Image".equals(outputFormat)) {
-//            this.outputCustomDotImage(this.project.getBasePath());
-                notificationLogger.warn(this.project, "Custom DOT Image is temporarily unavailable -- see the export text for the raw DOT text output.");
+            final JPanel          checkBoxesPanel = new JPanel(new GridLayout(0, 1));
+            final List<JCheckBox> checkBoxes      = new ArrayList<>();
+            for (String format : new ExportAsComboBox().getValues()) {
+                final JCheckBox checkBox = new JCheckBox(format, format.equals(this.outputFormat));
+                checkBoxes.add(checkBox);
+                checkBoxesPanel.add(checkBox);
+            }
+
+            final DialogBuilder dialogBuilder = new DialogBuilder(this.project);
+            dialogBuilder.setTitle("Export Several Formats");
+            dialogBuilder.setCenterPanel(checkBoxesPanel);
+            if (dialogBuilder.show() != DialogWrapper.OK_EXIT_CODE) {
+                return;
+            }
+
+            final VirtualFile directory = FileChooser.chooseFile(FileChooserDescriptorFactory.createSingleFolderDescriptor(), this.project, null);
+            if (directory == null) {
+                return;
+            }
+
+            final String            baseName      = this.psiFile.getVirtualFile() == null ? "export" : this.psiFile.getVirtualFile().getNameWithoutExtension();
+            final Map<String, Path> pathsByFormat = new LinkedHashMap<>();
+            for (JCheckBox checkBox : checkBoxes) {
+                if (checkBox.isSelected()) {
+                    final String format = checkBox.getText();
+                    final String slug   = format.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+                    pathsByFormat.put(format, Paths.get(directory.getPath()).resolve(baseName + "." + slug + "." + fileExtension(format)));
+                }
+            }
+            if (pathsByFormat.isEmpty()) {
+                return;
+            }
+
+            final CompilationUnit compilationUnit = optionalCu.get();
+            final boolean         includeNodeType = this.includeNodeType;
+            ProgressManager.getInstance().run(new Task.Backgroundable(this.project, "Exporting " + pathsByFormat.size() + " formats to " + directory.getPresentableUrl(), true) {
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    indicator.setIndeterminate(true);
+                    try {
+                        final List<String> unrecognised = PrinterService.getInstance(PanelExport.this.project).outputToFiles(pathsByFormat, compilationUnit, includeNodeType, bytesWritten -> {
+                            indicator.checkCanceled();
+                            indicator.setText2(String.format("%.1f MB written", bytesWritten / (1024.0 * 1024.0)));
+                        });
+                        notificationLogger.info(PanelExport.this.project, "Exported " + (pathsByFormat.size() - unrecognised.size()) + " formats to: " + directory.getPresentableUrl());
+                    } catch (IOException e) {
+                        notificationLogger.warn(PanelExport.this.project, "Unable to export to files.", e);
+                    }
+                }
+            });
+        }
+
+
+        /**
+         * Write the whole of the export to a file chosen by the user, in the background.
+         */
+        private void exportToFile() {
+            notificationLogger.traceEnter(this.project);
+
+            final Optional<CompilationUnit> optionalCu = this.parseResult.getResult();
+            if (!optionalCu.isPresent() || this.outputFormat == null) {
+                notificationLogger.warn(this.project, "Compilation Unit not found.");
+                return;
             }
 
-            this.setExportText(output);
+            final String              outputFormat = this.outputFormat;
+            final String              extension    = fileExtension(outputFormat);
+            final String              baseName     = this.psiFile.getVirtualFile() == null ? "export" : this.psiFile.getVirtualFile().getNameWithoutExtension();
+            final FileSaverDescriptor descriptor   = new FileSaverDescriptor("Export to File", "Save the " + outputFormat + " export", extension);
+            final VirtualFileWrapper  wrapper      = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, this.project).save(null, baseName + "." + extension);
+            if (wrapper == null) {
+                return;
+            }
+
+            final CompilationUnit compilationUnit = optionalCu.get();
+            final boolean         includeNodeType = this.includeNodeType;
+            final Path            path            = wrapper.getFile().toPath();
+            ProgressManager.getInstance().run(new Task.Backgroundable(this.project, "Exporting " + outputFormat + " to " + path.getFileName(), true) {
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    indicator.setIndeterminate(true);
+                    try {
+                        final boolean written = PrinterService.getInstance(PanelExport.this.project).outputToFile(outputFormat, compilationUnit, includeNodeType, path, bytesWritten -> {
+                            indicator.checkCanceled();
+                            indicator.setText2(String.format("%.1f MB written", bytesWritten / (1024.0 * 1024.0)));
+                        });
+                        if (written) {
+                            notificationLogger.info(PanelExport.this.project, "Exported " + outputFormat + " (" + Files.size(path) + " bytes) to: " + path);
+                        }
+                    } catch (IOException e) {
+                        notificationLogger.warn(PanelExport.this.project, "Unable to export to file.", e);
+                    }
+                }
+            });
+        }
+
+
+        /**
+         * @return The file extension typically used for the given output format.
+         */
+        private static String fileExtension(String outputFormat) {
+            switch (outputFormat) {
+                case "DOT":
+                case "Custom DOT":
+                case "Custom DOT Image":
+                    return "dot";
+                case "XML":
+                    return "xml";
+                case "YAML":
+                    return "yaml";
+                case "Java (pretty print)":
+                    return "java";
+                case "Custom JSON":
+                    return "json";
+                case "Cypher":
+                case "Cypher (batched)":
+                    return "cypher";
+                case "GraphML":
+                    return "graphml";
+                case "Columnar AST (binary)":
+                    return ColumnarAst.FILE_EXTENSION;
+                default:
+                    return "txt";
+            }
+        }
+
+
+        /**
+         * @param outputFormat    The format of the full export, when exported to a file.
+         * @param includeNodeType Whether to include the node type in exports.
+         */
+        public void setExportSettings(String outputFormat, boolean includeNodeType) {
+            this.outputFormat = outputFormat;
+            this.includeNodeType = includeNodeType;
+        }
+
+
+        public void setExportText(String text) {
+            notificationLogger.traceEnter(this.project);
+            this.exportTextDisplay.setText(text);
         }
 
     }
 
     private static class PanelInpsect extends JPanel {
 
-        private final NodeDetailsTextPane          nodeDetailsTextPane;
-        private final ParseResult<CompilationUnit> parseResult;
-        private final Project                      project;
-        private final PsiFile                      psiFile;
-        private final Tree                         tree;
+        private final NodeDetailsTextPane nodeDetailsTextPane;
+        private final Project             project;
+        private final JCheckBox           searchAnywhereCheckBox;
+        private final JBTextField         searchField;
+        private final JLabel              searchResultLabel;
+        private final Tree                tree;
+
+        /**
+         * Change when the panel is taken over by the pane of a new parse of the same file.
+         */
+        private ParseResult<CompilationUnit> parseResult;
+        private PsiFile                      psiFile;
+
+        /**
+         * The ranges of the nodes shown within the tree, for finding the node at the caret. Built when first needed, and
+         * dropped whenever the tree is updated (as the ranges may have changed).
+         */
+        @Nullable
+        private NodeRangeIndex rangeIndex = null;
+
+        /**
+         * The index of the nodes shown within the tree -- built alongside the parse, or (once dropped due to the AST
+         * having been modified) when next searched.
+         */
+        @Nullable
+        private NodeSearchIndex searchIndex = null;
+
+        /**
+         * The results of the current search, or null if they are yet to be found (e.g. as the tree has been updated).
+         */
+        @Nullable
+        private List<Node> searchResults = null;
+
+        /**
+         * The position of the selected result within the search results, or -1 if none has been selected yet.
+         */
+        private int searchResultIndex = -1;
+
+        /**
+         * Set while the selection is being changed to follow the caret, or the caret to follow the selection -- such
+         * that the one does not in turn change the other.
+         */
+        private boolean caretFollowingSelection = false;
+        private boolean selectionFollowingCaret = false;
 
 
         PanelInpsect(Project project, PsiFile psiFile, final ParseResult<CompilationUnit> parseResult) {
@@ -350,6 +914,36 @@ public class ParseResultsTabPane extends JPanel {
             this.tree = this.setupTree();
             this.nodeDetailsTextPane = new NodeDetailsTextPane();
 
+            // Search -- over the whole AST (including the parts of the tree which have not been expanded).
+            this.searchField = new JBTextField(20);
+            this.searchField.getEmptyText().setText("Type name, identifier or literal");
+            this.searchField.setToolTipText("Enter for the next result, Shift+Enter for the previous result.");
+            this.searchField.getDocument().addDocumentListener(new DocumentAdapter() {
+                @Override
+                protected void textChanged(@NotNull DocumentEvent e) {
+                    PanelInpsect.this.search();
+                }
+            });
+            this.searchField.addActionListener(e -> this.showSearchResult((e.getModifiers() & ActionEvent.SHIFT_MASK) != 0 ? -1 : 1));
+
+            this.searchAnywhereCheckBox = new JCheckBox("Match anywhere", true);
+            this.searchAnywhereCheckBox.setToolTipText("Match the text anywhere within the names and values, rather than only at their start.");
+            this.searchAnywhereCheckBox.addActionListener(e -> this.search());
+
+            final JButton previousButton = new JButton("Previous");
+            previousButton.addActionListener(e -> this.showSearchResult(-1));
+            final JButton nextButton = new JButton("Next");
+            nextButton.addActionListener(e -> this.showSearchResult(1));
+
+            this.searchResultLabel = new JLabel();
+
+            final JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            searchPanel.add(this.searchField);
+            searchPanel.add(this.searchAnywhereCheckBox);
+            searchPanel.add(previousButton);
+            searchPanel.add(nextButton);
+            searchPanel.add(this.searchResultLabel);
+
 
             //
             final JBScrollPane treeScrollPane        = new JBScrollPane(this.tree);
@@ -362,53 +956,40 @@ public class ParseResultsTabPane extends JPanel {
             splitPane.setRightComponent(nodeDetailsScrollPane);
 
             //
-            this.setLayout(new GridLayout(0, 1));
-            this.add(splitPane);
+            this.setLayout(new BorderLayout());
+            this.add(searchPanel, BorderLayout.NORTH);
+            this.add(splitPane, BorderLayout.CENTER);
         }
 
 
         private void astDisplaySelectionListener(TreeSelectionEvent e) {
             notificationLogger.traceEnter(this.project);
 
-            DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) this.tree.getLastSelectedPathComponent();
-            if (selectedNode != null) {
-                final Object node  = selectedNode.getUserObject();
-                final TNode  tNode = (TNode) node;
+            final Object selectedNode = this.tree.getLastSelectedPathComponent();
+            if (selectedNode instanceof AstTreeModel.AstTreeNode) {
+                final AstTreeModel.AstTreeNode treeNode = (AstTreeModel.AstTreeNode) selectedNode;
 
                 // Update "selected" label
 //            this.label_selected.setText("Selected: [" + tNode.toString() + "]");
 
                 // Update the side panel
-                this.updateSidebar(selectedNode);
+                this.updateSidebar(treeNode);
 
                 // Update the shared service/record of the currently selected node
                 // TODO: Observer pattern and notify watchers?
-                HighlightingService.getInstance().setSelectedNode(tNode.getNode());
+                HighlightingService.getInstance().setSelectedNode(treeNode.getNode());
 
                 FileEditorManager manager = FileEditorManager.getInstance(this.project);
                 final Editor      editor  = manager.getSelectedTextEditor();
 
-                HighlightingService.getInstance().updateHighlight(this.psiFile, editor);
-            }
-        }
-
-
-        private DefaultMutableTreeNode buildTreeNodes(DefaultMutableTreeNode parent, Node node) {
-            // Setup tree node for the given node
-            DefaultMutableTreeNode treeNode = new DefaultMutableTreeNode(new TNode(node));
-
-            // Add this tree node to its parent, if given
-            if (parent != null) {
-                parent.add(treeNode);
+                // The caret is only moved to the node if the node was selected within the tree.
+                this.caretFollowingSelection = true;
+                try {
+                    HighlightingService.getInstance().updateHighlight(this.psiFile, editor, !this.selectionFollowingCaret);
+                } finally {
+                    this.caretFollowingSelection = false;
+                }
             }
-
-            // Recursively add children
-            List<Node> children = node.getChildNodes();
-            children.forEach(childNode -> {
-                treeNode.add(this.buildTreeNodes(treeNode, childNode));
-            });
-
-            return treeNode;
         }
 
 
@@ -416,7 +997,18 @@ public class ParseResultsTabPane extends JPanel {
             notificationLogger.traceEnter(this.project);
 
             final Tree tree = new Tree();
-            new TreeSpeedSearch(tree); // Note: Just calling the constructor is enough to enable speed search.
+
+            // Typing within the tree searches the whole AST, rather than only the rows which are showing.
+            tree.addKeyListener(new KeyAdapter() {
+                @Override
+                public void keyTyped(KeyEvent e) {
+                    if (!Character.isISOControl(e.getKeyChar()) && !e.isControlDown() && !e.isAltDown() && !e.isMetaDown()) {
+                        PanelInpsect.this.searchField.requestFocusInWindow();
+                        PanelInpsect.this.searchField.setText(PanelInpsect.this.searchField.getText() + e.getKeyChar());
+                        e.consume();
+                    }
+                }
+            });
 
             // Custom renderer -- e.g. to set colours on the nodes
             tree.setCellRenderer(new MyTreeCellRenderer());
@@ -431,12 +1023,59 @@ public class ParseResultsTabPane extends JPanel {
         }
 
 
-        private void updateSidebar(DefaultMutableTreeNode selectedTreeNode) {
+        /**
+         * Replace the tree node for the given (now detached) AST node with one for its replacement, keeping the
+         * expansion state of the rest of the tree.
+         */
+        public void replaceSubtree(@NotNull Node oldNode, @NotNull Node newNode) {
             notificationLogger.traceEnter(this.project);
+            this.rangeIndex = null;
+            this.setSearchIndex(null);
+
+            if (!(this.tree.getModel() instanceof AstTreeModel)) {
+                return;
+            }
+            final AstTreeModel             model          = (AstTreeModel) this.tree.getModel();
+            final AstTreeModel.AstTreeNode parentTreeNode = newNode.getParentNode().map(model::findTreeNode).orElse(null);
+
+            // A selection within the replaced subtree refers to nodes which are no longer part of the AST.
+            final TreePath selectionPath   = this.tree.getSelectionPath();
+            final boolean  selectionWithin;
+            if (parentTreeNode != null && parentTreeNode.hasChildTreeNodes()) {
+                final AstTreeModel.AstTreeNode oldTreeNode = model.replaceChild(parentTreeNode, oldNode);
+                if (oldTreeNode == null) {
+                    notificationLogger.warn(this.project, "Unable to find the re-parsed node within the tree -- re-parse the file to refresh the tree.");
+                    return;
+                }
+                selectionWithin = selectionPath != null && model.getPathToRoot(oldTreeNode).isDescendant(selectionPath);
+            } else {
+                // The parent has not been expanded, thus its children are yet to be created (from the AST as it is now).
+                selectionWithin = false;
+            }
 
-            final Object node         = selectedTreeNode.getUserObject();
-            final TNode  tNode        = (TNode) node;
-            final Node   selectedNode = tNode.getNode();
+            // The ranges of the following nodes may have shifted -- refresh the labels of the visible rows.
+            for (int row = 0; row < this.tree.getRowCount(); row++) {
+                model.nodeChanged((AstTreeModel.AstTreeNode) this.tree.getPathForRow(row).getLastPathComponent());
+            }
+
+            if (selectionWithin) {
+                this.tree.clearSelection();
+                this.nodeDetailsTextPane.clear();
+                this.nodeDetailsTextPane.appendLine("No node selected");
+
+                HighlightingService.getInstance().setSelectedNode(null);
+                final Editor editor = FileEditorManager.getInstance(this.project).getSelectedTextEditor();
+                if (editor != null) {
+                    HighlightingService.getInstance().clearHighlight(editor);
+                }
+            }
+        }
+
+
+        private void updateSidebar(AstTreeModel.AstTreeNode selectedTreeNode) {
+            notificationLogger.traceEnter(this.project);
+
+            final Node selectedNode = selectedTreeNode.getNode();
 
             // Log the selected node to the panel
             if (selectedNode == null) {
@@ -452,16 +1091,169 @@ public class ParseResultsTabPane extends JPanel {
         }
 
 
-        public void updateTree(CompilationUnit compilationUnit) {
+        /**
+         * Show the details of the selected tree node (if it has been kept), which now refers to a node of the new AST.
+         */
+        private void refreshSelection() {
+            final Object selected = this.tree.getLastSelectedPathComponent();
+            if (selected instanceof AstTreeModel.AstTreeNode) {
+                final AstTreeModel.AstTreeNode treeNode = (AstTreeModel.AstTreeNode) selected;
+                this.updateSidebar(treeNode);
+                HighlightingService.getInstance().setSelectedNode(treeNode.getNode());
+            } else {
+                this.nodeDetailsTextPane.clear();
+                this.nodeDetailsTextPane.appendLine("No node selected");
+                HighlightingService.getInstance().setSelectedNode(null);
+            }
+        }
+
+
+        /**
+         * Select the deepest node whose range includes the given position (e.g. that of the caret), expanding the tree to
+         * it as needed.
+         */
+        public void selectNodeAt(@NotNull Position position) {
+            if (this.caretFollowingSelection || !(this.tree.getModel() instanceof AstTreeModel)) {
+                return;
+            }
+            final AstTreeModel model = (AstTreeModel) this.tree.getModel();
+            if (this.rangeIndex == null) {
+                this.rangeIndex = NodeRangeIndex.of(model.getRoot().getNode());
+            }
+
+            final Node                     node     = this.rangeIndex.findDeepestAt(position);
+            final AstTreeModel.AstTreeNode treeNode = node == null ? null : model.getTreeNode(node);
+            if (treeNode == null || treeNode == this.tree.getLastSelectedPathComponent()) {
+                return;
+            }
+
+            final TreePath path = model.getPathToRoot(treeNode);
+            this.selectionFollowingCaret = true;
+            try {
+                this.tree.setSelectionPath(path);
+            } finally {
+                this.selectionFollowingCaret = false;
+            }
+            this.tree.scrollPathToVisible(path);
+        }
+
+
+        /**
+         * @return The results of the current search -- searching again (and building the index, if it has been dropped)
+         *         if they have not yet been found.
+         */
+        @NotNull
+        private List<Node> getSearchResults() {
+            if (this.searchResults == null) {
+                final String query = this.searchField.getText();
+                final Object root  = this.tree.getModel().getRoot();
+                if (query.isEmpty() || !(root instanceof AstTreeModel.AstTreeNode)) {
+                    this.searchResults = Collections.emptyList();
+                } else {
+                    if (this.searchIndex == null) {
+                        this.searchIndex = NodeSearchIndex.of(((AstTreeModel.AstTreeNode) root).getNode());
+                    }
+                    this.searchResults = this.searchIndex.search(query, this.searchAnywhereCheckBox.isSelected());
+                }
+                this.searchResultIndex = -1;
+            }
+            return this.searchResults;
+        }
+
+
+        /**
+         * Search again (e.g. as the query has changed), selecting the first result.
+         */
+        private void search() {
+            this.searchResults = null;
+            this.showSearchResult(1);
+        }
+
+
+        /**
+         * Use the given search index (or none, to build it once searched) -- dropping the results found via the
+         * previous one, which may refer to nodes which are no longer part of the AST.
+         */
+        private void setSearchIndex(@Nullable NodeSearchIndex searchIndex) {
+            this.searchIndex = searchIndex;
+            this.searchResults = null;
+            this.searchResultIndex = -1;
+            this.updateSearchResultLabel();
+        }
+
+
+        /**
+         * Select the next (or previous) search result, wrapping around at either end -- expanding the tree to it as
+         * needed.
+         *
+         * @param step 1 for the next result, or -1 for the previous result.
+         */
+        private void showSearchResult(int step) {
+            final List<Node> results = this.getSearchResults();
+            if (!results.isEmpty() && this.tree.getModel() instanceof AstTreeModel) {
+                if (this.searchResultIndex < 0) {
+                    this.searchResultIndex = step > 0 ? 0 : results.size() - 1;
+                } else {
+                    this.searchResultIndex = Math.floorMod(this.searchResultIndex + step, results.size());
+                }
+
+                final AstTreeModel             model    = (AstTreeModel) this.tree.getModel();
+                final AstTreeModel.AstTreeNode treeNode = model.getTreeNode(results.get(this.searchResultIndex));
+                if (treeNode != null) {
+                    final TreePath path = model.getPathToRoot(treeNode);
+                    this.tree.setSelectionPath(path);
+                    this.tree.scrollPathToVisible(path);
+                }
+            }
+            this.updateSearchResultLabel();
+        }
+
+
+        private void updateSearchResultLabel() {
+            if (this.searchResults == null || this.searchField.getText().isEmpty()) {
+                this.searchResultLabel.setText("");
+            } else if (this.searchResults.isEmpty()) {
+                this.searchResultLabel.setText("No results");
+            } else if (this.searchResultIndex < 0) {
+                this.searchResultLabel.setText(this.searchResults.size() + " results");
+            } else {
+                this.searchResultLabel.setText((this.searchResultIndex + 1) + " of " + this.searchResults.size());
+            }
+        }
+
+
+        /**
+         * Use the panel for a new parse of the same file -- the tree is then updated via {@link #updateTree(Node, NodeSearchIndex)}.
+         */
+        public void setParseResult(@NotNull PsiFile psiFile, @NotNull ParseResult<CompilationUnit> parseResult) {
+            this.psiFile = psiFile;
+            this.parseResult = parseResult;
+            this.rangeIndex = null;
+        }
+
+
+        /**
+         * Show the given AST. If a tree is already shown, the new AST is diffed against it such that only the changed
+         * tree nodes are updated -- keeping the expansion state and selection.
+         *
+         * @param searchIndex The search index of the AST, or null to build it once searched.
+         */
+        public void updateTree(@Nullable Node root, @Nullable NodeSearchIndex searchIndex) {
             notificationLogger.traceEnter(this.project);
+            this.rangeIndex = null;
+            this.setSearchIndex(searchIndex);
 
-            if (compilationUnit == null) {
-                final DefaultMutableTreeNode root = new DefaultMutableTreeNode("Not yet parsed.");
-                this.tree.setModel(new DefaultTreeModel(root, false));
+            if (root != null && this.tree.getModel() instanceof AstTreeModel) {
+                ((AstTreeModel) this.tree.getModel()).update(root);
+                this.refreshSelection();
+                return;
+            }
 
+            if (root == null) {
+                final DefaultMutableTreeNode notParsed = new DefaultMutableTreeNode("Not yet parsed.");
+                this.tree.setModel(new DefaultTreeModel(notParsed, false));
             } else {
-                final DefaultMutableTreeNode root = this.buildTreeNodes(null, compilationUnit);
-                this.tree.setModel(new DefaultTreeModel(root, false));
+                this.tree.setModel(new AstTreeModel(new AstTreeModel.AstTreeNode(root)));
             }
 
             // Nudge the UI to update
@@ -502,22 +1294,34 @@ public class ParseResultsTabPane extends JPanel {
         private final ParseResult<CompilationUnit> parseResult;
         private final Project                      project;
         private final PsiFile                      psiFile;
+        private final PipelineTimingsHistory       timingsHistory;
 
 
-        PanelLog(Project project, PsiFile psiFile, final ParseResult<CompilationUnit> parseResult) {
+        PanelLog(Project project, PsiFile psiFile, final ParseResult<CompilationUnit> parseResult, @NotNull PipelineTimingsHistory timingsHistory) {
             super();
 
             this.project = project;
             this.psiFile = psiFile;
             this.parseResult = parseResult;
+            this.timingsHistory = timingsHistory;
 
             this.logTextDisplay = new JBTextArea();
             this.logTextDisplay.setText("Panel Created: " + System.currentTimeMillis());
 
             JBScrollPane jbScrollPane = new JBScrollPane(this.logTextDisplay);
 
-            this.setLayout(new GridLayout(0, 1));
-            this.add(jbScrollPane);
+            final JButton exportJsonButton = new JButton("Export Timings (JSON)...");
+            final JButton exportCsvButton  = new JButton("Export Timings (CSV)...");
+            exportJsonButton.addActionListener(e -> this.exportTimings("json"));
+            exportCsvButton.addActionListener(e -> this.exportTimings("csv"));
+
+            final JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            buttonsPanel.add(exportJsonButton);
+            buttonsPanel.add(exportCsvButton);
+
+            this.setLayout(new BorderLayout());
+            this.add(buttonsPanel, BorderLayout.NORTH);
+            this.add(jbScrollPane, BorderLayout.CENTER);
 
 
             // Update
@@ -531,6 +1335,33 @@ public class ParseResultsTabPane extends JPanel {
         }
 
 
+        /**
+         * Save the timings of recent parses to a file chosen by the user.
+         *
+         * @param extension Either "json" or "csv".
+         */
+        private void exportTimings(@NotNull String extension) {
+            notificationLogger.traceEnter(this.project);
+
+            final FileSaverDescriptor descriptor = new FileSaverDescriptor("Export Timings", "Save the timings of recent parses", extension);
+            final VirtualFileWrapper  wrapper    = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, this.project).save(null, "parse-timings." + extension);
+            if (wrapper == null) {
+                return;
+            }
+
+            try (Writer writer = Files.newBufferedWriter(wrapper.getFile().toPath(), StandardCharsets.UTF_8)) {
+                if ("csv".equals(extension)) {
+                    this.timingsHistory.writeCsv(writer);
+                } else {
+                    this.timingsHistory.writeJson(writer);
+                }
+                notificationLogger.info(this.project, "Exported the timings of " + this.timingsHistory.getRecords().size() + " parses to: " + wrapper.getFile());
+            } catch (IOException e) {
+                notificationLogger.warn(this.project, "Unable to export timings.", e);
+            }
+        }
+
+
         public void updateOutput(final ParseResult<? extends Node> parseResult) {
             notificationLogger.traceEnter(this.project);
 
@@ -573,14 +1404,9 @@ public class ParseResultsTabPane extends JPanel {
             this.parseResult = parseResult;
 
 
+            // Note that the summary text is prepared in the background, then set via setOutputText.
             this.exportTextDisplay = new JBTextArea();
 
-            if (parseResult.isSuccessful() && parseResult.getResult().isPresent()) {
-                this.exportTextDisplay.setText(parseResult.getResult().get().toString());
-            } else {
-                this.exportTextDisplay.setText(parseResult.getResult().toString());
-            }
-
 
             JBScrollPane jbScrollPane = new JBScrollPane(this.exportTextDisplay);
 
@@ -590,99 +1416,208 @@ public class ParseResultsTabPane extends JPanel {
         }
 
 
-        public void updateOutput(final ParseResult<? extends Node> parseResult) {
+        public void setOutputText(final String output) {
             notificationLogger.traceEnter(this.project);
+            this.exportTextDisplay.setText(output);
+        }
 
-            String output = "";
+    }
 
-            //
-            output += NEWLINE + "== PARSE RESULT SUMMARY ==";
-            output += NEWLINE + " - Is successful: " + parseResult.isSuccessful();
-            output += NEWLINE + " - Problem count: " + parseResult.getProblems().size();
-            if (!parseResult.getProblems().isEmpty()) {
-                StringBuilder message = new StringBuilder();
-                message.append(NEWLINE)
-                       .append(" - Found ").append(parseResult.getProblems().size()).append(" problems found when parsing: ");                final List<Problem> problems = parseResult.getProblems();
-                for (int i = 0; i < problems.size(); i++) {
-                    final Problem problem = problems.get(i);
-                    message.append(NEWLINE)
-                           .append("\t").append("Problem #").append(i).append(": ").append(problem.getMessage());
+    /**
+     * Runs structural queries (see {@link NodeQuery}) over the AST, listing the matching nodes -- selecting a match
+     * highlights it within the editor.
+     */
+    private static class PanelQuery extends JPanel {
+
+        private final DefaultListModel<Node>       matches;
+        private final JBList<Node>                 matchesList;
+        private final ParseResult<CompilationUnit> parseResult;
+        private final Project                      project;
+        private final PsiFile                      psiFile;
+        private final JBTextField                  queryField;
+        private final JLabel                       statusLabel;
+
+        /**
+         * The type and attribute indexes of the AST. Built when first queried, and dropped once the AST is modified by a
+         * live re-parse.
+         */
+        @Nullable
+        private NodeQueryIndex queryIndex = null;
+
+
+        PanelQuery(Project project, PsiFile psiFile, final ParseResult<CompilationUnit> parseResult) {
+            super();
+
+            this.project = project;
+            this.psiFile = psiFile;
+            this.parseResult = parseResult;
+
+            this.queryField = new JBTextField();
+            this.queryField.getEmptyText().setText("e.g. //LambdaExpr//MethodCallExpr[name='get']");
+            this.queryField.setToolTipText("A path of node types (e.g. //ClassOrInterfaceDeclaration/MethodDeclaration), each optionally followed by "
+                                           + "[attribute='value'] or [attribute!='value'] -- / matches children, // matches descendants, * matches any type.");
+            this.queryField.addActionListener(e -> this.runQuery());
+
+            final JButton runButton = new JButton("Run Query");
+            runButton.addActionListener(e -> this.runQuery());
+
+            this.statusLabel = new JLabel(" ");
+
+            final JPanel queryPanel = new JPanel(new BorderLayout());
+            queryPanel.add(this.queryField, BorderLayout.CENTER);
+            queryPanel.add(runButton, BorderLayout.EAST);
+            queryPanel.add(this.statusLabel, BorderLayout.SOUTH);
+
+            this.matches = new DefaultListModel<>();
+            this.matchesList = new JBList<>(this.matches);
+            this.matchesList.setCellRenderer(new MatchCellRenderer());
+            this.matchesList.addListSelectionListener(e -> {
+                if (!e.getValueIsAdjusting()) {
+                    this.highlightSelectedMatch();
                 }
+            });
+
+            this.setLayout(new BorderLayout());
+            this.add(queryPanel, BorderLayout.NORTH);
+            this.add(new JBScrollPane(this.matchesList), BorderLayout.CENTER);
+        }
 
-                output += message.toString();
+
+        /**
+         * Drop the index and the matches, which refer to the AST as it was before it was modified.
+         */
+        public void clearIndex() {
+            if (this.queryIndex != null || !this.matches.isEmpty()) {
+                this.queryIndex = null;
+                this.matches.clear();
+                this.statusLabel.setText("The file has been re-parsed -- run the query again.");
             }
+        }
 
-            //
-            output += NEWLINE + NEWLINE;
-            output += NEWLINE + "== PARSE RESULT DETAILS ==";
-            output += NEWLINE + " - Parse result present: " + parseResult.getResult().isPresent();
-            if (parseResult.getResult().isPresent()) {
-                final Node node = parseResult.getResult().get();
-                output += NEWLINE + " - Parse result type: " + node.getClass().getSimpleName();
-                output += NEWLINE + " - Node summary: " + ASCIITreePrinter.CLASS_RANGE_SUMMARY_FORMAT.apply(node);
-            } else {
-                output += NEWLINE + " - Parse result not found -- parse catastrophically failed, perhaps?";
+
+        @NotNull
+        public String getQueryText() {
+            return this.queryField.getText();
+        }
+
+
+        private void highlightSelectedMatch() {
+            final Node selectedNode = this.matchesList.getSelectedValue();
+            if (selectedNode == null) {
+                return;
             }
 
-            //
-            output += NEWLINE + NEWLINE;
-            output += NEWLINE + "== STORAGE ==";
-            if (parseResult.getResult().isPresent()) {
-                final Node                      node  = parseResult.getResult().get();
-                final Optional<CompilationUnit> optCu = node.findCompilationUnit();
-                if (optCu.isPresent()) {
-                    final CompilationUnit                   cu              = optCu.get();
-                    final Optional<CompilationUnit.Storage> optionalStorage = cu.getStorage();
-                    if (optionalStorage.isPresent()) {
-                        final CompilationUnit.Storage storage = optionalStorage.get();
-                        output += NEWLINE + " - Filename: " + storage.getFileName();
-                        output += NEWLINE + " - Path: " + storage.getPath();
-                        output += NEWLINE + " - Encoding: " + storage.getEncoding();
-                        output += NEWLINE + " - Source Root: " + storage.getSourceRoot();
-                    } else {
-                        output += NEWLINE + " - No storage found -- parsed from a string fragment, perhaps?";
-                    }
-                } else {
-                    output += NEWLINE + " - No compilation unit found -- parsed from a string fragment, perhaps?";
-                }
-            } else {
-                output += NEWLINE + " - No result found -- parse failed, perhaps?";
+            HighlightingService.getInstance().setSelectedNode(selectedNode);
+            final Editor editor = FileEditorManager.getInstance(this.project).getSelectedTextEditor();
+            if (editor != null) {
+                HighlightingService.getInstance().updateHighlight(this.psiFile, editor);
+            }
+        }
+
+
+        private void runQuery() {
+            notificationLogger.traceEnter(this.project);
+
+            this.matches.clear();
+            final String text = this.queryField.getText().trim();
+            if (text.isEmpty() || !this.parseResult.getResult().isPresent()) {
+                this.statusLabel.setText(" ");
+                return;
+            }
+
+            final NodeQuery query;
+            try {
+                query = NodeQuery.parse(text);
+            } catch (NodeQuery.SyntaxException e) {
+                this.statusLabel.setText(e.getMessage());
+                return;
+            }
+
+            final long start = System.nanoTime();
+            if (this.queryIndex == null) {
+                this.queryIndex = NodeQueryIndex.of(this.parseResult.getResult().get());
+            }
+            final List<Node> results = query.evaluate(this.queryIndex);
+            final double     millis  = (System.nanoTime() - start) / 1_000_000.0;
+
+            this.matches.addAll(results);
+            this.statusLabel.setText(String.format(Locale.ROOT, "%d matches (%.1f ms)", results.size(), millis));
+        }
+
+
+        public void setQueryText(@NotNull String text) {
+            this.queryField.setText(text);
+        }
+
+
+        private static class MatchCellRenderer extends DefaultListCellRenderer {
+
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                final Object label = value instanceof Node ? ASCIITreePrinter.CLASS_RANGE_SUMMARY_FORMAT.apply((Node) value) : value;
+                return super.getListCellRendererComponent(list, label, index, isSelected, cellHasFocus);
             }
 
-            //
-            this.exportTextDisplay.setText(output);
         }
 
     }
 
     /**
-     * A helper class used to model nodes within a UI tree displayed via a tool window/panel.
+     * The output of {@link #prepareOutput(Project, ParseResult, String, boolean, PipelineTimings)}, ready to be displayed.
      */
-    private static class TNode {
-        private final Node node;
+    public static final class PreparedOutput {
+
+        @Nullable
+        private final String exportText;
 
+        @NotNull
+        private final String parseResultText;
 
         /**
-         * @param node The AST node that this UI tree node contains.
+         * Of the AST as parsed -- the Inspect panel drops it once the AST is modified by a live re-parse.
          */
-        TNode(@NotNull Node node) {
-            this.node = node;
+        @Nullable
+        private final NodeSearchIndex searchIndex;
+
+        @NotNull
+        private final String tokensText;
+
+
+        PreparedOutput(@NotNull String tokensText, @NotNull String parseResultText, @Nullable String exportText, @Nullable NodeSearchIndex searchIndex) {
+            this.tokensText = tokensText;
+            this.parseResultText = parseResultText;
+            this.exportText = exportText;
+            this.searchIndex = searchIndex;
         }
 
 
         /**
-         * @return The AST node that this UI tree node contains.
+         * @return The export text, or null if there is no compilation unit to export.
          */
-        public Node getNode() {
-            return this.node;
+        @Nullable
+        public String getExportText() {
+            return this.exportText;
+        }
+
+
+        @NotNull
+        public String getParseResultText() {
+            return this.parseResultText;
         }
 
 
         /**
-         * @return A string representation/summary of the AST node that this UI tree node contains.
+         * @return The search index, or null if there is no compilation unit.
          */
-        public String toString() {
-            return ASCIITreePrinter.CLASS_RANGE_SUMMARY_FORMAT.apply(this.node);
+        @Nullable
+        public NodeSearchIndex getSearchIndex() {
+            return this.searchIndex;
+        }
+
+
+        @NotNull
+        public String getTokensText() {
+            return this.tokensText;
         }
 
     }
@@ -702,6 +1637,7 @@ public class ParseResultsTabPane extends JPanel {
             this.psiFile = psiFile;
             this.parseResult = parseResult;
 
+            // Note that the tokens text is prepared in the background, then set via setTokensText.
             this.tokensTextDisplay = new JBTextArea();
 
             JBScrollPane jbScrollPane = new JBScrollPane(this.tokensTextDisplay);
@@ -709,69 +1645,12 @@ public class ParseResultsTabPane extends JPanel {
             this.setLayout(new GridLayout(0, 1));
             this.add(jbScrollPane);
 
-
-            // Update
-            this.updateOutput(parseResult);
-
         }
 
 
-        public void updateOutput(final ParseResult<? extends Node> parseResult) {
+        public void setTokensText(final String tokensText) {
             notificationLogger.traceEnter(this.project);
-
-            StringBuilder output = new StringBuilder();
-
-            if (parseResult.getResult().isPresent()) {
-                final Node node = parseResult.getResult().get();
-                if (node.getTokenRange().isPresent()) {
-                    final TokenRange tokenRange = node.getTokenRange().get();
-
-                    output.append(NEWLINE)
-                          .append(padEnd("Token #", 15))
-                          .append(padEnd("Token Category", 20))
-                          .append(padEnd("Type (number)", 15))
-                          .append(padEnd("Type (description)", 20))
-                          .append(padEnd("Range", 35))
-                          .append(padEnd("Text", 30));
-                    output.append(NEWLINE)
-                          .append(padEnd("-------", 15))
-                          .append(padEnd("--------------", 20))
-                          .append(padEnd("-------------", 15))
-                          .append(padEnd("------------------", 20))
-                          .append(padEnd("-----", 35))
-                          .append(padEnd("----", 30));
-
-                    int tokenIndex = 0;
-
-                    JavaToken currentToken = tokenRange.getBegin();
-                    while (currentToken.getNextToken().isPresent()) {
-
-                        String text = StringUtil.escapeWhitespace(currentToken.getText());
-
-                        output.append(NEWLINE)
-                              .append(padEnd("Token #" + tokenIndex + ": ", 15))
-                              .append(padEnd(currentToken.getCategory().toString(), 20))
-                              .append(padEnd("<" + currentToken.getKind() + ">", 15))
-                              .append(padEnd(GeneratedJavaParserConstants.tokenImage[currentToken.getKind()], 20))
-                              .append(padEnd(currentToken.getRange().map(Range::toString).orElse("(?)-(?)"), 35))
-                              .append(padEnd(text, 30));
-
-                        tokenIndex++;
-                        currentToken = currentToken.getNextToken().get();
-                    }
-                } else {
-                    output.append(NEWLINE)
-                          .append("Parse result found, but no token range present -- unable to present tokens.");
-                    ParseResultsTabPane.this.appendToLog(NEWLINE + "Parse result found, but no token range present -- unable to present tokens.");
-                }
-            } else {
-                output.append(NEWLINE)
-                      .append("Parse result not present -- unable to present tokens.");
-                ParseResultsTabPane.this.appendToLog(NEWLINE + "Parse result not present -- unable to present tokens.");
-            }
-
-            //
-            this.tokensTextDisplay.setText(NEWLINE + output.toString());
+            this.tokensTextDisplay.setText(tokensText);
         }
     }
 
@@ -1,44 +1,142 @@
 package com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.output_results_tabs;
 
+import com.github.javaparser.JavaToken;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.cache.MemoryBoundedCache;
 import com.github.rogerhowell.javaparser_ast_inspector.plugin.logging.NotificationLogger;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.metrics.PipelineTimingsHistory;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse.ProjectParseResult;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.providers.ParseSource;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.ui.components.JBTabbedPane;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public class ParseResultsTabPanesContainer extends JBTabbedPane {
 
     private static final NotificationLogger notificationLogger = new NotificationLogger(ParseResultsTabPanesContainer.class);
 
+    /**
+     * The heap budget of the in-memory parse result cache may be overridden via this system property.
+     */
+    public static final String PARSE_CACHE_MAX_MEGABYTES_PROPERTY = "javaparser.astInspector.memoryCache.maxMegabytes";
+
+    /**
+     * Rough estimates of the heap retained per node/token, including the objects that they own (ranges, child lists,
+     * data maps, ...). These only need to be accurate enough to keep the cache within its budget.
+     *
+     * The tree nodes are not counted, as they are only created for the parts of the tree which have been expanded.
+     */
+    private static final long ESTIMATED_BYTES_PER_AST_NODE = 200;
+    private static final long ESTIMATED_BYTES_PER_TOKEN    = 96;
+
+    /**
+     * Recently displayed parse results, such that switching back to a previously parsed (and unchanged) file restores
+     * its tab without parsing it again.
+     */
+    @NotNull
+    private final MemoryBoundedCache<CacheKey, CachedParse> parseCache;
+
     @NotNull
     private final List<ParseResultsTabPane> panes;
 
+    @NotNull
+    private final PipelineTimingsHistory timingsHistory;
+
+    /**
+     * Kept when parsing individual files, such that files can be opened one after another from the project results.
+     */
+    @Nullable
+    private ProjectParseResultsPane projectParseResultsPane;
+
 
     public ParseResultsTabPanesContainer() {
         super();
         notificationLogger.traceEnter();
 
         this.panes = new ArrayList<>();
+        this.timingsHistory = new PipelineTimingsHistory();
+        this.parseCache = new MemoryBoundedCache<>(parseCacheMaxBytes(), ParseResultsTabPanesContainer::estimateRetainedBytes);
 
         this.doReset(null);
     }
 
 
+    private static long estimateRetainedBytes(@NotNull CachedParse cachedParse) {
+        long bytes = 0;
+
+        final Optional<CompilationUnit> optionalCu = cachedParse.parseResult.getResult();
+        if (optionalCu.isPresent()) {
+            bytes += optionalCu.get().stream().count() * ESTIMATED_BYTES_PER_AST_NODE;
+
+            if (optionalCu.get().getTokenRange().isPresent()) {
+                for (JavaToken ignored : optionalCu.get().getTokenRange().get()) {
+                    bytes += ESTIMATED_BYTES_PER_TOKEN;
+                }
+            }
+        }
+
+        final ParseResultsTabPane.PreparedOutput preparedOutput = cachedParse.preparedOutput;
+        bytes += 2L * (preparedOutput.getTokensText().length() + preparedOutput.getParseResultText().length());
+        if (preparedOutput.getExportText() != null) {
+            bytes += 2L * preparedOutput.getExportText().length();
+        }
+        if (preparedOutput.getSearchIndex() != null) {
+            bytes += preparedOutput.getSearchIndex().estimateRetainedBytes();
+        }
+
+        return bytes;
+    }
+
+
+    /**
+     * @return Whether both are the same file -- compared by their virtual files, as the PSI files may differ.
+     */
+    private static boolean isSameFile(@NotNull PsiFile a, @NotNull PsiFile b) {
+        final VirtualFile fileA = a.getVirtualFile();
+        final VirtualFile fileB = b.getVirtualFile();
+        return fileA != null ? fileA.equals(fileB) : a.equals(b);
+    }
+
+
+    /**
+     * @return The heap budget for cached parse results -- by default a sixteenth of the maximum heap, up to 128MiB.
+     */
+    private static long parseCacheMaxBytes() {
+        final long defaultMegabytes = Math.min(128, Runtime.getRuntime().maxMemory() / 16 / (1024 * 1024));
+        final long megabytes        = Long.getLong(PARSE_CACHE_MAX_MEGABYTES_PROPERTY, defaultMegabytes);
+        return Math.max(0, megabytes) * 1024 * 1024;
+    }
+
+
     public ParseResultsTabPane addParseResultPane(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull ParseResult<CompilationUnit> parseResult) {
         notificationLogger.traceEnter(project);
 
+        // The previous pane for the same file (if any) hands its tree over to the new pane.
+        final ParseResultsTabPane previousPane = this.panes.stream()
+                                                           .filter(pane -> isSameFile(pane.getPsiFile(), psiFile))
+                                                           .findFirst()
+                                                           .orElse(null);
+        final ParseResultsTabPane parseResultsTabPane = new ParseResultsTabPane(project, psiFile, parseResult, this.timingsHistory, previousPane);
+
         // Remove previous
-        this.removeAll();
+        this.removePanes();
 
         // Add new
-        final ParseResultsTabPane parseResultsTabPane = new ParseResultsTabPane(project, psiFile, parseResult);
+        Disposer.register(project, parseResultsTabPane);
+        this.panes.add(parseResultsTabPane);
         this.add(parseResultsTabPane.getPaneTitle(), parseResultsTabPane);
         this.setSelectedComponent(parseResultsTabPane);
 
@@ -46,10 +144,39 @@ public class ParseResultsTabPanesContainer extends JBTabbedPane {
     }
 
 
+    public ProjectParseResultsPane addProjectParseResultsPane(@NotNull Project project, @NotNull ProjectParseResult projectParseResult, @NotNull Consumer<Path> fileOpener) {
+        notificationLogger.traceEnter(project);
+
+        // Remove previous
+        this.removePanes();
+        if (this.projectParseResultsPane != null) {
+            this.remove(this.projectParseResultsPane);
+        }
+
+        // Add new, as the first tab
+        this.projectParseResultsPane = new ProjectParseResultsPane(project, projectParseResult, fileOpener);
+        this.insertTab(this.projectParseResultsPane.getPaneTitle(), null, this.projectParseResultsPane, null, 0);
+        this.setSelectedComponent(this.projectParseResultsPane);
+
+        return this.projectParseResultsPane;
+    }
+
+
+    /**
+     * Cache a parse result (and its prepared output) for display later, e.g. when switching back to the same file.
+     * This may be called from a background thread.
+     */
+    public void cacheParse(@NotNull CacheKey key, @NotNull ParseResult<CompilationUnit> parseResult, @NotNull ParseResultsTabPane.PreparedOutput preparedOutput) {
+        this.parseCache.put(key, new CachedParse(parseResult, preparedOutput));
+    }
+
+
     public void doReset(@Nullable Project project) {
         notificationLogger.traceEnter(project);
 
         // Remove previous
+        this.removePanes();
+        this.projectParseResultsPane = null;
         this.removeAll();
 
         // Add blank
@@ -59,6 +186,21 @@ public class ParseResultsTabPanesContainer extends JBTabbedPane {
     }
 
 
+    /**
+     * @return The cached parse result for the key, if it has been displayed recently and not since been evicted.
+     */
+    @NotNull
+    public Optional<CachedParse> getCachedParse(@NotNull CacheKey key) {
+        return this.parseCache.get(key);
+    }
+
+
+    @NotNull
+    public MemoryBoundedCache<CacheKey, CachedParse> getParseCache() {
+        return this.parseCache;
+    }
+
+
     @NotNull
     public List<ParseResultsTabPane> getPanes() {
         notificationLogger.traceEnter();
@@ -66,6 +208,40 @@ public class ParseResultsTabPanesContainer extends JBTabbedPane {
     }
 
 
+    @NotNull
+    public PipelineTimingsHistory getTimingsHistory() {
+        return this.timingsHistory;
+    }
+
+
+    /**
+     * Remove all cached parse results for the file, e.g. because its displayed syntax tree has been modified in place
+     * by a live re-parse.
+     */
+    public void invalidateCachedParses(@NotNull VirtualFile virtualFile) {
+        this.parseCache.invalidateIf(key -> key.virtualFile.equals(virtualFile));
+    }
+
+
+    /**
+     * Remove all tabs other than the project parse results, disposing of the parse result panes (e.g. to stop any live
+     * re-parsing of their files).
+     */
+    private void removePanes() {
+        this.panes.forEach(pane -> {
+            this.remove(pane);
+            Disposer.dispose(pane);
+        });
+        this.panes.clear();
+
+        for (int i = this.getTabCount() - 1; i >= 0; i--) {
+            if (this.getComponentAt(i) instanceof EmptyPane) {
+                this.removeTabAt(i);
+            }
+        }
+    }
+
+
     private static class EmptyPane extends JPanel {
 
         EmptyPane() {
@@ -75,4 +251,85 @@ public class ParseResultsTabPanesContainer extends JBTabbedPane {
 
     }
 
+    /**
+     * Identifies a parse result: the file and its modification stamp (of the document if parsing the editor buffer),
+     * the parser configuration, and the options used to prepare the output.
+     */
+    public static final class CacheKey {
+
+        private final String      configurationFingerprint;
+        private final boolean     includeNodeType;
+        private final long        modificationStamp;
+        private final String      outputFormat;
+        private final ParseSource parseSource;
+        private final VirtualFile virtualFile;
+
+
+        public CacheKey(@NotNull VirtualFile virtualFile, long modificationStamp, @NotNull ParseSource parseSource,
+                        @NotNull String configurationFingerprint, @Nullable String outputFormat, boolean includeNodeType) {
+            this.virtualFile = virtualFile;
+            this.modificationStamp = modificationStamp;
+            this.parseSource = parseSource;
+            this.configurationFingerprint = configurationFingerprint;
+            this.outputFormat = outputFormat;
+            this.includeNodeType = includeNodeType;
+        }
+
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+            final CacheKey cacheKey = (CacheKey) o;
+            return this.includeNodeType == cacheKey.includeNodeType &&
+                   this.modificationStamp == cacheKey.modificationStamp &&
+                   this.configurationFingerprint.equals(cacheKey.configurationFingerprint) &&
+                   Objects.equals(this.outputFormat, cacheKey.outputFormat) &&
+                   this.parseSource == cacheKey.parseSource &&
+                   this.virtualFile.equals(cacheKey.virtualFile);
+        }
+
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.configurationFingerprint, this.includeNodeType, this.modificationStamp, this.outputFormat, this.parseSource, this.virtualFile);
+        }
+
+    }
+
+    /**
+     * A parse result together with its prepared output, ready to be shown again.
+     */
+    public static final class CachedParse {
+
+        @NotNull
+        private final ParseResult<CompilationUnit> parseResult;
+
+        @NotNull
+        private final ParseResultsTabPane.PreparedOutput preparedOutput;
+
+
+        CachedParse(@NotNull ParseResult<CompilationUnit> parseResult, @NotNull ParseResultsTabPane.PreparedOutput preparedOutput) {
+            this.parseResult = parseResult;
+            this.preparedOutput = preparedOutput;
+        }
+
+
+        @NotNull
+        public ParseResult<CompilationUnit> getParseResult() {
+            return this.parseResult;
+        }
+
+
+        @NotNull
+        public ParseResultsTabPane.PreparedOutput getPreparedOutput() {
+            return this.preparedOutput;
+        }
+
+    }
+
 }
@@ -0,0 +1,262 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components.output_results_tabs;
+
+import com.github.javaparser.Problem;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.logging.NotificationLogger;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse.ProjectGraphExporter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse.ProjectGraphMLWriter;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse.ProjectParseResult;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.ui.JBColor;
+import com.intellij.ui.components.JBList;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.components.JBTextArea;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Displays the aggregate counts, problems and timing from parsing a whole project, plus a list of the files.
+ * Opening a file (double click / enter) parses it on its own, as per the usual single-file parse.
+ *
+ * The whole project may also be exported as a single GraphML document.
+ */
+public class ProjectParseResultsPane extends JPanel {
+
+    private static final NotificationLogger notificationLogger = new NotificationLogger(ProjectParseResultsPane.class);
+
+    private static final String NEWLINE = String.format("%n");
+
+    @NotNull
+    private final JCheckBox crossFileEdgesCheckBox;
+
+    @NotNull
+    private final JBTextArea fileDetailsTextDisplay;
+
+    @NotNull
+    private final JBList<ProjectParseResult.FileParseResult> fileList;
+
+    @NotNull
+    private final Consumer<Path> fileOpener;
+
+    @NotNull
+    private final JCheckBox includeNodeTypeCheckBox;
+
+    @NotNull
+    private final Project project;
+
+    @NotNull
+    private final ProjectParseResult projectParseResult;
+
+
+    /**
+     * @param fileOpener Called (on the event dispatch thread) with the path of a file which is to be opened.
+     */
+    public ProjectParseResultsPane(@NotNull Project project, @NotNull ProjectParseResult projectParseResult, @NotNull Consumer<Path> fileOpener) {
+        super();
+        notificationLogger.traceEnter(project);
+
+        this.project = project;
+        this.projectParseResult = projectParseResult;
+        this.fileOpener = fileOpener;
+
+        // Export
+        final JButton exportButton = new JButton("Export Project Graph (GraphML)...");
+        exportButton.addActionListener(e -> this.exportProjectGraph());
+        this.includeNodeTypeCheckBox = new JCheckBox("Include node type", true);
+        this.crossFileEdgesCheckBox = new JCheckBox("Include cross-file type references", true);
+
+        final JPanel exportPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        exportPanel.add(exportButton);
+        exportPanel.add(this.includeNodeTypeCheckBox);
+        exportPanel.add(this.crossFileEdgesCheckBox);
+
+        // Summary
+        final JBTextArea summaryTextDisplay = new JBTextArea(buildSummaryText(projectParseResult));
+        summaryTextDisplay.setEditable(false);
+
+        // Files
+        this.fileList = new JBList<>(projectParseResult.getFiles());
+        this.fileList.setCellRenderer(new FileCellRenderer());
+        this.fileList.addListSelectionListener(e -> this.updateFileDetails());
+        this.fileList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    ProjectParseResultsPane.this.openSelectedFile();
+                }
+            }
+        });
+        this.fileList.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    ProjectParseResultsPane.this.openSelectedFile();
+                }
+            }
+        });
+
+        this.fileDetailsTextDisplay = new JBTextArea("Select a file to see its problems -- double click (or press enter) to open and parse it.");
+        this.fileDetailsTextDisplay.setEditable(false);
+
+        //
+        final JSplitPane filesSplitPane = new JSplitPane();
+        filesSplitPane.setDividerLocation(400);
+        filesSplitPane.setLeftComponent(new JBScrollPane(this.fileList));
+        filesSplitPane.setRightComponent(new JBScrollPane(this.fileDetailsTextDisplay));
+
+        final JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
+        splitPane.setTopComponent(new JBScrollPane(summaryTextDisplay));
+        splitPane.setBottomComponent(filesSplitPane);
+        splitPane.setDividerLocation(200);
+
+        this.setLayout(new BorderLayout());
+        this.add(exportPanel, BorderLayout.NORTH);
+        this.add(splitPane, BorderLayout.CENTER);
+    }
+
+
+    private static String buildSummaryText(@NotNull ProjectParseResult result) {
+        final long totalFileParseNanos = result.getTotalFileParseNanos();
+        final long wallTimeNanos       = result.getWallTimeNanos();
+
+        String output = "";
+
+        output += "== PROJECT PARSE SUMMARY ==";
+        if (result.isCancelled()) {
+            output += NEWLINE + " - CANCELLED -- only some of the files have been parsed.";
+        }
+        output += NEWLINE + " - Source roots: " + result.getSourceRoots().size();
+        for (final Path sourceRoot : result.getSourceRoots()) {
+            output += NEWLINE + "     - " + sourceRoot;
+        }
+        output += NEWLINE + " - Files parsed: " + result.getFiles().size();
+        output += NEWLINE + " - Files with failures: " + result.getFailedFileCount();
+        output += NEWLINE + " - Problem count: " + result.getProblemCount();
+        output += NEWLINE + " - Node count: " + result.getTotalNodeCount();
+        output += NEWLINE;
+        output += NEWLINE + " - Wall time: " + formatMillis(wallTimeNanos);
+        output += NEWLINE + " - Total per-file parse time: " + formatMillis(totalFileParseNanos);
+        output += NEWLINE + " - Parallelism: " + result.getParallelism() + (result.isVirtualThreads() ? " (virtual threads)" : " (platform threads)");
+        if (wallTimeNanos > 0) {
+            output += NEWLINE + String.format(" - Effective speedup: %.1fx", totalFileParseNanos / (double) wallTimeNanos);
+        }
+
+        return output;
+    }
+
+
+    /**
+     * Export every file of the project to a single GraphML file chosen by the user, in the background.
+     * Files are re-parsed (or loaded from the AST cache), as the ASTs are not retained by the project parse.
+     */
+    private void exportProjectGraph() {
+        notificationLogger.traceEnter(this.project);
+
+        final FileSaverDescriptor descriptor = new FileSaverDescriptor("Export Project Graph", "Save every file of the project as a single GraphML graph", "graphml");
+        final VirtualFileWrapper  wrapper    = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, this.project).save(null, "project.graphml");
+        if (wrapper == null) {
+            return;
+        }
+
+        final List<Path> javaFiles       = this.projectParseResult.getFiles().stream().map(ProjectParseResult.FileParseResult::getPath).collect(Collectors.toList());
+        final boolean    includeNodeType = this.includeNodeTypeCheckBox.isSelected();
+        final boolean    crossFileEdges  = this.crossFileEdgesCheckBox.isSelected();
+        final Path       path            = wrapper.getFile().toPath();
+        ProgressManager.getInstance().run(new Task.Backgroundable(this.project, "Exporting project graph to " + path.getFileName(), true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    final ProjectGraphMLWriter writer = ProjectGraphExporter.export(ProjectParseResultsPane.this.project, javaFiles, ProjectParseResultsPane.this.projectParseResult.getParserConfiguration(), path, includeNodeType, crossFileEdges, indicator);
+                    notificationLogger.info(ProjectParseResultsPane.this.project, "Exported " + writer.getFileCount() + " files (" + writer.getCrossFileEdgeCount() + " cross-file references, " + Files.size(path) + " bytes) to: " + path);
+                    if (writer.getSkippedFileCount() > 0) {
+                        notificationLogger.warn(ProjectParseResultsPane.this.project, "Skipped " + writer.getSkippedFileCount() + " files of the project graph export, as they could not be read or parsed.");
+                    }
+                } catch (IOException e) {
+                    notificationLogger.warn(ProjectParseResultsPane.this.project, "Unable to export the project graph.", e);
+                }
+            }
+        });
+    }
+
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.1fms", nanos / 1_000_000.0);
+    }
+
+
+    public String getPaneTitle() {
+        return "Project (" + this.projectParseResult.getFiles().size() + " files)";
+    }
+
+
+    private void openSelectedFile() {
+        final ProjectParseResult.FileParseResult selected = this.fileList.getSelectedValue();
+        if (selected != null) {
+            notificationLogger.traceEnter(this.project);
+            this.fileOpener.accept(selected.getPath());
+        }
+    }
+
+
+    private void updateFileDetails() {
+        final ProjectParseResult.FileParseResult selected = this.fileList.getSelectedValue();
+        if (selected == null) {
+            return;
+        }
+
+        final StringBuilder output = new StringBuilder();
+        output.append("File: ").append(selected.getPath());
+        output.append(NEWLINE).append(" - Is successful: ").append(selected.isSuccessful());
+        output.append(NEWLINE).append(" - Node count: ").append(selected.getNodeCount());
+        output.append(NEWLINE).append(" - Parse time: ").append(formatMillis(selected.getParseNanos()));
+        output.append(NEWLINE).append(" - Problem count: ").append(selected.getProblems().size());
+
+        final List<Problem> problems = selected.getProblems();
+        for (int i = 0; i < problems.size(); i++) {
+            output.append(NEWLINE)
+                  .append("\t").append("Problem #").append(i).append(": ").append(problems.get(i).getVerboseMessage());
+        }
+
+        this.fileDetailsTextDisplay.setText(output.toString());
+        this.fileDetailsTextDisplay.setCaretPosition(0);
+    }
+
+
+    private static class FileCellRenderer extends DefaultListCellRenderer {
+
+        private final Color COLOUR_FAILED = JBColor.RED.darker();
+
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+
+            final ProjectParseResult.FileParseResult file = (ProjectParseResult.FileParseResult) value;
+            this.setText(file.getPath().getFileName() + "  (" + file.getProblems().size() + " problems, " + formatMillis(file.getParseNanos()) + ")");
+            this.setToolTipText(file.getPath().toString());
+            if (!file.isSuccessful() && !isSelected) {
+                this.setForeground(this.COLOUR_FAILED);
+            }
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,252 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+/**
+ * A writer to a file, which encodes the text into one buffer while the previous buffer is being written to the file
+ * by an {@link AsynchronousFileChannel} -- thus the producer of the text (e.g. a printer) is only held up by the disk
+ * when it is producing text faster than it can be written.
+ *
+ * The number of bytes written so far is reported to the (optional) progress listener after each write completes.
+ * Exceptions thrown by the listener (e.g. on cancellation) are propagated to the caller of the writer.
+ *
+ * This is not thread-safe -- it is intended to be written to by a single thread.
+ */
+public final class AsyncChannelWriter extends Writer {
+
+    public static final int DEFAULT_BUFFER_BYTES = 1024 * 1024;
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+
+    @NotNull
+    private final AsynchronousFileChannel channel;
+
+    @NotNull
+    private final CharBuffer chars;
+
+    @NotNull
+    private final CharsetEncoder encoder;
+
+    @Nullable
+    private final LongConsumer progressListener;
+
+    private boolean closed;
+
+    @NotNull
+    private ByteBuffer filling;
+
+    /**
+     * The position within the file of the next byte to be written.
+     */
+    private long position;
+
+    @Nullable
+    private Future<Integer> pendingWrite;
+
+    @NotNull
+    private ByteBuffer writing;
+
+
+    private AsyncChannelWriter(@NotNull AsynchronousFileChannel channel, @NotNull Charset charset, int bufferBytes, @Nullable LongConsumer progressListener) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                              .onMalformedInput(CodingErrorAction.REPLACE)
+                              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.progressListener = progressListener;
+        this.chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        this.filling = ByteBuffer.allocate(bufferBytes);
+        this.writing = ByteBuffer.allocate(bufferBytes);
+        this.position = 0;
+        this.closed = false;
+    }
+
+
+    /**
+     * Open the file for writing, replacing any existing content.
+     *
+     * @param progressListener Given the number of bytes written so far, after each write to the file completes.
+     */
+    public static AsyncChannelWriter open(@NotNull Path path, @NotNull Charset charset, @Nullable LongConsumer progressListener) throws IOException {
+        return open(path, charset, DEFAULT_BUFFER_BYTES, progressListener);
+    }
+
+
+    public static AsyncChannelWriter open(@NotNull Path path, @NotNull Charset charset, int bufferBytes, @Nullable LongConsumer progressListener) throws IOException {
+        if (bufferBytes < 16) {
+            throw new IllegalArgumentException("The buffer must be at least 16 bytes (given: " + bufferBytes + ").");
+        }
+        final AsynchronousFileChannel channel = AsynchronousFileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new AsyncChannelWriter(channel, charset, bufferBytes, progressListener);
+    }
+
+
+    /**
+     * Wait for the pending write (if any) to complete, including any remainder of the buffer not written by the
+     * first attempt.
+     */
+    private void awaitPendingWrite() throws IOException {
+        while (this.pendingWrite != null) {
+            final int written;
+            try {
+                written = this.pendingWrite.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing to the file.");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+
+            this.position += written;
+            this.pendingWrite = this.writing.hasRemaining() ? this.channel.write(this.writing, this.position) : null;
+
+            if (this.progressListener != null) {
+                this.progressListener.accept(this.position);
+            }
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            this.encode(true);
+            while (this.encoder.flush(this.filling).isOverflow()) {
+                this.submit();
+            }
+            this.submit();
+            this.awaitPendingWrite();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+
+    /**
+     * Encode the buffered characters into the filling buffer, submitting it for writing whenever it is full.
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        this.chars.flip();
+        while (true) {
+            final CoderResult result = this.encoder.encode(this.chars, this.filling, endOfInput);
+            if (result.isOverflow()) {
+                this.submit();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        this.chars.compact();
+    }
+
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("The writer has been closed.");
+        }
+    }
+
+
+    /**
+     * Encode and write everything written so far, waiting for the writes to complete.
+     */
+    @Override
+    public void flush() throws IOException {
+        this.ensureOpen();
+        this.encode(false);
+        this.submit();
+        this.awaitPendingWrite();
+    }
+
+
+    /**
+     * @return The number of bytes written to the file so far.
+     */
+    public long getBytesWritten() {
+        return this.position;
+    }
+
+
+    /**
+     * Start writing the filling buffer (once the previous write has completed), and swap to filling the other.
+     */
+    private void submit() throws IOException {
+        if (this.filling.position() == 0) {
+            return;
+        }
+        this.awaitPendingWrite();
+
+        final ByteBuffer full = this.filling;
+        this.filling = this.writing;
+        this.writing = full;
+
+        this.filling.clear();
+        this.writing.flip();
+        this.pendingWrite = this.channel.write(this.writing, this.position);
+    }
+
+
+    @Override
+    public void write(@NotNull char[] cbuf, int off, int len) throws IOException {
+        this.ensureOpen();
+        while (len > 0) {
+            final int count = Math.min(len, this.chars.remaining());
+            this.chars.put(cbuf, off, count);
+            off += count;
+            len -= count;
+            if (!this.chars.hasRemaining()) {
+                this.encode(false);
+            }
+        }
+    }
+
+
+    @Override
+    public void write(@NotNull String str, int off, int len) throws IOException {
+        this.ensureOpen();
+        while (len > 0) {
+            final int count = Math.min(len, this.chars.remaining());
+            this.chars.put(str, off, off + count);
+            off += count;
+            len -= count;
+            if (!this.chars.hasRemaining()) {
+                this.encode(false);
+            }
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return "AsyncChannelWriter{" +
+               "position=" + this.position +
+               ", closed=" + this.closed +
+               '}';
+    }
+
+}
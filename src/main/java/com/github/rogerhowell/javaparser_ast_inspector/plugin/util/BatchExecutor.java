@@ -0,0 +1,152 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs batches of tasks (e.g. parsing many files) with at most a fixed number running at once, on a dedicated set of
+ * threads rather than on the IDE's shared pools.
+ *
+ * When the runtime supports virtual threads (Java 21+), each task runs on its own virtual thread -- tasks blocked on
+ * file reads then do not hold up a platform thread. Otherwise, tasks run on a bounded pool of platform threads.
+ * Either way, the number of tasks running at once is capped.
+ */
+public final class BatchExecutor implements AutoCloseable {
+
+    /**
+     * The cap on the number of tasks running at once may be overridden via this system property.
+     */
+    public static final String MAX_CONCURRENCY_PROPERTY = "javaparser.astInspector.batchParse.maxConcurrency";
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    @NotNull
+    private final ExecutorService executorService;
+
+    private final int maxConcurrency;
+
+    @NotNull
+    private final Semaphore permits;
+
+    private final boolean virtualThreads;
+
+
+    private BatchExecutor(@NotNull ExecutorService executorService, int maxConcurrency, boolean virtualThreads) {
+        this.executorService = executorService;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.virtualThreads = virtualThreads;
+    }
+
+
+    /**
+     * Create an executor, capped at the number of cores (unless overridden via {@link #MAX_CONCURRENCY_PROPERTY}).
+     */
+    @NotNull
+    public static BatchExecutor create() {
+        return create(Integer.getInteger(MAX_CONCURRENCY_PROPERTY, Runtime.getRuntime().availableProcessors()), true);
+    }
+
+
+    /**
+     * @param maxConcurrency       The most tasks to run at once.
+     * @param allowVirtualThreads  Whether to use virtual threads, when supported by the runtime.
+     */
+    @NotNull
+    public static BatchExecutor create(int maxConcurrency, boolean allowVirtualThreads) {
+        final int cap = Math.max(1, maxConcurrency);
+
+        if (allowVirtualThreads) {
+            final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+            if (virtualThreadExecutor != null) {
+                return new BatchExecutor(virtualThreadExecutor, cap, true);
+            }
+        }
+
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "JavaParser AST Inspector batch #" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(cap, cap, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return new BatchExecutor(pool, cap, false);
+    }
+
+
+    /**
+     * Looked up reflectively, as the plugin targets runtimes which predate virtual threads.
+     *
+     * @return A virtual-thread-per-task executor, or null if virtual threads are not supported.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not supported (or preview features not enabled) -- fall back to platform threads.
+            return null;
+        }
+    }
+
+
+    /**
+     * Stop any running tasks (via interruption), and discard any which have not yet started.
+     */
+    @Override
+    public void close() {
+        this.executorService.shutdownNow();
+    }
+
+
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+
+    /**
+     * @return True if tasks run on virtual threads, or false if they run on a pool of platform threads.
+     */
+    public boolean isVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+
+    @NotNull
+    public <T> Future<T> submit(@NotNull Callable<T> task) {
+        if (!this.virtualThreads) {
+            // The pool itself has only as many threads as permitted tasks.
+            return this.executorService.submit(task);
+        }
+
+        return this.executorService.submit(() -> {
+            this.permits.acquire();
+            try {
+                return task.call();
+            } finally {
+                this.permits.release();
+            }
+        });
+    }
+
+
+    @Override
+    public String toString() {
+        return "BatchExecutor{" +
+               "maxConcurrency=" + this.maxConcurrency +
+               ", virtualThreads=" + this.virtualThreads +
+               '}';
+    }
+
+}
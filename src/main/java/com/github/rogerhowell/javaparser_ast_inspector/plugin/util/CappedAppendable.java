@@ -0,0 +1,109 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Collects up to a maximum number of characters, e.g. to show a preview of some (potentially huge) output.
+ *
+ * Once the maximum is reached, further appends throw a {@link LimitReachedException} -- such that whatever is producing
+ * the output stops, rather than continuing to produce output which will be discarded.
+ */
+public final class CappedAppendable implements Appendable {
+
+    private final StringBuilder builder;
+    private final int           maxChars;
+
+    private boolean truncated;
+
+
+    public CappedAppendable(int maxChars) {
+        if (maxChars < 0) {
+            throw new IllegalArgumentException("The maximum number of characters must not be negative (given: " + maxChars + ").");
+        }
+        this.maxChars = maxChars;
+        this.builder = new StringBuilder(Math.min(maxChars, 8 * 1024));
+        this.truncated = false;
+    }
+
+
+    @Override
+    public CappedAppendable append(CharSequence csq) throws IOException {
+        final CharSequence value = csq == null ? "null" : csq;
+        return this.append(value, 0, value.length());
+    }
+
+
+    @Override
+    public CappedAppendable append(CharSequence csq, int start, int end) throws IOException {
+        final CharSequence value = csq == null ? "null" : csq;
+        final int          room  = this.maxChars - this.builder.length();
+        if (end - start > room) {
+            this.builder.append(value, start, start + room);
+            this.truncated = true;
+            throw new LimitReachedException(this.maxChars);
+        }
+        this.builder.append(value, start, end);
+        return this;
+    }
+
+
+    @Override
+    public CappedAppendable append(char c) throws IOException {
+        if (this.builder.length() >= this.maxChars) {
+            this.truncated = true;
+            throw new LimitReachedException(this.maxChars);
+        }
+        this.builder.append(c);
+        return this;
+    }
+
+
+    public int getMaxChars() {
+        return this.maxChars;
+    }
+
+
+    /**
+     * @return The characters collected so far (i.e. at most the maximum).
+     */
+    @NotNull
+    public String getText() {
+        return this.builder.toString();
+    }
+
+
+    /**
+     * @return Whether any output was discarded, having reached the maximum.
+     */
+    public boolean isTruncated() {
+        return this.truncated;
+    }
+
+
+    @Override
+    public String toString() {
+        return "CappedAppendable{" +
+               "length=" + this.builder.length() +
+               ", maxChars=" + this.maxChars +
+               ", truncated=" + this.truncated +
+               '}';
+    }
+
+
+    /**
+     * Thrown when appending beyond the maximum number of characters.
+     */
+    public static final class LimitReachedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+
+        LimitReachedException(int maxChars) {
+            super("Reached the maximum of " + maxChars + " characters.");
+        }
+
+    }
+
+}
@@ -4,6 +4,7 @@ import java.io.File;
 
 public final class Constants {
 
+    public static final String PLUGIN_ID          = "com.github.rogerhowell.JavaCodeBrowser"; // see plugin.xml
     public static final String PLUGIN_NAME        = "JavaParser AST Inspector";
     public static final String TOOL_WINDOW_ID     = "JavaParser AST Inspector"; // see plugin.xml
     public static final String DEFAULT_EXPORT_DIR = System.getProperty("user.home") + File.separatorChar + TOOL_WINDOW_ID;
@@ -1,5 +1,6 @@
 package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
 
+import com.github.javaparser.Position;
 import com.github.javaparser.Range;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.LogicalPosition;
@@ -13,6 +14,12 @@ public final class EditorUtil {
     }
 
 
+    public static Position intellijLogicalPositionToJavaParserPosition(final LogicalPosition logicalPosition) {
+        // Note that the JavaParser Position has 1-indexed lines and columns, while the IntelliJ LogicalPosition is 0-indexed.
+        return new Position(logicalPosition.line + 1, logicalPosition.column + 1);
+    }
+
+
     public static TextRange javaParserRangeToIntellijOffsetRange(final Editor editor, final Range range) {
         // Note that the JavaParser Range has 1-indexed lines, while the IntelliJ LogicalPosition is 0-indexed.
         final LogicalPosition startPosition = new LogicalPosition(range.begin.line - 1, range.begin.column - 1); // start highlighting just before the given character/column
@@ -0,0 +1,141 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import com.github.javaparser.Position;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An index of the line start offsets within some source text, used to convert between character offsets and
+ * JavaParser {@link Position}s (1-indexed line and column).
+ *
+ * Line terminators ({@code \n}, {@code \r\n}, {@code \r}) and tab stops are treated the same way as JavaParser's
+ * lexer does, such that the positions match those of the nodes when the text is parsed with the same tab size.
+ */
+public final class LineIndex {
+
+    @NotNull
+    private final int[] lineStarts;
+
+    private final int tabSize;
+
+    @NotNull
+    private final CharSequence text;
+
+
+    private LineIndex(@NotNull CharSequence text, @NotNull int[] lineStarts, int tabSize) {
+        this.text = text;
+        this.lineStarts = lineStarts;
+        this.tabSize = Math.max(1, tabSize);
+    }
+
+
+    /**
+     * @param text    The source text -- this must not be modified while the index is in use.
+     * @param tabSize The tab size, as per {@code ParserConfiguration#getTabSize()}.
+     */
+    public static LineIndex of(@NotNull CharSequence text, int tabSize) {
+        Objects.requireNonNull(text);
+
+        int[] lineStarts = new int[64];
+        int   lineCount  = 1;
+
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 >= length || text.charAt(i + 1) != '\n'))) {
+                if (lineCount == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+                }
+                lineStarts[lineCount++] = i + 1;
+            }
+        }
+
+        return new LineIndex(text, Arrays.copyOf(lineStarts, lineCount), tabSize);
+    }
+
+
+    /**
+     * Advance the column past the given character, as JavaParser's lexer does.
+     */
+    private int advanceColumn(int column, char c) {
+        if (c == '\t') {
+            return column + (this.tabSize - (column % this.tabSize));
+        }
+        return column + 1;
+    }
+
+
+    public int getLineCount() {
+        return this.lineStarts.length;
+    }
+
+
+    public int getTabSize() {
+        return this.tabSize;
+    }
+
+
+    @NotNull
+    public CharSequence getText() {
+        return this.text;
+    }
+
+
+    /**
+     * @param line The 1-indexed line number.
+     * @return The offset of the first character on the given line.
+     */
+    public int lineStartOffset(int line) {
+        if (line < 1 || line > this.lineStarts.length) {
+            throw new IndexOutOfBoundsException("Line " + line + " is not within the text (line count: " + this.lineStarts.length + ").");
+        }
+        return this.lineStarts[line - 1];
+    }
+
+
+    /**
+     * @return The position of the character at the given offset.
+     */
+    @NotNull
+    public Position offsetToPosition(int offset) {
+        if (offset < 0 || offset > this.text.length()) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " is not within the text (length: " + this.text.length() + ").");
+        }
+
+        int lineIndex = Arrays.binarySearch(this.lineStarts, offset);
+        if (lineIndex < 0) {
+            lineIndex = -lineIndex - 2;
+        }
+
+        int column = 0;
+        for (int i = this.lineStarts[lineIndex]; i < offset; i++) {
+            column = this.advanceColumn(column, this.text.charAt(i));
+        }
+
+        // The column of a character is the column reached after reading it.
+        final char c = offset < this.text.length() ? this.text.charAt(offset) : ' ';
+        return new Position(lineIndex + 1, this.advanceColumn(column, c));
+    }
+
+
+    /**
+     * @return The offset of the character at the given position, or of the first character beyond it when the
+     * position falls within a tab stop. Positions beyond the end of a line resolve to the end of that line.
+     */
+    public int positionToOffset(@NotNull Position position) {
+        final int lineStart = this.lineStartOffset(position.line);
+        final int lineEnd   = position.line < this.lineStarts.length ? this.lineStarts[position.line] : this.text.length();
+
+        int column = 0;
+        for (int i = lineStart; i < lineEnd; i++) {
+            column = this.advanceColumn(column, this.text.charAt(i));
+            if (column >= position.column) {
+                return i;
+            }
+        }
+        return lineEnd;
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An index of the ranges of every node within an AST, used to find the deepest node at a given position (e.g. that of
+ * the caret) without walking the AST.
+ *
+ * The ranges of an AST nest within each other, thus split the text into segments -- each of which lies within the same
+ * nodes throughout. The index holds the start of each segment (sorted), along with the deepest node that the segment
+ * lies within, such that a lookup is a single binary search.
+ *
+ * The index is a snapshot of the ranges at the time it was built -- it must be rebuilt once the AST is modified.
+ */
+public final class NodeRangeIndex {
+
+    /**
+     * Outermost first where several nodes begin at the same position -- i.e. the longest range, then the shallowest
+     * node (e.g. a type before its name, where both have the same range).
+     */
+    private static final Comparator<Entry> BY_BEGIN_OUTERMOST_FIRST = Comparator.<Entry>comparingLong(entry -> entry.begin)
+                                                                                .thenComparing(Comparator.<Entry>comparingLong(entry -> entry.end).reversed())
+                                                                                .thenComparingInt(entry -> entry.depth);
+
+    /**
+     * The deepest node within each segment, or null where the segment is not within any node.
+     */
+    @NotNull
+    private final Node[] segmentNodes;
+
+    /**
+     * The (encoded) position at which each segment starts, in ascending order.
+     */
+    @NotNull
+    private final long[] segmentStarts;
+
+
+    private NodeRangeIndex(@NotNull long[] segmentStarts, @NotNull Node[] segmentNodes) {
+        this.segmentStarts = segmentStarts;
+        this.segmentNodes = segmentNodes;
+    }
+
+
+    /**
+     * Index the given node and all of its descendants. Nodes without a range are not indexed, and nor are any whose
+     * range partly overlaps that of an enclosing node (which JavaParser does not produce).
+     */
+    @NotNull
+    public static NodeRangeIndex of(@NotNull Node root) {
+        Objects.requireNonNull(root);
+
+        final List<Entry> entries = new ArrayList<>();
+        collect(root, 0, entries);
+        entries.sort(BY_BEGIN_OUTERMOST_FIRST);
+
+        final Segments     segments  = new Segments(2 * entries.size() + 1);
+        final Deque<Entry> enclosing = new ArrayDeque<>();
+        for (final Entry entry : entries) {
+            // Close the nodes which end before this one begins.
+            while (!enclosing.isEmpty() && enclosing.peek().end < entry.begin) {
+                final Entry closed = enclosing.pop();
+                segments.add(closed.end + 1, enclosing.isEmpty() ? null : enclosing.peek().node);
+            }
+            if (!enclosing.isEmpty() && enclosing.peek().end < entry.end) {
+                continue;
+            }
+
+            enclosing.push(entry);
+            segments.add(entry.begin, entry.node);
+        }
+        while (!enclosing.isEmpty()) {
+            final Entry closed = enclosing.pop();
+            segments.add(closed.end + 1, enclosing.isEmpty() ? null : enclosing.peek().node);
+        }
+
+        return new NodeRangeIndex(Arrays.copyOf(segments.starts, segments.size), Arrays.copyOf(segments.nodes, segments.size));
+    }
+
+
+    private static void collect(@NotNull Node node, int depth, @NotNull List<Entry> entries) {
+        final Range range = node.getRange().orElse(null);
+        if (range != null) {
+            entries.add(new Entry(node, encode(range.begin), encode(range.end), depth));
+        }
+        for (final Node child : node.getChildNodes()) {
+            collect(child, depth + 1, entries);
+        }
+    }
+
+
+    /**
+     * Encode the position as a single value, which sorts in the same order as the positions.
+     */
+    private static long encode(@NotNull Position position) {
+        return ((long) position.line << 32) | (position.column & 0xFFFFFFFFL);
+    }
+
+
+    /**
+     * @param position The position (e.g. of the caret) -- the ranges of nodes include both their begin and end.
+     * @return The deepest node whose range includes the position, or null if there is none.
+     */
+    @Nullable
+    public Node findDeepestAt(@NotNull Position position) {
+        int index = Arrays.binarySearch(this.segmentStarts, encode(position));
+        if (index < 0) {
+            // The segment which starts before the position.
+            index = -index - 2;
+        }
+        return index < 0 ? null : this.segmentNodes[index];
+    }
+
+
+    /**
+     * @return The number of segments that the text is split into by the ranges of the nodes.
+     */
+    public int getSegmentCount() {
+        return this.segmentStarts.length;
+    }
+
+
+    @Override
+    public String toString() {
+        return "NodeRangeIndex{" +
+               "segmentCount=" + this.segmentStarts.length +
+               '}';
+    }
+
+
+    private static final class Entry {
+
+        private final long begin;
+        private final int  depth;
+        private final long end;
+
+        @NotNull
+        private final Node node;
+
+
+        private Entry(@NotNull Node node, long begin, long end, int depth) {
+            this.node = node;
+            this.begin = begin;
+            this.end = end;
+            this.depth = depth;
+        }
+
+    }
+
+    /**
+     * The segments, as they are found (in order of their start).
+     */
+    private static final class Segments {
+
+        private Node[] nodes;
+        private int    size = 0;
+        private long[] starts;
+
+
+        private Segments(int capacity) {
+            this.starts = new long[capacity];
+            this.nodes = new Node[capacity];
+        }
+
+
+        /**
+         * Start a segment, replacing any empty segment which would otherwise start at the same position.
+         */
+        private void add(long start, @Nullable Node node) {
+            if (this.size > 0 && this.starts[this.size - 1] == start) {
+                this.size--;
+            }
+            if (this.size > 0 && this.nodes[this.size - 1] == node) {
+                // Continues the previous segment.
+                return;
+            }
+            if (this.size == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.size * 2 + 1);
+                this.nodes = Arrays.copyOf(this.nodes, this.size * 2 + 1);
+            }
+            this.starts[this.size] = start;
+            this.nodes[this.size] = node;
+            this.size++;
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import com.github.javaparser.ParserConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+public final class ParserConfigurationUtil {
+
+    private ParserConfigurationUtil() {
+        // Empty private constructor, to prevent instantiation.
+    }
+
+
+    /**
+     * {@link ParserConfiguration} does not implement {@code equals}/{@code hashCode}, so this produces a key which is
+     * equal for any two configurations which would parse the same input in the same way.
+     *
+     * Only whether a symbol resolver is set is taken into account, not which -- configurations with a symbol resolver
+     * must therefore not be treated as interchangeable (e.g. their parsers are not pooled). Custom processors are not
+     * taken into account either -- the default processors are created afresh for every configuration, thus cannot be
+     * compared.
+     */
+    @NotNull
+    public static String fingerprint(@NotNull ParserConfiguration configuration) {
+        Objects.requireNonNull(configuration);
+
+        return String.valueOf(configuration.getLanguageLevel()) +
+               '|' + configuration.getCharacterEncoding().name() +
+               '|' + configuration.getTabSize() +
+               '|' + configuration.isAttributeComments() +
+               '|' + configuration.isStoreTokens() +
+               '|' + configuration.isLexicalPreservationEnabled() +
+               '|' + configuration.isDoNotAssignCommentsPrecedingEmptyLines() +
+               '|' + configuration.isIgnoreAnnotationsWhenAttributingComments() +
+               '|' + configuration.isPreprocessUnicodeEscapes() +
+               '|' + configuration.getSymbolResolver().isPresent();
+    }
+
+}
@@ -1,8 +1,10 @@
 package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
 
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
@@ -20,6 +22,15 @@ public final class PsiUtil {
     }
 
 
+    /**
+     * @return The document (i.e. the in-memory editor contents, including unsaved changes) for the given file, if there is one.
+     */
+    public static Optional<Document> documentForPsi(@NotNull PsiFile psiFile) {
+        Objects.requireNonNull(psiFile);
+        return Optional.ofNullable(PsiDocumentManager.getInstance(psiFile.getProject()).getDocument(psiFile));
+    }
+
+
     public static Optional<PsiFile> getCurrentFileInEditor(@NotNull Project project) {
         FileEditorManager manager = FileEditorManager.getInstance(project);
         VirtualFile[]     files   = manager.getSelectedFiles();
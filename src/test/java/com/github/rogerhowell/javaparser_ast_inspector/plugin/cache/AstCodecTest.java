@@ -0,0 +1,111 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.cache;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Problem;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class AstCodecTest {
+
+    private static final String SOURCE = "" +
+            "/* Header. */\n" +
+            "package p;\n" +
+            "\n" +
+            "import static java.util.Collections.*;\n" +
+            "\n" +
+            "/** Docs. */\n" +
+            "public final class A<T extends Comparable<T>> implements Runnable {\n" +
+            "    private int[] values = {1, 2, 3};\n" +
+            "\n" +
+            "    // Attached.\n" +
+            "    @Override\n" +
+            "    public void run() {\n" +
+            "        for (int i = 0; i < values.length; i++) {\n" +
+            "            values[i] += i > 1 ? -i : i;\n" +
+            "        }\n" +
+            "        // Orphan.\n" +
+            "    }\n" +
+            "\n" +
+            "    enum E { X, Y; }\n" +
+            "\n" +
+            "    Runnable r = () -> System.out.println(\"\\u00e9 \" + 'c' + 1L + 2.0);\n" +
+            "}\n";
+
+
+    private static ParseResult<CompilationUnit> roundTrip(ParseResult<CompilationUnit> parseResult) throws IOException {
+        return AstCodec.decode(new ByteArrayInputStream(AstCodec.encode(parseResult)));
+    }
+
+
+    private static List<String> describe(ParseResult<CompilationUnit> parseResult) {
+        final List<String> lines = new ArrayList<>();
+        parseResult.getResult().ifPresent(cu -> {
+            cu.walk(Node.TreeTraversal.PREORDER, node -> lines.add(node.getClass().getSimpleName() + " " + node.getRange().orElse(null)
+                                                                   + " comment=" + node.getComment().map(Node::toString).orElse(null)));
+            cu.getTokenRange().ifPresent(tokens -> {
+                for (JavaToken token : tokens) {
+                    lines.add(token.getKind() + " '" + token.getText() + "' " + token.getRange().orElse(null));
+                }
+            });
+        });
+        parseResult.getProblems().forEach(problem -> lines.add(problem.getMessage() + " @ " + problem.getLocation().flatMap(location -> location.toRange()).orElse(null)));
+        return lines;
+    }
+
+
+    @Test
+    public void roundTripWithTokens() throws IOException {
+        final ParseResult<CompilationUnit> original = new JavaParser(new ParserConfiguration().setStoreTokens(true)).parse(SOURCE);
+        final ParseResult<CompilationUnit> decoded  = roundTrip(original);
+
+        Assertions.assertEquals(original.getResult().get().toString(), decoded.getResult().get().toString());
+        Assertions.assertEquals(describe(original), describe(decoded));
+        Assertions.assertEquals(original.getResult().get().getAllContainedComments().size(), decoded.getCommentsCollection().get().size() - 1);
+    }
+
+
+    @Test
+    public void roundTripWithoutTokens() throws IOException {
+        final ParseResult<CompilationUnit> original = new JavaParser(new ParserConfiguration().setStoreTokens(false)).parse(SOURCE);
+        final ParseResult<CompilationUnit> decoded  = roundTrip(original);
+
+        Assertions.assertEquals(original.getResult().get().toString(), decoded.getResult().get().toString());
+        Assertions.assertEquals(describe(original), describe(decoded));
+    }
+
+
+    @Test
+    public void roundTripWithProblems() throws IOException {
+        final ParseResult<CompilationUnit> original = new JavaParser().parse("class A { void m() { int x = ; } }");
+        final ParseResult<CompilationUnit> decoded  = roundTrip(original);
+
+        Assertions.assertFalse(decoded.isSuccessful());
+        Assertions.assertEquals(
+                original.getProblems().stream().map(Problem::getMessage).collect(Collectors.toList()),
+                decoded.getProblems().stream().map(Problem::getMessage).collect(Collectors.toList())
+        );
+        Assertions.assertEquals(describe(original), describe(decoded));
+    }
+
+
+    @Test
+    public void truncatedDataIsRejected() {
+        final byte[] encoded   = AstCodec.encode(new JavaParser().parse(SOURCE));
+        final byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+
+        Assertions.assertThrows(IOException.class, () -> AstCodec.decode(new ByteArrayInputStream(truncated)));
+    }
+
+}
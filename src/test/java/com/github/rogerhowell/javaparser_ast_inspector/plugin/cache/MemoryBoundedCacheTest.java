@@ -0,0 +1,62 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MemoryBoundedCacheTest {
+
+    @Test
+    public void hitsAndMissesAreCounted() {
+        MemoryBoundedCache<String, String> cache = new MemoryBoundedCache<>(100, String::length);
+        cache.put("a", "value");
+
+        Assertions.assertEquals("value", cache.get("a").orElse(null));
+        Assertions.assertFalse(cache.get("b").isPresent());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertEquals(0.5, cache.getHitRate());
+    }
+
+
+    @Test
+    public void leastRecentlyUsedIsEvictedWhenOverBudget() {
+        MemoryBoundedCache<String, String> cache = new MemoryBoundedCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("a");
+        cache.put("c", "cccc");
+
+        Assertions.assertTrue(cache.get("a").isPresent());
+        Assertions.assertFalse(cache.get("b").isPresent());
+        Assertions.assertTrue(cache.get("c").isPresent());
+        Assertions.assertEquals(8, cache.getEstimatedBytes());
+        Assertions.assertEquals(4, cache.getEvictedBytes());
+        Assertions.assertEquals(1, cache.getEvictionCount());
+    }
+
+
+    @Test
+    public void valueLargerThanBudgetIsNotCached() {
+        MemoryBoundedCache<String, String> cache = new MemoryBoundedCache<>(3, String::length);
+        cache.put("a", "aaaa");
+
+        Assertions.assertEquals(0, cache.getEntryCount());
+        Assertions.assertEquals(0, cache.getEstimatedBytes());
+    }
+
+
+    @Test
+    public void invalidatedEntriesAreRemoved() {
+        MemoryBoundedCache<String, String> cache = new MemoryBoundedCache<>(100, String::length);
+        cache.put("a1", "x");
+        cache.put("a2", "y");
+        cache.put("b1", "z");
+        cache.invalidateIf(key -> key.startsWith("a"));
+
+        Assertions.assertEquals(1, cache.getEntryCount());
+        Assertions.assertEquals(1, cache.getEstimatedBytes());
+        Assertions.assertEquals(0, cache.getEvictedBytes());
+        Assertions.assertEquals(0, cache.getEvictionCount());
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.cache;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class PersistentAstCacheTest {
+
+    private static final String SOURCE = "class A { int i = 0; }";
+
+
+    private static long countEntries(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries.count();
+        }
+    }
+
+
+    @Test
+    public void missThenHit(@TempDir Path directory) {
+        final PersistentAstCache cache = new PersistentAstCache(directory, 1024 * 1024);
+        final String             key   = PersistentAstCache.key("config", SOURCE);
+
+        Assertions.assertFalse(cache.get(key).isPresent());
+        cache.put(key, new JavaParser().parse(SOURCE));
+
+        final Optional<ParseResult<CompilationUnit>> cached = cache.get(key);
+        Assertions.assertTrue(cached.isPresent());
+        Assertions.assertEquals(new JavaParser().parse(SOURCE).getResult().get(), cached.get().getResult().get());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+
+    @Test
+    public void keyDependsOnTextAndConfiguration() {
+        Assertions.assertEquals(PersistentAstCache.key("config", SOURCE), PersistentAstCache.key("config", new StringBuilder(SOURCE)));
+        Assertions.assertNotEquals(PersistentAstCache.key("config", SOURCE), PersistentAstCache.key("other", SOURCE));
+        Assertions.assertNotEquals(PersistentAstCache.key("config", SOURCE), PersistentAstCache.key("config", SOURCE + " "));
+    }
+
+
+    @Test
+    public void corruptEntryIsDiscarded(@TempDir Path directory) throws IOException {
+        final PersistentAstCache cache = new PersistentAstCache(directory, 1024 * 1024);
+        final String             key   = PersistentAstCache.key("config", SOURCE);
+        cache.put(key, new JavaParser().parse(SOURCE));
+
+        final Path   entry = directory.resolve(key + ".ast");
+        final byte[] bytes = Files.readAllBytes(entry);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(entry, bytes);
+
+        Assertions.assertFalse(cache.get(key).isPresent());
+        Assertions.assertEquals(1, cache.getCorruptEntryCount());
+        Assertions.assertFalse(Files.exists(entry));
+    }
+
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted(@TempDir Path directory) throws IOException {
+        final PersistentAstCache cache = new PersistentAstCache(directory, 1);
+
+        cache.put(PersistentAstCache.key("config", SOURCE), new JavaParser().parse(SOURCE));
+        cache.put(PersistentAstCache.key("config", SOURCE + " "), new JavaParser().parse(SOURCE + " "));
+
+        Assertions.assertEquals(0, countEntries(directory));
+        Assertions.assertEquals(2, cache.getEvictionCount());
+    }
+
+
+    @Test
+    public void overwritingAnEntryDoesNotCountItTwice(@TempDir Path directory) throws IOException {
+        final String key = PersistentAstCache.key("config", SOURCE);
+        new PersistentAstCache(directory, Long.MAX_VALUE).put(key, new JavaParser().parse(SOURCE));
+        final long entryBytes = Files.size(directory.resolve(key + ".ast"));
+
+        // Room for two entries, but not three.
+        final PersistentAstCache cache = new PersistentAstCache(directory, entryBytes * 11 / 5);
+        cache.put(PersistentAstCache.key("other", SOURCE), new JavaParser().parse(SOURCE));
+        cache.put(key, new JavaParser().parse(SOURCE));
+        cache.put(key, new JavaParser().parse(SOURCE));
+
+        Assertions.assertEquals(2, countEntries(directory));
+        Assertions.assertEquals(0, cache.getEvictionCount());
+    }
+
+}
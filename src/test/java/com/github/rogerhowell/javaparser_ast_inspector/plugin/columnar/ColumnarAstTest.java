@@ -0,0 +1,91 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.columnar;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class ColumnarAstTest {
+
+    private static final String SOURCE = "package a.b;\n" +
+                                         "import java.util.*;\n" +
+                                         "/** Doc. */\n" +
+                                         "public abstract class A<T extends Comparable<T>> implements Runnable {\n" +
+                                         "    private static final String S = \"a \\\"quoted\\\" \\\\ string\";\n" +
+                                         "    // Line comment\n" +
+                                         "    @Override public void run() { for (int i = 0; i < 10; i++) { if (i % 2 == 0) continue; } }\n" +
+                                         "    abstract <U> U m(List<? super T> list, int... values) throws Exception;\n" +
+                                         "    List<String> l = new ArrayList<>();\n" +
+                                         "    enum E { X, Y; /* Orphan comment */ }\n" +
+                                         "}\n";
+
+
+    private static ColumnarAst roundTrip(ColumnarAst columnarAst) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        columnarAst.write(outputStream);
+        return ColumnarAst.read(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+
+    @Test
+    public void columnsDescribeTheTree() throws IOException {
+        CompilationUnit cu          = StaticJavaParser.parse(SOURCE);
+        ColumnarAst     columnarAst = roundTrip(ColumnarAst.of(cu));
+
+        // Note that comments are stored as children of the nodes they are attached to (orphan comments are already children).
+        Assertions.assertEquals((int) (cu.stream().count() + cu.stream().filter(n -> n.getComment().isPresent()).count()), columnarAst.getNodeCount());
+        Assertions.assertEquals("CompilationUnit", columnarAst.getTypeName(0));
+        Assertions.assertEquals(-1, columnarAst.getParent(0));
+        Assertions.assertEquals(cu.getRange().get(), columnarAst.getRange(0));
+
+        for (int node = 0; node < columnarAst.getNodeCount(); node++) {
+            for (int i = 0; i < columnarAst.getChildCount(node); i++) {
+                Assertions.assertEquals(node, columnarAst.getParent(columnarAst.getChild(node, i)));
+            }
+            if ("SimpleName".equals(columnarAst.getTypeName(node))) {
+                Assertions.assertNotNull(columnarAst.getAttribute(node, "identifier"));
+            }
+        }
+    }
+
+
+    @Test
+    public void rebuildsAnEquivalentAst() throws IOException {
+        CompilationUnit cu      = StaticJavaParser.parse(SOURCE);
+        Node            rebuilt = roundTrip(ColumnarAst.of(cu)).toNode();
+
+        Assertions.assertTrue(rebuilt instanceof CompilationUnit);
+        Assertions.assertEquals(cu, rebuilt);
+        Assertions.assertEquals(cu.toString(), rebuilt.toString());
+        Assertions.assertEquals(cu.getRange(), rebuilt.getRange());
+    }
+
+
+    @Test
+    public void rebuildsEmptyOptionalLists() throws IOException {
+        // Empty anonymous class bodies and diamonds, including within the children of a node which has one itself.
+        CompilationUnit cu = StaticJavaParser.parse("class A {\n" +
+                                                    "    Object a = new java.util.ArrayList<>() {};\n" +
+                                                    "    Object b = new java.util.HashMap<String, java.util.List<String>>(new java.util.TreeMap<>() {}) {};\n" +
+                                                    "    Object c = new Object() { Runnable r = new Runnable() { public void run() {} }; };\n" +
+                                                    "    Object d = new java.util.ArrayList<>();\n" +
+                                                    "}\n");
+        Node rebuilt = roundTrip(ColumnarAst.of(cu)).toNode();
+
+        Assertions.assertEquals(cu, rebuilt);
+        Assertions.assertEquals(cu.toString(), rebuilt.toString());
+    }
+
+
+    @Test
+    public void rejectsOtherData() {
+        Assertions.assertThrows(IOException.class, () -> ColumnarAst.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+        Assertions.assertThrows(IOException.class, () -> ColumnarAst.read(new ByteArrayInputStream(new byte[]{0x4A, 0x50})));
+    }
+
+}
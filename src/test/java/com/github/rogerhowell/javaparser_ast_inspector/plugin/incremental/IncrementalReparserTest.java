@@ -0,0 +1,125 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.incremental;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.LineIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class IncrementalReparserTest {
+
+    private static final String SOURCE = "" +
+            "package p;\n" +
+            "\n" +
+            "class A {\n" +
+            "    /** Docs. */\n" +
+            "    int i = 0;\n" +
+            "\n" +
+            "    void m() {\n" +
+            "        call(1);\n" +
+            "    }\n" +
+            "\n" +
+            "    // Trailing.\n" +
+            "    String s = \"x\"; int j;\n" +
+            "}\n" +
+            "class B {}\n";
+
+
+    private static List<String> describe(CompilationUnit compilationUnit) {
+        final List<String> lines = new ArrayList<>();
+        compilationUnit.walk(Node.TreeTraversal.PREORDER, node -> lines.add(node.getClass().getSimpleName() + " " + node.getRange().orElse(null)));
+        compilationUnit.getAllContainedComments().forEach(comment -> lines.add(comment.getClass().getSimpleName() + " " + comment.getRange().orElse(null)));
+        compilationUnit.getTokenRange().ifPresent(tokens -> {
+            for (JavaToken token : tokens) {
+                lines.add(token.getKind() + " '" + token.getText() + "' " + token.getRange().orElse(null));
+            }
+        });
+        return lines;
+    }
+
+
+    private static Optional<IncrementalReparser.Splice> edit(String before, String after, int changeStart, int oldChangeEnd, int newChangeEnd) {
+        final JavaParser      javaParser = new JavaParser(new ParserConfiguration());
+        final CompilationUnit cu         = javaParser.parse(before).getResult().orElseThrow(AssertionError::new);
+        final int             tabSize    = javaParser.getParserConfiguration().getTabSize();
+
+        final Optional<IncrementalReparser.Splice> splice = IncrementalReparser.reparse(javaParser, cu, LineIndex.of(before, tabSize), LineIndex.of(after, tabSize), changeStart, oldChangeEnd, newChangeEnd);
+        if (splice.isPresent()) {
+            final CompilationUnit expected = javaParser.parse(after).getResult().orElseThrow(AssertionError::new);
+            Assertions.assertEquals(expected.toString(), cu.toString());
+            Assertions.assertEquals(describe(expected), describe(cu));
+        }
+        return splice;
+    }
+
+
+    private static Optional<IncrementalReparser.Splice> replace(String target, String replacement) {
+        final int    start = SOURCE.indexOf(target);
+        final String after = SOURCE.substring(0, start) + replacement + SOURCE.substring(start + target.length());
+        return edit(SOURCE, after, start, start + target.length(), start + replacement.length());
+    }
+
+
+    @Test
+    public void editWithinMethodBodyOnlyReplacesMethod() {
+        Optional<IncrementalReparser.Splice> splice = replace("call(1);", "call(1,\n            2);\n        other();");
+        Assertions.assertTrue(splice.isPresent());
+        Assertions.assertEquals("MethodDeclaration", splice.get().getNewNode().getClass().getSimpleName());
+    }
+
+
+    @Test
+    public void editWithinFieldOnSameLineAsAnotherMember() {
+        Assertions.assertTrue(replace("\"x\"", "\"longer\"").isPresent());
+    }
+
+
+    @Test
+    public void editWithinJavadocComment() {
+        Assertions.assertTrue(replace("Docs.", "More\n     * docs.").isPresent());
+    }
+
+
+    @Test
+    public void editThatBreaksTheMemberFallsBack() {
+        Assertions.assertFalse(replace("call(1);", "call(1;").isPresent());
+    }
+
+
+    @Test
+    public void editOutsideOfAnyMemberFallsBack() {
+        Assertions.assertFalse(replace("class B", "class C").isPresent());
+    }
+
+
+    @Test
+    public void editWithinAnnotationMemberReplacesTheAnnotation() {
+        // Annotation members do not parse as class body declarations, thus the annotation as a whole is re-parsed.
+        String before = "class A {\n    @interface N {\n        int value();\n    }\n}\n";
+        String after  = before.replace("value", "count");
+        int    start  = before.indexOf("value");
+
+        Optional<IncrementalReparser.Splice> splice = edit(before, after, start, start + "value".length(), start + "count".length());
+        Assertions.assertTrue(splice.isPresent());
+        Assertions.assertEquals("AnnotationDeclaration", splice.get().getNewNode().getClass().getSimpleName());
+
+        // A top-level annotation has no enclosing member to re-parse.
+        String topLevel = "@interface N {\n    int value() default 1;\n}\n";
+        start = topLevel.indexOf("1");
+        Assertions.assertFalse(edit(topLevel, topLevel.replace("1", "22"), start, start + 1, start + 2).isPresent());
+    }
+
+
+    @Test
+    public void editChangingTheKindOfMemberFallsBack() {
+        Assertions.assertFalse(replace("int j;", "int j() {}").isPresent());
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+public class PipelineTimingsHistoryTest {
+
+    private static PipelineTimings timings(String label) {
+        PipelineTimings timings = new PipelineTimings(label, "1.0", 1000);
+        timings.record("parse", 1500, 2048);
+        timings.record("export", 500, -1);
+        return timings;
+    }
+
+
+    @Test
+    public void oldestRecordsAreDiscarded() {
+        PipelineTimingsHistory history = new PipelineTimingsHistory(2);
+        history.add(timings("A.java"));
+        history.add(timings("B.java"));
+        history.add(timings("C.java"));
+
+        Assertions.assertEquals(2, history.getRecords().size());
+        Assertions.assertEquals("B.java", history.getRecords().get(0).getLabel());
+    }
+
+
+    @Test
+    public void writeCsv() throws IOException {
+        PipelineTimingsHistory history = new PipelineTimingsHistory();
+        history.add(timings("A,\"B\".java"));
+
+        StringBuilder output = new StringBuilder();
+        history.writeCsv(output);
+
+        Assertions.assertEquals("timestamp_millis,plugin_version,label,phase,nanos,allocated_bytes\n" +
+                                "1000,1.0,\"A,\"\"B\"\".java\",parse,1500,2048\n" +
+                                "1000,1.0,\"A,\"\"B\"\".java\",export,500,-1\n",
+                                output.toString());
+    }
+
+
+    @Test
+    public void writeJson() throws IOException {
+        PipelineTimingsHistory history = new PipelineTimingsHistory();
+        history.add(timings("A\\\"B\".java"));
+
+        StringBuilder output = new StringBuilder();
+        history.writeJson(output);
+
+        Assertions.assertEquals("[\n" +
+                                "  {\"timestampMillis\": 1000, \"pluginVersion\": \"1.0\", \"label\": \"A\\\\\\\"B\\\".java\", \"totalNanos\": 2000, \"phases\": [" +
+                                "{\"name\": \"parse\", \"nanos\": 1500, \"allocatedBytes\": 2048}, " +
+                                "{\"name\": \"export\", \"nanos\": 500, \"allocatedBytes\": -1}]}\n" +
+                                "]\n",
+                                output.toString());
+    }
+
+
+    @Test
+    public void timedPhaseIsRecorded() {
+        PipelineTimings timings = new PipelineTimings("A.java", "1.0");
+        String          result  = timings.time("phase", () -> "done");
+
+        Assertions.assertEquals("done", result);
+        Assertions.assertEquals(1, timings.getPhases().size());
+        Assertions.assertEquals("phase", timings.getPhases().get(0).getName());
+        Assertions.assertTrue(timings.formatBreakdown().contains("phase"));
+    }
+
+}
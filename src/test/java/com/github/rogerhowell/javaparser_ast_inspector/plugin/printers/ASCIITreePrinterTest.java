@@ -0,0 +1,69 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ASCIITreePrinterTest {
+
+    private static final String SOURCE = "" +
+            "// Header.\n" +
+            "class A {\n" +
+            "    /** Docs. */\n" +
+            "    String s = \"x\"; int j;\n" +
+            "    void m() { /* Inline. */ call(1);\n" +
+            "        call(2);\n" +
+            "    }\n" +
+            "}\n";
+
+
+    private static CompilationUnit parse(boolean storeTokens) {
+        return new JavaParser(new ParserConfiguration().setStoreTokens(storeTokens)).parse(SOURCE).getResult().orElseThrow(AssertionError::new);
+    }
+
+
+    @Test
+    public void summariesAreTakenFromTheTokens() {
+        CompilationUnit cu = parse(true);
+
+        Assertions.assertEquals("class A {...}", ASCIITreePrinter.printNodeSummary(cu));
+        Assertions.assertEquals("String s = \"x\";", ASCIITreePrinter.printNodeSummary(cu.findAll(FieldDeclaration.class).get(0)));
+        Assertions.assertEquals("int j;", ASCIITreePrinter.printNodeSummary(cu.findAll(FieldDeclaration.class).get(1)));
+        Assertions.assertEquals("void m() { call(1);...}", ASCIITreePrinter.printNodeSummary(cu.findFirst(MethodDeclaration.class).get()));
+    }
+
+
+    @Test
+    public void summariesWithoutTokensArePrettyPrinted() {
+        CompilationUnit   cu     = parse(false);
+        MethodDeclaration method = cu.findFirst(MethodDeclaration.class).get();
+
+        Assertions.assertEquals("void m() {...}", ASCIITreePrinter.printNodeSummary(method));
+        Assertions.assertEquals("class A {...}", ASCIITreePrinter.printNodeSummary(cu.findFirst(ClassOrInterfaceDeclaration.class).get()));
+    }
+
+
+    @Test
+    public void summariesAreMemoizedUntilInvalidated() {
+        CompilationUnit             cu     = parse(false);
+        ClassOrInterfaceDeclaration type   = cu.findFirst(ClassOrInterfaceDeclaration.class).get();
+        MethodDeclaration           method = cu.findFirst(MethodDeclaration.class).get();
+        Assertions.assertEquals("class A {...}", ASCIITreePrinter.printNodeSummary(type));
+        Assertions.assertEquals("void m() {...}", ASCIITreePrinter.printNodeSummary(method));
+
+        type.setName("B");
+        method.setName("n");
+        Assertions.assertEquals("class A {...}", ASCIITreePrinter.printNodeSummary(type));
+
+        // Invalidating the method also invalidates its ancestors.
+        ASCIITreePrinter.invalidateSummaries(method);
+        Assertions.assertEquals("class B {...}", ASCIITreePrinter.printNodeSummary(type));
+        Assertions.assertEquals("void n() {...}", ASCIITreePrinter.printNodeSummary(method));
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BatchedCypherPrinterTest {
+
+    @Test
+    public void rowsAreSplitIntoBatches() {
+        CompilationUnit cu        = StaticJavaParser.parse("class A { int a; int b; int c; int d; int e; }");
+        int             nodeCount = cu.stream().mapToInt(n -> 1).sum();
+
+        String       output = new BatchedCypherPrinter(false, 2).output(cu);
+        List<String> rows   = output.lines().filter(line -> line.startsWith("  {id: ")).collect(Collectors.toList());
+
+        Assertions.assertEquals(nodeCount, rows.size());
+        Assertions.assertEquals(nodeCount - 1, rows.stream().filter(row -> row.contains(", parent: ")).count());
+        Assertions.assertEquals((nodeCount + 1) / 2, output.lines().filter("CREATE (p)<-[:PARENT]-(c);"::equals).count());
+        Assertions.assertEquals(output.lines().filter(line -> line.startsWith(":param rows")).count(),
+                                output.lines().filter(line -> line.startsWith("UNWIND $rows AS row")).count());
+        Assertions.assertFalse(output.contains("WITH "));
+    }
+
+
+    @Test
+    public void writeStringEscapesQuotesAndBackslashes() throws IOException {
+        StringBuilder output = new StringBuilder();
+        BatchedCypherPrinter.writeString(output, "it's C:\\temp\n");
+        Assertions.assertEquals("'it\\'s C:\\\\temp\\n'", output.toString());
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+public class CustomJsonPrinterTest {
+
+    private static String writeString(String value) throws IOException {
+        StringBuilder output = new StringBuilder();
+        CustomJsonPrinter.writeString(output, value);
+        return output.toString();
+    }
+
+
+    @Test
+    public void writeStringEscapesBackslashesAndQuotes() throws IOException {
+        Assertions.assertEquals("\"a\\\\b\\\"c\"", writeString("a\\b\"c"));
+    }
+
+
+    @Test
+    public void writeStringEscapesControlCharacters() throws IOException {
+        Assertions.assertEquals("\"\\t\\n\\r\\b\\f\\u0000\\u001f\"", writeString("\t\n\r\b\f\u0000\u001f"));
+        Assertions.assertEquals("\"plain \u00e9\"", writeString("plain \u00e9"));
+    }
+
+
+    @Test
+    public void outputEscapesStringLiteralValues() {
+        StringLiteralExpr literal = StaticJavaParser.parseExpression("\"C:\\\\temp\"").asStringLiteralExpr();
+
+        String output = new CustomJsonPrinter(false).output(literal);
+        Assertions.assertTrue(output.contains("\"value\":\"C:\\\\\\\\temp\""), output);
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.metamodel.JavaParserMetaModel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.Set;
+
+public class GraphMLPrinterTest {
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+
+    @Test
+    public void allNodeKeysIncludeEveryAttribute() {
+        Set<String> keys = GraphMLPrinter.allNodeKeys(JavaParserMetaModel.getNodeMetaModels(), true);
+
+        Assertions.assertTrue(keys.contains("id"));
+        Assertions.assertTrue(keys.contains("labels"));
+        Assertions.assertTrue(keys.contains("identifier"));
+        Assertions.assertTrue(keys.contains("keyword"));
+    }
+
+
+    @Test
+    public void streamingOutputHasTheSameNodesAndEdges() throws Exception {
+        CompilationUnit cu        = StaticJavaParser.parse("class A { int x = 1; void m(String s) { System.out.println(s); } }");
+        int             nodeCount = cu.stream().mapToInt(n -> 1).sum();
+
+        Document buffered = parse(new GraphMLPrinter(true, false).output(cu));
+        Document streamed = parse(new GraphMLPrinter(true, true).output(cu));
+
+        Assertions.assertEquals(nodeCount, buffered.getElementsByTagName("node").getLength());
+        Assertions.assertEquals(nodeCount, streamed.getElementsByTagName("node").getLength());
+        Assertions.assertEquals(buffered.getElementsByTagName("edge").getLength(), streamed.getElementsByTagName("edge").getLength());
+        Assertions.assertTrue(streamed.getElementsByTagName("key").getLength() >= buffered.getElementsByTagName("key").getLength());
+
+        // The keys must be declared before the graph which uses them.
+        Node graph = streamed.getElementsByTagName("graph").item(0);
+        Node key   = streamed.getElementsByTagName("key").item(0);
+        Assertions.assertTrue((key.compareDocumentPosition(graph) & Node.DOCUMENT_POSITION_FOLLOWING) != 0);
+    }
+
+}
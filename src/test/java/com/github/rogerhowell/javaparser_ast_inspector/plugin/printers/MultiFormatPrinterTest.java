@@ -0,0 +1,56 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+public class MultiFormatPrinterTest {
+
+    private static final String SOURCE = "package a.b;\n" +
+                                         "import java.util.*;\n" +
+                                         "/** Doc with a \"quote\". */\n" +
+                                         "public class A<T> {\n" +
+                                         "    // Line comment\n" +
+                                         "    private String s = \"it's \\\\ escaped\";\n" +
+                                         "    void m(List<T> list) { Object o = new Object(); for (T t : list) { System.out.println(t); } }\n" +
+                                         "    enum E { X, Y }\n" +
+                                         "}\n";
+
+
+    @Test
+    public void singleWalkMatchesEachPrinter() throws IOException {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+        StringBuilder dot    = new StringBuilder();
+        StringBuilder json   = new StringBuilder();
+        StringBuilder cypher = new StringBuilder();
+        new MultiFormatPrinter()
+                .add(new CustomDotPrinter(true), dot)
+                .add(new CustomJsonPrinter(true), json)
+                .add(new CypherPrinter(true), cypher)
+                .output(cu);
+
+        Assertions.assertEquals(new CustomDotPrinter(true).output(cu), dot.toString());
+        Assertions.assertEquals(new CustomJsonPrinter(true).output(cu), json.toString());
+        Assertions.assertEquals(new CypherPrinter(true).output(cu), cypher.toString());
+    }
+
+
+    @Test
+    public void emittersCanBeReused() throws IOException {
+        CompilationUnit   cu      = StaticJavaParser.parse(SOURCE);
+        CustomJsonPrinter printer = new CustomJsonPrinter(false);
+
+        StringBuilder first  = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+        new MultiFormatPrinter().add(printer, first).output(cu);
+        new MultiFormatPrinter().add(printer, second).output(cu);
+
+        Assertions.assertEquals(first.toString(), second.toString());
+        Assertions.assertEquals(printer.output(cu), second.toString());
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class Neo4jImportBundleWriterTest {
+
+    @Test
+    public void writesOneNodesFilePerTypeAndTheRelationships(@TempDir Path directory) throws IOException {
+        CompilationUnit cu        = StaticJavaParser.parse("class A { String s = \"say \\\"hi\\\"\"; }");
+        int             nodeCount = cu.stream().mapToInt(n -> 1).sum();
+
+        List<Path> files = new Neo4jImportBundleWriter(true).write(cu, directory);
+
+        Assertions.assertTrue(files.contains(directory.resolve(Neo4jImportBundleWriter.RELATIONSHIPS_FILE_NAME)));
+        Assertions.assertTrue(files.contains(directory.resolve(Neo4jImportBundleWriter.IMPORT_SCRIPT_FILE_NAME)));
+
+        List<String> relationships = Files.readAllLines(directory.resolve(Neo4jImportBundleWriter.RELATIONSHIPS_FILE_NAME));
+        Assertions.assertEquals(":START_ID,:END_ID,:TYPE", relationships.get(0));
+        Assertions.assertEquals(nodeCount - 1, relationships.size() - 1);
+
+        List<String> literals = Files.readAllLines(directory.resolve(Neo4jImportBundleWriter.nodesFileName("StringLiteralExpr")));
+        Assertions.assertEquals("id:ID,:LABEL,name,_type,value", literals.get(0));
+        Assertions.assertTrue(literals.get(1).endsWith(",\"say \\\"\"hi\\\"\"\""), literals.get(1));
+
+        String script = new String(Files.readAllBytes(directory.resolve(Neo4jImportBundleWriter.IMPORT_SCRIPT_FILE_NAME)));
+        Assertions.assertTrue(script.contains("--nodes=" + Neo4jImportBundleWriter.nodesFileName("ClassOrInterfaceDeclaration")));
+    }
+
+}
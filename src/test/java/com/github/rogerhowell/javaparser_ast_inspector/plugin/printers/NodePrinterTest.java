@@ -0,0 +1,54 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class NodePrinterTest {
+
+    private static final String SOURCE = "package a.b;\n" +
+                                         "import java.util.*;\n" +
+                                         "/** Doc with a \"quote\" and <markup>. */\n" +
+                                         "public class A<T> {\n" +
+                                         "    // Line comment\n" +
+                                         "    private String s = \"it's \\\\ escaped\";\n" +
+                                         "    void m(List<T> list) { Object o = new Object() {}; for (T t : list) { System.out.println(t); } }\n" +
+                                         "    enum E { X, Y }\n" +
+                                         "}\n";
+
+
+    private static Map<String, Supplier<NodePrinter>> printers() {
+        final Map<String, Supplier<NodePrinter>> printers = new LinkedHashMap<>();
+        printers.put("ASCII Tree", ASCIITreePrinter::new);
+        printers.put("Cypher (batched)", () -> new BatchedCypherPrinter(true, 3));
+        printers.put("Custom DOT", () -> new CustomDotPrinter(true));
+        printers.put("Custom JSON", () -> new CustomJsonPrinter(true));
+        printers.put("Cypher", () -> new CypherPrinter(true));
+        printers.put("GraphML", () -> new GraphMLPrinter(true, false));
+        printers.put("GraphML (streaming)", () -> new GraphMLPrinter(true, true));
+        return printers;
+    }
+
+
+    @Test
+    public void streamedOutputMatchesStringOutput() throws IOException {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+        for (Map.Entry<String, Supplier<NodePrinter>> printer : printers().entrySet()) {
+            StringWriter writer = new StringWriter();
+            printer.getValue().get().output(cu, writer);
+
+            String expected = printer.getValue().get().output(cu);
+            Assertions.assertFalse(expected.isEmpty(), printer.getKey());
+            Assertions.assertEquals(expected, writer.toString(), printer.getKey());
+        }
+    }
+
+}
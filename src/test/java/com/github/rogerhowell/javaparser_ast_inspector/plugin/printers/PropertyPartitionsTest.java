@@ -0,0 +1,36 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.printers;
+
+import com.github.javaparser.metamodel.JavaParserMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PropertyPartitionsTest {
+
+    @Test
+    public void partitionsAreSharedPerNodeType() {
+        PropertyPartitions first  = PropertyPartitions.of(JavaParserMetaModel.methodDeclarationMetaModel);
+        PropertyPartitions second = PropertyPartitions.of(JavaParserMetaModel.methodDeclarationMetaModel);
+        Assertions.assertSame(first, second);
+    }
+
+
+    @Test
+    public void partitionsMatchPropertyKinds() {
+        PropertyPartitions partitions = PropertyPartitions.of(JavaParserMetaModel.methodDeclarationMetaModel);
+
+        Assertions.assertTrue(partitions.getAttributes().stream().allMatch(p -> p.isAttribute() && p.isSingular()));
+        Assertions.assertTrue(partitions.getSubNodes().stream().allMatch(p -> p.isNode() && p.isSingular()));
+        Assertions.assertTrue(partitions.getSubLists().stream().allMatch(PropertyMetaModel::isNodeList));
+
+        List<String> subNodeNames = partitions.getSubNodes().stream().map(PropertyMetaModel::getName).collect(Collectors.toList());
+        List<String> subListNames = partitions.getSubLists().stream().map(PropertyMetaModel::getName).collect(Collectors.toList());
+        Assertions.assertTrue(subNodeNames.contains("name"));
+        Assertions.assertTrue(subNodeNames.contains("type"));
+        Assertions.assertTrue(subListNames.contains("parameters"));
+    }
+
+}
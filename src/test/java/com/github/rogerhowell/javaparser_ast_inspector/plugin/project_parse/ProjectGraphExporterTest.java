@@ -0,0 +1,45 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse;
+
+import com.github.rogerhowell.javaparser_ast_inspector.plugin.util.BatchExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ProjectGraphExporterTest {
+
+    @Test
+    public void resultsAreConsumedInOrderWithinTheWindow() throws IOException {
+        final int           window   = 4;
+        final List<Integer> inputs   = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+        final AtomicInteger started  = new AtomicInteger();
+        final List<Integer> consumed = new ArrayList<>();
+
+        try (BatchExecutor executor = BatchExecutor.create(3, false)) {
+            ProjectGraphExporter.forEachInOrder(executor, inputs, window, input -> {
+                started.incrementAndGet();
+                try {
+                    // Such that the tasks complete out of order.
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return input % 7 == 0 ? null : "file" + input;
+            }, result -> {
+                // Those consumed so far, plus at most a window of others.
+                Assertions.assertTrue(started.get() <= consumed.size() + window, "Started: " + started.get());
+                consumed.add(result == null ? null : Integer.parseInt(result.substring("file".length())));
+            });
+        }
+
+        final List<Integer> expected = inputs.stream().map(input -> input % 7 == 0 ? null : input).collect(Collectors.toList());
+        Assertions.assertEquals(expected, consumed);
+    }
+
+}
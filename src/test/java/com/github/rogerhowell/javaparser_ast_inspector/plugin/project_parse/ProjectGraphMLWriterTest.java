@@ -0,0 +1,63 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.project_parse;
+
+import com.github.javaparser.StaticJavaParser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ProjectGraphMLWriterTest {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("<(?:node|edge) id=\"([^\"]+)\"");
+
+    private static final String SOURCE_A = "package a;\n" +
+                                           "public class A { B b; }\n";
+    private static final String SOURCE_B = "package b;\n" +
+                                           "import a.A;\n" +
+                                           "public class B { A a; java.util.List<A> list; }\n";
+
+
+    private static String merge(boolean crossFileEdges) throws IOException {
+        StringBuilder        output = new StringBuilder();
+        ProjectGraphMLWriter writer = new ProjectGraphMLWriter(output, true, crossFileEdges);
+        writer.start();
+        writer.append(ProjectGraphFragment.of("src/a/A.java", StaticJavaParser.parse(SOURCE_A), true, crossFileEdges));
+        writer.append(ProjectGraphFragment.of("src/b/B.java", StaticJavaParser.parse(SOURCE_B), true, crossFileEdges));
+        writer.finish();
+        return output.toString();
+    }
+
+
+    @Test
+    public void idsAreUniqueAndStable() throws IOException {
+        String merged = merge(false);
+
+        Set<String> ids     = new HashSet<>();
+        Matcher     matcher = ID_PATTERN.matcher(merged);
+        while (matcher.find()) {
+            Assertions.assertTrue(ids.add(matcher.group(1)), "Duplicate id: " + matcher.group(1));
+        }
+        Assertions.assertTrue(ids.contains(ProjectGraphFragment.idPrefix("src/a/A.java") + "n0"));
+        Assertions.assertTrue(ids.contains(ProjectGraphFragment.idPrefix("src/b/B.java") + "n0"));
+        Assertions.assertEquals(merged, merge(false));
+        Assertions.assertFalse(merged.contains(ProjectGraphMLWriter.REFERENCE_EDGE_LABEL));
+    }
+
+
+    @Test
+    public void linksReferencesToTypesDeclaredInOtherFiles() throws IOException {
+        String merged       = merge(true);
+        String declarationA = ProjectGraphFragment.of("src/a/A.java", StaticJavaParser.parse(SOURCE_A), true, false).getDeclaredTypes().get("a.A");
+
+        // B's two references to A (the field, and the type argument) -- but not A's reference to B, which is not imported.
+        Assertions.assertNotNull(declarationA);
+        Assertions.assertEquals(2, merged.split("target=\"" + declarationA + "\" label=\"" + ProjectGraphMLWriter.REFERENCE_EDGE_LABEL + "\"", -1).length - 1);
+        Assertions.assertEquals(2, merged.split("label=\"" + ProjectGraphMLWriter.REFERENCE_EDGE_LABEL + "\"", -1).length - 1);
+        Assertions.assertTrue(merged.endsWith("</graphml>"));
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.providers;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+
+public class CharSequenceProviderTest {
+
+    private static final String SOURCE = "class A {\n    int i = 0;\n}\n";
+
+
+    @Test
+    public void readInChunks() {
+        CharSequenceProvider provider = new CharSequenceProvider(new StringBuilder("ABCDE"));
+        char[]               buffer   = new char[10];
+
+        Assertions.assertEquals(2, provider.read(buffer, 0, 2));
+        Assertions.assertEquals(3, provider.read(buffer, 2, 8));
+        Assertions.assertEquals(-1, provider.read(buffer, 5, 5));
+        Assertions.assertEquals("ABCDE", new String(buffer, 0, 5));
+    }
+
+
+    @Test
+    public void readIntoOffset() {
+        CharSequenceProvider provider = new CharSequenceProvider("XYZ");
+        char[]               buffer   = new char[5];
+
+        Assertions.assertEquals(3, provider.read(buffer, 2, 3));
+        Assertions.assertEquals("XYZ", new String(buffer, 2, 3));
+    }
+
+
+    @Test
+    public void emptyInputIsImmediatelyExhausted() {
+        CharSequenceProvider provider = new CharSequenceProvider("");
+        Assertions.assertEquals(-1, provider.read(new char[1], 0, 1));
+    }
+
+
+    @Test
+    public void parseFromCharSequence() {
+        JavaParser                   javaParser = new JavaParser();
+        ParseResult<CompilationUnit> result     = javaParser.parse(ParseStart.COMPILATION_UNIT, new CharSequenceProvider(CharBuffer.wrap(SOURCE)));
+
+        Assertions.assertTrue(result.isSuccessful());
+        Assertions.assertTrue(result.getResult().isPresent());
+        Assertions.assertEquals("A", result.getResult().get().getType(0).getNameAsString());
+    }
+
+}
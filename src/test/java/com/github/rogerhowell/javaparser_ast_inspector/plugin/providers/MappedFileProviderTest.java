@@ -0,0 +1,83 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.providers;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MappedFileProviderTest {
+
+    /**
+     * Includes two, three and four byte (surrogate pair) UTF-8 characters, such that some are split across windows.
+     */
+    private static final String SOURCE = "class A {\n" +
+                                         "    String s = \"café € 😀 üñîçødé\";\n" +
+                                         "    // 日本語のコメント\n" +
+                                         "}\n";
+
+
+    private static String readAll(Path path, Charset charset, int windowBytes, int readSize) throws IOException {
+        final StringBuilder sb     = new StringBuilder();
+        final char[]        buffer = new char[readSize];
+        try (MappedFileProvider provider = new MappedFileProvider(path, charset, windowBytes)) {
+            int count;
+            while ((count = provider.read(buffer, 0, buffer.length)) != -1) {
+                sb.append(buffer, 0, count);
+            }
+        }
+        return sb.toString();
+    }
+
+
+    private static Path writeTempFile(String text, Charset charset) throws IOException {
+        final Path path = Files.createTempFile("MappedFileProviderTest", ".java");
+        path.toFile().deleteOnExit();
+        Files.write(path, text.getBytes(charset));
+        return path;
+    }
+
+
+    @Test
+    public void charactersSplitAcrossWindowsAreDecoded() throws IOException {
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.UTF_16LE, StandardCharsets.UTF_16}) {
+            final Path path = writeTempFile(SOURCE, charset);
+            for (int windowBytes = 16; windowBytes <= 40; windowBytes++) {
+                Assertions.assertEquals(SOURCE, readAll(path, charset, windowBytes, 7), charset + ", window of " + windowBytes + " bytes");
+            }
+        }
+    }
+
+
+    @Test
+    public void emptyFileIsImmediatelyExhausted() throws IOException {
+        final Path path = writeTempFile("", StandardCharsets.UTF_8);
+        try (MappedFileProvider provider = new MappedFileProvider(path, StandardCharsets.UTF_8)) {
+            Assertions.assertEquals(-1, provider.read(new char[1], 0, 1));
+        }
+    }
+
+
+    @Test
+    public void parseFromMappedFile() throws IOException {
+        final Path       path       = writeTempFile(SOURCE, StandardCharsets.UTF_8);
+        final JavaParser javaParser = new JavaParser(new ParserConfiguration());
+
+        final ParseResult<CompilationUnit> result;
+        try (MappedFileProvider provider = new MappedFileProvider(path, StandardCharsets.UTF_8, 16)) {
+            result = javaParser.parse(ParseStart.COMPILATION_UNIT, provider);
+        }
+
+        Assertions.assertTrue(result.isSuccessful());
+        Assertions.assertEquals(javaParser.parse(SOURCE).getResult().get(), result.getResult().get());
+    }
+
+}
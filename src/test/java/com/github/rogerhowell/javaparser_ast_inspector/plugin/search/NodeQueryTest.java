@@ -0,0 +1,62 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.search;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class NodeQueryTest {
+
+    private static final String SOURCE = "" +
+            "class A {\n" +
+            "    Object first(java.util.List<String> list) { return list.get(0); }\n" +
+            "    void lambdas(java.util.List<String> list) {\n" +
+            "        list.forEach(s -> map.get(s).get());\n" +
+            "        Runnable r = () -> { if (list.isEmpty()) { get(); } };\n" +
+            "    }\n" +
+            "    class Inner { int get() { return 1 + 2; } }\n" +
+            "}\n";
+
+
+    private static List<String> evaluate(CompilationUnit cu, String query) {
+        return NodeQuery.parse(query).evaluate(NodeQueryIndex.of(cu)).stream()
+                        .map(Node::toString)
+                        .collect(Collectors.toList());
+    }
+
+
+    @Test
+    public void findsNodesByTypeAttributesAndAncestors() {
+        CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+        Assertions.assertEquals(4, evaluate(cu, "//MethodCallExpr[name='get']").size());
+        Assertions.assertEquals(List.of("map.get(s).get()", "map.get(s)", "get()"), evaluate(cu, "//LambdaExpr//MethodCallExpr[name='get']"));
+        // Only the direct body of the lambda, which is a call -- not the block of the other lambda.
+        Assertions.assertEquals(List.of("map.get(s).get()"), evaluate(cu, "LambdaExpr/ExpressionStmt/MethodCallExpr"));
+
+        // Subtypes, negation, and attributes which are not names.
+        Assertions.assertEquals(List.of("Inner"), evaluate(cu, "/CompilationUnit/TypeDeclaration//TypeDeclaration/SimpleName"));
+        Assertions.assertEquals(List.of("first", "lambdas"), evaluate(cu, "//MethodDeclaration[name!=get]/SimpleName"));
+        Assertions.assertEquals(List.of("1 + 2"), evaluate(cu, "//BinaryExpr[operator=PLUS]"));
+        Assertions.assertEquals(cu.findAll(MethodDeclaration.class).size(), evaluate(cu, "//MethodDeclaration").size());
+        Assertions.assertEquals(2, evaluate(cu, "//Parameter[type=\"java.util.List<String>\"]").size());
+        Assertions.assertEquals(cu.findAll(MethodCallExpr.class, call -> call.getNameAsString().equals("get")).size() + 1, evaluate(cu, "//*[name=get]").size());
+    }
+
+
+    @Test
+    public void reportsWhereTheQueryIsInvalid() {
+        NodeQuery.SyntaxException unknownType = Assertions.assertThrows(NodeQuery.SyntaxException.class, () -> NodeQuery.parse("//LambdaExpr//MethodCall"));
+        Assertions.assertEquals(14, unknownType.getPosition());
+
+        NodeQuery.SyntaxException unclosed = Assertions.assertThrows(NodeQuery.SyntaxException.class, () -> NodeQuery.parse("//MethodCallExpr[name='get'"));
+        Assertions.assertEquals(27, unclosed.getPosition());
+    }
+
+}
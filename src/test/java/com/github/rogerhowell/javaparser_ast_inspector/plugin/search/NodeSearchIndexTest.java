@@ -0,0 +1,69 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.search;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class NodeSearchIndexTest {
+
+    private static final String SOURCE = "" +
+            "class Greeter {\n" +
+            "    void greet(String name) { System.out.println(\"Hello, \" + name); }\n" +
+            "    void greetAll() { greet(\"World\"); }\n" +
+            "}\n";
+
+
+    private static List<String> describe(List<Node> nodes) {
+        return nodes.stream()
+                    .map(node -> node.getClass().getSimpleName() + ":" + node.getBegin().get())
+                    .collect(Collectors.toList());
+    }
+
+
+    @Test
+    public void findsByPrefixIgnoringCase() {
+        CompilationUnit cu    = StaticJavaParser.parse(SOURCE);
+        NodeSearchIndex index = NodeSearchIndex.of(cu);
+
+        // The names of the class, the methods and the call.
+        List<Node> greet = index.search("GREET", false);
+        Assertions.assertEquals(4, greet.size(), describe(greet).toString());
+        Assertions.assertTrue(greet.stream().allMatch(node -> node instanceof SimpleName));
+        Assertions.assertEquals(1, index.search("greetA", false).size());
+
+        // By type name.
+        Assertions.assertEquals(cu.findAll(MethodDeclaration.class).size() + cu.findAll(MethodCallExpr.class).size(), index.search("Method", false).size());
+        Assertions.assertTrue(index.search("", false).isEmpty());
+        Assertions.assertTrue(index.search("zzz", false).isEmpty());
+    }
+
+
+    @Test
+    public void findsBySubstringInTheOrderOfTheTree() {
+        CompilationUnit cu    = StaticJavaParser.parse(SOURCE);
+        NodeSearchIndex index = NodeSearchIndex.of(cu);
+
+        List<Node> ree = index.search("ree", true);
+        Assertions.assertEquals(4, ree.size(), describe(ree).toString());
+        Assertions.assertSame(cu.getType(0).getName(), ree.get(0));
+        Assertions.assertTrue(ree.get(3).isDescendantOf(cu.findFirst(MethodCallExpr.class, call -> call.getNameAsString().equals("greet")).get()));
+
+        List<Node> hello = index.search("LLO, ", true);
+        Assertions.assertEquals(1, hello.size());
+        Assertions.assertEquals("Hello, ", ((StringLiteralExpr) hello.get(0)).getValue());
+
+        // Queries shorter than a trigram.
+        Assertions.assertEquals(index.search("wo", true), index.search("world", true));
+        Assertions.assertEquals(1, index.search("wo", true).size());
+    }
+
+}
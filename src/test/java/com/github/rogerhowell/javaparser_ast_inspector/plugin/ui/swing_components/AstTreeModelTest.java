@@ -0,0 +1,152 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.ui.swing_components;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AstTreeModelTest {
+
+    private static final String SOURCE = "class A { int i; int i; void m() { call(1); } }";
+
+
+    private static List<String> recordEvents(AstTreeModel model) {
+        List<String> events = new ArrayList<>();
+        model.addTreeModelListener(new TreeModelListener() {
+            @Override
+            public void treeNodesChanged(TreeModelEvent e) {
+                events.add("changed " + (e.getChildIndices() == null ? "root" : e.getChildIndices()[0]));
+            }
+
+
+            @Override
+            public void treeNodesInserted(TreeModelEvent e) {
+                events.add("inserted " + e.getChildIndices()[0]);
+            }
+
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent e) {
+                events.add("removed " + e.getChildIndices()[0]);
+            }
+
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent e) {
+                events.add("structure");
+            }
+        });
+        return events;
+    }
+
+
+    /**
+     * By identity -- {@link List#indexOf(Object)} would find the first of several alike nodes.
+     */
+    private static int indexOf(Node parent, Node child) {
+        for (int i = 0; i < parent.getChildNodes().size(); i++) {
+            if (parent.getChildNodes().get(i) == child) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    @Test
+    public void childrenAreCreatedOnlyWhenAskedFor() {
+        CompilationUnit          cu    = StaticJavaParser.parse(SOURCE);
+        AstTreeModel.AstTreeNode root  = new AstTreeModel.AstTreeNode(cu);
+        AstTreeModel             model = new AstTreeModel(root);
+
+        Assertions.assertEquals(1, model.getChildCount(root));
+        Assertions.assertFalse(model.isLeaf(root));
+        Assertions.assertFalse(root.hasChildTreeNodes());
+
+        AstTreeModel.AstTreeNode type = (AstTreeModel.AstTreeNode) model.getChild(root, 0);
+        Assertions.assertTrue(root.hasChildTreeNodes());
+        Assertions.assertFalse(type.hasChildTreeNodes());
+        Assertions.assertSame(cu.getType(0), type.getNode());
+        Assertions.assertNull(model.findTreeNode(cu.findFirst(MethodDeclaration.class).get()));
+
+        // The two fields are alike, but are distinct tree nodes.
+        List<FieldDeclaration>   fields = cu.findAll(FieldDeclaration.class);
+        AstTreeModel.AstTreeNode first  = (AstTreeModel.AstTreeNode) model.getChild(type, indexOf(type.getNode(), fields.get(0)));
+        AstTreeModel.AstTreeNode second = (AstTreeModel.AstTreeNode) model.getChild(type, indexOf(type.getNode(), fields.get(1)));
+        Assertions.assertNotEquals(first, second);
+        Assertions.assertSame(fields.get(0), first.getNode());
+        Assertions.assertSame(fields.get(1), second.getNode());
+        Assertions.assertSame(second, model.findTreeNode(fields.get(1)));
+        Assertions.assertEquals(3, model.getPathToRoot(second).getPathCount());
+
+        // Getting (rather than finding) the tree node of a node not yet expanded to creates the tree nodes on its path.
+        MethodCallExpr           call         = cu.findFirst(MethodCallExpr.class).get();
+        AstTreeModel.AstTreeNode callTreeNode = model.getTreeNode(call);
+        Assertions.assertNotNull(callTreeNode);
+        Assertions.assertSame(call, callTreeNode.getNode());
+        Assertions.assertSame(callTreeNode, model.findTreeNode(call));
+    }
+
+
+    @Test
+    public void replacedChildrenAreReported() {
+        CompilationUnit          cu    = StaticJavaParser.parse(SOURCE);
+        AstTreeModel.AstTreeNode root  = new AstTreeModel.AstTreeNode(cu);
+        AstTreeModel             model = new AstTreeModel(root);
+        AstTreeModel.AstTreeNode type  = (AstTreeModel.AstTreeNode) model.getChild(root, 0);
+
+        List<String> events = recordEvents(model);
+
+        // The children of the type have not been created, so there is nothing to replace.
+        ClassOrInterfaceDeclaration declaration = (ClassOrInterfaceDeclaration) type.getNode();
+        MethodDeclaration           oldMethod   = declaration.getMethods().get(0);
+        int                         index       = indexOf(declaration, oldMethod);
+        Assertions.assertNull(model.replaceChild(type, oldMethod));
+
+        AstTreeModel.AstTreeNode oldTreeNode = (AstTreeModel.AstTreeNode) model.getChild(type, index);
+        Node                     newMethod   = StaticJavaParser.parseBodyDeclaration("void n() {}");
+        // The method is the last child, thus remains so once replaced.
+        oldMethod.replace(newMethod);
+
+        Assertions.assertSame(oldTreeNode, model.replaceChild(type, oldMethod));
+        Assertions.assertSame(newMethod, ((AstTreeModel.AstTreeNode) model.getChild(type, index)).getNode());
+        Assertions.assertEquals("[removed " + index + ", inserted " + index + "]", events.toString());
+    }
+
+
+    @Test
+    public void updatesOnlyWhatHasChanged() {
+        String                   before = "class A {\n  int i;\n  void m() {\n    call(1);\n  }\n  int j;\n}\n";
+        String                   after  = "class A {\n  int i;\n  int k;\n  void m() {\n    call(2);\n  }\n  int j;\n}\n";
+        AstTreeModel.AstTreeNode root   = new AstTreeModel.AstTreeNode(StaticJavaParser.parse(before));
+        AstTreeModel             model  = new AstTreeModel(root);
+        AstTreeModel.AstTreeNode type   = (AstTreeModel.AstTreeNode) model.getChild(root, 0);
+        AstTreeModel.AstTreeNode method = (AstTreeModel.AstTreeNode) model.getChild(type, 2);
+        AstTreeModel.AstTreeNode last   = (AstTreeModel.AstTreeNode) model.getChild(type, 3);
+        model.getChild(method, 0);
+        List<String> events = recordEvents(model);
+
+        CompilationUnit cu = StaticJavaParser.parse(after);
+        model.update(cu);
+
+        // The field is inserted, and the tree nodes which follow it are kept (and moved).
+        Assertions.assertTrue(events.contains("inserted 2"), events.toString());
+        Assertions.assertFalse(events.stream().anyMatch(event -> event.startsWith("removed")), events.toString());
+        Assertions.assertSame(type, model.getChild(root, 0));
+        Assertions.assertSame(method, model.getChild(type, 3));
+        Assertions.assertSame(last, model.getChild(type, 4));
+        Assertions.assertSame(cu.findFirst(MethodDeclaration.class).get(), method.getNode());
+        Assertions.assertFalse(((AstTreeModel.AstTreeNode) model.getChild(type, 2)).hasChildTreeNodes());
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AsyncChannelWriterTest {
+
+    @Test
+    public void writesEverythingAcrossManyBuffers() throws IOException {
+        Path file = Files.createTempFile("async-channel-writer", ".txt");
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            expected.append("line ").append(i).append(" \u00e9\u4e2d\ud83d\ude00").append('\n');
+        }
+
+        AtomicLong progress = new AtomicLong();
+        try (Writer writer = AsyncChannelWriter.open(file, StandardCharsets.UTF_8, 1000, progress::set)) {
+            // Write in uneven pieces, such that surrogate pairs are split between writes.
+            for (int start = 0; start < expected.length(); start += 997) {
+                writer.write(expected.toString(), start, Math.min(997, expected.length() - start));
+            }
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        Assertions.assertEquals(expected.toString(), new String(bytes, StandardCharsets.UTF_8));
+        Assertions.assertEquals(bytes.length, progress.get());
+    }
+
+
+    @Test
+    public void replacesExistingContent() throws IOException {
+        Path file = Files.createTempFile("async-channel-writer", ".txt");
+        Files.write(file, "some much longer previous content".getBytes(StandardCharsets.UTF_8));
+
+        try (Writer writer = AsyncChannelWriter.open(file, StandardCharsets.UTF_8, null)) {
+            writer.append("new");
+        }
+
+        Assertions.assertEquals("new", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+}
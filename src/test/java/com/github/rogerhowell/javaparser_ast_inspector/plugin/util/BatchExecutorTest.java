@@ -0,0 +1,53 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchExecutorTest {
+
+    private static void assertConcurrencyIsCapped(BatchExecutor executor) throws InterruptedException, ExecutionException {
+        final AtomicInteger running    = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        final List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final int index = i;
+            futures.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return index;
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            Assertions.assertEquals(i, (int) futures.get(i).get());
+        }
+        Assertions.assertTrue(maxRunning.get() <= executor.getMaxConcurrency(), "Max running: " + maxRunning.get());
+    }
+
+
+    @Test
+    public void platformThreadsAreCapped() throws InterruptedException, ExecutionException {
+        try (BatchExecutor executor = BatchExecutor.create(3, false)) {
+            Assertions.assertFalse(executor.isVirtualThreads());
+            assertConcurrencyIsCapped(executor);
+        }
+    }
+
+
+    @Test
+    public void virtualThreadsAreCappedWhenSupported() throws InterruptedException, ExecutionException {
+        // Falls back to platform threads on runtimes without virtual threads.
+        try (BatchExecutor executor = BatchExecutor.create(3, true)) {
+            assertConcurrencyIsCapped(executor);
+        }
+    }
+
+}
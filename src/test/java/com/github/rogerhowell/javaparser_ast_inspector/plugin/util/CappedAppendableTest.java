@@ -0,0 +1,30 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+public class CappedAppendableTest {
+
+    @Test
+    public void keepsEverythingWithinTheLimit() throws IOException {
+        CappedAppendable appendable = new CappedAppendable(5);
+        appendable.append("abc").append('d').append("xex", 1, 2);
+
+        Assertions.assertEquals("abcde", appendable.getText());
+        Assertions.assertFalse(appendable.isTruncated());
+    }
+
+
+    @Test
+    public void stopsOnceTheLimitIsReached() throws IOException {
+        CappedAppendable appendable = new CappedAppendable(5);
+        appendable.append("abc");
+
+        Assertions.assertThrows(CappedAppendable.LimitReachedException.class, () -> appendable.append("defgh"));
+        Assertions.assertEquals("abcde", appendable.getText());
+        Assertions.assertTrue(appendable.isTruncated());
+    }
+
+}
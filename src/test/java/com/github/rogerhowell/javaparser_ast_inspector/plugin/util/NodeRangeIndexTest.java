@@ -0,0 +1,80 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.type.PrimitiveType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class NodeRangeIndexTest {
+
+    private static final String SOURCE = "" +
+            "package a;\n" +
+            "\n" +
+            "class A {\n" +
+            "    /** Docs. */\n" +
+            "    int i = 1 + 2;\n" +
+            "    java.util.List<String> list;\n" +
+            "\n" +
+            "    void m(int x) { if (x > 0) { call(x, \"s\"); } }\n" +
+            "}\n";
+
+
+    private static int depth(Node node) {
+        return node.getParentNode().map(parent -> depth(parent) + 1).orElse(0);
+    }
+
+
+    /**
+     * The node with the smallest range which includes the position (the deepest, if several have the same range),
+     * found by checking every node -- a node's range is not always within that of its parent (e.g. the type of a field
+     * is a child of the variable, which begins at the variable's name), thus the AST cannot be pruned by range.
+     */
+    private static Node findByCheckingEveryNode(Node root, Position position) {
+        Node found = null;
+        for (Node node : root.findAll(Node.class)) {
+            if (node.getRange().isPresent() && node.getRange().get().contains(position)) {
+                if (found == null
+                    || found.getRange().get().contains(node.getRange().get()) && (!node.getRange().equals(found.getRange()) || depth(node) > depth(found))) {
+                    found = node;
+                }
+            }
+        }
+        return found;
+    }
+
+
+    @Test
+    public void findsTheSameNodesAsCheckingEveryNode() {
+        CompilationUnit cu    = StaticJavaParser.parse(SOURCE);
+        NodeRangeIndex  index = NodeRangeIndex.of(cu);
+
+        String[] lines = SOURCE.split("\n");
+        for (int line = 0; line <= lines.length + 1; line++) {
+            for (int column = 0; column <= 60; column++) {
+                Position position = new Position(line, column);
+                Assertions.assertSame(findByCheckingEveryNode(cu, position), index.findDeepestAt(position), position.toString());
+            }
+        }
+    }
+
+
+    @Test
+    public void findsTheDeepestNode() {
+        CompilationUnit cu    = StaticJavaParser.parse(SOURCE);
+        NodeRangeIndex  index = NodeRangeIndex.of(cu);
+
+        Assertions.assertTrue(index.findDeepestAt(new Position(5, 5)) instanceof PrimitiveType);
+        Assertions.assertTrue(index.findDeepestAt(new Position(5, 13)) instanceof IntegerLiteralExpr);
+        Assertions.assertEquals("m", ((SimpleName) index.findDeepestAt(new Position(8, 10))).getIdentifier());
+        // Between members, and beyond the end of the file.
+        Assertions.assertTrue(index.findDeepestAt(new Position(7, 1)) instanceof ClassOrInterfaceDeclaration);
+        Assertions.assertNull(index.findDeepestAt(new Position(10, 1)));
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.github.rogerhowell.javaparser_ast_inspector.plugin.util;
+
+import com.github.javaparser.ParserConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ParserConfigurationUtilTest {
+
+    @Test
+    public void equivalentConfigurationsHaveTheSameFingerprint() {
+        ParserConfiguration a = new ParserConfiguration().setTabSize(4).setStoreTokens(false);
+        ParserConfiguration b = new ParserConfiguration().setStoreTokens(false).setTabSize(4);
+
+        Assertions.assertEquals(ParserConfigurationUtil.fingerprint(a), ParserConfigurationUtil.fingerprint(b));
+    }
+
+
+    @Test
+    public void differentConfigurationsHaveDifferentFingerprints() {
+        ParserConfiguration a = new ParserConfiguration();
+        ParserConfiguration b = new ParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_8);
+        ParserConfiguration c = new ParserConfiguration().setAttributeComments(false);
+
+        Assertions.assertNotEquals(ParserConfigurationUtil.fingerprint(a), ParserConfigurationUtil.fingerprint(b));
+        Assertions.assertNotEquals(ParserConfigurationUtil.fingerprint(a), ParserConfigurationUtil.fingerprint(c));
+    }
+
+}